@@ -0,0 +1,204 @@
+package com.rubenmathews.bytereactor.ecj;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.CompilerBackend;
+import com.rubenmathews.bytereactor.DiagnosticReportLevel;
+import com.rubenmathews.bytereactor.JavaCompilerBackend;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the compile latency of javac and ECJ through a ByteReactor. Every iteration loads a
+ * new class, generated with a given number of methods, so nothing is served from a cache. The
+ * first compilation of a fresh ByteReactor is reported separately, it includes the start of
+ * the compiler.
+ *
+ * <pre>
+ * java -cp "target/*:..." com.rubenmathews.bytereactor.ecj.CompilerBenchmark \
+ *         --warmup=50 --iterations=200 --methods=5,50,500
+ * </pre>
+ */
+public final class CompilerBenchmark {
+
+  private final int warmup;
+  private final int iterations;
+  private final List<Integer> methods;
+  private final Map<String, Supplier<CompilerBackend>> backends = new LinkedHashMap<>();
+  private int classCounter;
+
+  CompilerBenchmark(int warmup, int iterations, List<Integer> methods) {
+    this.warmup = warmup;
+    this.iterations = iterations;
+    this.methods = methods;
+    backends.put("javac", JavaCompilerBackend::javac);
+    backends.put("ecj", EclipseCompilerBackend::new);
+  }
+
+  /**
+   * Run the benchmark and print the results.
+   *
+   * @param arguments {@code --warmup=N --iterations=N --methods=N,N,...}
+   */
+  public static void main(String[] arguments) {
+    int warmup = 50;
+    int iterations = 200;
+    List<Integer> methods = Arrays.asList(5, 50, 500);
+    for (String argument : arguments) {
+      int separator = argument.indexOf('=');
+      if (!argument.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got [" + argument + "]");
+      }
+      String value = argument.substring(separator + 1);
+      switch (argument.substring(2, separator)) {
+        case "warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "iterations":
+          iterations = Integer.parseInt(value);
+          break;
+        case "methods":
+          methods = new ArrayList<>();
+          for (String size : value.split(",")) {
+            methods.add(Integer.parseInt(size.trim()));
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument [" + argument + "]");
+      }
+    }
+    System.out.println(String.format(Locale.ROOT, "%-8s %8s %10s %10s %10s %10s", "backend",
+            "methods", "first ms", "p50 ms", "p99 ms", "mean ms"));
+    for (Result result : new CompilerBenchmark(warmup, iterations, methods).run()) {
+      System.out.println(result);
+    }
+  }
+
+  /**
+   * Run every backend on every source size.
+   *
+   * @return the results, by source size and backend
+   */
+  List<Result> run() {
+    List<Result> results = new ArrayList<>();
+    for (int methodCount : methods) {
+      for (Map.Entry<String, Supplier<CompilerBackend>> backend : backends.entrySet()) {
+        results.add(run(backend.getKey(), backend.getValue().get(), methodCount));
+      }
+    }
+    return results;
+  }
+
+  private Result run(String backendName, CompilerBackend backend, int methodCount) {
+    ByteReactor byteReactor = ByteReactorBuilder.builder()
+            .withCompilerBackend(backend)
+            .withReportLevel(DiagnosticReportLevel.ERROR)
+            .build();
+    try {
+      long first = compile(byteReactor, methodCount);
+      for (int i = 0; i < warmup; i++) {
+        compile(byteReactor, methodCount);
+      }
+      long[] latencies = new long[iterations];
+      for (int i = 0; i < iterations; i++) {
+        latencies[i] = compile(byteReactor, methodCount);
+      }
+      return new Result(backendName, methodCount, first, latencies);
+    } finally {
+      byteReactor.close();
+    }
+  }
+
+  private long compile(ByteReactor byteReactor, int methodCount) {
+    String className = "com.example.benchmark.Generated" + classCounter++;
+    String source = generate(className, methodCount);
+    long start = System.nanoTime();
+    byteReactor.loadClass(new CompilationRequest(source, className));
+    return System.nanoTime() - start;
+  }
+
+  /*
+   * A rule-like class, every method mixes arithmetic, a loop, a lambda and string handling.
+   */
+  static String generate(String className, int methodCount) {
+    int packageEnd = className.lastIndexOf('.');
+    StringBuilder source = new StringBuilder()
+            .append("package ").append(className, 0, packageEnd).append(";\n")
+            .append("import java.util.ArrayList;\n")
+            .append("import java.util.List;\n")
+            .append("import java.util.function.Function;\n")
+            .append("public class ").append(className.substring(packageEnd + 1))
+            .append(" {\n");
+    for (int i = 0; i < methodCount; i++) {
+      source.append("  public List<String> rule").append(i).append("(int limit) {\n")
+              .append("    List<String> values = new ArrayList<>();\n")
+              .append("    Function<Integer, String> format = value -> \"v\" + value * ")
+              .append(i + 1).append(";\n")
+              .append("    for (int j = 0; j < limit; j++) {\n")
+              .append("      if (j % 3 == ").append(i % 3).append(") {\n")
+              .append("        values.add(format.apply(j).toUpperCase());\n")
+              .append("      }\n")
+              .append("    }\n")
+              .append("    return values;\n")
+              .append("  }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  static final class Result {
+    private final String backend;
+    private final int methods;
+    private final long firstNanos;
+    private final long[] latencies;
+
+    private Result(String backend, int methods, long firstNanos, long[] latencies) {
+      this.backend = backend;
+      this.methods = methods;
+      this.firstNanos = firstNanos;
+      this.latencies = latencies.clone();
+      Arrays.sort(this.latencies);
+    }
+
+    String getBackend() {
+      return backend;
+    }
+
+    int getMethods() {
+      return methods;
+    }
+
+    long getPercentileNanos(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+    }
+
+    long getMeanNanos() {
+      long sum = 0;
+      for (long latency : latencies) {
+        sum += latency;
+      }
+      return latencies.length == 0 ? 0 : sum / latencies.length;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%-8s %8d %10.2f %10.2f %10.2f %10.2f", backend, methods,
+              millis(firstNanos), millis(getPercentileNanos(50)),
+              millis(getPercentileNanos(99)), millis(getMeanNanos()));
+    }
+
+    private static double millis(long nanos) {
+      return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
+}
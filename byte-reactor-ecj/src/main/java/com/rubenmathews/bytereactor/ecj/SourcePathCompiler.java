@@ -0,0 +1,70 @@
+package com.rubenmathews.bytereactor.ecj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import javax.lang.model.SourceVersion;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * Hands the file manager of every task to the Eclipse compiler wrapped in a
+ * {@link SourcePathFileManager}, and gives the standard file managers an empty source path,
+ * ECJ refuses lookups on locations which are not set.
+ */
+final class SourcePathCompiler implements JavaCompiler {
+
+  private final JavaCompiler javaCompiler;
+
+  SourcePathCompiler(JavaCompiler javaCompiler) {
+    this.javaCompiler = javaCompiler;
+  }
+
+  @Override
+  public CompilationTask getTask(Writer out, JavaFileManager fileManager,
+                                 DiagnosticListener<? super JavaFileObject> diagnosticListener,
+                                 Iterable<String> options, Iterable<String> classes,
+                                 Iterable<? extends JavaFileObject> compilationUnits) {
+    return javaCompiler.getTask(out, new SourcePathFileManager(fileManager), diagnosticListener,
+            options, classes, compilationUnits);
+  }
+
+  @Override
+  public StandardJavaFileManager getStandardFileManager(
+          DiagnosticListener<? super JavaFileObject> diagnosticListener, Locale locale,
+          Charset charset) {
+    StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(
+            diagnosticListener, locale, charset);
+    try {
+      fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.emptyList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return fileManager;
+  }
+
+  @Override
+  public int run(InputStream in, OutputStream out, OutputStream err, String... arguments) {
+    return javaCompiler.run(in, out, err, arguments);
+  }
+
+  @Override
+  public Set<SourceVersion> getSourceVersions() {
+    return javaCompiler.getSourceVersions();
+  }
+
+  @Override
+  public int isSupportedOption(String option) {
+    return javaCompiler.isSupportedOption(option);
+  }
+}
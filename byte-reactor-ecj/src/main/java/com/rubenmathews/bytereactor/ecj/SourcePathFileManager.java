@@ -0,0 +1,41 @@
+package com.rubenmathews.bytereactor.ecj;
+
+import com.rubenmathews.bytereactor.CompilationUnit;
+import java.io.IOException;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * ECJ only compiles sources it finds on the source path of the file manager or as files on
+ * disk. This file manager puts the compilation units of a ByteReactor on the source path, so
+ * string sources compile as well. The source path has to be set on the standard file manager,
+ * see {@link SourcePathCompiler}.
+ */
+final class SourcePathFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+  SourcePathFileManager(JavaFileManager fileManager) {
+    super(fileManager);
+  }
+
+  @Override
+  public boolean contains(Location location, FileObject file) throws IOException {
+    if (location == StandardLocation.SOURCE_PATH && file instanceof CompilationUnit) {
+      return true;
+    }
+    return super.contains(location, file);
+  }
+
+  /*
+   * ECJ names the class files it writes by their internal names, com/example/Rule instead of
+   * com.example.Rule.
+   */
+  @Override
+  public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                             JavaFileObject.Kind kind, FileObject sibling)
+          throws IOException {
+    return super.getJavaFileForOutput(location, className.replace('/', '.'), kind, sibling);
+  }
+}
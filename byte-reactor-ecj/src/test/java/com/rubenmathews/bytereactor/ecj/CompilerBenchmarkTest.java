@@ -0,0 +1,24 @@
+package com.rubenmathews.bytereactor.ecj;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+class CompilerBenchmarkTest {
+
+    @Test
+    void whenBenchmarkRuns_shouldReportEveryBackendForEverySourceSize() {
+        List<CompilerBenchmark.Result> results = new CompilerBenchmark(1, 3, Arrays.asList(1, 20)).run();
+
+        Assertions.assertThat(results)
+                .extracting(CompilerBenchmark.Result::getBackend, CompilerBenchmark.Result::getMethods)
+                .containsExactly(Assertions.tuple("javac", 1), Assertions.tuple("ecj", 1),
+                        Assertions.tuple("javac", 20), Assertions.tuple("ecj", 20));
+        Assertions.assertThat(results).allSatisfy(result -> {
+            Assertions.assertThat(result.getPercentileNanos(50)).isPositive();
+            Assertions.assertThat(result.getPercentileNanos(99)).isGreaterThanOrEqualTo(result.getPercentileNanos(50));
+        });
+    }
+}
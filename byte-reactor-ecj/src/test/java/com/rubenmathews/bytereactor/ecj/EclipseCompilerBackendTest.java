@@ -0,0 +1,73 @@
+package com.rubenmathews.bytereactor.ecj;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompilationDiagnostic;
+import com.rubenmathews.bytereactor.CompilationFailedException;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.CompilationRequestBatch;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.tools.Diagnostic;
+
+class EclipseCompilerBackendTest {
+
+    private static final String GREETER = "package com.example;\n"
+            + "import java.util.function.Supplier;\n"
+            + "public class Greeter implements Supplier<String> {\n"
+            + "  public String get() {\n"
+            + "    Supplier<String> name = () -> new Name().value();\n"
+            + "    return \"Hello \" + name.get();\n"
+            + "  }\n"
+            + "  static class Nested {\n"
+            + "  }\n"
+            + "}\n";
+    private static final String NAME = "package com.example;\n"
+            + "public class Name {\n"
+            + "  String value() { return \"ECJ\"; }\n"
+            + "}\n";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSourcesAreCompiledWithEcj_shouldLoadAndCacheThem() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend(new EclipseCompilerBackend())
+                .build();
+        try {
+            Map<String, Class<?>> classes = byteReactor.loadClasses(CompilationRequestBatch.builder()
+                    .add(GREETER, "com.example.Greeter")
+                    .add(NAME, "com.example.Name")
+                    .build());
+            Class<?> greeter = classes.get("com.example.Greeter");
+
+            Assertions.assertThat(((Supplier<String>) greeter.getDeclaredConstructor().newInstance()).get())
+                    .isEqualTo("Hello ECJ");
+            Assertions.assertThat(greeter.getDeclaredClasses()).extracting(Class::getSimpleName).containsExactly("Nested");
+            Assertions.assertThat(byteReactor.loadClass(new CompilationRequest(NAME, "com.example.Name")))
+                    .isSameAs(classes.get("com.example.Name"));
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSourceDoesNotCompile_shouldFailWithTheDiagnostics() {
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend(new EclipseCompilerBackend())
+                .build();
+        try {
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(
+                            "package com.example;\npublic class Broken { int value() { return \"\"; } }\n",
+                            "com.example.Broken")))
+                    .isInstanceOfSatisfying(CompilationFailedException.class, e ->
+                            Assertions.assertThat(e.getDiagnostics())
+                                    .extracting(CompilationDiagnostic::getKind, CompilationDiagnostic::getLineNumber)
+                                    .contains(Assertions.tuple(Diagnostic.Kind.ERROR, 2L)));
+        } finally {
+            byteReactor.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.rubenmathews.bytereactor.maven;
+
+import com.rubenmathews.bytereactor.CompilationFailedException;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Precompiles the sources ByteReactor loads at runtime into a precompiled artifact, against
+ * the compile class path of the project. The artifact is written into the classes directory by
+ * default, so it is packaged with the project and can be read as a class path resource with
+ * {@code PrecompiledArtifact.read}.
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  private MavenProject project;
+
+  /**
+   * The directories of the sources, class names are inferred from the paths of the sources.
+   */
+  @Parameter(defaultValue = "${project.basedir}/src/main/byte-reactor")
+  private List<File> sourceDirectories;
+
+  /**
+   * The precompiled artifact.
+   */
+  @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF/byte-reactor/"
+          + "precompiled.jar")
+  private File outputFile;
+
+  /**
+   * Compile every source directory as one batch instead of every source on its own.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean batch;
+
+  @Parameter(defaultValue = "${project.build.sourceEncoding}")
+  private String encoding;
+
+  @Parameter(property = "byte-reactor.skip", defaultValue = "false")
+  private boolean skip;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (skip) {
+      getLog().info("Skipping precompilation");
+      return;
+    }
+    List<Path> classPath = new ArrayList<>();
+    try {
+      project.getCompileClasspathElements().forEach(element -> classPath.add(Paths.get(element)));
+    } catch (DependencyResolutionRequiredException e) {
+      throw new MojoExecutionException("Unable to resolve the compile class path", e);
+    }
+    List<Path> directories = new ArrayList<>();
+    sourceDirectories.forEach(directory -> directories.add(directory.toPath()));
+    Charset charset = encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+    try {
+      int compilations = new Precompiler(classPath, charset, batch)
+              .precompile(directories, outputFile.toPath());
+      getLog().info("Precompiled " + compilations + " compilations into " + outputFile);
+    } catch (CompilationFailedException e) {
+      throw new MojoFailureException("Precompilation failed: " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.rubenmathews.bytereactor.maven;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.PrecompiledArtifactWriter;
+import com.rubenmathews.bytereactor.SourceTree;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compiles source directories into a precompiled artifact. Every source is compiled on its own
+ * and matches a single {@link CompilationRequest} at runtime, or every directory is compiled as
+ * one batch and matches the batch of its {@link SourceTree}.
+ */
+final class Precompiler {
+
+  private final List<Path> classPath;
+  private final Charset charset;
+  private final boolean batch;
+
+  Precompiler(List<Path> classPath, Charset charset, boolean batch) {
+    this.classPath = classPath;
+    this.charset = charset;
+    this.batch = batch;
+  }
+
+  /**
+   * Compile the sources of the directories into the artifact, directories which don't exist
+   * are skipped. If a source doesn't compile the partially written artifact is deleted.
+   *
+   * @param sourceDirectories The source directories
+   * @param artifact          The artifact file
+   * @return the number of compilations in the artifact
+   * @throws com.rubenmathews.bytereactor.CompilationFailedException If a source doesn't compile
+   */
+  int precompile(List<Path> sourceDirectories, Path artifact) {
+    ByteReactor byteReactor = ByteReactorBuilder.builder()
+            .withCompilerClassPath(classPath)
+            .build();
+    try (PrecompiledArtifactWriter writer = PrecompiledArtifactWriter.create(byteReactor,
+            artifact)) {
+      for (Path sourceDirectory : sourceDirectories) {
+        if (Files.isDirectory(sourceDirectory)) {
+          add(writer, SourceTree.fromDirectory(sourceDirectory).withCharset(charset).build(),
+                  sourceDirectory);
+        }
+      }
+      return writer.getCompilationCount();
+    } catch (RuntimeException | Error e) {
+      delete(artifact, e);
+      throw e;
+    } finally {
+      byteReactor.close();
+    }
+  }
+
+  private static void delete(Path artifact, Throwable failure) {
+    try {
+      Files.deleteIfExists(artifact);
+    } catch (IOException e) {
+      failure.addSuppressed(e);
+    }
+  }
+
+  private void add(PrecompiledArtifactWriter writer, SourceTree sourceTree,
+                   Path sourceDirectory) {
+    if (batch) {
+      if (!sourceTree.getClassNames().isEmpty()) {
+        writer.add(sourceTree.toBatch());
+      }
+      return;
+    }
+    for (String className : sourceTree.getClassNames()) {
+      Path source = sourceDirectory.resolve(className.replace('.', '/') + ".java");
+      writer.add(new CompilationRequest(source.toFile(), charset, className, null));
+    }
+  }
+}
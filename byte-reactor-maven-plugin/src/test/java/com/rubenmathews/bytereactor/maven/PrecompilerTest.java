@@ -0,0 +1,116 @@
+package com.rubenmathews.bytereactor.maven;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompilationFailedException;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.PrecompiledArtifact;
+import com.rubenmathews.bytereactor.SourceTree;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+class PrecompilerTest {
+
+    private static final String GREETER = "package com.example;\n"
+            + "public class Greeter implements java.util.function.Supplier<String> {\n"
+            + "  public String get() { return new Name().value(); }\n"
+            + "}\n";
+    private static final String NAME = "package com.example;\n"
+            + "public class Name {\n"
+            + "  String value() { return \"Hello\"; }\n"
+            + "}\n";
+
+    private static final String BASE = "package com.example;\n"
+            + "public class Base {\n"
+            + "}\n";
+    private static final String NAME_WITH_BASE = "package com.example;\n"
+            + "public class Name extends Base {\n"
+            + "}\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void whenSourcesArePrecompiledAgainstTheClassPath_shouldLoadThemFromTheArtifact() throws Exception {
+        Path classes = tempDir.resolve("classes");
+        ByteReactor classCompiler = ByteReactorBuilder.builder().withCompilerDestinationPath(classes).build();
+        try {
+            classCompiler.loadClass(new CompilationRequest(BASE, "com.example.Base"));
+        } finally {
+            classCompiler.close();
+        }
+        Path sources = tempDir.resolve("sources");
+        write(sources.resolve("com/example/Name.java"), NAME_WITH_BASE);
+        Path artifactFile = tempDir.resolve("precompiled.jar");
+
+        int compilations = new Precompiler(Collections.singletonList(classes), StandardCharsets.UTF_8, false)
+                .precompile(Collections.singletonList(sources), artifactFile);
+
+        Assertions.assertThat(compilations).isEqualTo(1);
+        // javac of the service cannot see Base, the class can only come from the artifact
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withPrecompiledArtifact(PrecompiledArtifact.open(artifactFile))
+                .build();
+        try (URLClassLoader parent = new URLClassLoader(new URL[] {classes.toUri().toURL()})) {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(NAME_WITH_BASE, "com.example.Name"), parent);
+            Assertions.assertThat(klass.getSuperclass().getName()).isEqualTo("com.example.Base");
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(NAME_WITH_BASE + " ",
+                            "com.example.Name"), new URLClassLoader(new URL[] {classes.toUri().toURL()})))
+                    .isInstanceOf(CompilationFailedException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSourcesArePrecompiledAsBatch_shouldLoadTheSourceTreeFromTheArtifact() throws Exception {
+        Path sources = tempDir.resolve("sources");
+        write(sources.resolve("com/example/Greeter.java"), GREETER);
+        write(sources.resolve("com/example/Name.java"), NAME);
+        Path artifactFile = tempDir.resolve("precompiled.jar");
+
+        int compilations = new Precompiler(Collections.emptyList(), StandardCharsets.UTF_8, true)
+                .precompile(Collections.singletonList(sources), artifactFile);
+
+        Assertions.assertThat(compilations).isEqualTo(1);
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withPrecompiledArtifact(PrecompiledArtifact.open(artifactFile))
+                .build();
+        try {
+            Class<?> klass = byteReactor.loadClasses(SourceTree.fromDirectory(sources)
+                    .build().toBatch()).get("com.example.Greeter");
+            Assertions.assertThat(((Supplier<String>) klass.getDeclaredConstructor().newInstance()).get())
+                    .isEqualTo("Hello");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSourceDoesNotCompile_shouldFailWithoutLeavingAnArtifact() throws Exception {
+        Path sources = tempDir.resolve("sources");
+        write(sources.resolve("com/example/Greeter.java"), GREETER);
+        Path artifactFile = tempDir.resolve("precompiled.jar");
+
+        Assertions.assertThatThrownBy(() -> new Precompiler(Collections.emptyList(), StandardCharsets.UTF_8, false)
+                        .precompile(Collections.singletonList(sources), artifactFile))
+                .isInstanceOf(CompilationFailedException.class);
+        Assertions.assertThat(artifactFile).doesNotExist();
+    }
+
+    private static void write(Path file, String code) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, code.getBytes(StandardCharsets.UTF_8));
+    }
+}
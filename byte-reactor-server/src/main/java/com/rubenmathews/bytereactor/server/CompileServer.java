@@ -0,0 +1,317 @@
+package com.rubenmathews.bytereactor.server;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompileServerSecret;
+import com.rubenmathews.bytereactor.CompileService;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A compile server shared by the JVMs of one host, so each source is compiled once per host
+ * instead of once per JVM. It serves the compilations of a ByteReactor with a bytecode cache
+ * over loopback TCP, the JVMs compile through a
+ * {@link com.rubenmathews.bytereactor.RemoteCompilerBackend} and define the returned bytecode
+ * in their own class loaders. Clients fall back to compiling in process while the server is
+ * down.
+ *
+ * <p>Every connection is served by its own thread. Connections beyond the maximum are closed
+ * right away, which makes those clients fall back as well. The server only listens on the
+ * loopback address. It writes a new {@link CompileServerSecret} to a file only its user can
+ * read when it starts, and deletes it when it is closed. Clients have to know the secret, so
+ * only processes of the same user can use the server, and they only trust a server which knows
+ * it.
+ *
+ * <pre>
+ * java -cp "target/*:..." com.rubenmathews.bytereactor.server.CompileServer \
+ *         --port=7419 --bytecode-cache-mb=256 --max-connections=256 \
+ *         --secret-file=~/.byte-reactor/compile-server-7419.secret
+ * </pre>
+ */
+public final class CompileServer implements AutoCloseable {
+
+  private static final long MB = 1024 * 1024;
+
+  private final ByteReactor byteReactor;
+  private final boolean ownsByteReactor;
+  private final CompileService compileService;
+  private final ServerSocket serverSocket;
+  private final CompileServerSecret secret;
+  private final Semaphore connectionSlots;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final ExecutorService connectionThreads;
+  private final Thread acceptor;
+  private volatile boolean closed;
+
+  private CompileServer(Builder builder) throws IOException {
+    this.ownsByteReactor = builder.byteReactor == null;
+    this.byteReactor = ownsByteReactor
+            ? ByteReactorBuilder.builder().withBytecodeCache(builder.bytecodeCacheBytes).build()
+            : builder.byteReactor;
+    this.connectionSlots = new Semaphore(builder.maxConnections);
+    try {
+      this.serverSocket = new ServerSocket(builder.port, 50, InetAddress.getLoopbackAddress());
+    } catch (IOException e) {
+      if (ownsByteReactor) {
+        byteReactor.close();
+      }
+      throw e;
+    }
+    try {
+      this.secret = CompileServerSecret.create(builder.secretFile != null ? builder.secretFile
+              : CompileServerSecret.defaultFile(serverSocket.getLocalPort()));
+      this.compileService = new CompileService(byteReactor, secret);
+    } catch (IOException | RuntimeException e) {
+      serverSocket.close();
+      if (ownsByteReactor) {
+        byteReactor.close();
+      }
+      throw e;
+    }
+    AtomicInteger connectionCounter = new AtomicInteger();
+    this.connectionThreads = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable,
+              "byte-reactor-compile-server-" + connectionCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.acceptor = new Thread(this::accept, "byte-reactor-compile-server");
+    this.acceptor.setDaemon(true);
+    this.acceptor.start();
+  }
+
+  public static CompileServer.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Run a compile server until the JVM exits.
+   *
+   * @param arguments {@code --port=N --bytecode-cache-mb=N --max-connections=N
+   *                  --secret-file=PATH}
+   * @throws IOException          If the port cannot be bound
+   * @throws InterruptedException If interrupted while serving
+   */
+  public static void main(String[] arguments) throws IOException, InterruptedException {
+    Builder builder = builder();
+    for (String argument : arguments) {
+      int separator = argument.indexOf('=');
+      if (!argument.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got [" + argument + "]");
+      }
+      String value = argument.substring(separator + 1);
+      switch (argument.substring(2, separator)) {
+        case "port":
+          builder.withPort(Integer.parseInt(value));
+          break;
+        case "bytecode-cache-mb":
+          builder.withBytecodeCache(Long.parseLong(value) * MB);
+          break;
+        case "max-connections":
+          builder.withMaxConnections(Integer.parseInt(value));
+          break;
+        case "secret-file":
+          builder.withSecretFile(Paths.get(value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument [" + argument + "]");
+      }
+    }
+    CompileServer server = builder.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    System.out.println("ByteReactor compile server listening on port " + server.getPort());
+    server.join();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public Path getSecretFile() {
+    return secret.getFile();
+  }
+
+  public int getConnections() {
+    return connections.size();
+  }
+
+  /**
+   * Wait until the server is closed.
+   *
+   * @throws InterruptedException If interrupted while waiting
+   */
+  public void join() throws InterruptedException {
+    acceptor.join();
+  }
+
+  /**
+   * Stop accepting connections, delete the secret file and disconnect the clients, their
+   * compilations fall back to compiling in process. A ByteReactor given to the builder is not
+   * closed.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      // not accepting anymore either way
+    }
+    try {
+      secret.delete();
+    } catch (IOException e) {
+      // a stale secret only lets clients fail the handshake with the next server
+    }
+    connections.forEach(CompileServer::closeQuietly);
+    connectionThreads.shutdownNow();
+    if (ownsByteReactor) {
+      byteReactor.close();
+    }
+  }
+
+  private void accept() {
+    while (!closed) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        if (closed) {
+          return;
+        }
+        continue;
+      }
+      if (!connectionSlots.tryAcquire()) {
+        closeQuietly(socket);
+        continue;
+      }
+      connections.add(socket);
+      connectionThreads.execute(() -> serve(socket));
+    }
+  }
+
+  private void serve(Socket socket) {
+    try {
+      socket.setTcpNoDelay(true);
+      compileService.serve(socket.getInputStream(), socket.getOutputStream());
+    } catch (IOException e) {
+      // the client went away, its compilation falls back to the client
+    } finally {
+      connections.remove(socket);
+      closeQuietly(socket);
+      connectionSlots.release();
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing left to release
+    }
+  }
+
+  public static class Builder {
+    private int port = CompileService.DEFAULT_PORT;
+    private int maxConnections = 256;
+    private long bytecodeCacheBytes = 256 * MB;
+    private ByteReactor byteReactor;
+    private Path secretFile;
+
+    private Builder() {
+
+    }
+
+    /**
+     * The loopback port to listen on, 0 for any free port. Defaults to
+     * {@link CompileService#DEFAULT_PORT}.
+     *
+     * @param port the port
+     * @return the builder
+     */
+    public Builder withPort(int port) {
+      if (port < 0 || port > 65535) {
+        throw new IllegalArgumentException("port has to be between 0 and 65535 but got ["
+                + port + "]");
+      }
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * The maximum number of connected clients, defaults to 256.
+     *
+     * @param maxConnections the maximum number of connections
+     * @return the builder
+     */
+    public Builder withMaxConnections(int maxConnections) {
+      if (maxConnections < 1) {
+        throw new IllegalArgumentException("maxConnections has to be positive but got ["
+                + maxConnections + "]");
+      }
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * The size of the bytecode cache shared by the clients, defaults to 256 MB. Ignored when a
+     * ByteReactor is given.
+     *
+     * @param maxBytes the maximum size of the cached bytecode
+     * @return the builder
+     */
+    public Builder withBytecodeCache(long maxBytes) {
+      if (maxBytes < 1) {
+        throw new IllegalArgumentException("maxBytes has to be positive but got ["
+                + maxBytes + "]");
+      }
+      this.bytecodeCacheBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * The ByteReactor compiling the requests, instead of one with just a bytecode cache. Its
+     * caches, precompiled artifact, scheduler and compiler backend apply, it cannot have
+     * bytecode transformers.
+     *
+     * @param byteReactor the ByteReactor
+     * @return the builder
+     */
+    public Builder withByteReactor(ByteReactor byteReactor) {
+      this.byteReactor = Objects.requireNonNull(byteReactor);
+      return this;
+    }
+
+    /**
+     * The file the secret is written to, defaults to {@link CompileServerSecret#defaultFile(int)}
+     * of the bound port. Clients have to read the secret from the same file.
+     *
+     * @param secretFile the secret file
+     * @return the builder
+     */
+    public Builder withSecretFile(Path secretFile) {
+      this.secretFile = Objects.requireNonNull(secretFile);
+      return this;
+    }
+
+    /**
+     * Bind the port, write the secret file and start serving.
+     *
+     * @return the running server
+     * @throws IOException If the port cannot be bound or the secret file cannot be written
+     */
+    public CompileServer start() throws IOException {
+      return new CompileServer(this);
+    }
+  }
+}
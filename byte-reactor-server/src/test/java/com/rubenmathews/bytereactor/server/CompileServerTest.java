@@ -0,0 +1,112 @@
+package com.rubenmathews.bytereactor.server;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.CompilerBackend;
+import com.rubenmathews.bytereactor.JavaCompilerBackend;
+import com.rubenmathews.bytereactor.RemoteCompilerBackend;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+class CompileServerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenClientsLoadTheSameSource_shouldCompileItOnceOnTheServer() throws Exception {
+        AtomicInteger serverCompilations = new AtomicInteger();
+        ByteReactor serverByteReactor = countingByteReactor(serverCompilations);
+        try (CompileServer server = CompileServer.builder().withPort(0).withByteReactor(serverByteReactor)
+                .withSecretFile(directory.resolve("server.secret")).start()) {
+            for (int client = 0; client < 3; client++) {
+                RemoteCompilerBackend backend = RemoteCompilerBackend.builder().withPort(server.getPort())
+                        .withSecretFile(server.getSecretFile()).build();
+                ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+                try {
+                    ClassLoader parent = new URLClassLoader(new URL[0], getClass().getClassLoader());
+                    Class<?> greeter = byteReactor.loadClass(new CompilationRequest(greeter("server"), "com.example.Greeter"),
+                            parent);
+
+                    Assertions.assertThat(get(greeter)).isEqualTo("Hello server");
+                    Assertions.assertThat(greeter.getClassLoader().getParent()).isSameAs(parent);
+                    Assertions.assertThat(backend.getRemoteCompilations()).isEqualTo(1);
+                } finally {
+                    byteReactor.close();
+                    backend.close();
+                }
+            }
+        } finally {
+            serverByteReactor.close();
+        }
+        Assertions.assertThat(serverCompilations.get()).isEqualTo(1);
+    }
+
+    @Test
+    void whenServerGoesAwayAndComesBack_shouldFallBackAndReconnect() throws Exception {
+        Path secretFile = directory.resolve("server.secret");
+        CompileServer server = CompileServer.builder().withPort(0).withSecretFile(secretFile).start();
+        int port = server.getPort();
+        RemoteCompilerBackend backend = RemoteCompilerBackend.builder()
+                .withPort(port)
+                .withSecretFile(secretFile)
+                .withRetryInterval(Duration.ofMillis(1))
+                .build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+        try {
+            Assertions.assertThat(get(load(byteReactor, "first"))).isEqualTo("Hello first");
+            Assertions.assertThat(backend.getRemoteCompilations()).isEqualTo(1);
+
+            server.close();
+            Assertions.assertThat(secretFile).doesNotExist();
+            Assertions.assertThat(get(load(byteReactor, "fallback"))).isEqualTo("Hello fallback");
+            Assertions.assertThat(backend.getFallbackCompilations()).isEqualTo(1);
+
+            server = CompileServer.builder().withPort(port).withSecretFile(secretFile).start();
+            Thread.sleep(5);
+            Assertions.assertThat(get(load(byteReactor, "again"))).isEqualTo("Hello again");
+            Assertions.assertThat(backend.getRemoteCompilations()).isEqualTo(2);
+        } finally {
+            byteReactor.close();
+            backend.close();
+            server.close();
+        }
+    }
+
+    private Class<?> load(ByteReactor byteReactor, String name) {
+        return byteReactor.loadClass(new CompilationRequest(greeter(name), "com.example.Greeter"),
+                new URLClassLoader(new URL[0], getClass().getClassLoader()));
+    }
+
+    private static ByteReactor countingByteReactor(AtomicInteger compilations) {
+        CompilerBackend javac = JavaCompilerBackend.javac();
+        return ByteReactorBuilder.builder()
+                .withBytecodeCache(1 << 20)
+                .withCompilerBackend((compilationUnits, context) -> {
+                    compilations.incrementAndGet();
+                    javac.compile(compilationUnits, context);
+                })
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String get(Class<?> klass) throws Exception {
+        return ((Supplier<String>) klass.getDeclaredConstructor().newInstance()).get();
+    }
+
+    private static String greeter(String name) {
+        return "package com.example;\n"
+                + "public class Greeter implements java.util.function.Supplier<String> {\n"
+                + "  public String get() { return \"Hello " + name + "\"; }\n"
+                + "}\n";
+    }
+}
@@ -0,0 +1,58 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the class loaders handed to ByteReactor and counts how many of them are still
+ * reachable. A discarded class loader which stays reachable after a full GC leaks, e.g.
+ * through the class loader store or the class cache of ByteReactor.
+ */
+final class ClassLoaderTracker {
+
+  private final ClassLoader parent;
+  private final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<>();
+  private final Set<Reference<ClassLoader>> live = ConcurrentHashMap.newKeySet();
+  private final AtomicLong created = new AtomicLong();
+
+  ClassLoaderTracker(ClassLoader parent) {
+    this.parent = parent;
+  }
+
+  ClassLoader newClassLoader() {
+    ClassLoader classLoader = new SoakClassLoader(parent, created.incrementAndGet());
+    live.add(new WeakReference<>(classLoader, collected));
+    return classLoader;
+  }
+
+  long getCreated() {
+    return created.get();
+  }
+
+  int getLive() {
+    Reference<? extends ClassLoader> reference = collected.poll();
+    while (reference != null) {
+      live.remove(reference);
+      reference = collected.poll();
+    }
+    return live.size();
+  }
+
+  private static final class SoakClassLoader extends ClassLoader {
+    private final long number;
+
+    private SoakClassLoader(ClassLoader parent, long number) {
+      super(parent);
+      this.number = number;
+    }
+
+    @Override
+    public String toString() {
+      return "SoakClassLoader-" + number;
+    }
+  }
+}
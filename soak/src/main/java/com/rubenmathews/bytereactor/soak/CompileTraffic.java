@@ -0,0 +1,232 @@
+package com.rubenmathews.bytereactor.soak;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.CompilationRequest;
+import com.rubenmathews.bytereactor.CompilationRequestBatch;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays the configured mix of operations against a ByteReactor and records the latency and
+ * outcome of every operation. Thread safe, every worker thread calls {@link #next()} in a loop.
+ *
+ * <p>New sources and batches are loaded into a class loader generation, which is discarded once
+ * it holds the configured number of sources. Changed sources and fresh class loaders get a
+ * class loader of their own, discarded right after the operation. Discarding removes the class
+ * loader from ByteReactor, after that nothing should keep it or its classes alive.
+ */
+final class CompileTraffic {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompileTraffic.class);
+  private static final int LOGGED_ERRORS = 10;
+
+  private final ByteReactor byteReactor;
+  private final SoakConfiguration configuration;
+  private final ClassLoaderTracker classLoaders;
+  private final ClassLoader repeatedClassLoader;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final Map<Operation, Statistics> statistics = new EnumMap<>(Operation.class);
+  private final LatencyHistogram interval = new LatencyHistogram();
+  private final AtomicLong newSources = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicInteger changedVersions = new AtomicInteger();
+  private final AtomicReference<Generation> generation;
+  private Generation retiredGeneration;
+
+  CompileTraffic(ByteReactor byteReactor, SoakConfiguration configuration,
+                 ClassLoaderTracker classLoaders) {
+    this.byteReactor = byteReactor;
+    this.configuration = configuration;
+    this.classLoaders = classLoaders;
+    this.repeatedClassLoader = classLoaders.newClassLoader();
+    this.generation = new AtomicReference<>(new Generation(classLoaders.newClassLoader()));
+    Map<Operation, Integer> mix = configuration.getMix();
+    this.operations = mix.entrySet().stream()
+            .filter(entry -> entry.getValue() > 0)
+            .map(Map.Entry::getKey)
+            .toArray(Operation[]::new);
+    this.cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int index = 0; index < operations.length; index++) {
+      total += mix.get(operations[index]);
+      cumulativeWeights[index] = total;
+    }
+    for (Operation operation : Operation.values()) {
+      statistics.put(operation, new Statistics());
+    }
+  }
+
+  /**
+   * Run one operation picked from the mix by its weight.
+   */
+  void next() {
+    int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[operations.length - 1]);
+    int index = 0;
+    while (cumulativeWeights[index] <= pick) {
+      index++;
+    }
+    Operation operation = operations[index];
+    Statistics operationStatistics = statistics.get(operation);
+    long start = System.nanoTime();
+    try {
+      run(operation);
+    } catch (RuntimeException | LinkageError | ReflectiveOperationException e) {
+      long errors = operationStatistics.errors.incrementAndGet();
+      if (errors <= LOGGED_ERRORS) {
+        LOGGER.warn("{} failed", operation, e);
+      }
+    } finally {
+      long latency = System.nanoTime() - start;
+      operationStatistics.latencies.record(latency);
+      interval.record(latency);
+    }
+  }
+
+  private void run(Operation operation) throws ReflectiveOperationException {
+    switch (operation) {
+      case NEW_SOURCE:
+        loadNewSource();
+        break;
+      case CHANGED_SOURCE:
+        loadChangedSource();
+        break;
+      case REPEATED_SOURCE:
+        loadRepeatedSource(repeatedClassLoader);
+        break;
+      case BATCH:
+        loadBatch();
+        break;
+      case CLASS_LOADER:
+        ClassLoader classLoader = classLoaders.newClassLoader();
+        try {
+          loadRepeatedSource(classLoader);
+        } finally {
+          byteReactor.clearClassLoader(classLoader);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported operation " + operation);
+    }
+  }
+
+  private void loadNewSource() throws ReflectiveOperationException {
+    long number = newSources.incrementAndGet();
+    Class<?> klass = byteReactor.loadClass(new CompilationRequest(
+            SoakSources.newSource(number), SoakSources.newClassName(number)),
+            claim(1).classLoader);
+    verify(klass, SoakSources.newSourceValue(number));
+  }
+
+  private void loadChangedSource() throws ReflectiveOperationException {
+    int version = changedVersions.incrementAndGet();
+    int index = version % configuration.getRepeatedSources();
+    ClassLoader classLoader = classLoaders.newClassLoader();
+    try {
+      Class<?> klass = byteReactor.loadClass(new CompilationRequest(
+              SoakSources.changedSource(index, version), SoakSources.changedClassName(index)),
+              classLoader);
+      verify(klass, version);
+    } finally {
+      byteReactor.clearClassLoader(classLoader);
+    }
+  }
+
+  private void loadRepeatedSource(ClassLoader classLoader) throws ReflectiveOperationException {
+    int index = ThreadLocalRandom.current().nextInt(configuration.getRepeatedSources());
+    Class<?> klass = byteReactor.loadClass(new CompilationRequest(
+            SoakSources.repeatedSource(index), SoakSources.repeatedClassName(index)),
+            classLoader);
+    verify(klass, index);
+  }
+
+  private void loadBatch() throws ReflectiveOperationException {
+    long batch = batches.incrementAndGet();
+    int batchSize = configuration.getBatchSize();
+    CompilationRequestBatch.Builder builder = CompilationRequestBatch.builder();
+    for (int index = 0; index < batchSize; index++) {
+      builder.add(SoakSources.batchSource(batch, index), SoakSources.batchClassName(batch, index));
+    }
+    Map<String, Class<?>> classes = byteReactor.loadClasses(builder.build(),
+            claim(batchSize).classLoader);
+    verify(classes.get(SoakSources.batchClassName(batch, batchSize - 1)), batchSize - 1);
+  }
+
+  private static void verify(Class<?> klass, int expected) throws ReflectiveOperationException {
+    int actual = ((IntSupplier) klass.getDeclaredConstructor().newInstance()).getAsInt();
+    if (actual != expected) {
+      throw new IllegalStateException(klass.getName() + " returned " + actual + " instead of "
+              + expected);
+    }
+  }
+
+  /*
+   * The full generation is discarded one rotation later, so operations which claimed it just
+   * before the rotation are done with it by then.
+   */
+  private Generation claim(int sources) {
+    while (true) {
+      Generation current = generation.get();
+      if (current.sources.addAndGet(sources) <= configuration.getGenerationSize()) {
+        return current;
+      }
+      rotate(current);
+    }
+  }
+
+  private synchronized void rotate(Generation full) {
+    if (generation.get() != full) {
+      return;
+    }
+    generation.set(new Generation(classLoaders.newClassLoader()));
+    if (retiredGeneration != null) {
+      byteReactor.clearClassLoader(retiredGeneration.classLoader);
+    }
+    retiredGeneration = full;
+  }
+
+  LatencyHistogram drainInterval() {
+    return interval.drain();
+  }
+
+  long getOperations() {
+    return statistics.values().stream().mapToLong(value -> value.latencies.getCount()).sum();
+  }
+
+  long getOperations(Operation operation) {
+    return statistics.get(operation).latencies.getCount();
+  }
+
+  long getErrors() {
+    return statistics.values().stream().mapToLong(value -> value.errors.get()).sum();
+  }
+
+  long getErrors(Operation operation) {
+    return statistics.get(operation).errors.get();
+  }
+
+  LatencyHistogram getLatencies(Operation operation) {
+    return statistics.get(operation).latencies;
+  }
+
+  private static final class Generation {
+    private final ClassLoader classLoader;
+    private final AtomicInteger sources = new AtomicInteger();
+
+    private Generation(ClassLoader classLoader) {
+      this.classLoader = classLoader;
+    }
+  }
+
+  private static final class Statistics {
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+  }
+}
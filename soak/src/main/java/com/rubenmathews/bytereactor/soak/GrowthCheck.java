@@ -0,0 +1,105 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Checks a metric of the settled samples for unbounded growth. The growth rate is the least
+ * squares slope over all settled samples after the warm-up. A metric which levels off has a
+ * slope near zero once the run is long enough, a leak keeps a steady positive slope.
+ */
+public final class GrowthCheck {
+
+  private static final int MIN_SAMPLES = 3;
+  private static final double SECONDS_PER_HOUR = 3600;
+
+  /**
+   * The verdict of a check.
+   */
+  public enum Verdict {
+    PASSED,
+    FAILED,
+    /**
+     * Too few settled samples after the warm-up to fit a trend.
+     */
+    INCONCLUSIVE
+  }
+
+  private final String metric;
+  private final Verdict verdict;
+  private final double growthPerHour;
+  private final long maxGrowthPerHour;
+  private final long first;
+  private final long last;
+
+  private GrowthCheck(String metric, Verdict verdict, double growthPerHour,
+                      long maxGrowthPerHour, long first, long last) {
+    this.metric = metric;
+    this.verdict = verdict;
+    this.growthPerHour = growthPerHour;
+    this.maxGrowthPerHour = maxGrowthPerHour;
+    this.first = first;
+    this.last = last;
+  }
+
+  /**
+   * Fit the trend of a metric and compare it with the allowed growth. A metric fails only if
+   * its trend exceeds the limit and its last settled value is above the first.
+   *
+   * @param metric           The name of the metric
+   * @param samples          All samples of the run
+   * @param warmupSeconds    Samples before this point are ignored
+   * @param value            Extracts the metric from a sample
+   * @param maxGrowthPerHour The allowed growth per hour
+   * @return the check
+   */
+  static GrowthCheck check(String metric, List<Sample> samples, double warmupSeconds,
+                           ToLongFunction<Sample> value, long maxGrowthPerHour) {
+    List<Sample> settled = samples.stream()
+            .filter(sample -> sample.isSettled() && sample.getElapsedSeconds() >= warmupSeconds)
+            .collect(Collectors.toList());
+    if (settled.size() < MIN_SAMPLES) {
+      return new GrowthCheck(metric, Verdict.INCONCLUSIVE, 0, maxGrowthPerHour, 0, 0);
+    }
+    double meanTime = settled.stream().mapToDouble(Sample::getElapsedSeconds).average()
+            .orElse(0);
+    double meanValue = settled.stream().mapToLong(value).average().orElse(0);
+    double covariance = 0;
+    double variance = 0;
+    for (Sample sample : settled) {
+      double time = sample.getElapsedSeconds() - meanTime;
+      covariance += time * (value.applyAsLong(sample) - meanValue);
+      variance += time * time;
+    }
+    double growthPerHour = variance == 0 ? 0 : covariance / variance * SECONDS_PER_HOUR;
+    long first = value.applyAsLong(settled.get(0));
+    long last = value.applyAsLong(settled.get(settled.size() - 1));
+    Verdict verdict = growthPerHour > maxGrowthPerHour && last > first
+            ? Verdict.FAILED : Verdict.PASSED;
+    return new GrowthCheck(metric, verdict, growthPerHour, maxGrowthPerHour, first, last);
+  }
+
+  public String getMetric() {
+    return metric;
+  }
+
+  public Verdict getVerdict() {
+    return verdict;
+  }
+
+  public double getGrowthPerHour() {
+    return growthPerHour;
+  }
+
+  @Override
+  public String toString() {
+    if (verdict == Verdict.INCONCLUSIVE) {
+      return metric + ": " + verdict + ", fewer than " + MIN_SAMPLES
+              + " settled samples after the warm-up";
+    }
+    return String.format(Locale.ROOT, "%s: %s, %d -> %d, growth %.0f/h (limit %d/h)", metric,
+            verdict, first, last, growthPerHour, maxGrowthPerHour);
+  }
+}
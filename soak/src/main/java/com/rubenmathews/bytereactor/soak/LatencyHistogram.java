@@ -0,0 +1,103 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram of latencies in nanoseconds. Every power of two is split
+ * into 32 buckets, so a reported percentile is at most about 3% above the recorded value,
+ * independent of the run time and the number of recorded values.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+
+  LatencyHistogram() {
+    this(new AtomicLongArray(BUCKETS));
+  }
+
+  private LatencyHistogram(AtomicLongArray counts) {
+    this.counts = counts;
+  }
+
+  void record(long nanos) {
+    counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+  }
+
+  /**
+   * Move all recorded values into a new histogram, values recorded concurrently end up in
+   * exactly one of the two.
+   *
+   * @return the recorded values
+   */
+  LatencyHistogram drain() {
+    AtomicLongArray drained = new AtomicLongArray(BUCKETS);
+    for (int index = 0; index < BUCKETS; index++) {
+      if (counts.get(index) != 0) {
+        drained.set(index, counts.getAndSet(index, 0));
+      }
+    }
+    return new LatencyHistogram(drained);
+  }
+
+  void add(LatencyHistogram other) {
+    for (int index = 0; index < BUCKETS; index++) {
+      long count = other.counts.get(index);
+      if (count != 0) {
+        counts.addAndGet(index, count);
+      }
+    }
+  }
+
+  long getCount() {
+    long count = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      count += counts.get(index);
+    }
+    return count;
+  }
+
+  /**
+   * The recorded latency at the given quantile.
+   *
+   * @param quantile The quantile between 0 and 1, e.g. 0.99
+   * @return the upper bound of the bucket holding the quantile, 0 if nothing was recorded
+   */
+  long getValueAtQuantile(double quantile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      seen += counts.get(index);
+      if (seen >= rank) {
+        return highestValueOf(index);
+      }
+    }
+    return highestValueOf(BUCKETS - 1);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    return lowest + width - 1;
+  }
+}
@@ -0,0 +1,46 @@
+package com.rubenmathews.bytereactor.soak;
+
+/**
+ * The kinds of compile traffic replayed by the {@link SoakHarness}.
+ */
+public enum Operation {
+  /**
+   * A source never seen before, loaded into the current class loader generation.
+   */
+  NEW_SOURCE("new"),
+  /**
+   * A new version of an existing class, loaded into a fresh class loader which is discarded.
+   */
+  CHANGED_SOURCE("changed"),
+  /**
+   * One of a fixed set of sources, loaded into a long-lived class loader, mostly cache hits.
+   */
+  REPEATED_SOURCE("repeated"),
+  /**
+   * A batch of new sources referring to each other, loaded into the current generation.
+   */
+  BATCH("batch"),
+  /**
+   * An unchanged source loaded into a fresh class loader which is discarded.
+   */
+  CLASS_LOADER("loader");
+
+  private final String key;
+
+  Operation(String key) {
+    this.key = key;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  static Operation fromKey(String key) {
+    for (Operation operation : values()) {
+      if (operation.key.equals(key)) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation [" + key + "]");
+  }
+}
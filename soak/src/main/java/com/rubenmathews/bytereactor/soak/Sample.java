@@ -0,0 +1,116 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.util.Locale;
+
+/**
+ * The throughput, latency and memory of the process at the end of one sample interval.
+ */
+public final class Sample {
+
+  static final String CSV_HEADER = "elapsedSeconds,operations,operationsPerSecond,p50Micros,"
+          + "p99Micros,p999Micros,heapUsedBytes,metaspaceUsedBytes,loadedClasses,"
+          + "unloadedClasses,liveClassLoaders,errors,settled";
+
+  private final double elapsedSeconds;
+  private final long operations;
+  private final double operationsPerSecond;
+  private final long p50Nanos;
+  private final long p99Nanos;
+  private final long p999Nanos;
+  private final long heapUsedBytes;
+  private final long metaspaceUsedBytes;
+  private final int loadedClasses;
+  private final long unloadedClasses;
+  private final int liveClassLoaders;
+  private final long errors;
+  private final boolean settled;
+
+  Sample(double elapsedSeconds, long operations, double operationsPerSecond,
+         LatencyHistogram latencies, long heapUsedBytes, long metaspaceUsedBytes,
+         int loadedClasses, long unloadedClasses, int liveClassLoaders, long errors,
+         boolean settled) {
+    this.elapsedSeconds = elapsedSeconds;
+    this.operations = operations;
+    this.operationsPerSecond = operationsPerSecond;
+    this.p50Nanos = latencies.getValueAtQuantile(0.5);
+    this.p99Nanos = latencies.getValueAtQuantile(0.99);
+    this.p999Nanos = latencies.getValueAtQuantile(0.999);
+    this.heapUsedBytes = heapUsedBytes;
+    this.metaspaceUsedBytes = metaspaceUsedBytes;
+    this.loadedClasses = loadedClasses;
+    this.unloadedClasses = unloadedClasses;
+    this.liveClassLoaders = liveClassLoaders;
+    this.errors = errors;
+    this.settled = settled;
+  }
+
+  public double getElapsedSeconds() {
+    return elapsedSeconds;
+  }
+
+  public long getOperations() {
+    return operations;
+  }
+
+  public double getOperationsPerSecond() {
+    return operationsPerSecond;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getP999Nanos() {
+    return p999Nanos;
+  }
+
+  public long getHeapUsedBytes() {
+    return heapUsedBytes;
+  }
+
+  /**
+   * The used metaspace, -1 if the JVM has no metaspace memory pool.
+   *
+   * @return the used metaspace in bytes
+   */
+  public long getMetaspaceUsedBytes() {
+    return metaspaceUsedBytes;
+  }
+
+  public int getLoadedClasses() {
+    return loadedClasses;
+  }
+
+  public long getUnloadedClasses() {
+    return unloadedClasses;
+  }
+
+  public int getLiveClassLoaders() {
+    return liveClassLoaders;
+  }
+
+  public long getErrors() {
+    return errors;
+  }
+
+  /**
+   * Whether a full GC ran right before the sample, so memory and class loader counts only
+   * include reachable objects.
+   *
+   * @return true for settled samples
+   */
+  public boolean isSettled() {
+    return settled;
+  }
+
+  String toCsv() {
+    return String.format(Locale.ROOT, "%.1f,%d,%.1f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%b",
+            elapsedSeconds, operations, operationsPerSecond, p50Nanos / 1000, p99Nanos / 1000,
+            p999Nanos / 1000, heapUsedBytes, metaspaceUsedBytes, loadedClasses, unloadedClasses,
+            liveClassLoaders, errors, settled);
+  }
+}
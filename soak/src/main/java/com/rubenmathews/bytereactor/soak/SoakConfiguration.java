@@ -0,0 +1,326 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The traffic mix, duration and leak limits of a soak run.
+ */
+public final class SoakConfiguration {
+
+  private final Duration duration;
+  private final Duration warmup;
+  private final Duration sampleInterval;
+  private final int settleEverySamples;
+  private final int threads;
+  private final Map<Operation, Integer> mix;
+  private final int repeatedSources;
+  private final int batchSize;
+  private final int generationSize;
+  private final Path reportDirectory;
+  private final long maxMetaspaceGrowthPerHour;
+  private final long maxClassLoaderGrowthPerHour;
+
+  private SoakConfiguration(Builder builder) {
+    this.duration = builder.duration;
+    this.warmup = builder.warmup;
+    this.sampleInterval = builder.sampleInterval;
+    this.settleEverySamples = builder.settleEverySamples;
+    this.threads = builder.threads;
+    this.mix = Collections.unmodifiableMap(new EnumMap<>(builder.mix));
+    this.repeatedSources = builder.repeatedSources;
+    this.batchSize = builder.batchSize;
+    this.generationSize = builder.generationSize;
+    this.reportDirectory = builder.reportDirectory;
+    this.maxMetaspaceGrowthPerHour = builder.maxMetaspaceGrowthPerHour;
+    this.maxClassLoaderGrowthPerHour = builder.maxClassLoaderGrowthPerHour;
+  }
+
+  public static SoakConfiguration.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Read the configuration from command line arguments of the form {@code --name=value}, e.g.
+   * {@code --duration=PT2H --threads=16 --mix=repeated=60,new=10,changed=10,batch=10,loader=10}.
+   * Sizes are given in bytes, durations in ISO-8601.
+   *
+   * @param arguments The command line arguments
+   * @return the configuration
+   * @throws IllegalArgumentException If an argument is unknown or malformed
+   */
+  public static SoakConfiguration fromArguments(String... arguments) {
+    Builder builder = builder();
+    for (String argument : arguments) {
+      int separator = argument.indexOf('=');
+      if (!argument.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got [" + argument + "]");
+      }
+      builder.set(argument.substring(2, separator), argument.substring(separator + 1));
+    }
+    return builder.build();
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  public Duration getWarmup() {
+    return warmup;
+  }
+
+  public Duration getSampleInterval() {
+    return sampleInterval;
+  }
+
+  public int getSettleEverySamples() {
+    return settleEverySamples;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public Map<Operation, Integer> getMix() {
+    return mix;
+  }
+
+  public int getRepeatedSources() {
+    return repeatedSources;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getGenerationSize() {
+    return generationSize;
+  }
+
+  public Path getReportDirectory() {
+    return reportDirectory;
+  }
+
+  public long getMaxMetaspaceGrowthPerHour() {
+    return maxMetaspaceGrowthPerHour;
+  }
+
+  public long getMaxClassLoaderGrowthPerHour() {
+    return maxClassLoaderGrowthPerHour;
+  }
+
+  @Override
+  public String toString() {
+    return "duration=" + duration
+            + ", warmup=" + warmup
+            + ", sampleInterval=" + sampleInterval
+            + ", settleEverySamples=" + settleEverySamples
+            + ", threads=" + threads
+            + ", mix=" + mix
+            + ", repeatedSources=" + repeatedSources
+            + ", batchSize=" + batchSize
+            + ", generationSize=" + generationSize
+            + ", maxMetaspaceGrowthPerHour=" + maxMetaspaceGrowthPerHour
+            + ", maxClassLoaderGrowthPerHour=" + maxClassLoaderGrowthPerHour;
+  }
+
+  public static class Builder {
+    private Duration duration = Duration.ofMinutes(10);
+    private Duration warmup = Duration.ofMinutes(1);
+    private Duration sampleInterval = Duration.ofSeconds(5);
+    private int settleEverySamples = 6;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private int repeatedSources = 32;
+    private int batchSize = 8;
+    private int generationSize = 256;
+    private Path reportDirectory = Paths.get("soak-report");
+    private long maxMetaspaceGrowthPerHour = 32L * 1024 * 1024;
+    private long maxClassLoaderGrowthPerHour = 16;
+
+    private Builder() {
+      mix.put(Operation.REPEATED_SOURCE, 60);
+      mix.put(Operation.NEW_SOURCE, 10);
+      mix.put(Operation.CHANGED_SOURCE, 10);
+      mix.put(Operation.BATCH, 10);
+      mix.put(Operation.CLASS_LOADER, 10);
+    }
+
+    public Builder withDuration(Duration duration) {
+      this.duration = requirePositive(duration, "duration");
+      return this;
+    }
+
+    /**
+     * Samples taken before the warm-up has elapsed are reported, but not used to check for
+     * unbounded growth.
+     *
+     * @param warmup the warm-up, may be zero
+     * @return the builder
+     */
+    public Builder withWarmup(Duration warmup) {
+      if (warmup.isNegative()) {
+        throw new IllegalArgumentException("warmup cannot be negative but got [" + warmup + "]");
+      }
+      this.warmup = warmup;
+      return this;
+    }
+
+    public Builder withSampleInterval(Duration sampleInterval) {
+      this.sampleInterval = requirePositive(sampleInterval, "sampleInterval");
+      return this;
+    }
+
+    /**
+     * Run a full GC before every n-th sample. Only these settled samples are used to check for
+     * unbounded growth, unsettled metaspace and class loader counts include garbage.
+     *
+     * @param settleEverySamples the number of samples between two settled samples
+     * @return the builder
+     */
+    public Builder withSettleEverySamples(int settleEverySamples) {
+      this.settleEverySamples = requirePositive(settleEverySamples, "settleEverySamples");
+      return this;
+    }
+
+    public Builder withThreads(int threads) {
+      this.threads = requirePositive(threads, "threads");
+      return this;
+    }
+
+    /**
+     * The relative weight of an operation in the traffic mix, zero removes it.
+     *
+     * @param operation the operation
+     * @param weight    the weight of the operation
+     * @return the builder
+     */
+    public Builder withWeight(Operation operation, int weight) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("weight cannot be negative but got [" + weight + "]");
+      }
+      mix.put(Objects.requireNonNull(operation), weight);
+      return this;
+    }
+
+    public Builder withRepeatedSources(int repeatedSources) {
+      this.repeatedSources = requirePositive(repeatedSources, "repeatedSources");
+      return this;
+    }
+
+    public Builder withBatchSize(int batchSize) {
+      this.batchSize = requirePositive(batchSize, "batchSize");
+      return this;
+    }
+
+    /**
+     * The number of new sources loaded into one class loader before it is discarded.
+     *
+     * @param generationSize the number of new sources per class loader
+     * @return the builder
+     */
+    public Builder withGenerationSize(int generationSize) {
+      this.generationSize = requirePositive(generationSize, "generationSize");
+      return this;
+    }
+
+    public Builder withReportDirectory(Path reportDirectory) {
+      this.reportDirectory = Objects.requireNonNull(reportDirectory);
+      return this;
+    }
+
+    public Builder withMaxMetaspaceGrowthPerHour(long bytes) {
+      this.maxMetaspaceGrowthPerHour = bytes;
+      return this;
+    }
+
+    public Builder withMaxClassLoaderGrowthPerHour(long classLoaders) {
+      this.maxClassLoaderGrowthPerHour = classLoaders;
+      return this;
+    }
+
+    /**
+     * Build the configuration.
+     *
+     * @return the configuration
+     * @throws IllegalArgumentException If the mix has no operation with a positive weight
+     */
+    public SoakConfiguration build() {
+      if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+        throw new IllegalArgumentException("The traffic mix needs at least one operation");
+      }
+      return new SoakConfiguration(this);
+    }
+
+    private void set(String name, String value) {
+      switch (name) {
+        case "duration":
+          withDuration(Duration.parse(value));
+          break;
+        case "warmup":
+          withWarmup(Duration.parse(value));
+          break;
+        case "sample-interval":
+          withSampleInterval(Duration.parse(value));
+          break;
+        case "settle-every":
+          withSettleEverySamples(Integer.parseInt(value));
+          break;
+        case "threads":
+          withThreads(Integer.parseInt(value));
+          break;
+        case "mix":
+          mix.clear();
+          for (String weight : value.split(",")) {
+            String[] parts = weight.split("=", 2);
+            if (parts.length != 2) {
+              throw new IllegalArgumentException("Expected operation=weight but got ["
+                      + weight + "]");
+            }
+            withWeight(Operation.fromKey(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+          }
+          break;
+        case "repeated-sources":
+          withRepeatedSources(Integer.parseInt(value));
+          break;
+        case "batch-size":
+          withBatchSize(Integer.parseInt(value));
+          break;
+        case "generation-size":
+          withGenerationSize(Integer.parseInt(value));
+          break;
+        case "report":
+          withReportDirectory(Paths.get(value));
+          break;
+        case "max-metaspace-growth-per-hour":
+          withMaxMetaspaceGrowthPerHour(Long.parseLong(value));
+          break;
+        case "max-loader-growth-per-hour":
+          withMaxClassLoaderGrowthPerHour(Long.parseLong(value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument [--" + name + "]");
+      }
+    }
+
+    private static Duration requirePositive(Duration duration, String name) {
+      if (duration.isZero() || duration.isNegative()) {
+        throw new IllegalArgumentException(name + " has to be positive but got ["
+                + duration + "]");
+      }
+      return duration;
+    }
+
+    private static int requirePositive(int value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " has to be positive but got [" + value + "]");
+      }
+      return value;
+    }
+  }
+}
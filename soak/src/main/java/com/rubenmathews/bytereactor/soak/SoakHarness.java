@@ -0,0 +1,207 @@
+package com.rubenmathews.bytereactor.soak;
+
+import com.rubenmathews.bytereactor.ByteReactor;
+import com.rubenmathews.bytereactor.ByteReactorBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Replays a mix of new, changed and repeated sources, batches and class loaders against a
+ * ByteReactor from several threads for a fixed duration. Throughput, latency percentiles, heap,
+ * metaspace, loaded classes and reachable class loaders are sampled at a fixed interval and
+ * written to {@code samples.csv} and {@code summary.txt} in the report directory.
+ *
+ * <p>The run fails if the metaspace or the number of reachable class loaders keeps growing
+ * after the warm-up. Run it with a bounded metaspace, e.g. {@code -XX:MaxMetaspaceSize=256m},
+ * so a leak also surfaces as an {@link OutOfMemoryError}.
+ */
+public final class SoakHarness {
+
+  private static final String METASPACE_POOL = "Metaspace";
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final SoakConfiguration configuration;
+  private final Supplier<ByteReactor> byteReactorFactory;
+
+  public SoakHarness(SoakConfiguration configuration) {
+    this(configuration, () -> ByteReactorBuilder.builder().build());
+  }
+
+  public SoakHarness(SoakConfiguration configuration, Supplier<ByteReactor> byteReactorFactory) {
+    this.configuration = configuration;
+    this.byteReactorFactory = byteReactorFactory;
+  }
+
+  /**
+   * Run the harness with the configuration given as command line arguments, see
+   * {@link SoakConfiguration#fromArguments(String...)}. Exits with status 1 if a metric grew
+   * without bound.
+   *
+   * @param arguments The command line arguments
+   * @throws InterruptedException If the run was interrupted
+   */
+  public static void main(String[] arguments) throws InterruptedException {
+    SoakResult result = new SoakHarness(SoakConfiguration.fromArguments(arguments)).run();
+    System.out.println(result.getSummary());
+    System.exit(result.isPassed() ? 0 : 1);
+  }
+
+  /**
+   * Run the traffic for the configured duration, sample it and write the report.
+   *
+   * @return the result of the run
+   * @throws InterruptedException If the run was interrupted
+   */
+  public SoakResult run() throws InterruptedException {
+    ClassLoaderTracker classLoaders = new ClassLoaderTracker(
+            SoakHarness.class.getClassLoader());
+    List<Sample> samples = new ArrayList<>();
+    ByteReactor byteReactor = byteReactorFactory.get();
+    CompileTraffic traffic = new CompileTraffic(byteReactor, configuration, classLoaders);
+    try {
+      long start = System.nanoTime();
+      long end = start + configuration.getDuration().toNanos();
+      ExecutorService workers = startWorkers(traffic, end);
+      long sampleInterval = configuration.getSampleInterval().toNanos();
+      long previousSampleAt = start;
+      long previousOperations = 0;
+      int sampleNumber = 0;
+      boolean finished = false;
+      try {
+        while (System.nanoTime() < end) {
+          TimeUnit.NANOSECONDS.sleep(Math.min(sampleInterval, end - System.nanoTime()));
+          sampleNumber++;
+          long operations = traffic.getOperations();
+          long now = System.nanoTime();
+          samples.add(sample(traffic, classLoaders, (now - start) / NANOS_PER_SECOND,
+                  operations - previousOperations, (now - previousSampleAt) / NANOS_PER_SECOND,
+                  sampleNumber % configuration.getSettleEverySamples() == 0));
+          previousSampleAt = now;
+          previousOperations = operations;
+        }
+        finished = true;
+      } finally {
+        // the workers stop by themselves at the end of the run, interrupting them would fail
+        // the compilations still in flight
+        if (finished) {
+          workers.shutdown();
+        } else {
+          workers.shutdownNow();
+        }
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      byteReactor.close();
+    }
+    double warmupSeconds = configuration.getWarmup().toNanos() / NANOS_PER_SECOND;
+    List<GrowthCheck> growthChecks = new ArrayList<>();
+    if (samples.stream().anyMatch(sample -> sample.getMetaspaceUsedBytes() >= 0)) {
+      growthChecks.add(GrowthCheck.check("metaspace bytes", samples, warmupSeconds,
+              Sample::getMetaspaceUsedBytes, configuration.getMaxMetaspaceGrowthPerHour()));
+    }
+    growthChecks.add(GrowthCheck.check("reachable class loaders", samples, warmupSeconds,
+            Sample::getLiveClassLoaders, configuration.getMaxClassLoaderGrowthPerHour()));
+    SoakResult result = new SoakResult(samples, growthChecks, traffic.getOperations(),
+            traffic.getErrors(), summarize(growthChecks, traffic));
+    writeReport(result);
+    return result;
+  }
+
+  private ExecutorService startWorkers(CompileTraffic traffic, long end) {
+    ExecutorService workers = Executors.newFixedThreadPool(configuration.getThreads(),
+            SoakHarness::newWorkerThread);
+    for (int worker = 0; worker < configuration.getThreads(); worker++) {
+      workers.execute(() -> {
+        while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+          traffic.next();
+        }
+      });
+    }
+    return workers;
+  }
+
+  private static Thread newWorkerThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "byte-reactor-soak");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /*
+   * Settled samples run a full GC first, so unreachable class loaders are collected and their
+   * classes unloaded before metaspace and class loaders are counted.
+   */
+  private static Sample sample(CompileTraffic traffic, ClassLoaderTracker classLoaders,
+                               double elapsedSeconds, long operations, double intervalSeconds,
+                               boolean settled) {
+    LatencyHistogram latencies = traffic.drainInterval();
+    if (settled) {
+      System.gc();
+    }
+    ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    return new Sample(elapsedSeconds, operations, operations / intervalSeconds, latencies,
+            ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+            getMetaspaceUsed(), classLoading.getLoadedClassCount(),
+            classLoading.getUnloadedClassCount(), classLoaders.getLive(), traffic.getErrors(),
+            settled);
+  }
+
+  private static long getMetaspaceUsed() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (METASPACE_POOL.equals(pool.getName())) {
+        return pool.getUsage().getUsed();
+      }
+    }
+    return -1;
+  }
+
+  private void writeReport(SoakResult result) {
+    Path reportDirectory = configuration.getReportDirectory();
+    List<String> csv = new ArrayList<>();
+    csv.add(Sample.CSV_HEADER);
+    result.getSamples().forEach(sample -> csv.add(sample.toCsv()));
+    try {
+      Files.createDirectories(reportDirectory);
+      Files.write(reportDirectory.resolve("samples.csv"), csv, StandardCharsets.UTF_8);
+      Files.write(reportDirectory.resolve("summary.txt"),
+              Arrays.asList(result.getSummary().split("\n")), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the soak report to " + reportDirectory, e);
+    }
+  }
+
+  private String summarize(List<GrowthCheck> growthChecks, CompileTraffic traffic) {
+    StringBuilder summary = new StringBuilder("ByteReactor soak run\n");
+    summary.append("configuration: ").append(configuration).append('\n');
+    summary.append(String.format(Locale.ROOT, "operations: %d (%.1f/s), errors: %d\n",
+            traffic.getOperations(),
+            traffic.getOperations() / (configuration.getDuration().toNanos() / NANOS_PER_SECOND),
+            traffic.getErrors()));
+    summary.append("operation        count     errors   p50 ms   p99 ms   p99.9 ms\n");
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram latencies = traffic.getLatencies(operation);
+      summary.append(String.format(Locale.ROOT, "%-12s %9d %10d %8.2f %8.2f %10.2f\n",
+              operation.getKey(), traffic.getOperations(operation), traffic.getErrors(operation),
+              latencies.getValueAtQuantile(0.5) / 1e6, latencies.getValueAtQuantile(0.99) / 1e6,
+              latencies.getValueAtQuantile(0.999) / 1e6));
+    }
+    summary.append(growthChecks.stream().map(GrowthCheck::toString)
+            .collect(Collectors.joining("\n", "", "\n")));
+    summary.append("result: ").append(SoakResult.isPassed(growthChecks) ? "PASSED" : "FAILED");
+    return summary.toString();
+  }
+}
@@ -0,0 +1,65 @@
+package com.rubenmathews.bytereactor.soak;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The samples and growth checks of a soak run.
+ */
+public final class SoakResult {
+
+  private final List<Sample> samples;
+  private final List<GrowthCheck> growthChecks;
+  private final long operations;
+  private final long errors;
+  private final String summary;
+
+  SoakResult(List<Sample> samples, List<GrowthCheck> growthChecks, long operations,
+             long errors, String summary) {
+    this.samples = Collections.unmodifiableList(samples);
+    this.growthChecks = Collections.unmodifiableList(growthChecks);
+    this.operations = operations;
+    this.errors = errors;
+    this.summary = summary;
+  }
+
+  public List<Sample> getSamples() {
+    return samples;
+  }
+
+  public List<GrowthCheck> getGrowthChecks() {
+    return growthChecks;
+  }
+
+  public long getOperations() {
+    return operations;
+  }
+
+  public long getErrors() {
+    return errors;
+  }
+
+  /**
+   * A run passes if no growth check failed. Failed operations are reported, but don't fail the
+   * run, a soak run is about resource growth, not correctness.
+   *
+   * @return true if no metric grew without bound
+   */
+  public boolean isPassed() {
+    return isPassed(growthChecks);
+  }
+
+  static boolean isPassed(List<GrowthCheck> growthChecks) {
+    return growthChecks.stream()
+            .noneMatch(check -> check.getVerdict() == GrowthCheck.Verdict.FAILED);
+  }
+
+  /**
+   * The human readable summary of the run, as written to {@code summary.txt}.
+   *
+   * @return the summary
+   */
+  public String getSummary() {
+    return summary;
+  }
+}
@@ -0,0 +1,76 @@
+package com.rubenmathews.bytereactor.soak;
+
+/**
+ * Generates the sources replayed by the soak harness. Every class implements
+ * {@link java.util.function.IntSupplier} and returns a value the harness can verify.
+ */
+final class SoakSources {
+
+  private static final String PACKAGE = "soak";
+
+  private SoakSources() {
+  }
+
+  static String repeatedClassName(int index) {
+    return PACKAGE + ".repeated.Repeated" + index;
+  }
+
+  static String repeatedSource(int index) {
+    return supplier("repeated", "Repeated" + index, "return " + index + ";");
+  }
+
+  static String newClassName(long number) {
+    return PACKAGE + ".fresh.Fresh" + number;
+  }
+
+  /*
+   * New sources carry a switch and a few string constants, so every class adds a realistic
+   * amount of code and constant pool to the metaspace.
+   */
+  static String newSource(long number) {
+    StringBuilder body = new StringBuilder("switch ((int) (").append(number).append("L % 4)) {");
+    for (int branch = 0; branch < 4; branch++) {
+      body.append("case ").append(branch).append(": return \"branch-").append(branch)
+              .append("-").append(number).append("\".length() - ")
+              .append(("branch-" + branch + "-" + number).length()).append(" + ")
+              .append(branch).append(";");
+    }
+    body.append("default: return -1; }");
+    return supplier("fresh", "Fresh" + number, body.toString());
+  }
+
+  static int newSourceValue(long number) {
+    return (int) (number % 4);
+  }
+
+  static String changedClassName(int index) {
+    return PACKAGE + ".changed.Changed" + index;
+  }
+
+  static String changedSource(int index, int version) {
+    return supplier("changed", "Changed" + index, "return " + version + ";");
+  }
+
+  static String batchClassName(long batch, int index) {
+    return PACKAGE + ".batch.Batch" + batch + "x" + index;
+  }
+
+  /*
+   * Every class of a batch calls the previous one, so a batch only compiles as a whole.
+   */
+  static String batchSource(long batch, int index) {
+    String body = index == 0 ? "return 0;"
+            : "return new Batch" + batch + "x" + (index - 1) + "().getAsInt() + 1;";
+    return supplier("batch", "Batch" + batch + "x" + index, body);
+  }
+
+  private static String supplier(String subPackage, String simpleName, String body) {
+    return "package " + PACKAGE + "." + subPackage + ";\n"
+            + "public class " + simpleName + " implements java.util.function.IntSupplier {\n"
+            + "  @Override\n"
+            + "  public int getAsInt() {\n"
+            + "    " + body + "\n"
+            + "  }\n"
+            + "}\n";
+  }
+}
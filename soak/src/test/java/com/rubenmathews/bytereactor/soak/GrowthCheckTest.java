@@ -0,0 +1,42 @@
+package com.rubenmathews.bytereactor.soak;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+class GrowthCheckTest {
+
+    @Test
+    void whenTheMetricKeepsGrowing_shouldFail() {
+        List<Sample> samples = samples(minute -> 1000 + minute * 10);
+        GrowthCheck check = GrowthCheck.check("loaders", samples, 0, Sample::getLiveClassLoaders, 100);
+        Assertions.assertThat(check.getVerdict()).isEqualTo(GrowthCheck.Verdict.FAILED);
+        Assertions.assertThat(check.getGrowthPerHour()).isCloseTo(600, Assertions.within(0.001));
+    }
+
+    @Test
+    void whenTheMetricLevelsOffAfterTheWarmup_shouldPass() {
+        List<Sample> samples = samples(minute -> minute < 10 ? minute * 100 : 1000 + minute % 2);
+        GrowthCheck check = GrowthCheck.check("loaders", samples, 600, Sample::getLiveClassLoaders, 100);
+        Assertions.assertThat(check.getVerdict()).isEqualTo(GrowthCheck.Verdict.PASSED);
+    }
+
+    @Test
+    void whenThereAreTooFewSettledSamples_shouldBeInconclusive() {
+        List<Sample> samples = samples(minute -> minute * 1000);
+        GrowthCheck check = GrowthCheck.check("loaders", samples, 58 * 60, Sample::getLiveClassLoaders, 100);
+        Assertions.assertThat(check.getVerdict()).isEqualTo(GrowthCheck.Verdict.INCONCLUSIVE);
+    }
+
+    private static List<Sample> samples(LongUnaryOperator liveClassLoadersAtMinute) {
+        List<Sample> samples = new ArrayList<>();
+        for (int minute = 0; minute < 60; minute++) {
+            samples.add(new Sample(minute * 60, 0, 0, new LatencyHistogram(), 0, 0, 0, 0,
+                    (int) liveClassLoadersAtMinute.applyAsLong(minute), 0, true));
+        }
+        return samples;
+    }
+}
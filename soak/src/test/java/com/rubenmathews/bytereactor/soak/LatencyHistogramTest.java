@@ -0,0 +1,41 @@
+package com.rubenmathews.bytereactor.soak;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void whenValuesAreRecorded_shouldReportPercentilesWithinThePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        Assertions.assertThat(histogram.getCount()).isEqualTo(100_000);
+        Assertions.assertThat(histogram.getValueAtQuantile(0.5)).isBetween(50_000_000L, 51_600_000L);
+        Assertions.assertThat(histogram.getValueAtQuantile(0.99)).isBetween(99_000_000L, 102_200_000L);
+        Assertions.assertThat(histogram.getValueAtQuantile(0.999)).isBetween(99_900_000L, 103_200_000L);
+    }
+
+    @Test
+    void everyValue_shouldFallIntoABucketCoveringIt() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            Assertions.assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                Assertions.assertThat(LatencyHistogram.highestValueOf(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    void whenDrained_shouldMoveTheValuesIntoTheReturnedHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        LatencyHistogram drained = histogram.drain();
+        Assertions.assertThat(drained.getCount()).isEqualTo(2);
+        Assertions.assertThat(histogram.getCount()).isZero();
+        Assertions.assertThat(histogram.getValueAtQuantile(0.5)).isZero();
+    }
+}
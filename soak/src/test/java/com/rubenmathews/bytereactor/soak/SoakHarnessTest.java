@@ -0,0 +1,54 @@
+package com.rubenmathews.bytereactor.soak;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+class SoakHarnessTest {
+
+    @Test
+    void whenRunningTheMixedTraffic_shouldSampleEveryIntervalAndWriteTheReport(@TempDir Path reportDirectory)
+            throws Exception {
+        SoakConfiguration configuration = SoakConfiguration.fromArguments(
+                "--duration=PT3S", "--warmup=PT0S", "--sample-interval=PT0.5S", "--settle-every=2",
+                "--threads=1", "--repeated-sources=4", "--batch-size=3", "--generation-size=8",
+                "--report=" + reportDirectory);
+
+        SoakResult result = new SoakHarness(configuration).run();
+
+        Assertions.assertThat(result.getOperations()).isPositive();
+        Assertions.assertThat(result.getErrors()).isZero();
+        Assertions.assertThat(result.getSamples()).hasSizeBetween(5, 7);
+        Assertions.assertThat(result.getSamples()).anyMatch(Sample::isSettled);
+        Assertions.assertThat(result.getGrowthChecks()).extracting(GrowthCheck::getMetric)
+                .contains("reachable class loaders");
+        List<String> csv = Files.readAllLines(reportDirectory.resolve("samples.csv"));
+        Assertions.assertThat(csv.get(0)).isEqualTo(Sample.CSV_HEADER);
+        Assertions.assertThat(csv).hasSize(result.getSamples().size() + 1);
+        Assertions.assertThat(new String(Files.readAllBytes(reportDirectory.resolve("summary.txt"))))
+                .contains("batch", "changed", "loader", "result: ");
+    }
+
+    @Test
+    void whenAnArgumentIsUnknown_shouldThrowIllegalArgumentException() {
+        Assertions.assertThatThrownBy(() -> SoakConfiguration.fromArguments("--speed=fast"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("--speed");
+        Assertions.assertThatThrownBy(() -> SoakConfiguration.fromArguments("--mix=repeated=0"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least one operation");
+    }
+
+    @Test
+    void whenTheMixIsGiven_shouldOnlyReplayTheGivenOperations() {
+        SoakConfiguration configuration = SoakConfiguration.fromArguments("--mix=new=3,loader=1");
+        Assertions.assertThat(configuration.getMix())
+                .containsOnlyKeys(Operation.NEW_SOURCE, Operation.CLASS_LOADER)
+                .containsEntry(Operation.NEW_SOURCE, 3);
+    }
+}
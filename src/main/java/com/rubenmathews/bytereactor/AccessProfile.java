@@ -0,0 +1,113 @@
+package com.rubenmathews.bytereactor;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Configuration of the startup access profile of a {@link ByteReactor}. The ByteReactor records
+ * which sources are loaded in the recording window after it was built, in which order and how
+ * often, and saves the profile to the file. When the file exists on the next start, the
+ * recorded sources are precompiled in the background into the bytecode cache, the sources
+ * needed first after the start are compiled first.
+ *
+ * <p>The profile refers to file sources by path and to string sources by class name, sources
+ * are read when they are replayed. A changed source is compiled in its current version, a
+ * source which no longer exists is skipped. String sources are looked up with the source
+ * locator and skipped without one.
+ */
+public final class AccessProfile {
+
+  private final Path file;
+  private final Duration recordingWindow;
+  private final int maxEntries;
+  private final Function<String, String> sourceLocator;
+
+  private AccessProfile(Builder builder) {
+    this.file = builder.file;
+    this.recordingWindow = builder.recordingWindow;
+    this.maxEntries = builder.maxEntries;
+    this.sourceLocator = builder.sourceLocator;
+  }
+
+  /**
+   * Start building the profile configuration.
+   *
+   * @param file The file the profile is replayed from and saved to
+   * @return the builder
+   */
+  public static AccessProfile.Builder builder(Path file) {
+    return new Builder(file);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  Duration getRecordingWindow() {
+    return recordingWindow;
+  }
+
+  int getMaxEntries() {
+    return maxEntries;
+  }
+
+  Function<String, String> getSourceLocator() {
+    return sourceLocator;
+  }
+
+  public static class Builder {
+    private final Path file;
+    private Duration recordingWindow = Duration.ofMinutes(5);
+    private int maxEntries = 10000;
+    private Function<String, String> sourceLocator = className -> null;
+
+    private Builder(Path file) {
+      this.file = Objects.requireNonNull(file);
+    }
+
+    /**
+     * How long after the start loads are recorded, defaults to 5 minutes. The profile is saved
+     * when the window has passed, or when the ByteReactor is closed before.
+     *
+     * @param recordingWindow the recording window
+     * @return the builder
+     */
+    public Builder withRecordingWindow(Duration recordingWindow) {
+      this.recordingWindow = CompilationDeadline.requirePositive(recordingWindow);
+      return this;
+    }
+
+    /**
+     * The maximum number of distinct loads recorded, defaults to 10000.
+     *
+     * @param maxEntries the maximum number of entries
+     * @return the builder
+     */
+    public Builder withMaxEntries(int maxEntries) {
+      if (maxEntries < 1) {
+        throw new IllegalArgumentException("maxEntries has to be positive but got ["
+                + maxEntries + "]");
+      }
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Look up the current code of string sources by class name when the profile is replayed.
+     * The locator returns null for sources which no longer exist.
+     *
+     * @param sourceLocator the source locator
+     * @return the builder
+     */
+    public Builder withSourceLocator(Function<String, String> sourceLocator) {
+      this.sourceLocator = Objects.requireNonNull(sourceLocator);
+      return this;
+    }
+
+    public AccessProfile build() {
+      return new AccessProfile(this);
+    }
+  }
+}
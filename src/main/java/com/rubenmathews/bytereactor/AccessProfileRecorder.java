@@ -0,0 +1,191 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the loads of the recording window of an {@link AccessProfile} and reads and writes
+ * the profile file.
+ *
+ * <p>The file is line based text. An entry line {@code E <first access ms> <count>} is followed
+ * by one line per source compiled together, {@code F <class name> <charset> <path>} for file
+ * sources and {@code S <class name>} for string sources, fields separated by tabs. Lines which
+ * cannot be parsed are skipped, a damaged profile only loses the damaged entries.
+ */
+final class AccessProfileRecorder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AccessProfileRecorder.class);
+  private static final String HEADER = "# byte-reactor access profile 1";
+  private static final String ENTRY = "E";
+  static final String FILE_SOURCE = "F";
+  static final String STRING_SOURCE = "S";
+
+  private final AccessProfile profile;
+  private final long start = System.nanoTime();
+  private final Map<List<String>, Entry> entries = new LinkedHashMap<>();
+  private volatile boolean recording = true;
+
+  AccessProfileRecorder(AccessProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Record a load of the units, the profile is saved by the first load after the recording
+   * window.
+   *
+   * @param compilationUnits The units loaded together
+   */
+  void record(List<CompilationUnit> compilationUnits) {
+    if (!recording) {
+      return;
+    }
+    long elapsed = System.nanoTime() - start;
+    if (elapsed >= profile.getRecordingWindow().toNanos()) {
+      save();
+      return;
+    }
+    List<String> sources = new ArrayList<>(compilationUnits.size());
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      sources.add(compilationUnit.isFileSource()
+              ? FILE_SOURCE + '\t' + compilationUnit.getClassName() + '\t'
+                + compilationUnit.getCharset().name() + '\t'
+                + compilationUnit.getSourceFile().getAbsolutePath()
+              : STRING_SOURCE + '\t' + compilationUnit.getClassName());
+    }
+    synchronized (entries) {
+      Entry entry = entries.get(sources);
+      if (entry != null) {
+        entry.count++;
+      } else if (recording && entries.size() < profile.getMaxEntries()) {
+        entries.put(sources, new Entry(TimeUnit.NANOSECONDS.toMillis(elapsed), 1, sources));
+      }
+    }
+  }
+
+  /**
+   * Stop recording and write the recorded entries to the profile file. Nothing is written
+   * when nothing was recorded, so the profile of an earlier run is kept. Write failures are
+   * logged, a profile is an optimization.
+   */
+  void save() {
+    List<Entry> recorded;
+    synchronized (entries) {
+      if (!recording) {
+        return;
+      }
+      recording = false;
+      recorded = new ArrayList<>(entries.values());
+    }
+    if (recorded.isEmpty()) {
+      return;
+    }
+    Path file = profile.getFile().toAbsolutePath();
+    try {
+      Files.createDirectories(file.getParent());
+      Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(),
+              ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        writer.write(HEADER);
+        writer.newLine();
+        for (Entry entry : recorded) {
+          writer.write(ENTRY + '\t' + entry.firstAccessMillis + '\t' + entry.count);
+          writer.newLine();
+          for (String source : entry.sources) {
+            writer.write(source);
+            writer.newLine();
+          }
+        }
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+      LOGGER.info("Saved access profile with {} entries to {}", recorded.size(), file);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to save access profile to {}", file, e);
+    }
+  }
+
+  /**
+   * Read the entries of a profile file in replay order, the first accessed first and of
+   * those accessed at the same time the most accessed first.
+   *
+   * @param file The profile file
+   * @return the entries, empty if the file doesn't exist or cannot be read
+   */
+  static List<Entry> load(Path file) {
+    List<Entry> loaded = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      Entry entry = null;
+      String line = reader.readLine();
+      while (line != null) {
+        String[] fields = line.split("\t", 4);
+        if (fields[0].equals(ENTRY)) {
+          entry = parseEntry(fields);
+          if (entry != null) {
+            loaded.add(entry);
+          }
+        } else if (entry != null && (fields[0].equals(FILE_SOURCE) && fields.length == 4
+                || fields[0].equals(STRING_SOURCE) && fields.length == 2)) {
+          entry.sources.add(line);
+        }
+        line = reader.readLine();
+      }
+    } catch (NoSuchFileException e) {
+      return Collections.emptyList();
+    } catch (IOException e) {
+      LOGGER.warn("Unable to read access profile {}", file, e);
+      return Collections.emptyList();
+    }
+    loaded.removeIf(entry -> entry.sources.isEmpty());
+    loaded.sort(Comparator.comparingLong((Entry entry) -> entry.firstAccessMillis)
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.count).reversed()));
+    return loaded;
+  }
+
+  private static Entry parseEntry(String[] fields) {
+    if (fields.length != 3) {
+      return null;
+    }
+    try {
+      return new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), new ArrayList<>());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  static final class Entry {
+    private final long firstAccessMillis;
+    private long count;
+    private final List<String> sources;
+
+    private Entry(long firstAccessMillis, long count, List<String> sources) {
+      this.firstAccessMillis = firstAccessMillis;
+      this.count = count;
+      this.sources = sources;
+    }
+
+    /**
+     * The sources of the entry, as tab separated fields starting with {@link #FILE_SOURCE} or
+     * {@link #STRING_SOURCE}.
+     *
+     * @return the source lines
+     */
+    List<String> getSources() {
+      return sources;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precompiles the entries of an {@link AccessProfile} on a background daemon thread, in the
+ * order they were first loaded. Every source is compiled in its current version, sources
+ * which no longer exist are skipped and entries which fail to compile are left to the load.
+ */
+final class AccessProfileReplay implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AccessProfileReplay.class);
+
+  private final AccessProfile profile;
+  private final Consumer<List<CompilationUnit>> compiler;
+  private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+  private AccessProfileReplay(AccessProfile profile, Consumer<List<CompilationUnit>> compiler) {
+    this.profile = profile;
+    this.compiler = compiler;
+  }
+
+  static CompletableFuture<Void> start(AccessProfile profile,
+                                       Consumer<List<CompilationUnit>> compiler) {
+    AccessProfileReplay replay = new AccessProfileReplay(profile, compiler);
+    Thread thread = new Thread(replay, "byte-reactor-profile-replay");
+    thread.setDaemon(true);
+    thread.start();
+    return replay.result;
+  }
+
+  @Override
+  public void run() {
+    try {
+      long start = System.nanoTime();
+      int compiled = 0;
+      List<AccessProfileRecorder.Entry> entries = AccessProfileRecorder.load(profile.getFile());
+      for (AccessProfileRecorder.Entry entry : entries) {
+        if (result.isDone()) {
+          return;
+        }
+        List<CompilationUnit> compilationUnits = createCompilationUnits(entry);
+        if (compilationUnits.isEmpty()) {
+          continue;
+        }
+        try {
+          compiler.accept(compilationUnits);
+          compiled++;
+        } catch (CompilationFailedException | CompilationRejectedException e) {
+          LOGGER.debug("Skipped access profile entry which failed to compile", e);
+        } finally {
+          compilationUnits.forEach(CompilationUnit::close);
+        }
+      }
+      LOGGER.info("Access profile replay compiled {} of {} entries in {} ms", compiled,
+              entries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      result.complete(null);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Access profile replay failed", e);
+      result.completeExceptionally(e);
+    }
+  }
+
+  private List<CompilationUnit> createCompilationUnits(AccessProfileRecorder.Entry entry) {
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
+    for (String source : entry.getSources()) {
+      String[] fields = source.split("\t", 4);
+      CompilationUnit compilationUnit;
+      if (fields[0].equals(AccessProfileRecorder.FILE_SOURCE)) {
+        File sourceFile = new File(fields[3]);
+        if (!Files.isRegularFile(sourceFile.toPath()) || !Charset.isSupported(fields[2])) {
+          continue;
+        }
+        compilationUnit = new CompilationUnit(sourceFile, Charset.forName(fields[2]), fields[1],
+                null);
+      } else {
+        String code = profile.getSourceLocator().apply(fields[1]);
+        if (code == null) {
+          continue;
+        }
+        compilationUnit = new CompilationUnit(code, fields[1], null);
+      }
+      compilationUnit.setPriority(CompilationPriority.BULK);
+      compilationUnits.add(compilationUnit);
+    }
+    return compilationUnits;
+  }
+}
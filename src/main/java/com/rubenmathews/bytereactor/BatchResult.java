@@ -0,0 +1,43 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of a batch loaded with {@link ByteReactor#loadAvailableClasses}: the classes of
+ * every unit which compiled and the failure of every unit which didn't.
+ */
+public final class BatchResult {
+
+  private final Map<String, Class<?>> classes;
+  private final Map<String, CompilationFailedException> failures;
+
+  BatchResult(Map<String, Class<?>> classes, Map<String, CompilationFailedException> failures) {
+    this.classes = Collections.unmodifiableMap(classes);
+    this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+  }
+
+  /**
+   * The loaded classes by name, including the other classes of the sources that compiled.
+   *
+   * @return the loaded classes
+   */
+  public Map<String, Class<?>> getClasses() {
+    return classes;
+  }
+
+  /**
+   * The failures by the class name of the unit which failed. The exception carries the
+   * diagnostics reported for the unit.
+   *
+   * @return the failures, in the order they were found
+   */
+  public Map<String, CompilationFailedException> getFailures() {
+    return failures;
+  }
+
+  public boolean hasFailures() {
+    return !failures.isEmpty();
+  }
+}
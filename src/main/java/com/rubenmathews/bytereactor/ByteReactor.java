@@ -1,56 +1,143 @@
 package com.rubenmathews.bytereactor;
 
+import java.io.File;
+import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
 public class ByteReactor implements RuntimeCompiler {
-  private static final Map<ClassLoader, Map<String, Class<?>>> CACHE;
   private static final JavaCompiler JAVA_COMPILER = ToolProvider.getSystemJavaCompiler();
   private static final List<String> OPTIONS;
 
-  private final ByteReactorFileManager javaByteReactorFileManager;
   private final DynamicClassLoader classLoader;
   private final GenericDiagnosticListener diagnosticListener;
   private final Path classDestination;
   private final Set<? extends Processor> processors;
+  private final MethodHandles.Lookup hiddenClassHost;
+  private final CompletableFuture<Void> warmup;
+  private final JavaCompilerBackend javac;
+  private final CompilerBackend compilerBackend;
+  private final CompilerBackend inProcessBackend;
+  private final List<Path> compilerClassPath;
+  private final CompileScheduler compileScheduler;
+  private final Duration compileTimeout;
+  private final List<BytecodeTransformer> bytecodeTransformers;
+  private final FailedCompilationCache failedCompilations;
+  private final BytecodeCache bytecodeCache;
+  private final String classPathFingerprint;
+  private final BytecodeStore bytecodeStore;
+  private final AccessProfileRecorder accessProfileRecorder;
+  private final CompletableFuture<Void> profileReplay;
+  private final PrecompiledArtifact precompiledArtifact;
+  private final Map<String, TenantNamespace> namespaces = new ConcurrentHashMap<>();
 
   static {
     OPTIONS = Collections.singletonList("-g");
-    CACHE = new WeakHashMap<>();
   }
 
   protected ByteReactor(ClassLoader classLoader,
                         DiagnosticReportLevel diagnosticReportLevel,
                         Path destinationPrefix,
                         Set<? extends Processor> processors) {
-    this.classLoader = classLoader != null ? DynamicClassLoader.instance(classLoader) : null;
-    StandardJavaFileManager standardJavaFileManager = JAVA_COMPILER
-            .getStandardFileManager(new GenericDiagnosticListener(), null, null);
-    this.javaByteReactorFileManager = new ByteReactorFileManager(standardJavaFileManager);
-    diagnosticListener = new GenericDiagnosticListener(diagnosticReportLevel);
-    this.classDestination = destinationPrefix;
-    this.processors = processors;
+    this(ByteReactorBuilder.builder()
+            .withClassLoader(classLoader)
+            .withReportLevel(diagnosticReportLevel)
+            .withCompilerDestinationPath(destinationPrefix)
+            .withProcessors(processors));
+  }
+
+  protected ByteReactor(ByteReactorBuilder builder) {
+    MethodHandles.Lookup hiddenClassLookup = builder.getHiddenClassHost();
+    if (hiddenClassLookup != null && !HiddenClasses.isSupported()) {
+      throw new UnsupportedOperationException("Hidden classes require Java 15 or later");
+    }
+    this.hiddenClassHost = hiddenClassLookup;
+    ClassLoader givenClassLoader = builder.getClassLoader();
+    this.classLoader = givenClassLoader != null
+            ? DynamicClassLoader.instance(givenClassLoader) : null;
+    this.bytecodeStore = builder.getBytecodeStore();
+    this.compilerClassPath = builder.getCompilerClassPath();
+    this.classPathFingerprint = SourceFingerprint.ofClassPath(getClassPathFiles());
+    this.precompiledArtifact = builder.getPrecompiledArtifact();
+    diagnosticListener = new GenericDiagnosticListener(builder.getReportLevel());
+    this.classDestination = builder.getClassDestination();
+    this.processors = builder.getProcessors();
+    // without javac, on a JRE, only precompiled sources can be loaded
+    this.javac = JavaCompilerBackend.javac();
+    CompilerBackend backend = builder.getCompilerBackend();
+    this.compilerBackend = backend != null ? backend : javac;
+    this.inProcessBackend = compilerBackend.isInProcess() ? compilerBackend : javac;
+    this.compileScheduler = builder.getCompileScheduler();
+    this.compileTimeout = builder.getCompileTimeout();
+    this.bytecodeTransformers = new ArrayList<>(builder.getBytecodeTransformers());
+    this.failedCompilations = builder.getFailedCompilationCacheSize() > 0
+            ? new FailedCompilationCache(builder.getFailedCompilationCacheSize(),
+                    builder.getFailedCompilationTimeToLive())
+            : null;
+    this.bytecodeCache = builder.getBytecodeCacheSize() > 0
+            ? new BytecodeCache(builder.getBytecodeCacheSize()) : null;
+    this.warmup = builder.getWarmup() != null
+            ? CompilerWarmup.start(JAVA_COMPILER, OPTIONS, builder.getWarmup())
+            : CompletableFuture.completedFuture(null);
+    AccessProfile accessProfile = builder.getAccessProfile();
+    if (accessProfile != null && bytecodeCache == null) {
+      throw new IllegalArgumentException("An access profile is replayed into the bytecode cache, "
+              + "configure withBytecodeCache as well");
+    }
+    this.accessProfileRecorder = accessProfile != null
+            ? new AccessProfileRecorder(accessProfile) : null;
+    this.profileReplay = accessProfile != null
+            ? AccessProfileReplay.start(accessProfile, this::precompile)
+            : CompletableFuture.completedFuture(null);
+  }
+
+  private List<File> getClassPathFiles() {
+    List<File> files = new ArrayList<>();
+    if (compilerClassPath != null) {
+      compilerClassPath.forEach(entry -> files.add(entry.toFile()));
+      return files;
+    }
+    for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        files.add(new File(entry));
+      }
+    }
+    return files;
   }
 
   @Override
   public Class<?> loadClass(CompilationRequest compilationRequest) {
+    if (isHiddenClassMode()) {
+      return loadHiddenClass(compilationRequest);
+    }
     return loadClassWithDynamicClassLoader(compilationRequest, getCurrentClassloader());
   }
 
   @Override
   public Class<?> loadClass(CompilationRequest compilationRequest, ClassLoader classLoader) {
+    if (isHiddenClassMode()) {
+      requireNoClassLoaderForHiddenClasses(classLoader);
+      return loadHiddenClass(compilationRequest);
+    }
     return loadClassWithDynamicClassLoader(compilationRequest,
             instantiateDynamicClassLoader(classLoader));
   }
@@ -58,6 +145,9 @@ public class ByteReactor implements RuntimeCompiler {
 
   @Override
   public Map<String, Class<?>> loadClasses(CompilationRequestBatch compilationCollection) {
+    if (isHiddenClassMode()) {
+      return loadAllHiddenClasses(compilationCollection);
+    }
     return loadAllClassWithDynamicClassloader(compilationCollection,
             getCurrentClassloader());
   }
@@ -65,10 +155,197 @@ public class ByteReactor implements RuntimeCompiler {
   @Override
   public Map<String, Class<?>> loadClasses(CompilationRequestBatch compilationCollection,
                                            ClassLoader classLoader) {
+    if (isHiddenClassMode()) {
+      requireNoClassLoaderForHiddenClasses(classLoader);
+      return loadAllHiddenClasses(compilationCollection);
+    }
     return loadAllClassWithDynamicClassloader(compilationCollection,
             instantiateDynamicClassLoader(classLoader));
   }
 
+  /**
+   * Load the batch like {@link #loadClasses(CompilationRequestBatch)}, but a unit failing to
+   * compile doesn't fail the batch. The failing units are found from the diagnostics and the
+   * other units are compiled again, in as few compilations as possible.
+   *
+   * @param compilationCollection The batch to load
+   * @return the loaded classes and the failures of the units which didn't compile
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public BatchResult loadAvailableClasses(CompilationRequestBatch compilationCollection) {
+    requireNoHiddenClassMode();
+    Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
+    return compileAndLoadAvailableClasses(getCurrentClassloader(),
+            compilationCollection.getCollection());
+  }
+
+  /**
+   * Load the batch into a dynamic class loader of the given class loader like
+   * {@link #loadClasses(CompilationRequestBatch, ClassLoader)}, but a unit failing to compile
+   * doesn't fail the batch, see {@link #loadAvailableClasses(CompilationRequestBatch)}.
+   *
+   * @param compilationCollection The batch to load
+   * @param classLoader           The parent class loader
+   * @return the loaded classes and the failures of the units which didn't compile
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public BatchResult loadAvailableClasses(CompilationRequestBatch compilationCollection,
+                                          ClassLoader classLoader) {
+    requireNoHiddenClassMode();
+    Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
+    return compileAndLoadAvailableClasses(instantiateDynamicClassLoader(classLoader),
+            compilationCollection.getCollection());
+  }
+
+  /**
+   * Load the batch like {@link #loadClasses(CompilationRequestBatch)}, handing every class to
+   * the consumer as soon as it is defined. Cached classes are handed over before the other
+   * units are compiled. The consumer runs on the calling thread, loading continues when it
+   * returns.
+   *
+   * @param compilationCollection The batch to load
+   * @param consumer              Receives the name and the class of every loaded class
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public void streamClasses(CompilationRequestBatch compilationCollection,
+                            BiConsumer<String, Class<?>> consumer) {
+    streamClasses(compilationCollection, null, consumer);
+  }
+
+  /**
+   * Load the batch into a dynamic class loader of the given class loader, handing every class
+   * to the consumer as soon as it is defined, see
+   * {@link #streamClasses(CompilationRequestBatch, BiConsumer)}.
+   *
+   * @param compilationCollection The batch to load
+   * @param classLoader           The parent class loader
+   * @param consumer              Receives the name and the class of every loaded class
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public void streamClasses(CompilationRequestBatch compilationCollection,
+                            ClassLoader classLoader, BiConsumer<String, Class<?>> consumer) {
+    requireNoHiddenClassMode();
+    Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
+    compileAndStreamClasses(instantiateDynamicClassLoader(classLoader),
+            compilationCollection.getCollection(), Objects.requireNonNull(consumer));
+  }
+
+  /**
+   * Load the batch in the background, the returned stream yields every class as soon as it is
+   * defined. At most {@code bufferSize} classes are buffered, loading waits for the consumer
+   * while the buffer is full.
+   *
+   * @param compilationCollection The batch to load
+   * @param bufferSize            The number of classes buffered for the consumer
+   * @return the stream of the loaded classes, to be closed when not consumed to the end
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public ClassStream openClassStream(CompilationRequestBatch compilationCollection,
+                                     int bufferSize) {
+    return openClassStream(compilationCollection, null, bufferSize);
+  }
+
+  /**
+   * Load the batch into a dynamic class loader of the given class loader in the background,
+   * see {@link #openClassStream(CompilationRequestBatch, int)}.
+   *
+   * @param compilationCollection The batch to load
+   * @param classLoader           The parent class loader
+   * @param bufferSize            The number of classes buffered for the consumer
+   * @return the stream of the loaded classes, to be closed when not consumed to the end
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public ClassStream openClassStream(CompilationRequestBatch compilationCollection,
+                                     ClassLoader classLoader, int bufferSize) {
+    requireNoHiddenClassMode();
+    Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
+    DynamicClassLoader dynamicClassLoader = instantiateDynamicClassLoader(classLoader);
+    return ClassStream.start(bufferSize, consumer -> compileAndStreamClasses(dynamicClassLoader,
+            compilationCollection.getCollection(), consumer));
+  }
+
+  /**
+   * The namespace of the given tenant, created without limits if it doesn't exist yet.
+   *
+   * @param tenant The tenant
+   * @return the namespace of the tenant
+   * @throws UnsupportedOperationException In hidden class mode
+   */
+  public TenantNamespace namespace(String tenant) {
+    requireNoHiddenClassMode();
+    return namespaces.computeIfAbsent(tenant,
+        key -> new TenantNamespace(key, TenantQuota.unlimited(), this, compileScheduler));
+  }
+
+  /**
+   * The namespace of the given tenant, created if it doesn't exist yet. The quota of an
+   * existing namespace is replaced by the given quota.
+   *
+   * @param tenant The tenant
+   * @param quota  The quota of the tenant
+   * @return the namespace of the tenant
+   * @throws UnsupportedOperationException In hidden class mode
+   * @throws IllegalArgumentException      If the quota limits concurrent compilations but no
+   *                                       {@link CompileScheduler} is configured
+   */
+  public TenantNamespace namespace(String tenant, TenantQuota quota) {
+    Objects.requireNonNull(quota);
+    requireNoHiddenClassMode();
+    TenantNamespace namespace = namespaces.computeIfAbsent(tenant,
+        key -> new TenantNamespace(key, quota, this, compileScheduler));
+    if (namespace.getQuota() != quota) {
+      namespace.setQuota(quota);
+    }
+    return namespace;
+  }
+
+  public Collection<TenantNamespace> getNamespaces() {
+    return Collections.unmodifiableCollection(namespaces.values());
+  }
+
+  void removeNamespace(TenantNamespace namespace) {
+    namespaces.remove(namespace.getTenant(), namespace);
+  }
+
+  public boolean isHiddenClassMode() {
+    return hiddenClassHost != null;
+  }
+
+  /**
+   * The background compiler warm-up started when the ByteReactor was built.
+   * The future is already complete when no warm-up was configured, it completes exceptionally
+   * if a representative source fails to compile.
+   *
+   * @return future completing once the warm-up has finished
+   */
+  public CompletableFuture<Void> warmup() {
+    return warmup;
+  }
+
+  public boolean isWarmedUp() {
+    return warmup.isDone() && !warmup.isCompletedExceptionally();
+  }
+
+  /**
+   * The background replay of the access profile, completes when all recorded sources are
+   * precompiled into the bytecode cache. Completes immediately without an access profile.
+   *
+   * @return the replay
+   */
+  public CompletableFuture<Void> profileReplay() {
+    return profileReplay;
+  }
+
+  /**
+   * Stop recording the access profile and save it now instead of after the recording window.
+   * Does nothing without an access profile or when it was saved already.
+   */
+  public void saveAccessProfile() {
+    if (accessProfileRecorder != null) {
+      accessProfileRecorder.save();
+    }
+  }
+
 
   private DynamicClassLoader getCurrentClassloader() {
     if (classLoader != null) {
@@ -87,19 +364,244 @@ public class ByteReactor implements RuntimeCompiler {
           CompilationRequestBatch compilationCollection,
           DynamicClassLoader classLoader) {
     Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
-    return compileAndLoadClasses(classLoader, compilationCollection.getCollection());
+    return compileAndLoadClasses(classLoader, compilationCollection.getCollection(), null);
   }
 
   private Class<?> compileAndLoadClass(DynamicClassLoader classLoader, CompilationUnit unit) {
-    return compileAndLoadClasses(classLoader, Collections.singletonList(unit))
+    return compileAndLoadClasses(classLoader, Collections.singletonList(unit), null)
             .get(unit.getClassName());
   }
 
-  private Map<String, Class<?>> compileAndLoadClasses(DynamicClassLoader dynamicClassLoader,
-                                                      List<CompilationUnit> compilationUnitList) {
+  /**
+   * Load the units from the cache partition of the class loader, compiling and defining the
+   * units which are not cached.
+   *
+   * @param dynamicClassLoader  The class loader owning the cache partition
+   * @param compilationUnitList The units to load
+   * @param namespace           The namespace the compilation is charged to, null for none
+   * @return the loaded classes by name
+   */
+  Map<String, Class<?>> compileAndLoadClasses(DynamicClassLoader dynamicClassLoader,
+                                              List<CompilationUnit> compilationUnitList,
+                                              TenantNamespace namespace) {
     Map<String, Class<?>> loadedClasses = new HashMap<>();
-    List<CompilationUnit> compilationUnits = new ArrayList<>();
     prepareCompilationUnit(compilationUnitList);
+    List<CompilationUnit> compilationUnits = loadCachedClasses(dynamicClassLoader,
+            compilationUnitList, loadedClasses);
+    if (compilationUnits.isEmpty()) {
+      return loadedClasses;
+    }
+
+    compile(compilationUnits, dynamicClassLoader, namespace);
+    defineClasses(dynamicClassLoader, compilationUnits, loadedClasses::put);
+    return loadedClasses;
+  }
+
+  private void compileAndStreamClasses(DynamicClassLoader dynamicClassLoader,
+                                       List<CompilationUnit> compilationUnitList,
+                                       BiConsumer<String, Class<?>> consumer) {
+    Map<String, Class<?>> cachedClasses = new LinkedHashMap<>();
+    prepareCompilationUnit(compilationUnitList);
+    List<CompilationUnit> compilationUnits = loadCachedClasses(dynamicClassLoader,
+            compilationUnitList, cachedClasses);
+    cachedClasses.forEach(consumer);
+    if (compilationUnits.isEmpty()) {
+      return;
+    }
+    compile(compilationUnits, dynamicClassLoader.getParent(), null);
+    defineClasses(dynamicClassLoader, compilationUnits, consumer);
+  }
+
+  /*
+   * All classes of the compilation are staged before the first one is defined, so a class
+   * referring to a class defined after it, e.g. its superclass in another unit, resolves it on
+   * demand. The consumer may use a class right away while the others are still being defined.
+   */
+  private void defineClasses(DynamicClassLoader dynamicClassLoader,
+                             List<CompilationUnit> compilationUnits,
+                             BiConsumer<String, Class<?>> consumer) {
+    Map<String, CompiledCode> stagedClasses = new HashMap<>();
+    try {
+      for (CompilationUnit compilationUnit : compilationUnits) {
+        stageClasses(dynamicClassLoader, compilationUnit, stagedClasses);
+      }
+      for (CompilationUnit compilationUnit : compilationUnits) {
+        compilationUnit.writeToFile();
+        cacheAndLoadClass(dynamicClassLoader, compilationUnit, consumer);
+      }
+    } finally {
+      dynamicClassLoader.unstage(stagedClasses);
+    }
+  }
+
+  private void stageClasses(DynamicClassLoader dynamicClassLoader, CompilationUnit unit,
+                            Map<String, CompiledCode> stagedClasses) {
+    validateCompiledClass(unit);
+    unit.getCompiledClasses().forEach((className, compiledCode) -> {
+      dynamicClassLoader.stage(className, compiledCode);
+      stagedClasses.put(className, compiledCode);
+    });
+  }
+
+  /*
+   * Every unit compiles in one javac task until the task fails. The units the error diagnostics
+   * point at are set aside and the rest is compiled again in one task, units depending on a
+   * failed unit fail in the next round. Errors which cannot be attributed to a unit, e.g.
+   * reported by an annotation processor, are narrowed down to the unit raising them by
+   * bisecting the task, and all other units are compiled again in one task.
+   */
+  private BatchResult compileAndLoadAvailableClasses(DynamicClassLoader dynamicClassLoader,
+                                                     List<CompilationUnit> compilationUnitList) {
+    Map<String, Class<?>> loadedClasses = new HashMap<>();
+    Map<String, CompilationFailedException> failures = new LinkedHashMap<>();
+    prepareCompilationUnit(compilationUnitList);
+    Deque<List<CompilationUnit>> tasks = new ArrayDeque<>();
+    tasks.push(loadCachedClasses(dynamicClassLoader, compilationUnitList, loadedClasses));
+    while (!tasks.isEmpty()) {
+      List<CompilationUnit> task = tasks.pop();
+      if (task.isEmpty()) {
+        continue;
+      }
+      try {
+        compile(task, dynamicClassLoader.getParent(), null);
+      } catch (CompilationFailedException e) {
+        isolateFailures(task, e, dynamicClassLoader.getParent(), tasks, failures);
+        continue;
+      }
+      Map<String, CompiledCode> stagedClasses = new HashMap<>();
+      List<CompilationUnit> compiledUnits = new ArrayList<>();
+      try {
+        for (CompilationUnit compilationUnit : task) {
+          try {
+            stageClasses(dynamicClassLoader, compilationUnit, stagedClasses);
+            compiledUnits.add(compilationUnit);
+          } catch (RuntimeException e) {
+            addDefineFailure(failures, compilationUnit, e);
+          }
+        }
+        for (CompilationUnit compilationUnit : compiledUnits) {
+          try {
+            compilationUnit.writeToFile();
+            cacheAndLoadClass(dynamicClassLoader, compilationUnit, loadedClasses::put);
+          } catch (RuntimeException | LinkageError e) {
+            addDefineFailure(failures, compilationUnit, e);
+          }
+        }
+      } finally {
+        dynamicClassLoader.unstage(stagedClasses);
+      }
+    }
+    return new BatchResult(loadedClasses, failures);
+  }
+
+  private static void addDefineFailure(Map<String, CompilationFailedException> failures,
+                                       CompilationUnit compilationUnit, Throwable e) {
+    failures.put(compilationUnit.getClassName(), e instanceof CompilationFailedException
+            ? (CompilationFailedException) e
+            : new CompilationFailedException("Unable to define the classes of "
+                    + compilationUnit.getClassName(), e));
+  }
+
+  private void isolateFailures(List<CompilationUnit> task, CompilationFailedException e,
+                               ClassLoader classLoader, Deque<List<CompilationUnit>> tasks,
+                               Map<String, CompilationFailedException> failures) {
+    if (!e.hasErrors() || task.size() == 1) {
+      // a timeout or a crashed worker says nothing about the units, all of them failed
+      task.forEach(compilationUnit -> failures.put(compilationUnit.getClassName(), e));
+      return;
+    }
+    Map<String, List<CompilationDiagnostic>> diagnostics = new HashMap<>();
+    Set<String> failed = new HashSet<>();
+    for (CompilationDiagnostic diagnostic : e.getDiagnostics()) {
+      if (diagnostic.getClassName() != null) {
+        diagnostics.computeIfAbsent(diagnostic.getClassName(), key -> new ArrayList<>())
+                .add(diagnostic);
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          failed.add(diagnostic.getClassName());
+        }
+      }
+    }
+    List<CompilationUnit> remaining = new ArrayList<>();
+    for (CompilationUnit compilationUnit : task) {
+      String className = compilationUnit.getClassName();
+      if (failed.contains(className)) {
+        failures.put(className, new CompilationFailedException("Compilation of " + className
+                + " Failed, check the diagnostics of the exception", diagnostics.get(className)));
+      } else {
+        remaining.add(compilationUnit);
+      }
+    }
+    if (remaining.size() < task.size()) {
+      tasks.push(remaining);
+      return;
+    }
+    /*
+     * A part of the task compiled alone may miss units it depends on, so the parts are only
+     * compiled to find the unit raising the errors, never to decide which units failed.
+     */
+    List<CompilationUnit> suspects = task;
+    CompilationFailedException suspectFailure = null;
+    while (suspects.size() > 1) {
+      int half = suspects.size() / 2;
+      List<CompilationUnit> firstHalf = new ArrayList<>(suspects.subList(0, half));
+      CompilationFailedException failure = tryCompile(firstHalf, classLoader);
+      if (hasUnattributedErrors(failure)) {
+        suspects = firstHalf;
+        suspectFailure = failure;
+      } else {
+        suspects = new ArrayList<>(suspects.subList(half, suspects.size()));
+        suspectFailure = null;
+      }
+    }
+    if (suspectFailure == null) {
+      suspectFailure = tryCompile(suspects, classLoader);
+    }
+    if (!hasUnattributedErrors(suspectFailure)) {
+      // the errors only show up when the units are compiled together
+      task.forEach(compilationUnit -> failures.put(compilationUnit.getClassName(), e));
+      return;
+    }
+    CompilationUnit culprit = suspects.get(0);
+    failures.put(culprit.getClassName(), suspectFailure);
+    remaining.remove(culprit);
+    tasks.push(remaining);
+  }
+
+  /*
+   * Returns null if the units compile, the bytecode is dropped, the units are compiled again
+   * with the rest of their task.
+   */
+  private CompilationFailedException tryCompile(List<CompilationUnit> compilationUnits,
+                                                ClassLoader classLoader) {
+    try {
+      compile(compilationUnits, classLoader, null);
+      return null;
+    } catch (CompilationFailedException e) {
+      return e;
+    } finally {
+      compilationUnits.forEach(CompilationUnit::close);
+    }
+  }
+
+  private static boolean hasUnattributedErrors(CompilationFailedException e) {
+    if (e == null) {
+      return false;
+    }
+    for (CompilationDiagnostic diagnostic : e.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getClassName() == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<CompilationUnit> loadCachedClasses(DynamicClassLoader dynamicClassLoader,
+                                                  List<CompilationUnit> compilationUnitList,
+                                                  Map<String, Class<?>> loadedClasses) {
+    if (accessProfileRecorder != null) {
+      accessProfileRecorder.record(compilationUnitList);
+    }
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
     compilationUnitList.forEach(compilation -> {
       Class<?> klass = null;
       /*
@@ -110,6 +612,11 @@ public class ByteReactor implements RuntimeCompiler {
        */
       if (!compilation.hasDestinationPath()) {
         klass = getCachedClasses(dynamicClassLoader).get(compilation.getClassName());
+        if (klass != null) {
+          ByteReactorEvents.cacheHit(dynamicClassLoader.getParent(), compilation.getClassName());
+        } else {
+          ByteReactorEvents.cacheMiss(dynamicClassLoader.getParent(), compilation.getClassName());
+        }
       }
       if (klass != null) {
         loadedClasses.put(compilation.getClassName(), klass);
@@ -117,22 +624,320 @@ public class ByteReactor implements RuntimeCompiler {
         compilationUnits.add(compilation);
       }
     });
+    return compilationUnits;
+  }
 
-    if (compilationUnits.isEmpty()) {
-      return loadedClasses;
+  /**
+   * Compile the units through the caches, the precompiled artifact and the scheduler, without
+   * loading the classes. The bytecode stays attached to the units.
+   *
+   * @param compilationUnits The units compiled together
+   * @throws CompilationFailedException If the units don't compile
+   */
+  void precompile(List<CompilationUnit> compilationUnits) {
+    prepareCompilationUnit(compilationUnits);
+    compile(compilationUnits);
+  }
+
+  /**
+   * The fingerprint the bytecode cache keeps the compilation of the units under.
+   *
+   * @param compilationUnits The units compiled together
+   * @return the fingerprint, null if a source cannot be read
+   */
+  String fingerprint(List<CompilationUnit> compilationUnits) {
+    return SourceFingerprint.of(compilationUnits, OPTIONS, processors, classPathFingerprint);
+  }
+
+  List<String> getCompilerOptions() {
+    return OPTIONS;
+  }
+
+  Set<? extends Processor> getProcessors() {
+    return processors;
+  }
+
+  Duration getCompileTimeout() {
+    return compileTimeout;
+  }
+
+  boolean hasBytecodeTransformers() {
+    return !bytecodeTransformers.isEmpty();
+  }
+
+  private void compile(List<CompilationUnit> compilationUnits) {
+    compile(compilationUnits, Collections.emptyMap());
+  }
+
+  /**
+   * Compile the units for a class loader, against the bytecode of the nearest
+   * {@link LibraryLayer} among the class loader and its ancestors.
+   *
+   * @param compilationUnits The units to compile
+   * @param classLoader      The class loader the classes are defined in or below
+   * @param namespace        The namespace the compilation is charged to, null for none, the
+   *                         classes are charged to the class loader
+   */
+  void compile(List<CompilationUnit> compilationUnits, ClassLoader classLoader,
+               TenantNamespace namespace) {
+    LibraryClassLoader layer = LibraryClassLoader.nearest(classLoader);
+    if (layer == null) {
+      compile(compilationUnits, Collections.emptyMap(), classPathFingerprint, namespace,
+              classLoader);
+    } else {
+      compile(compilationUnits, layer.getClassPath(),
+              classPathFingerprint + layer.getFingerprint(), namespace, classLoader);
     }
+  }
 
-    JavaCompiler.CompilationTask compilationTask = getCompilationTask(compilationUnits);
-    compilationTask.setProcessors(processors);
-    if (Boolean.TRUE.equals(compilationTask.call())) {
-      compilationUnits.forEach(compilationUnit -> {
-        compilationUnit.writeToFile();
-        loadedClasses.putAll(cacheAndLoadClass(dynamicClassLoader, compilationUnit));
+  /**
+   * Compile the units without loading or caching the compiled classes. The given classes are
+   * added to the class path, so the units can refer to classes which only exist as bytecode.
+   * Such compilations always run in process, a worker JVM cannot see these classes.
+   *
+   * @param compilationUnits The units to compile
+   * @param classPath        Bytecode by binary class name, available to the compilation
+   */
+  void compile(List<CompilationUnit> compilationUnits, Map<String, byte[]> classPath) {
+    compile(compilationUnits, classPath, classPath.isEmpty() ? classPathFingerprint : null,
+            null, null);
+  }
+
+  /*
+   * The class path key fingerprints everything on the class path, the compilation is only
+   * cached when there is one.
+   */
+  private void compile(List<CompilationUnit> compilationUnits, Map<String, byte[]> classPath,
+                       String classPathKey, TenantNamespace namespace,
+                       ClassLoader classLoader) {
+    if (precompiledArtifact != null && classPath.isEmpty() && precompiledArtifact.attach(
+            PrecompiledArtifact.fingerprint(compilationUnits, OPTIONS, processors),
+            compilationUnits, bytecodeStore)) {
+      if (namespace != null) {
+        namespace.reserve(compilationUnits, classLoader);
+      }
+      transform(compilationUnits);
+      return;
+    }
+    String fingerprint = (failedCompilations != null || bytecodeCache != null)
+            && classPathKey != null
+            ? SourceFingerprint.of(compilationUnits, OPTIONS, processors, classPathKey)
+            : null;
+    if (fingerprint == null) {
+      admit(compilationUnits, classPath, namespace, classLoader);
+      return;
+    }
+    if (bytecodeCache != null
+            && bytecodeCache.attach(fingerprint, compilationUnits, bytecodeStore)) {
+      if (namespace != null) {
+        namespace.reserve(compilationUnits, classLoader);
+      }
+      return;
+    }
+    List<CompilationDiagnostic> diagnostics = failedCompilations != null
+            ? failedCompilations.get(fingerprint) : null;
+    if (diagnostics != null) {
+      throw new CompilationFailedException("Compilation failed before with the same sources, "
+              + "check the diagnostics of the exception", diagnostics);
+    }
+    try {
+      admit(compilationUnits, classPath, namespace, classLoader);
+    } catch (CompilationFailedException e) {
+      // timeouts and broken workers have no errors, only javac errors are a property of the input
+      if (failedCompilations != null && e.hasErrors()) {
+        failedCompilations.put(fingerprint, e.getDiagnostics());
+      }
+      throw e;
+    }
+    if (bytecodeCache != null) {
+      bytecodeCache.put(fingerprint, compilationUnits);
+    }
+  }
+
+  /*
+   * The deadline starts before waiting for the scheduler, the time spent in the queue counts
+   * against the timeout of the compilation.
+   */
+  private void admit(List<CompilationUnit> compilationUnits, Map<String, byte[]> classPath,
+                     TenantNamespace namespace, ClassLoader classLoader) {
+    CompilationDeadline deadline = CompilationDeadline.start(compilationUnits, compileTimeout);
+    if (namespace != null) {
+      namespace.checkQuota();
+    }
+    if (compileScheduler == null) {
+      compileInNamespace(compilationUnits, classPath, namespace, classLoader, deadline);
+      return;
+    }
+    CompileScheduler.Permit permit;
+    try {
+      permit = compileScheduler.acquire(getHighestPriority(compilationUnits),
+              namespace == null ? null : namespace.getTenant(), compilationUnits.size(),
+              deadline.isBounded() ? deadline.getRemainingNanos() : Long.MAX_VALUE);
+    } catch (CompilationRejectedException e) {
+      if (deadline.isExpired()) {
+        throw deadline.expired();
+      }
+      throw e;
+    }
+    try {
+      compileInNamespace(compilationUnits, classPath, namespace, classLoader, deadline);
+    } finally {
+      permit.close();
+    }
+  }
+
+  private void compileInNamespace(List<CompilationUnit> compilationUnits,
+                                  Map<String, byte[]> classPath, TenantNamespace namespace,
+                                  ClassLoader classLoader, CompilationDeadline deadline) {
+    if (namespace == null) {
+      compileAndTransform(compilationUnits, classPath, deadline);
+      return;
+    }
+    namespace.compile(compilationUnits, classLoader, !getBackend(classPath).isInProcess(),
+        () -> compileAndTransform(compilationUnits, classPath, deadline));
+  }
+
+  /*
+   * A compilation stopped at its deadline may have produced the bytecode of some classes
+   * already. It is discarded, so none of the classes of a timed out compilation get defined.
+   */
+  private void compileAndTransform(List<CompilationUnit> compilationUnits,
+                                   Map<String, byte[]> classPath, CompilationDeadline deadline) {
+    Object compileEvent = ByteReactorEvents.beginCompile();
+    boolean compiled = false;
+    try {
+      compileUnits(compilationUnits, classPath, deadline);
+      compiled = true;
+    } catch (CompilationFailedException e) {
+      compilationUnits.forEach(CompilationUnit::close);
+      throw e;
+    } finally {
+      ByteReactorEvents.endCompile(compileEvent, compilationUnits, compiled);
+    }
+    transform(compilationUnits);
+  }
+
+  private void compileUnits(List<CompilationUnit> compilationUnits,
+                            Map<String, byte[]> classPath,
+                            CompilationDeadline deadline) {
+    getBackend(classPath).compile(compilationUnits, new CompilerContext(OPTIONS, processors,
+            diagnosticListener, compilerClassPath, classPath, bytecodeStore, deadline));
+  }
+
+  private CompilerBackend getBackend(Map<String, byte[]> classPath) {
+    return classPath.isEmpty() ? compilerBackend : inProcessBackend;
+  }
+
+  /**
+   * Compile the units for a {@link PrecompiledArtifact}, without caches, scheduler or bytecode
+   * transformers, those apply when the precompiled classes are loaded.
+   *
+   * @param compilationUnits The units compiled together
+   * @return the fingerprint the artifact matches the compilation by
+   * @throws CompilationFailedException If the units don't compile
+   */
+  String compileForArtifact(List<CompilationUnit> compilationUnits) {
+    prepareCompilationUnit(compilationUnits);
+    String fingerprint = PrecompiledArtifact.fingerprint(compilationUnits, OPTIONS, processors);
+    if (fingerprint == null) {
+      throw new CompilationFailedException("Unable to read the sources of "
+              + compilationUnits.get(0).getClassName());
+    }
+    try {
+      compileUnits(compilationUnits, Collections.emptyMap(),
+              CompilationDeadline.start(compilationUnits, compileTimeout));
+      compilationUnits.forEach(this::validateCompiledClass);
+    } catch (RuntimeException e) {
+      compilationUnits.forEach(CompilationUnit::close);
+      throw e;
+    }
+    return fingerprint;
+  }
+
+  private void transform(List<CompilationUnit> compilationUnits) {
+    if (bytecodeTransformers.isEmpty()) {
+      return;
+    }
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      compilationUnit.getCompiledClasses().forEach((className, compiledCode) -> {
+        byte[] bytecode = compiledCode.getByteCode();
+        for (BytecodeTransformer bytecodeTransformer : bytecodeTransformers) {
+          bytecode = bytecodeTransformer.transform(className, bytecode);
+        }
+        compiledCode.setByteCode(bytecode);
       });
-      return loadedClasses;
     }
+  }
+
+  private CompilationPriority getHighestPriority(List<CompilationUnit> compilationUnits) {
+    CompilationPriority priority = CompilationPriority.BULK;
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      if (compilationUnit.getPriority().ordinal() < priority.ordinal()) {
+        priority = compilationUnit.getPriority();
+      }
+    }
+    return priority;
+  }
+
+  private Class<?> loadHiddenClass(CompilationRequest compilationRequest) {
+    Objects.requireNonNull(compilationRequest);
+    CompilationUnit unit = compilationRequest.getCompilationUnit();
+    return compileAndDefineHiddenClasses(Collections.singletonList(unit))
+            .get(unit.getClassName());
+  }
+
+  private Map<String, Class<?>> loadAllHiddenClasses(
+          CompilationRequestBatch compilationCollection) {
+    Objects.requireNonNull(compilationCollection, "Null Compilation request collection provided");
+    return compileAndDefineHiddenClasses(compilationCollection.getCollection());
+  }
+
+  /*
+   * Hidden classes are not cached, every request defines new classes which are unloaded as soon
+   * as they are unreachable. A hidden class cannot be resolved by name, so each source has to
+   * compile to exactly one class.
+   */
+  private Map<String, Class<?>> compileAndDefineHiddenClasses(
+          List<CompilationUnit> compilationUnits) {
+    prepareCompilationUnit(compilationUnits);
+    compile(compilationUnits);
+    Map<String, Class<?>> definedClasses = new HashMap<>();
+    compilationUnits.forEach(compilationUnit -> {
+      compilationUnit.writeToFile();
+      validateCompiledClass(compilationUnit);
+      Map<String, CompiledCode> compiledCodeMap = compilationUnit.getCompiledClasses();
+      try {
+        if (compiledCodeMap.size() > 1) {
+          throw new IllegalArgumentException("Hidden classes require ["
+                  + compilationUnit.getClassName() + "] to compile to a single class but got "
+                  + compiledCodeMap.keySet());
+        }
+        CompiledCode compiledCode = compiledCodeMap.get(compilationUnit.getClassName());
+        byte[] bytecode = compiledCode.getByteCode();
+        Object defineEvent = ByteReactorEvents.beginDefine();
+        Class<?> hiddenClass = HiddenClasses.define(hiddenClassHost, bytecode);
+        ByteReactorEvents.endDefine(defineEvent, compilationUnit.getClassName(), hiddenClass,
+                bytecode.length);
+        definedClasses.put(compilationUnit.getClassName(), hiddenClass);
+      } finally {
+        compiledCodeMap.values().forEach(CompiledCode::close);
+      }
+    });
+    return definedClasses;
+  }
+
+  private void requireNoHiddenClassMode() {
+    if (isHiddenClassMode()) {
+      throw new UnsupportedOperationException("Namespaces define classes in class loaders of "
+              + "their own, hidden classes are defined in the class loader of the host lookup");
+    }
+  }
 
-    throw new CompilationFailedException("Compilation Failed, check Diagnostic Logs");
+  private void requireNoClassLoaderForHiddenClasses(ClassLoader givenClassLoader) {
+    if (givenClassLoader != null) {
+      throw new UnsupportedOperationException("Hidden classes are defined in the class loader "
+              + "of the host lookup, a class loader cannot be given");
+    }
   }
 
   private void prepareCompilationUnit(List<CompilationUnit> compilationUnitList) {
@@ -162,45 +967,46 @@ public class ByteReactor implements RuntimeCompiler {
     return DynamicClassLoader.instance(currentClassLoader);
   }
 
+  /**
+   * The parent of the class loader classes are loaded into when no class loader is given.
+   *
+   * @return the configured class loader, else the thread context class loader
+   */
+  ClassLoader getParentClassLoader() {
+    if (classLoader != null) {
+      return classLoader.getParent();
+    }
+    ClassLoader threadContextClassLoader = getThreadContextClassLoader();
+    return threadContextClassLoader != null ? threadContextClassLoader
+            : getClass().getClassLoader();
+  }
+
   private ClassLoader getThreadContextClassLoader() {
     return Thread.currentThread().getContextClassLoader();
   }
 
 
   private Map<String, Class<?>> getCachedClasses(DynamicClassLoader dynamicClassLoader) {
-    synchronized (CACHE) {
-      CACHE.computeIfAbsent(dynamicClassLoader, value -> new HashMap<>());
-      return CACHE.get(dynamicClassLoader);
-    }
-  }
-
-  private JavaCompiler.CompilationTask getCompilationTask(List<? extends JavaFileObject> units) {
-    return JAVA_COMPILER.getTask(null,
-            javaByteReactorFileManager,
-            diagnosticListener,
-            OPTIONS,
-            null,
-            units);
+    return dynamicClassLoader.getCachedClasses();
   }
 
-  private Map<String, Class<?>> cacheAndLoadClass(DynamicClassLoader classLoader,
-                                                  CompilationUnit unit) {
-    validateCompiledClass(unit);
-    Map<String, Class<?>> loadedClasses = new HashMap<>();
+  private void cacheAndLoadClass(DynamicClassLoader classLoader, CompilationUnit unit,
+                                 BiConsumer<String, Class<?>> consumer) {
     Map<String, CompiledCode> compiledCodeMap = unit.getCompiledClasses();
     try {
       for (Map.Entry<String, CompiledCode> entry : compiledCodeMap.entrySet()) {
         String className = entry.getKey();
         CompiledCode compiledCode = entry.getValue();
-        byte[] bytecode = compiledCode.getByteCode();
-        Class<?> currentClass = classLoader.loadClass(bytecode);
+        int size = compiledCode.size();
+        Object defineEvent = ByteReactorEvents.beginDefine();
+        Class<?> currentClass = classLoader.defineStaged(className);
+        ByteReactorEvents.endDefine(defineEvent, className, currentClass, size);
         cacheLoadedClass(classLoader, className, currentClass);
-        loadedClasses.put(className, currentClass);
+        consumer.accept(className, currentClass);
       }
     } finally {
       compiledCodeMap.values().forEach(CompiledCode::close);
     }
-    return loadedClasses;
   }
 
   private void validateCompiledClass(CompilationUnit unit) {
@@ -220,24 +1026,45 @@ public class ByteReactor implements RuntimeCompiler {
   }
 
   private void cacheLoadedClass(DynamicClassLoader classLoader, String name, Class<?> klass) {
-    synchronized (CACHE) {
-      Map<String, Class<?>> loadedClasses = getCachedClasses(classLoader);
-      loadedClasses.put(name, klass);
-    }
+    getCachedClasses(classLoader).put(name, klass);
+  }
+
+  /**
+   * Remove the cache partition of the class loader.
+   *
+   * @param dynamicClassLoader The class loader
+   */
+  void evict(DynamicClassLoader dynamicClassLoader) {
+    Map<String, Class<?>> classes = getCachedClasses(dynamicClassLoader);
+    classes.values().forEach(InstanceFactory::evict);
+    classes.clear();
   }
 
   @Override
   public void clearCache() {
-    synchronized (CACHE) {
-      CACHE.clear();
+    DynamicClassLoader.getClassLoaders().forEach(this::evict);
+    if (classLoader != null) {
+      evict(classLoader);
+    }
+    namespaces.values().forEach(TenantNamespace::clearCache);
+    if (failedCompilations != null) {
+      failedCompilations.clear();
+    }
+    if (bytecodeCache != null) {
+      bytecodeCache.clear();
     }
   }
 
   @Override
   public void close() {
+    namespaces.values().forEach(TenantNamespace::close);
+    warmup.cancel(true);
+    profileReplay.cancel(true);
+    saveAccessProfile();
     clearAllProcessors();
     clearClassLoaders();
     clearCache();
+    javac.close();
   }
 
   public void clearAllProcessors() {
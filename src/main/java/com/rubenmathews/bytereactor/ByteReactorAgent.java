@@ -0,0 +1,205 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * The instrumentation agent ByteReactor redefines classes in place with, see
+ * {@link HotReloader.Builder#withInstrumentation}. Start the JVM with
+ * {@code -javaagent:byte-reactor.jar}, or call {@link #install()} to attach the agent to the
+ * running JVM.
+ *
+ * <p>Attaching writes a small agent jar to the temp directory and loads it through the attach
+ * API of the JDK, from a helper JVM when the JVM doesn't allow attaching to itself, which is the
+ * default since Java 9. The agent is then loaded by the system class loader, the
+ * instrumentation is found there whichever class loader loaded ByteReactor.
+ */
+public final class ByteReactorAgent {
+
+  private static final long ATTACH_TIMEOUT_SECONDS = 30;
+  private static final String VIRTUAL_MACHINE = "com.sun.tools.attach.VirtualMachine";
+
+  private static volatile Instrumentation instrumentation;
+
+  private ByteReactorAgent() {
+  }
+
+  public static void premain(String arguments, Instrumentation instrumentation) {
+    ByteReactorAgent.instrumentation = instrumentation;
+  }
+
+  public static void agentmain(String arguments, Instrumentation instrumentation) {
+    ByteReactorAgent.instrumentation = instrumentation;
+  }
+
+  /**
+   * The instrumentation of the agent, if it was loaded at startup or attached.
+   *
+   * @return the instrumentation, null if the agent is not loaded
+   */
+  public static Instrumentation getInstrumentation() {
+    Instrumentation loaded = instrumentation;
+    if (loaded != null) {
+      return loaded;
+    }
+    try {
+      Class<?> systemAgent = Class.forName(ByteReactorAgent.class.getName(), true,
+              ClassLoader.getSystemClassLoader());
+      if (systemAgent == ByteReactorAgent.class) {
+        return null;
+      }
+      Field field = systemAgent.getDeclaredField("instrumentation");
+      field.setAccessible(true);
+      return (Instrumentation) field.get(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The instrumentation of the agent, attaching the agent to the running JVM if it is not
+   * loaded yet.
+   *
+   * @return the instrumentation
+   * @throws UnsupportedOperationException If the agent cannot be attached, e.g. on a JRE without
+   *                                       the attach API or with attaching disabled
+   */
+  public static synchronized Instrumentation install() {
+    Instrumentation loaded = getInstrumentation();
+    if (loaded != null) {
+      return loaded;
+    }
+    String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+    File agentJar;
+    try {
+      agentJar = writeAgentJar();
+    } catch (IOException e) {
+      throw new UnsupportedOperationException("Unable to write the agent jar", e);
+    }
+    try {
+      try {
+        attach(pid, agentJar.getAbsolutePath());
+      } catch (ReflectiveOperationException | LinkageError e) {
+        attachFromHelper(pid, agentJar);
+      }
+    } finally {
+      agentJar.deleteOnExit();
+    }
+    loaded = getInstrumentation();
+    if (loaded == null) {
+      throw new UnsupportedOperationException("The agent was attached but did not start, "
+              + "start the JVM with -javaagent:byte-reactor.jar instead");
+    }
+    return loaded;
+  }
+
+  /**
+   * Attach the agent to another JVM, the helper JVM of {@link #install()} runs it.
+   *
+   * @param arguments the process id of the JVM and the path of the agent jar
+   * @throws Exception If attaching fails
+   */
+  public static void main(String[] arguments) throws Exception {
+    if (arguments.length != 2) {
+      throw new IllegalArgumentException("Expected <pid> <agent jar>");
+    }
+    attach(arguments[0], arguments[1]);
+  }
+
+  private static void attach(String pid, String agentJar) throws ReflectiveOperationException {
+    Class<?> virtualMachineClass = Class.forName(VIRTUAL_MACHINE);
+    Object virtualMachine = virtualMachineClass.getMethod("attach", String.class)
+            .invoke(null, pid);
+    try {
+      virtualMachineClass.getMethod("loadAgent", String.class).invoke(virtualMachine, agentJar);
+    } finally {
+      virtualMachineClass.getMethod("detach").invoke(virtualMachine);
+    }
+  }
+
+  private static void attachFromHelper(String pid, File agentJar) {
+    String javaHome = System.getProperty("java.home");
+    String classPath = agentJar.getAbsolutePath();
+    // on Java 8 the attach API is in the tools.jar of the JDK
+    File toolsJar = new File(javaHome, "../lib/tools.jar");
+    if (toolsJar.isFile()) {
+      classPath += File.pathSeparator + toolsJar.getAbsolutePath();
+    }
+    List<String> command = new ArrayList<>();
+    command.add(new File(javaHome, "bin/java").getAbsolutePath());
+    command.add("-cp");
+    command.add(classPath);
+    command.add(ByteReactorAgent.class.getName());
+    command.add(pid);
+    command.add(agentJar.getAbsolutePath());
+    try {
+      Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      String output = read(process.getInputStream());
+      if (!process.waitFor(ATTACH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+        throw new UnsupportedOperationException("Attaching the agent timed out");
+      }
+      if (process.exitValue() != 0) {
+        throw new UnsupportedOperationException("Unable to attach the agent: " + output);
+      }
+    } catch (IOException e) {
+      throw new UnsupportedOperationException("Unable to start the attach helper", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UnsupportedOperationException("Interrupted while attaching the agent", e);
+    }
+  }
+
+  private static File writeAgentJar() throws IOException {
+    Manifest manifest = new Manifest();
+    Attributes attributes = manifest.getMainAttributes();
+    attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    attributes.putValue("Premain-Class", ByteReactorAgent.class.getName());
+    attributes.putValue("Agent-Class", ByteReactorAgent.class.getName());
+    attributes.putValue("Can-Redefine-Classes", "true");
+    String classFile = ByteReactorAgent.class.getName().replace('.', '/') + ".class";
+    byte[] bytecode;
+    try (InputStream in = ByteReactorAgent.class.getClassLoader().getResourceAsStream(classFile)) {
+      if (in == null) {
+        throw new IOException("Cannot find " + classFile);
+      }
+      bytecode = readBytes(in);
+    }
+    File agentJar = File.createTempFile("byte-reactor-agent", ".jar");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(agentJar), manifest)) {
+      out.putNextEntry(new JarEntry(classFile));
+      out.write(bytecode);
+      out.closeEntry();
+    }
+    return agentJar;
+  }
+
+  private static String read(InputStream in) throws IOException {
+    return new String(readBytes(in), StandardCharsets.UTF_8).trim();
+  }
+
+  private static byte[] readBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read = in.read(buffer);
+    while (read >= 0) {
+      out.write(buffer, 0, read);
+      read = in.read(buffer);
+    }
+    return out.toByteArray();
+  }
+}
@@ -1,7 +1,11 @@
 package com.rubenmathews.bytereactor;
 
+import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import javax.annotation.processing.Processor;
@@ -11,6 +15,19 @@ public class ByteReactorBuilder {
   private DiagnosticReportLevel reportLevel = DiagnosticReportLevel.WARN;
   private Path classDestination;
   private final Set<Processor> processors = new HashSet<>();
+  private MethodHandles.Lookup hiddenClassHost;
+  private Warmup warmup;
+  private CompilerBackend compilerBackend;
+  private CompileScheduler compileScheduler;
+  private Duration compileTimeout;
+  private final List<BytecodeTransformer> bytecodeTransformers = new ArrayList<>();
+  private int failedCompilationCacheSize;
+  private Duration failedCompilationTimeToLive;
+  private long bytecodeCacheSize;
+  private BytecodeStore bytecodeStore;
+  private AccessProfile accessProfile;
+  private PrecompiledArtifact precompiledArtifact;
+  private List<Path> compilerClassPath;
 
   private ByteReactorBuilder() {
 
@@ -40,8 +57,264 @@ public class ByteReactorBuilder {
     return this;
   }
 
+  ByteReactorBuilder withProcessors(Set<? extends Processor> processors) {
+    this.processors.addAll(processors);
+    return this;
+  }
+
+  /**
+   * Define compiled classes as hidden classes of the given host lookup instead of loading them
+   * in a {@link DynamicClassLoader}. Each hidden class can be unloaded on its own once it is
+   * unreachable, so loaded classes are not cached. The sources have to be in the package of the
+   * host lookup class and compile to a single class each. Requires Java 15 or later.
+   *
+   * @param hostLookup A lookup with full privilege access, usually {@code MethodHandles.lookup()}
+   * @return the builder
+   */
+  public ByteReactorBuilder withHiddenClasses(MethodHandles.Lookup hostLookup) {
+    this.hiddenClassHost = Objects.requireNonNull(hostLookup);
+    return this;
+  }
+
+  /**
+   * Warm up the compiler in the background as soon as the ByteReactor is built, compiling
+   * synthetic sources until the compile time of javac settles.
+   *
+   * @return the builder
+   * @see ByteReactor#warmup()
+   */
+  public ByteReactorBuilder withWarmup() {
+    return withWarmup(Warmup.builder().build());
+  }
+
+  public ByteReactorBuilder withWarmup(Warmup warmup) {
+    this.warmup = Objects.requireNonNull(warmup);
+    return this;
+  }
+
+  /**
+   * Compile in forked worker JVMs of the given pool instead of in process. The compiled classes
+   * are still loaded and cached locally. The pool is not closed with the ByteReactor.
+   *
+   * @param compilerWorkerPool the pool of compiler workers
+   * @return the builder
+   */
+  public ByteReactorBuilder withCompilerWorkerPool(CompilerWorkerPool compilerWorkerPool) {
+    return withCompilerBackend(compilerWorkerPool);
+  }
+
+  /**
+   * Compile with the given backend instead of javac in process, see {@link CompilerBackend}.
+   * Caching, scheduling, transformers and class definition are the same for every backend.
+   *
+   * @param compilerBackend the backend
+   * @return the builder
+   */
+  public ByteReactorBuilder withCompilerBackend(CompilerBackend compilerBackend) {
+    this.compilerBackend = Objects.requireNonNull(compilerBackend);
+    return this;
+  }
+
+  /**
+   * Admit compilations through the given scheduler, which bounds the number of concurrent
+   * compilations and queues the others by priority. The scheduler can be shared.
+   *
+   * @param compileScheduler the scheduler
+   * @return the builder
+   */
+  public ByteReactorBuilder withCompileScheduler(CompileScheduler compileScheduler) {
+    this.compileScheduler = Objects.requireNonNull(compileScheduler);
+    return this;
+  }
+
+  /**
+   * The maximum time a compilation may take unless the request sets its own timeout.
+   * When it elapses the compilation is stopped and a {@link CompilationTimeoutException} is
+   * thrown, without defining any of the classes. Compilations are unbounded by default.
+   *
+   * @param compileTimeout the default maximum compile time
+   * @return the builder
+   */
+  public ByteReactorBuilder withCompileTimeout(Duration compileTimeout) {
+    this.compileTimeout = CompilationDeadline.requirePositive(
+            Objects.requireNonNull(compileTimeout));
+    return this;
+  }
+
+  /**
+   * Add a stage post-processing the bytecode of every compiled class before it is written to
+   * the destination path or defined, e.g. a {@link DebugInfoStripper}. Transformers run in the
+   * order they were added.
+   *
+   * @param bytecodeTransformer the transformer
+   * @return the builder
+   */
+  public ByteReactorBuilder withBytecodeTransformer(BytecodeTransformer bytecodeTransformer) {
+    this.bytecodeTransformers.add(Objects.requireNonNull(bytecodeTransformer));
+    return this;
+  }
+
+  /**
+   * Remember compilations which failed in javac, so resubmitting the same broken sources fails
+   * right away with the original diagnostics instead of compiling them again. Failures are
+   * keyed by a fingerprint of the sources, the javac options and the annotation processors.
+   * Timeouts and failures without compile errors are not remembered.
+   *
+   * @param maxEntries  the maximum number of failures remembered, the least recently used
+   *                    failure is forgotten first
+   * @param timeToLive  how long a failure is remembered
+   * @return the builder
+   */
+  public ByteReactorBuilder withFailedCompilationCache(int maxEntries, Duration timeToLive) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries has to be positive but got [" + maxEntries
+              + "]");
+    }
+    this.failedCompilationTimeToLive = CompilationDeadline.requirePositive(
+            Objects.requireNonNull(timeToLive));
+    this.failedCompilationCacheSize = maxEntries;
+    return this;
+  }
+
+  /**
+   * Keep the bytecode of compilations independent of the class loader the classes are defined
+   * in, so loading the same sources into another class loader only defines the classes instead
+   * of compiling them again. Compilations are keyed by a fingerprint of the sources, the javac
+   * options, the annotation processors and the class path visible to javac.
+   *
+   * @param maxBytes the maximum bytes of bytecode kept, the least recently used compilation is
+   *                 dropped first
+   * @return the builder
+   */
+  public ByteReactorBuilder withBytecodeCache(long maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("maxBytes has to be positive but got [" + maxBytes
+              + "]");
+    }
+    this.bytecodeCacheSize = maxBytes;
+    return this;
+  }
+
+  /**
+   * Keep the bytecode of compiled classes in the store instead of the heap until the classes
+   * are defined, so loading a large batch doesn't hold the bytecode of the whole batch on the
+   * heap. The store can be shared and is not closed with the ByteReactor.
+   *
+   * @param bytecodeStore the store
+   * @return the builder
+   */
+  public ByteReactorBuilder withBytecodeStore(BytecodeStore bytecodeStore) {
+    this.bytecodeStore = Objects.requireNonNull(bytecodeStore);
+    return this;
+  }
+
+  /**
+   * Record which sources are loaded after the start and precompile them in the background on
+   * the next start, see {@link AccessProfile}. The sources are precompiled into the bytecode
+   * cache, which has to be configured with {@link #withBytecodeCache(long)}.
+   *
+   * @param accessProfile the access profile
+   * @return the builder
+   */
+  public ByteReactorBuilder withAccessProfile(AccessProfile accessProfile) {
+    this.accessProfile = Objects.requireNonNull(accessProfile);
+    return this;
+  }
+
+  /**
+   * Serve loads whose sources were compiled at build time from the artifact, sources which
+   * don't match a precompiled compilation are compiled with javac.
+   *
+   * @param precompiledArtifact the artifact
+   * @return the builder
+   */
+  public ByteReactorBuilder withPrecompiledArtifact(PrecompiledArtifact precompiledArtifact) {
+    this.precompiledArtifact = Objects.requireNonNull(precompiledArtifact);
+    return this;
+  }
+
+  /**
+   * The class path javac compiles against, defaults to the class path of the JVM. Compilations
+   * in worker JVMs use the class path of the workers.
+   *
+   * @param classPath the jars and class directories
+   * @return the builder
+   */
+  public ByteReactorBuilder withCompilerClassPath(List<Path> classPath) {
+    this.compilerClassPath = new ArrayList<>(classPath);
+    return this;
+  }
+
   public ByteReactor build() {
     Objects.requireNonNull(reportLevel);
-    return new ByteReactor(classLoader, reportLevel, classDestination, processors);
+    return new ByteReactor(this);
+  }
+
+  ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  DiagnosticReportLevel getReportLevel() {
+    return reportLevel;
+  }
+
+  Path getClassDestination() {
+    return classDestination;
+  }
+
+  Set<Processor> getProcessors() {
+    return processors;
+  }
+
+  MethodHandles.Lookup getHiddenClassHost() {
+    return hiddenClassHost;
+  }
+
+  Warmup getWarmup() {
+    return warmup;
+  }
+
+  CompilerBackend getCompilerBackend() {
+    return compilerBackend;
+  }
+
+  CompileScheduler getCompileScheduler() {
+    return compileScheduler;
+  }
+
+  Duration getCompileTimeout() {
+    return compileTimeout;
+  }
+
+  List<BytecodeTransformer> getBytecodeTransformers() {
+    return bytecodeTransformers;
+  }
+
+  int getFailedCompilationCacheSize() {
+    return failedCompilationCacheSize;
+  }
+
+  Duration getFailedCompilationTimeToLive() {
+    return failedCompilationTimeToLive;
+  }
+
+  long getBytecodeCacheSize() {
+    return bytecodeCacheSize;
+  }
+
+  BytecodeStore getBytecodeStore() {
+    return bytecodeStore;
+  }
+
+  AccessProfile getAccessProfile() {
+    return accessProfile;
+  }
+
+  PrecompiledArtifact getPrecompiledArtifact() {
+    return precompiledArtifact;
+  }
+
+  List<Path> getCompilerClassPath() {
+    return compilerClassPath;
   }
 }
@@ -0,0 +1,116 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.List;
+
+/**
+ * Entry point to the JDK Flight Recorder events of ByteReactor. On Java 11 and later the
+ * multi-release jar contains an {@link EventRecorder} emitting JFR events, on older runtimes or
+ * without the {@code jdk.jfr} module every event is a no-op.
+ *
+ * <p>A disabled event costs a call returning null or a check of a constant flag, no event
+ * fields are computed unless a recording has the event enabled.
+ */
+final class ByteReactorEvents {
+
+  private static final String RECORDER_CLASS_NAME =
+          "com.rubenmathews.bytereactor.JfrEventRecorder";
+  private static final EventRecorder RECORDER = loadRecorder();
+
+  private ByteReactorEvents() {
+  }
+
+  static boolean isSupported() {
+    return !(RECORDER instanceof NoopEventRecorder);
+  }
+
+  static Object beginCompile() {
+    return RECORDER.beginCompile();
+  }
+
+  static void endCompile(Object token, List<CompilationUnit> compilationUnits, boolean success) {
+    if (token != null) {
+      RECORDER.endCompile(token, compilationUnits, success);
+    }
+  }
+
+  static Object beginDefine() {
+    return RECORDER.beginDefine();
+  }
+
+  static void endDefine(Object token, String className, Class<?> definedClass, int bytecodeSize) {
+    if (token != null) {
+      RECORDER.endDefine(token, className, definedClass, bytecodeSize);
+    }
+  }
+
+  static void cacheHit(ClassLoader classLoader, String className) {
+    RECORDER.cacheHit(classLoader, className);
+  }
+
+  static void cacheMiss(ClassLoader classLoader, String className) {
+    RECORDER.cacheMiss(classLoader, className);
+  }
+
+  static void loaderCreated(ClassLoader parent) {
+    RECORDER.loaderCreated(parent);
+  }
+
+  static void loaderRemoved(ClassLoader parent) {
+    RECORDER.loaderRemoved(parent);
+  }
+
+  private static EventRecorder loadRecorder() {
+    try {
+      Class<?> recorderClass = Class.forName(RECORDER_CLASS_NAME, true,
+              ByteReactorEvents.class.getClassLoader());
+      return (EventRecorder) recorderClass.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return new NoopEventRecorder();
+    }
+  }
+
+  private static final class NoopEventRecorder implements EventRecorder {
+
+    @Override
+    public Object beginCompile() {
+      return null;
+    }
+
+    @Override
+    public void endCompile(Object token, List<CompilationUnit> compilationUnits,
+                           boolean success) {
+      // no recorder available
+    }
+
+    @Override
+    public Object beginDefine() {
+      return null;
+    }
+
+    @Override
+    public void endDefine(Object token, String className, Class<?> definedClass,
+                          int bytecodeSize) {
+      // no recorder available
+    }
+
+    @Override
+    public void cacheHit(ClassLoader classLoader, String className) {
+      // no recorder available
+    }
+
+    @Override
+    public void cacheMiss(ClassLoader classLoader, String className) {
+      // no recorder available
+    }
+
+    @Override
+    public void loaderCreated(ClassLoader parent) {
+      // no recorder available
+    }
+
+    @Override
+    public void loaderRemoved(ClassLoader parent) {
+      // no recorder available
+    }
+  }
+}
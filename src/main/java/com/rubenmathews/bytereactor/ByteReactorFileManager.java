@@ -8,8 +8,15 @@ import javax.tools.JavaFileObject;
 
 public class ByteReactorFileManager extends ForwardingJavaFileManager<JavaFileManager> {
 
+  private final BytecodeStore bytecodeStore;
+
   protected ByteReactorFileManager(JavaFileManager fileManager) {
+    this(fileManager, null);
+  }
+
+  ByteReactorFileManager(JavaFileManager fileManager, BytecodeStore bytecodeStore) {
     super(fileManager);
+    this.bytecodeStore = bytecodeStore;
   }
 
   @Override
@@ -22,7 +29,7 @@ public class ByteReactorFileManager extends ForwardingJavaFileManager<JavaFileMa
 
     try {
       if (fileObject instanceof CompilationUnit) {
-        CompiledCode compiledCode = new CompiledCode(className);
+        CompiledCode compiledCode = new CompiledCode(className, bytecodeStore);
         CompilationUnit source = (CompilationUnit) fileObject;
         source.addCompiledCode(className, compiledCode);
         return compiledCode;
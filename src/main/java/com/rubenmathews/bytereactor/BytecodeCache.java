@@ -0,0 +1,109 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the bytecode of compilations by their {@link SourceFingerprint}, independent of the
+ * class loader the classes were defined in. Loading the same sources into another class loader
+ * defines the cached bytecode instead of compiling again. The cache is bounded by the bytes of
+ * bytecode it holds, the least recently used compilation is evicted first.
+ */
+final class BytecodeCache {
+
+  private final long maxBytes;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  BytecodeCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Attach the cached bytecode of the compilation with the fingerprint to the units.
+   *
+   * @param fingerprint      The fingerprint of the compilation
+   * @param compilationUnits The units compiled together, in the order they were cached
+   * @param store            The store the attached bytecode is kept in, null for the heap
+   * @return whether the compilation was cached
+   */
+  boolean attach(String fingerprint, List<CompilationUnit> compilationUnits,
+                 BytecodeStore store) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(fingerprint);
+    }
+    if (entry == null) {
+      return false;
+    }
+    for (int i = 0; i < compilationUnits.size(); i++) {
+      CompilationUnit compilationUnit = compilationUnits.get(i);
+      // every unit gets its own copy, the units hand out their bytecode
+      entry.compiledClasses.get(i).forEach((className, bytecode) ->
+              compilationUnit.addCompiledCode(className,
+                      CompiledCode.of(className, bytecode.clone(), store)));
+    }
+    return true;
+  }
+
+  /**
+   * Cache the bytecode the units were compiled to.
+   *
+   * @param fingerprint      The fingerprint of the compilation
+   * @param compilationUnits The compiled units
+   */
+  void put(String fingerprint, List<CompilationUnit> compilationUnits) {
+    List<Map<String, byte[]>> compiledClasses = new ArrayList<>();
+    long size = 0;
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      Map<String, byte[]> unitClasses = new HashMap<>();
+      for (Map.Entry<String, CompiledCode> compiled : compilationUnit.getCompiledClasses()
+              .entrySet()) {
+        byte[] bytecode = compiled.getValue().getByteCode().clone();
+        unitClasses.put(compiled.getKey(), bytecode);
+        size += bytecode.length;
+      }
+      compiledClasses.add(Collections.unmodifiableMap(unitClasses));
+    }
+    if (size > maxBytes) {
+      return;
+    }
+    synchronized (this) {
+      Entry previous = entries.put(fingerprint, new Entry(compiledClasses, size));
+      bytes += size - (previous != null ? previous.size : 0);
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (bytes > maxBytes) {
+        bytes -= eldest.next().size;
+        eldest.remove();
+      }
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized long getBytes() {
+    return bytes;
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  private static final class Entry {
+    private final List<Map<String, byte[]>> compiledClasses;
+    private final long size;
+
+    private Entry(List<Map<String, byte[]>> compiledClasses, long size) {
+      this.compiledClasses = compiledClasses;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps compiled bytecode off the Java heap while a batch is being compiled and loaded. The
+ * bytecode of a class is copied into a direct buffer as soon as javac has written it, until the
+ * off-heap limit is reached, further bytecode is spilled to memory-mapped temp files. The heap
+ * only holds the bytecode of the classes being defined, however large the batch is.
+ *
+ * <p>Bytecode is allocated from chunks, a chunk is released when all bytecode stored in it was
+ * released. Released off-heap chunks are kept for reuse within the off-heap limit. Spill files
+ * are deleted right after they are mapped, their disk space is freed once the mapping is
+ * garbage collected. A store can be shared by several ByteReactors.
+ */
+public final class BytecodeStore {
+
+  private final int chunkSize;
+  private final long maxOffHeapBytes;
+  private final Path spillDirectory;
+  private final boolean compressSpilled;
+  private final Deque<Chunk> freeChunks = new ArrayDeque<>();
+  private Chunk offHeapChunk;
+  private Chunk spillChunk;
+  private long offHeapCapacity;
+  private long offHeapBytes;
+  private long spilledBytes;
+
+  private BytecodeStore(Builder builder) {
+    this.chunkSize = builder.chunkSize;
+    this.maxOffHeapBytes = builder.maxOffHeapBytes;
+    this.spillDirectory = builder.spillDirectory;
+    this.compressSpilled = builder.compressSpilled;
+  }
+
+  public static BytecodeStore.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The bytes of bytecode currently stored in direct buffers.
+   *
+   * @return the stored off-heap bytes
+   */
+  public synchronized long getOffHeapBytes() {
+    return offHeapBytes;
+  }
+
+  /**
+   * The bytes currently stored in spill files, after compression.
+   *
+   * @return the spilled bytes
+   */
+  public synchronized long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Copy the bytecode into the store.
+   *
+   * @param bytecode The bytecode
+   * @return the slot holding the bytecode, to be released when the bytecode is not needed
+   * @throws CompilationFailedException If a spill file cannot be created
+   */
+  Slot store(byte[] bytecode) {
+    synchronized (this) {
+      if (fitsOffHeap(bytecode.length)) {
+        Slot slot = allocate(bytecode.length, false);
+        slot.write(bytecode);
+        offHeapBytes += bytecode.length;
+        return slot;
+      }
+    }
+    byte[] spilled = compressSpilled ? deflate(bytecode) : bytecode;
+    synchronized (this) {
+      Slot slot = allocate(spilled.length, true);
+      slot.write(spilled);
+      slot.originalLength = compressSpilled ? bytecode.length : -1;
+      spilledBytes += spilled.length;
+      return slot;
+    }
+  }
+
+  /**
+   * Copy the bytecode of the slot back to the heap.
+   *
+   * @param slot The slot
+   * @return the bytecode
+   */
+  byte[] read(Slot slot) {
+    byte[] bytes = new byte[slot.length];
+    ByteBuffer buffer = slot.chunk.buffer.duplicate();
+    // through Buffer, ByteBuffer.position(int) compiled on Java 9 or later doesn't exist on Java 8
+    ((Buffer) buffer).position(slot.offset);
+    buffer.get(bytes);
+    return slot.originalLength < 0 ? bytes : inflate(bytes, slot.originalLength);
+  }
+
+  synchronized void release(Slot slot) {
+    Chunk chunk = slot.chunk;
+    if (chunk.spilled) {
+      spilledBytes -= slot.length;
+    } else {
+      offHeapBytes -= slot.length;
+    }
+    chunk.slots--;
+    if (chunk.slots > 0 || chunk == offHeapChunk || chunk == spillChunk) {
+      return;
+    }
+    if (!chunk.spilled && chunk.buffer.capacity() == chunkSize) {
+      chunk.position = 0;
+      freeChunks.push(chunk);
+    } else if (!chunk.spilled) {
+      offHeapCapacity -= chunk.buffer.capacity();
+    }
+  }
+
+  private boolean fitsOffHeap(int length) {
+    if (offHeapChunk != null && offHeapChunk.remaining() >= length) {
+      return true;
+    }
+    if (length <= chunkSize && !freeChunks.isEmpty()) {
+      return true;
+    }
+    return offHeapCapacity + Math.max(length, chunkSize) <= maxOffHeapBytes;
+  }
+
+  private Slot allocate(int length, boolean spilled) {
+    Chunk chunk = spilled ? spillChunk : offHeapChunk;
+    if (chunk == null || chunk.remaining() < length) {
+      chunk = newChunk(Math.max(length, chunkSize), spilled);
+      if (length < chunkSize) {
+        // a chunk of a single large class is not current, it is released with the class
+        retire(spilled ? spillChunk : offHeapChunk);
+        if (spilled) {
+          spillChunk = chunk;
+        } else {
+          offHeapChunk = chunk;
+        }
+      }
+    }
+    Slot slot = new Slot(chunk, chunk.position, length);
+    chunk.position += length;
+    chunk.slots++;
+    return slot;
+  }
+
+  private void retire(Chunk chunk) {
+    if (chunk == null || chunk.slots > 0) {
+      return;
+    }
+    if (!chunk.spilled) {
+      chunk.position = 0;
+      freeChunks.push(chunk);
+    }
+  }
+
+  private Chunk newChunk(int capacity, boolean spilled) {
+    if (spilled) {
+      return new Chunk(map(capacity), true);
+    }
+    if (capacity == chunkSize && !freeChunks.isEmpty()) {
+      return freeChunks.pop();
+    }
+    offHeapCapacity += capacity;
+    return new Chunk(ByteBuffer.allocateDirect(capacity), false);
+  }
+
+  private ByteBuffer map(int capacity) {
+    try {
+      Files.createDirectories(spillDirectory);
+      Path file = Files.createTempFile(spillDirectory, "byte-reactor-", ".spill");
+      ByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      }
+      try {
+        Files.delete(file);
+      } catch (IOException e) {
+        // some platforms cannot delete a mapped file
+        file.toFile().deleteOnExit();
+      }
+      return buffer;
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to create a spill file for bytecode in "
+              + spillDirectory, e);
+    }
+  }
+
+  private static byte[] deflate(byte[] bytecode) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytecode);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytecode.length / 2 + 16);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        compressed.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return compressed.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] compressed, int length) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      byte[] bytecode = new byte[length];
+      int inflated = 0;
+      while (inflated < length && !inflater.finished()) {
+        inflated += inflater.inflate(bytecode, inflated, length - inflated);
+      }
+      return bytecode;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Spilled bytecode is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  static final class Slot {
+    private final Chunk chunk;
+    private final int offset;
+    private final int length;
+    private int originalLength = -1;
+
+    private Slot(Chunk chunk, int offset, int length) {
+      this.chunk = chunk;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    int size() {
+      return originalLength < 0 ? length : originalLength;
+    }
+
+    private void write(byte[] bytes) {
+      ByteBuffer buffer = chunk.buffer.duplicate();
+      ((Buffer) buffer).position(offset);
+      buffer.put(bytes);
+    }
+  }
+
+  private static final class Chunk {
+    private final ByteBuffer buffer;
+    private final boolean spilled;
+    private int position;
+    private int slots;
+
+    private Chunk(ByteBuffer buffer, boolean spilled) {
+      this.buffer = buffer;
+      this.spilled = spilled;
+    }
+
+    private int remaining() {
+      return buffer.capacity() - position;
+    }
+  }
+
+  public static class Builder {
+    private int chunkSize = 1024 * 1024;
+    private long maxOffHeapBytes = 256L * 1024 * 1024;
+    private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private boolean compressSpilled;
+
+    private Builder() {
+    }
+
+    /**
+     * The size of the buffers bytecode is allocated from, defaults to 1 MiB. Larger classes get
+     * a buffer of their own.
+     *
+     * @param chunkSize the chunk size in bytes
+     * @return the builder
+     */
+    public Builder withChunkSize(int chunkSize) {
+      if (chunkSize < 1) {
+        throw new IllegalArgumentException("chunkSize has to be positive but got [" + chunkSize
+                + "]");
+      }
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * The direct memory the store may use before it spills to files, defaults to 256 MiB.
+     * Zero spills all bytecode.
+     *
+     * @param maxOffHeapBytes the off-heap limit in bytes
+     * @return the builder
+     */
+    public Builder withMaxOffHeapBytes(long maxOffHeapBytes) {
+      if (maxOffHeapBytes < 0) {
+        throw new IllegalArgumentException("maxOffHeapBytes cannot be negative but got ["
+                + maxOffHeapBytes + "]");
+      }
+      this.maxOffHeapBytes = maxOffHeapBytes;
+      return this;
+    }
+
+    /**
+     * The directory spill files are created in, defaults to the temp directory.
+     *
+     * @param spillDirectory the spill directory
+     * @return the builder
+     */
+    public Builder withSpillDirectory(Path spillDirectory) {
+      this.spillDirectory = Objects.requireNonNull(spillDirectory);
+      return this;
+    }
+
+    /**
+     * Deflate bytecode spilled to files, trading CPU for disk and page cache. Bytecode kept
+     * off-heap is never compressed.
+     *
+     * @return the builder
+     */
+    public Builder withCompressedSpill() {
+      this.compressSpilled = true;
+      return this;
+    }
+
+    public BytecodeStore build() {
+      return new BytecodeStore(this);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.rubenmathews.bytereactor;
+
+/**
+ * A post-processing stage between javac and class definition. Transformers registered with
+ * {@link ByteReactorBuilder#withBytecodeTransformer(BytecodeTransformer)} run in registration
+ * order on every compiled class, before it is written to the destination path or defined.
+ */
+@FunctionalInterface
+public interface BytecodeTransformer {
+
+  /**
+   * Transform the class file of a compiled class.
+   *
+   * @param className The binary name of the class
+   * @param bytecode  The class file produced by javac or the previous transformer
+   * @return the transformed class file, may be the given array
+   */
+  byte[] transform(String className, byte[] bytecode);
+}
@@ -0,0 +1,815 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A dependency-free class-file rewriter, which removes attributes and compacts the constant
+ * pool.
+ *
+ * <p>Removing attributes leaves their names, and for the local variable tables the names and
+ * descriptors of the variables, unused in the constant pool. Compaction drops every constant
+ * which is no longer reachable and renumbers the remaining ones, rewriting every constant pool
+ * index in the class: the class structure, all attributes defined by the class-file format of
+ * Java 17 and the operands of the bytecode instructions. Removing constants only lowers
+ * indexes, so the single byte operand of {@code ldc} always stays in range.
+ *
+ * <p>A class carrying an attribute the rewriter doesn't know, e.g. from another compiler or an
+ * agent, cannot be renumbered safely. Its attributes are removed but its constant pool is kept
+ * as it is.
+ */
+final class ClassFileRewriter {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELD_REF = 9;
+  private static final int CONSTANT_METHOD_REF = 10;
+  private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private Constant[] pool;
+  private final int minorVersion;
+  private final int majorVersion;
+  private final int accessFlags;
+  private int thisClass;
+  private int superClass;
+  private final int[] interfaces;
+  private final List<Member> fields;
+  private final List<Member> methods;
+  private final List<Attribute> attributes;
+
+  private ClassFileRewriter(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a class file");
+    }
+    minorVersion = in.readUnsignedShort();
+    majorVersion = in.readUnsignedShort();
+    pool = new Constant[in.readUnsignedShort()];
+    for (int index = 1; index < pool.length; index++) {
+      pool[index] = Constant.read(in);
+      if (pool[index].isWide()) {
+        index++;
+      }
+    }
+    accessFlags = in.readUnsignedShort();
+    thisClass = in.readUnsignedShort();
+    superClass = in.readUnsignedShort();
+    interfaces = new int[in.readUnsignedShort()];
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaces[i] = in.readUnsignedShort();
+    }
+    fields = readMembers(in);
+    methods = readMembers(in);
+    attributes = readAttributes(in);
+  }
+
+  /**
+   * Remove the named attributes from the class, its fields, methods and their code, and
+   * optionally compact the constant pool.
+   *
+   * @param bytecode            The class file
+   * @param removedAttributes   The names of the attributes to remove
+   * @param compactConstantPool Drop constants which are no longer used
+   * @return the rewritten class file
+   * @throws IllegalArgumentException If the bytes are not a valid class file
+   */
+  static byte[] rewrite(byte[] bytecode, Set<String> removedAttributes,
+                        boolean compactConstantPool) {
+    ClassFileRewriter classFile;
+    try {
+      classFile = new ClassFileRewriter(
+              new DataInputStream(new ByteArrayInputStream(bytecode)));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated class file", e);
+    }
+    classFile.removeAttributes(removedAttributes);
+    if (compactConstantPool) {
+      classFile.compactConstantPool();
+    }
+    return classFile.toByteArray();
+  }
+
+  private void removeAttributes(Set<String> removedAttributes) {
+    removeAttributes(attributes, removedAttributes);
+    for (Member member : fields) {
+      removeAttributes(member.attributes, removedAttributes);
+    }
+    for (Member member : methods) {
+      removeAttributes(member.attributes, removedAttributes);
+      for (Attribute attribute : member.attributes) {
+        if ("Code".equals(getUtf8(attribute.nameIndex))) {
+          attribute.info = removeCodeAttributes(attribute.info, removedAttributes);
+        }
+      }
+    }
+  }
+
+  private void removeAttributes(List<Attribute> attributeList, Set<String> removedAttributes) {
+    attributeList.removeIf(attribute -> removedAttributes.contains(getUtf8(attribute.nameIndex)));
+  }
+
+  private byte[] removeCodeAttributes(byte[] code, Set<String> removedAttributes) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(code));
+      int codeLength = readInt(code, 4);
+      int exceptionTableLength = readUnsignedShort(code, 8 + codeLength);
+      int attributesOffset = 8 + codeLength + 2 + exceptionTableLength * 8;
+      in.skipBytes(attributesOffset);
+      List<Attribute> codeAttributes = readAttributes(in);
+      removeAttributes(codeAttributes, removedAttributes);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(code.length);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.write(code, 0, attributesOffset);
+      writeAttributes(out, codeAttributes);
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated Code attribute", e);
+    }
+  }
+
+  /*
+   * Marks every constant reachable from the class, then renumbers. The same walk over the
+   * class is used for both, first with an operator recording indexes and then with one
+   * mapping old to new indexes.
+   */
+  private void compactConstantPool() {
+    boolean[] used = new boolean[pool.length];
+    IntUnaryOperator mark = index -> {
+      markUsed(index, used);
+      return index;
+    };
+    try {
+      walk(mark);
+    } catch (UnknownAttributeException e) {
+      return;
+    }
+    int[] newIndexes = new int[pool.length];
+    int next = 1;
+    for (int index = 1; index < pool.length; index++) {
+      if (used[index]) {
+        newIndexes[index] = next;
+        next += pool[index].isWide() ? 2 : 1;
+      }
+    }
+    IntUnaryOperator renumber = index -> newIndexes[index];
+    walk(renumber);
+    Constant[] compacted = new Constant[next];
+    for (int index = 1; index < pool.length; index++) {
+      if (used[index]) {
+        pool[index].renumber(renumber);
+        compacted[newIndexes[index]] = pool[index];
+      }
+    }
+    pool = compacted;
+  }
+
+  private void markUsed(int index, boolean[] used) {
+    if (index == 0 || used[index]) {
+      return;
+    }
+    used[index] = true;
+    pool[index].forEachReference(reference -> {
+      markUsed(reference, used);
+      return reference;
+    });
+  }
+
+  private void walk(IntUnaryOperator indexes) {
+    thisClass = indexes.applyAsInt(thisClass);
+    superClass = superClass == 0 ? 0 : indexes.applyAsInt(superClass);
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaces[i] = indexes.applyAsInt(interfaces[i]);
+    }
+    for (Member member : fields) {
+      walkMember(member, indexes);
+    }
+    for (Member member : methods) {
+      walkMember(member, indexes);
+    }
+    walkAttributes(attributes, indexes);
+  }
+
+  private void walkMember(Member member, IntUnaryOperator indexes) {
+    member.nameIndex = indexes.applyAsInt(member.nameIndex);
+    member.descriptorIndex = indexes.applyAsInt(member.descriptorIndex);
+    walkAttributes(member.attributes, indexes);
+  }
+
+  private void walkAttributes(List<Attribute> attributeList, IntUnaryOperator indexes) {
+    for (Attribute attribute : attributeList) {
+      String name = getUtf8(attribute.nameIndex);
+      new AttributeWalker(attribute.info, indexes).walk(name);
+      attribute.nameIndex = indexes.applyAsInt(attribute.nameIndex);
+    }
+  }
+
+  private byte[] toByteArray() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(MAGIC);
+      out.writeShort(minorVersion);
+      out.writeShort(majorVersion);
+      out.writeShort(pool.length);
+      for (int index = 1; index < pool.length; index++) {
+        if (pool[index] != null) {
+          pool[index].write(out);
+        }
+      }
+      out.writeShort(accessFlags);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(interfaces.length);
+      for (int interfaceIndex : interfaces) {
+        out.writeShort(interfaceIndex);
+      }
+      writeMembers(out, fields);
+      writeMembers(out, methods);
+      writeAttributes(out, attributes);
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write class file", e);
+    }
+  }
+
+  private String getUtf8(int index) {
+    Constant constant = pool[index];
+    if (constant == null || constant.tag != CONSTANT_UTF8) {
+      throw new IllegalArgumentException("Constant " + index + " is not a Utf8 constant");
+    }
+    return new String(constant.data, 2, constant.data.length - 2, StandardCharsets.UTF_8);
+  }
+
+  private static List<Member> readMembers(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    List<Member> members = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Member member = new Member();
+      member.accessFlags = in.readUnsignedShort();
+      member.nameIndex = in.readUnsignedShort();
+      member.descriptorIndex = in.readUnsignedShort();
+      member.attributes = readAttributes(in);
+      members.add(member);
+    }
+    return members;
+  }
+
+  private static List<Attribute> readAttributes(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+    List<Attribute> attributeList = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Attribute attribute = new Attribute();
+      attribute.nameIndex = in.readUnsignedShort();
+      attribute.info = new byte[in.readInt()];
+      in.readFully(attribute.info);
+      attributeList.add(attribute);
+    }
+    return attributeList;
+  }
+
+  private static void writeMembers(DataOutputStream out, List<Member> members)
+          throws IOException {
+    out.writeShort(members.size());
+    for (Member member : members) {
+      out.writeShort(member.accessFlags);
+      out.writeShort(member.nameIndex);
+      out.writeShort(member.descriptorIndex);
+      writeAttributes(out, member.attributes);
+    }
+  }
+
+  private static void writeAttributes(DataOutputStream out, List<Attribute> attributeList)
+          throws IOException {
+    out.writeShort(attributeList.size());
+    for (Attribute attribute : attributeList) {
+      out.writeShort(attribute.nameIndex);
+      out.writeInt(attribute.info.length);
+      out.write(attribute.info);
+    }
+  }
+
+  private static int readUnsignedShort(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return readUnsignedShort(bytes, offset) << 16 | readUnsignedShort(bytes, offset + 2);
+  }
+
+  private static final class Member {
+    private int accessFlags;
+    private int nameIndex;
+    private int descriptorIndex;
+    private List<Attribute> attributes;
+  }
+
+  private static final class Attribute {
+    private int nameIndex;
+    private byte[] info;
+  }
+
+  private static final class UnknownAttributeException extends RuntimeException {
+    private UnknownAttributeException(String name) {
+      super(name, null, false, false);
+    }
+  }
+
+  /**
+   * A constant pool entry, the tag and the raw bytes following it.
+   */
+  private static final class Constant {
+    private final int tag;
+    private final byte[] data;
+
+    private Constant(int tag, byte[] data) {
+      this.tag = tag;
+      this.data = data;
+    }
+
+    private static Constant read(DataInputStream in) throws IOException {
+      int tag = in.readUnsignedByte();
+      byte[] data;
+      switch (tag) {
+        case CONSTANT_UTF8:
+          int length = in.readUnsignedShort();
+          data = new byte[length + 2];
+          data[0] = (byte) (length >>> 8);
+          data[1] = (byte) length;
+          in.readFully(data, 2, length);
+          return new Constant(tag, data);
+        case CONSTANT_CLASS:
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          data = new byte[2];
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          data = new byte[3];
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+        case CONSTANT_FIELD_REF:
+        case CONSTANT_METHOD_REF:
+        case CONSTANT_INTERFACE_METHOD_REF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          data = new byte[4];
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          data = new byte[8];
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+      }
+      in.readFully(data);
+      return new Constant(tag, data);
+    }
+
+    private boolean isWide() {
+      return tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE;
+    }
+
+    private void forEachReference(IntUnaryOperator indexes) {
+      switch (tag) {
+        case CONSTANT_CLASS:
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          update(0, indexes);
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          update(1, indexes);
+          break;
+        case CONSTANT_FIELD_REF:
+        case CONSTANT_METHOD_REF:
+        case CONSTANT_INTERFACE_METHOD_REF:
+        case CONSTANT_NAME_AND_TYPE:
+          update(0, indexes);
+          update(2, indexes);
+          break;
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          // the first operand indexes the BootstrapMethods attribute, not the constant pool
+          update(2, indexes);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void renumber(IntUnaryOperator indexes) {
+      forEachReference(indexes);
+    }
+
+    private void update(int offset, IntUnaryOperator indexes) {
+      int index = indexes.applyAsInt(readUnsignedShort(data, offset));
+      data[offset] = (byte) (index >>> 8);
+      data[offset + 1] = (byte) index;
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeByte(tag);
+      out.write(data);
+    }
+  }
+
+  /**
+   * Walks the contents of one attribute and passes every constant pool index in it through
+   * the operator, writing the result back in place.
+   */
+  private final class AttributeWalker {
+    private final byte[] info;
+    private final IntUnaryOperator indexes;
+    private int position;
+
+    private AttributeWalker(byte[] info, IntUnaryOperator indexes) {
+      this.info = info;
+      this.indexes = indexes;
+    }
+
+    private void walk(String name) {
+      switch (name) {
+        case "ConstantValue":
+        case "Signature":
+        case "SourceFile":
+        case "NestHost":
+        case "ModuleMainClass":
+          index();
+          break;
+        case "Exceptions":
+        case "NestMembers":
+        case "PermittedSubclasses":
+        case "ModulePackages":
+          indexList();
+          break;
+        case "Code":
+          code();
+          break;
+        case "StackMapTable":
+          stackMapTable();
+          break;
+        case "InnerClasses":
+          innerClasses();
+          break;
+        case "EnclosingMethod":
+          index();
+          optionalIndex();
+          break;
+        case "LocalVariableTable":
+        case "LocalVariableTypeTable":
+          localVariables();
+          break;
+        case "RuntimeVisibleAnnotations":
+        case "RuntimeInvisibleAnnotations":
+          annotations();
+          break;
+        case "RuntimeVisibleParameterAnnotations":
+        case "RuntimeInvisibleParameterAnnotations":
+          parameterAnnotations();
+          break;
+        case "RuntimeVisibleTypeAnnotations":
+        case "RuntimeInvisibleTypeAnnotations":
+          typeAnnotations();
+          break;
+        case "AnnotationDefault":
+          elementValue();
+          break;
+        case "BootstrapMethods":
+          bootstrapMethods();
+          break;
+        case "MethodParameters":
+          methodParameters();
+          break;
+        case "Record":
+          record();
+          break;
+        case "Synthetic":
+        case "Deprecated":
+        case "SourceDebugExtension":
+        case "LineNumberTable":
+          break;
+        default:
+          throw new UnknownAttributeException(name);
+      }
+    }
+
+    private void code() {
+      position = 4;
+      int codeLength = u4();
+      int codeStart = position;
+      instructions(codeStart, codeStart + codeLength);
+      position = codeStart + codeLength;
+      int exceptionTableLength = u2();
+      for (int i = 0; i < exceptionTableLength; i++) {
+        position += 6;
+        optionalIndex();
+      }
+      nestedAttributes();
+    }
+
+    private void instructions(int codeStart, int codeEnd) {
+      int pc = codeStart;
+      while (pc < codeEnd) {
+        int opcode = info[pc] & 0xFF;
+        position = pc + 1;
+        switch (opcode) {
+          case 0x12: // ldc
+            int index = indexes.applyAsInt(info[position] & 0xFF);
+            info[position] = (byte) index;
+            pc += 2;
+            break;
+          case 0x13: // ldc_w
+          case 0x14: // ldc2_w
+          case 0xb2: // getstatic
+          case 0xb3: // putstatic
+          case 0xb4: // getfield
+          case 0xb5: // putfield
+          case 0xb6: // invokevirtual
+          case 0xb7: // invokespecial
+          case 0xb8: // invokestatic
+          case 0xbb: // new
+          case 0xbd: // anewarray
+          case 0xc0: // checkcast
+          case 0xc1: // instanceof
+            index();
+            pc += 3;
+            break;
+          case 0xb9: // invokeinterface
+          case 0xba: // invokedynamic
+            index();
+            pc += 5;
+            break;
+          case 0xc5: // multianewarray
+            index();
+            pc += 4;
+            break;
+          case 0xaa: // tableswitch
+            pc = align(pc - codeStart) + codeStart + 4;
+            int low = readInt(info, pc);
+            int high = readInt(info, pc + 4);
+            pc += 8 + (high - low + 1) * 4;
+            break;
+          case 0xab: // lookupswitch
+            pc = align(pc - codeStart) + codeStart + 4;
+            pc += 4 + readInt(info, pc) * 8;
+            break;
+          case 0xc4: // wide
+            pc += (info[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+            break;
+          default:
+            pc += instructionLength(opcode);
+            break;
+        }
+      }
+    }
+
+    private int align(int offset) {
+      return (offset + 4) & ~3;
+    }
+
+    private int instructionLength(int opcode) {
+      if (opcode == 0x10 || opcode >= 0x15 && opcode <= 0x19 || opcode >= 0x36 && opcode <= 0x3a
+              || opcode == 0xa9 || opcode == 0xbc) {
+        return 2;
+      }
+      if (opcode == 0x11 || opcode == 0x84 || opcode >= 0x99 && opcode <= 0xa8
+              || opcode == 0xc6 || opcode == 0xc7) {
+        return 3;
+      }
+      if (opcode == 0xc8 || opcode == 0xc9) {
+        return 5;
+      }
+      return 1;
+    }
+
+    private void stackMapTable() {
+      int entries = u2();
+      for (int i = 0; i < entries; i++) {
+        int frameType = u1();
+        if (frameType >= 64 && frameType <= 127) {
+          verificationType();
+        } else if (frameType == 247) {
+          position += 2;
+          verificationType();
+        } else if (frameType >= 248 && frameType <= 251) {
+          position += 2;
+        } else if (frameType >= 252 && frameType <= 254) {
+          position += 2;
+          for (int local = 0; local < frameType - 251; local++) {
+            verificationType();
+          }
+        } else if (frameType == 255) {
+          position += 2;
+          int locals = u2();
+          for (int local = 0; local < locals; local++) {
+            verificationType();
+          }
+          int stack = u2();
+          for (int item = 0; item < stack; item++) {
+            verificationType();
+          }
+        }
+      }
+    }
+
+    private void verificationType() {
+      int tag = u1();
+      if (tag == 7) {
+        index();
+      } else if (tag == 8) {
+        position += 2;
+      }
+    }
+
+    private void innerClasses() {
+      int classes = u2();
+      for (int i = 0; i < classes; i++) {
+        index();
+        optionalIndex();
+        optionalIndex();
+        position += 2;
+      }
+    }
+
+    private void localVariables() {
+      int variables = u2();
+      for (int i = 0; i < variables; i++) {
+        position += 4;
+        index();
+        index();
+        position += 2;
+      }
+    }
+
+    private void annotations() {
+      int annotations = u2();
+      for (int i = 0; i < annotations; i++) {
+        annotation();
+      }
+    }
+
+    private void parameterAnnotations() {
+      int parameters = u1();
+      for (int i = 0; i < parameters; i++) {
+        annotations();
+      }
+    }
+
+    private void annotation() {
+      index();
+      int pairs = u2();
+      for (int i = 0; i < pairs; i++) {
+        index();
+        elementValue();
+      }
+    }
+
+    private void elementValue() {
+      int tag = u1();
+      switch (tag) {
+        case 'e':
+          index();
+          index();
+          break;
+        case '@':
+          annotation();
+          break;
+        case '[':
+          int values = u2();
+          for (int i = 0; i < values; i++) {
+            elementValue();
+          }
+          break;
+        default:
+          index();
+          break;
+      }
+    }
+
+    private void typeAnnotations() {
+      int annotations = u2();
+      for (int i = 0; i < annotations; i++) {
+        int targetType = u1();
+        if (targetType == 0x00 || targetType == 0x01 || targetType == 0x16) {
+          position += 1;
+        } else if (targetType == 0x10 || targetType == 0x17 || targetType >= 0x42
+                && targetType <= 0x46) {
+          position += 2;
+        } else if (targetType == 0x11 || targetType == 0x12) {
+          position += 2;
+        } else if (targetType == 0x40 || targetType == 0x41) {
+          position += u2() * 6;
+        } else if (targetType >= 0x47 && targetType <= 0x4B) {
+          position += 3;
+        }
+        position += u1() * 2;
+        annotation();
+      }
+    }
+
+    private void bootstrapMethods() {
+      int methods = u2();
+      for (int i = 0; i < methods; i++) {
+        index();
+        indexList();
+      }
+    }
+
+    private void methodParameters() {
+      int parameters = u1();
+      for (int i = 0; i < parameters; i++) {
+        optionalIndex();
+        position += 2;
+      }
+    }
+
+    private void record() {
+      int components = u2();
+      for (int i = 0; i < components; i++) {
+        index();
+        index();
+        nestedAttributes();
+      }
+    }
+
+    private void nestedAttributes() {
+      int count = u2();
+      for (int i = 0; i < count; i++) {
+        int nameOffset = position;
+        String name = getUtf8(u2());
+        int length = u4();
+        int end = position + length;
+        byte[] nested = Arrays.copyOfRange(info, position, end);
+        new AttributeWalker(nested, indexes).walk(name);
+        System.arraycopy(nested, 0, info, position, length);
+        position = nameOffset;
+        index();
+        position = end;
+      }
+    }
+
+    private void indexList() {
+      int count = u2();
+      for (int i = 0; i < count; i++) {
+        index();
+      }
+    }
+
+    private void index() {
+      int index = indexes.applyAsInt(readUnsignedShort(info, position));
+      info[position] = (byte) (index >>> 8);
+      info[position + 1] = (byte) index;
+      position += 2;
+    }
+
+    private void optionalIndex() {
+      if (readUnsignedShort(info, position) == 0) {
+        position += 2;
+      } else {
+        index();
+      }
+    }
+
+    private int u1() {
+      return info[position++] & 0xFF;
+    }
+
+    private int u2() {
+      int value = readUnsignedShort(info, position);
+      position += 2;
+      return value;
+    }
+
+    private int u4() {
+      int value = readInt(info, position);
+      position += 4;
+      return value;
+    }
+  }
+}
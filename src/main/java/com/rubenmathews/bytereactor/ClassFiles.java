@@ -0,0 +1,232 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the class references and the shape out of a class file, without a bytecode library.
+ */
+final class ClassFiles {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELD_REF = 9;
+  private static final int CONSTANT_METHOD_REF = 10;
+  private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private ClassFiles() {
+  }
+
+  /**
+   * The binary names of all classes the class file refers to, through class constants and
+   * through the descriptors and generic signatures of its fields, methods and constants.
+   * Compile-time constants of other classes are inlined by javac and are not references.
+   *
+   * @param bytecode The class file
+   * @return the referenced class names, including the class itself
+   * @throws IllegalArgumentException If the bytes are not a class file
+   */
+  static Set<String> getReferencedClasses(byte[] bytecode) {
+    try (DataInputStream in = open(bytecode)) {
+      ConstantPool constantPool = readConstantPool(in);
+      Set<String> referencedClasses = new HashSet<>();
+      for (int nameIndex : constantPool.classNameIndexes) {
+        if (nameIndex != 0) {
+          addDescriptorClasses(constantPool.utf8[nameIndex], referencedClasses);
+        }
+      }
+      for (String value : constantPool.utf8) {
+        if (value != null) {
+          addDescriptorClasses(value, referencedClasses);
+        }
+      }
+      return referencedClasses;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated class file", e);
+    }
+  }
+
+  /**
+   * The binary name of the class a class file defines.
+   *
+   * @param bytecode The class file
+   * @return the class name
+   * @throws IllegalArgumentException If the bytes are not a class file
+   */
+  static String getClassName(byte[] bytecode) {
+    try (DataInputStream in = open(bytecode)) {
+      ConstantPool constantPool = readConstantPool(in);
+      in.readUnsignedShort();
+      int thisClass = in.readUnsignedShort();
+      if (thisClass >= constantPool.classNameIndexes.length
+              || constantPool.classNameIndexes[thisClass] == 0) {
+        throw new IllegalArgumentException("Invalid this_class index " + thisClass);
+      }
+      return constantPool.utf8[constantPool.classNameIndexes[thisClass]].replace('/', '.');
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated class file", e);
+    }
+  }
+
+  /**
+   * The shape of the class a class file defines: its modifiers, superclass, interfaces and the
+   * modifiers, names and descriptors of its fields and methods. Two class files of the same
+   * class with the same shape differ at most in their method bodies and attributes.
+   *
+   * @param bytecode The class file
+   * @return the shape, equal for class files of the same shape
+   * @throws IllegalArgumentException If the bytes are not a class file
+   */
+  static String getShape(byte[] bytecode) {
+    try (DataInputStream in = open(bytecode)) {
+      ConstantPool constantPool = readConstantPool(in);
+      StringBuilder shape = new StringBuilder();
+      shape.append(in.readUnsignedShort()).append(' ')
+              .append(constantPool.className(in.readUnsignedShort())).append(" extends ")
+              .append(constantPool.className(in.readUnsignedShort()));
+      int interfaces = in.readUnsignedShort();
+      for (int i = 0; i < interfaces; i++) {
+        shape.append(i == 0 ? " implements " : ", ")
+                .append(constantPool.className(in.readUnsignedShort()));
+      }
+      appendMembers(in, constantPool, shape);
+      appendMembers(in, constantPool, shape);
+      return shape.toString();
+    } catch (IOException | ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Malformed class file", e);
+    }
+  }
+
+  /*
+   * One line per field or method, the fields are followed by the methods.
+   */
+  private static void appendMembers(DataInputStream in, ConstantPool constantPool,
+                                    StringBuilder shape) throws IOException {
+    int members = in.readUnsignedShort();
+    shape.append('\n').append(members);
+    for (int i = 0; i < members; i++) {
+      shape.append('\n').append(in.readUnsignedShort())
+              .append(' ').append(constantPool.utf8[in.readUnsignedShort()])
+              .append(' ').append(constantPool.utf8[in.readUnsignedShort()]);
+      int attributes = in.readUnsignedShort();
+      for (int attribute = 0; attribute < attributes; attribute++) {
+        in.readUnsignedShort();
+        in.skipBytes(in.readInt());
+      }
+    }
+  }
+
+  private static DataInputStream open(byte[] bytecode) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytecode));
+    if (in.readInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a class file");
+    }
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+    return in;
+  }
+
+  private static ConstantPool readConstantPool(DataInputStream in) throws IOException {
+    int constantPoolCount = in.readUnsignedShort();
+    ConstantPool constantPool = new ConstantPool(constantPoolCount);
+    for (int index = 1; index < constantPoolCount; index++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case CONSTANT_UTF8:
+          constantPool.utf8[index] = in.readUTF();
+          break;
+        case CONSTANT_CLASS:
+          constantPool.classNameIndexes[index] = in.readUnsignedShort();
+          break;
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          in.skipBytes(2);
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          in.skipBytes(3);
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+        case CONSTANT_FIELD_REF:
+        case CONSTANT_METHOD_REF:
+        case CONSTANT_INTERFACE_METHOD_REF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          in.skipBytes(4);
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          in.skipBytes(8);
+          index++;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+      }
+    }
+    return constantPool;
+  }
+
+  /*
+   * Class constants hold internal names (com/example/Rule) or array descriptors
+   * ([Lcom/example/Rule;), descriptors and signatures embed class types as Lcom/example/Rule;
+   * or Lcom/example/Rule<...>; with inner classes of generic types separated by a dot.
+   */
+  private static void addDescriptorClasses(String value, Set<String> referencedClasses) {
+    if (value.indexOf('/') < 0) {
+      return;
+    }
+    if (value.charAt(0) != '[' && value.charAt(0) != '(' && value.charAt(0) != '<'
+            && value.indexOf(';') < 0) {
+      referencedClasses.add(value.replace('/', '.'));
+      return;
+    }
+    int start = value.indexOf('L');
+    while (start >= 0) {
+      int end = start + 1;
+      while (end < value.length() && ";<.".indexOf(value.charAt(end)) < 0) {
+        end++;
+      }
+      if (end < value.length() && end > start + 1) {
+        referencedClasses.add(value.substring(start + 1, end).replace('/', '.'));
+      }
+      start = value.indexOf('L', end);
+    }
+  }
+
+  /*
+   * The UTF-8 constants and the name index of the class constants, by constant pool index.
+   */
+  private static final class ConstantPool {
+    private final String[] utf8;
+    private final int[] classNameIndexes;
+
+    private ConstantPool(int size) {
+      this.utf8 = new String[size];
+      this.classNameIndexes = new int[size];
+    }
+
+    private String className(int index) {
+      return index == 0 ? "" : utf8[classNameIndexes[index]];
+    }
+  }
+}
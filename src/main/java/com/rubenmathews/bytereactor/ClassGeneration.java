@@ -0,0 +1,55 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Set;
+
+/**
+ * One generation of the classes of a {@link HotReloader}. Every reload creates a new generation
+ * in a fresh class loader, unless the reload redefined the classes of the previous generation in
+ * place, then both generations share the class loader and its classes. Classes of an old
+ * generation can be garbage collected once neither the generation nor any of its classes are
+ * referenced.
+ */
+public final class ClassGeneration {
+
+  private final int number;
+  private final ClassLoader classLoader;
+  private final Set<String> classNames;
+
+  ClassGeneration(int number, ClassLoader classLoader, Set<String> classNames) {
+    this.number = number;
+    this.classLoader = classLoader;
+    this.classNames = classNames;
+  }
+
+  public int getNumber() {
+    return number;
+  }
+
+  public ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  public Set<String> getClassNames() {
+    return classNames;
+  }
+
+  /**
+   * Load a class of this generation.
+   *
+   * @param className The binary name of the class
+   * @return the class
+   * @throws IllegalArgumentException If the class is not part of this generation
+   */
+  public Class<?> getClass(String className) {
+    if (!classNames.contains(className)) {
+      throw new IllegalArgumentException("Cannot find class of [" + className
+              + "] in generation " + number);
+    }
+    try {
+      return classLoader.loadClass(className);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Cannot load class of [" + className
+              + "] in generation " + number, e);
+    }
+  }
+}
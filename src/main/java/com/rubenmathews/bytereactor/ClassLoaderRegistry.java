@@ -0,0 +1,198 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The dynamic class loaders by parent class loader, without keeping either of them reachable.
+ *
+ * <p>A dynamic class loader refers to its parent, so holding it strongly would keep the parent
+ * reachable forever, even with a weak key. Both the parent and the dynamic class loader are
+ * therefore held weakly: an entry lives as long as the dynamic class loader is reachable from
+ * outside, through its classes, their instances or a ByteReactor configured with it, and is
+ * removed through a reference queue once it is collected together with its parent. The class
+ * loaders of the JVM never become unreachable, the dynamic class loaders of those parents are
+ * held strongly.
+ *
+ * <p>Lookups of registered parents don't lock, the queue is drained on every access.
+ */
+final class ClassLoaderRegistry {
+
+  private static final Set<ClassLoader> PERMANENT = permanentClassLoaders();
+
+  private final ConcurrentMap<Object, LoaderReference> loaders = new ConcurrentHashMap<>();
+  private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+  /**
+   * The dynamic class loader of the parent, created if the parent has none.
+   *
+   * @param parent The parent class loader
+   * @return the dynamic class loader of the parent
+   */
+  DynamicClassLoader get(ClassLoader parent) {
+    purge();
+    LoaderReference reference = loaders.get(new Lookup(parent));
+    DynamicClassLoader dynamicClassLoader = reference == null ? null : reference.get();
+    if (dynamicClassLoader != null) {
+      return dynamicClassLoader;
+    }
+    DynamicClassLoader[] created = new DynamicClassLoader[1];
+    ParentKey key = new ParentKey(parent, queue);
+    LoaderReference registered = loaders.compute(key, (existingKey, existing) -> {
+      if (existing != null && existing.get() != null) {
+        return existing;
+      }
+      created[0] = DynamicClassLoader.create(parent);
+      return new LoaderReference(key, created[0], queue);
+    });
+    return created[0] != null ? created[0] : registered.get();
+  }
+
+  /**
+   * Unregister the dynamic class loader of the parent.
+   *
+   * @param parent The parent class loader
+   * @return the removed class loader, null if the parent had none
+   */
+  DynamicClassLoader remove(ClassLoader parent) {
+    purge();
+    LoaderReference reference = loaders.remove(new Lookup(parent));
+    return reference == null ? null : reference.get();
+  }
+
+  /**
+   * Unregister all dynamic class loaders.
+   *
+   * @return the removed class loaders which were still reachable
+   */
+  List<DynamicClassLoader> clear() {
+    List<DynamicClassLoader> removed = new ArrayList<>();
+    for (Object key : loaders.keySet()) {
+      LoaderReference reference = loaders.remove(key);
+      DynamicClassLoader dynamicClassLoader = reference == null ? null : reference.get();
+      if (dynamicClassLoader != null) {
+        removed.add(dynamicClassLoader);
+      }
+    }
+    purge();
+    return removed;
+  }
+
+  /**
+   * The registered dynamic class loaders which are still reachable.
+   *
+   * @return a snapshot of the class loaders
+   */
+  List<DynamicClassLoader> values() {
+    purge();
+    List<DynamicClassLoader> values = new ArrayList<>();
+    for (LoaderReference reference : loaders.values()) {
+      DynamicClassLoader dynamicClassLoader = reference.get();
+      if (dynamicClassLoader != null) {
+        values.add(dynamicClassLoader);
+      }
+    }
+    return values;
+  }
+
+  int size() {
+    purge();
+    return loaders.size();
+  }
+
+  private void purge() {
+    Reference<?> reference = queue.poll();
+    while (reference != null) {
+      if (reference instanceof ParentKey) {
+        loaders.remove(reference);
+      } else {
+        LoaderReference loaderReference = (LoaderReference) reference;
+        loaders.remove(loaderReference.key, loaderReference);
+      }
+      reference = queue.poll();
+    }
+  }
+
+  private static Set<ClassLoader> permanentClassLoaders() {
+    Set<ClassLoader> permanent = Collections.newSetFromMap(new IdentityHashMap<>());
+    ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+    while (classLoader != null) {
+      permanent.add(classLoader);
+      classLoader = classLoader.getParent();
+    }
+    return permanent;
+  }
+
+  /*
+   * Keys compare by the identity of the parent while it is reachable, and by their own
+   * identity once it is cleared, so a purged key removes exactly its own entry.
+   */
+  private static final class ParentKey extends WeakReference<ClassLoader> {
+    private final int hash;
+
+    private ParentKey(ClassLoader parent, ReferenceQueue<ClassLoader> queue) {
+      super(parent, queue);
+      this.hash = System.identityHashCode(parent);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof ParentKey)) {
+        return false;
+      }
+      ClassLoader parent = get();
+      return parent != null && parent == ((ParentKey) other).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /*
+   * Looks a parent up without creating a weak reference.
+   */
+  private static final class Lookup {
+    private final ClassLoader parent;
+
+    private Lookup(ClassLoader parent) {
+      this.parent = parent;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof ParentKey && ((ParentKey) other).get() == parent;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(parent);
+    }
+  }
+
+  private static final class LoaderReference extends WeakReference<DynamicClassLoader> {
+    private final ParentKey key;
+    // keeps the loaders of the class loaders of the JVM, which are never collected anyway
+    private final DynamicClassLoader permanent;
+
+    private LoaderReference(ParentKey key, DynamicClassLoader dynamicClassLoader,
+                            ReferenceQueue<? super DynamicClassLoader> queue) {
+      super(dynamicClassLoader, queue);
+      this.key = key;
+      this.permanent = PERMANENT.contains(dynamicClassLoader.getParent())
+              ? dynamicClassLoader : null;
+    }
+  }
+}
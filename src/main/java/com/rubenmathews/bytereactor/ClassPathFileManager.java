@@ -0,0 +1,92 @@
+package com.rubenmathews.bytereactor;
+
+import com.rubenmathews.bytereactor.util.ByteReactorUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Adds classes held in memory to the class path of a compilation, so sources can be compiled
+ * against classes which only exist as bytecode, e.g. the live generation of a
+ * {@link HotReloader}.
+ */
+final class ClassPathFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+  private static final String CLASS_CONTENT = "bytes:///";
+
+  private final Map<String, List<ClassPathFile>> packages = new HashMap<>();
+
+  ClassPathFileManager(JavaFileManager fileManager, Map<String, byte[]> classes) {
+    super(fileManager);
+    classes.forEach((className, bytecode) -> {
+      int packageEnd = className.lastIndexOf('.');
+      String packageName = packageEnd < 0 ? "" : className.substring(0, packageEnd);
+      packages.computeIfAbsent(packageName, key -> new ArrayList<>())
+              .add(new ClassPathFile(className, bytecode));
+    });
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(Location location, String packageName,
+                                       Set<JavaFileObject.Kind> kinds, boolean recurse)
+          throws IOException {
+    Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+    if (location != StandardLocation.CLASS_PATH || !kinds.contains(JavaFileObject.Kind.CLASS)) {
+      return files;
+    }
+    List<JavaFileObject> classPathFiles = new ArrayList<>();
+    files.forEach(classPathFiles::add);
+    packages.forEach((classPathPackage, packageFiles) -> {
+      if (classPathPackage.equals(packageName) || recurse
+              && (packageName.isEmpty() || classPathPackage.startsWith(packageName + "."))) {
+        classPathFiles.addAll(packageFiles);
+      }
+    });
+    return classPathFiles;
+  }
+
+  @Override
+  public String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof ClassPathFile) {
+      return ((ClassPathFile) file).className;
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject first, FileObject second) {
+    if (first instanceof ClassPathFile || second instanceof ClassPathFile) {
+      return first.toUri().equals(second.toUri());
+    }
+    return super.isSameFile(first, second);
+  }
+
+  private static final class ClassPathFile extends SimpleJavaFileObject {
+    private final String className;
+    private final byte[] bytecode;
+
+    private ClassPathFile(String className, byte[] bytecode) {
+      super(URI.create(CLASS_CONTENT + ByteReactorUtil.getDestinationClassFile(className)),
+              Kind.CLASS);
+      this.className = className;
+      this.bytecode = bytecode;
+    }
+
+    @Override
+    public InputStream openInputStream() {
+      return new ByteArrayInputStream(bytecode);
+    }
+  }
+}
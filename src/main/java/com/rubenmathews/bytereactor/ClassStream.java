@@ -0,0 +1,125 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The classes of a batch in the order they are defined, while the batch is still being loaded
+ * in the background. The stream buffers a bounded number of classes, loading pauses while the
+ * buffer is full until the consumer catches up.
+ *
+ * <p>{@link #hasNext()} blocks until the next class is defined or the batch is loaded. If the
+ * batch fails, the failure is thrown by {@code hasNext()} after the classes defined before it.
+ * Closing the stream stops loading at the next class, a running compilation is completed.
+ */
+public final class ClassStream implements Iterator<Map.Entry<String, Class<?>>>, AutoCloseable {
+
+  private static final Object END = new Object();
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private final BlockingQueue<Object> buffer;
+  private volatile boolean closed;
+  private Object next;
+
+  private ClassStream(int bufferSize) {
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+  }
+
+  /**
+   * Start loading in a background thread, publishing every class the loader hands over.
+   *
+   * @param bufferSize The number of classes buffered for the consumer
+   * @param loader     Loads the batch and hands over every defined class
+   * @return the stream of the classes
+   */
+  static ClassStream start(int bufferSize, Consumer<BiConsumer<String, Class<?>>> loader) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize has to be positive but got [" + bufferSize
+              + "]");
+    }
+    ClassStream classStream = new ClassStream(bufferSize);
+    Thread thread = new Thread(() -> classStream.load(loader), "byte-reactor-class-stream");
+    thread.setDaemon(true);
+    thread.start();
+    return classStream;
+  }
+
+  private void load(Consumer<BiConsumer<String, Class<?>>> loader) {
+    Object last = END;
+    try {
+      loader.accept((className, loadedClass) ->
+              publish(new AbstractMap.SimpleImmutableEntry<>(className, loadedClass)));
+    } catch (CancellationException e) {
+      return;
+    } catch (RuntimeException | LinkageError e) {
+      last = e;
+    }
+    try {
+      publish(last);
+    } catch (CancellationException e) {
+      // nobody is waiting for the end of a closed stream
+    }
+  }
+
+  private void publish(Object item) {
+    try {
+      while (!closed) {
+        if (buffer.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    throw new CancellationException("Class stream is closed");
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = buffer.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CompilationFailedException("Interrupted while waiting for the next class", e);
+      }
+    }
+    if (next instanceof RuntimeException) {
+      RuntimeException failure = (RuntimeException) next;
+      next = END;
+      throw failure;
+    }
+    if (next instanceof LinkageError) {
+      LinkageError failure = (LinkageError) next;
+      next = END;
+      throw failure;
+    }
+    return next != END;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map.Entry<String, Class<?>> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Map.Entry<String, Class<?>> entry = (Map.Entry<String, Class<?>>) next;
+    next = null;
+    return entry;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    next = END;
+    buffer.clear();
+  }
+}
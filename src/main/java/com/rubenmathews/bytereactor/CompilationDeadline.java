@@ -0,0 +1,236 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+
+/**
+ * The point in time a compilation has to be finished by. It starts before the compilation
+ * waits for a slot of the {@link CompileScheduler}, so the time spent in the queue counts
+ * against the timeout.
+ *
+ * <p>javac cannot be interrupted, so the deadline is checked cooperatively at checkpoints the
+ * compiler passes through regularly: the task events of every phase and source file, reported
+ * through a javac {@code TaskListener}, and every call to the file manager. Interrupting the
+ * compiling thread cancels the compilation at the next checkpoint as well, with or without a
+ * timeout. A compilation in a worker JVM or on a compile server is stopped by the deadline
+ * only, the worker is killed and the connection to the server is closed.
+ */
+final class CompilationDeadline {
+
+  static final CompilationDeadline NONE = new CompilationDeadline(null);
+
+  private static final String JAVAC_TASK = "com.sun.source.util.JavacTask";
+  private static final String TASK_LISTENER = "com.sun.source.util.TaskListener";
+
+  private final Duration timeout;
+  private final long deadline;
+
+  private CompilationDeadline(Duration timeout) {
+    this.timeout = timeout;
+    this.deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Start the deadline of a compilation, using the smallest timeout of the units or the
+   * default timeout if none of them has one.
+   *
+   * @param compilationUnits The units compiled together
+   * @param defaultTimeout   The default timeout, null if compilations are unbounded
+   * @return the started deadline
+   */
+  static CompilationDeadline start(List<CompilationUnit> compilationUnits,
+                                   Duration defaultTimeout) {
+    Duration timeout = null;
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      Duration unitTimeout = compilationUnit.getTimeout();
+      if (unitTimeout != null && (timeout == null || unitTimeout.compareTo(timeout) < 0)) {
+        timeout = unitTimeout;
+      }
+    }
+    if (timeout == null) {
+      timeout = defaultTimeout;
+    }
+    return timeout != null ? new CompilationDeadline(timeout) : NONE;
+  }
+
+  static Duration requirePositive(Duration timeout) {
+    if (Objects.requireNonNull(timeout).isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("Timeout has to be positive but got [" + timeout + "]");
+    }
+    return timeout;
+  }
+
+  boolean isBounded() {
+    return this != NONE;
+  }
+
+  boolean isExpired() {
+    return isBounded() && System.nanoTime() - deadline >= 0;
+  }
+
+  long getRemainingNanos() {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+
+  /**
+   * Stop the compilation if the deadline has passed or the thread was interrupted.
+   *
+   * @throws CompilationTimeoutException If the deadline has passed
+   * @throws CompilationFailedException  If the compiling thread was interrupted
+   */
+  void checkpoint() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new CompilationFailedException("Compilation was interrupted");
+    }
+    if (isExpired()) {
+      throw expired();
+    }
+  }
+
+  /**
+   * The failure of a compilation which didn't finish before the deadline.
+   *
+   * @return the exception to throw
+   */
+  CompilationTimeoutException expired() {
+    return new CompilationTimeoutException("Compilation did not finish within "
+            + TimeUnit.NANOSECONDS.toMillis(timeout.toNanos()) + " ms");
+  }
+
+  /**
+   * Wrap the file manager of a compilation task, so every file manager call is a checkpoint.
+   *
+   * @param fileManager The file manager to guard
+   * @return the guarded file manager
+   */
+  JavaFileManager guard(JavaFileManager fileManager) {
+    return new CheckpointFileManager(fileManager, this);
+  }
+
+  /**
+   * Add a task listener checking the deadline on every javac task event. The listener API is
+   * not part of javax.tools and not visible to this class on Java 8, it is attached
+   * reflectively and the file manager checkpoints remain if it is unavailable.
+   *
+   * @param compilationTask The task to attach the checkpoint to
+   */
+  void register(JavaCompiler.CompilationTask compilationTask) {
+    try {
+      ClassLoader compilerClassLoader = compilationTask.getClass().getClassLoader();
+      Class<?> javacTask = Class.forName(JAVAC_TASK, false, compilerClassLoader);
+      Class<?> taskListener = Class.forName(TASK_LISTENER, false, compilerClassLoader);
+      if (!javacTask.isInstance(compilationTask)) {
+        return;
+      }
+      Object listener = Proxy.newProxyInstance(taskListener.getClassLoader(),
+              new Class<?>[]{taskListener}, new CheckpointTaskListener(this));
+      javacTask.getMethod("addTaskListener", taskListener).invoke(compilationTask, listener);
+    } catch (ReflectiveOperationException | IllegalArgumentException e) {
+      // not javac, only the file manager checkpoints apply
+    }
+  }
+
+  /**
+   * Find the checkpoint failure javac wrapped while propagating it out of the compilation.
+   *
+   * @param e The exception thrown by the compilation task
+   * @return the checkpoint failure, or the given exception if it didn't stem from a checkpoint
+   */
+  static RuntimeException unwrap(RuntimeException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof CompilationFailedException) {
+        return (CompilationFailedException) cause;
+      }
+    }
+    return e;
+  }
+
+  private static final class CheckpointTaskListener implements InvocationHandler {
+    private final CompilationDeadline deadline;
+
+    private CheckpointTaskListener(CompilationDeadline deadline) {
+      this.deadline = deadline;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CompilationDeadline checkpoint";
+        default:
+          deadline.checkpoint();
+          return null;
+      }
+    }
+  }
+
+  private static final class CheckpointFileManager
+          extends ForwardingJavaFileManager<JavaFileManager> {
+    private final CompilationDeadline deadline;
+
+    private CheckpointFileManager(JavaFileManager fileManager, CompilationDeadline deadline) {
+      super(fileManager);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName,
+                                         Set<JavaFileObject.Kind> kinds, boolean recurse)
+            throws IOException {
+      deadline.checkpoint();
+      return super.list(location, packageName, kinds, recurse);
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+      deadline.checkpoint();
+      return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForInput(Location location, String className,
+                                              JavaFileObject.Kind kind) throws IOException {
+      deadline.checkpoint();
+      return super.getJavaFileForInput(location, className, kind);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling)
+            throws IOException {
+      deadline.checkpoint();
+      return super.getJavaFileForOutput(location, className, kind, sibling);
+    }
+
+    @Override
+    public FileObject getFileForInput(Location location, String packageName,
+                                      String relativeName) throws IOException {
+      deadline.checkpoint();
+      return super.getFileForInput(location, packageName, relativeName);
+    }
+
+    @Override
+    public FileObject getFileForOutput(Location location, String packageName,
+                                       String relativeName, FileObject sibling)
+            throws IOException {
+      deadline.checkpoint();
+      return super.getFileForOutput(location, packageName, relativeName, sibling);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * A diagnostic javac reported for a compilation, detached from the compiler so it can be kept
+ * with a {@link CompilationFailedException} after the compilation is gone.
+ */
+public final class CompilationDiagnostic {
+
+  private final Diagnostic.Kind kind;
+  private final String className;
+  private final long lineNumber;
+  private final long columnNumber;
+  private final String message;
+  private final String formattedMessage;
+
+  private CompilationDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+    this.kind = diagnostic.getKind();
+    JavaFileObject source = diagnostic.getSource();
+    this.className = source instanceof CompilationUnit
+            ? ((CompilationUnit) source).getClassName() : null;
+    this.lineNumber = diagnostic.getLineNumber();
+    this.columnNumber = diagnostic.getColumnNumber();
+    this.message = diagnostic.getMessage(Locale.ROOT);
+    this.formattedMessage = diagnostic.toString();
+  }
+
+  static CompilationDiagnostic of(Diagnostic<? extends JavaFileObject> diagnostic) {
+    return new CompilationDiagnostic(diagnostic);
+  }
+
+  public Diagnostic.Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * The class name of the compilation unit the diagnostic was reported for.
+   *
+   * @return the class name, null if the diagnostic isn't about one of the compiled sources
+   */
+  public String getClassName() {
+    return className;
+  }
+
+  public long getLineNumber() {
+    return lineNumber;
+  }
+
+  public long getColumnNumber() {
+    return columnNumber;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return formattedMessage;
+  }
+}
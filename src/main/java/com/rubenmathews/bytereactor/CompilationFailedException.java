@@ -1,12 +1,44 @@
 package com.rubenmathews.bytereactor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+
 public class CompilationFailedException extends RuntimeException {
 
+  private final List<CompilationDiagnostic> diagnostics;
+
   public CompilationFailedException(String message) {
     super(message);
+    this.diagnostics = Collections.emptyList();
   }
 
   public CompilationFailedException(String message, Throwable e) {
     super(message, e);
+    this.diagnostics = Collections.emptyList();
+  }
+
+  public CompilationFailedException(String message, List<CompilationDiagnostic> diagnostics) {
+    super(message);
+    this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics));
+  }
+
+  /**
+   * The diagnostics javac reported for the failed compilation.
+   *
+   * @return the diagnostics, empty if the compilation didn't fail in javac
+   */
+  public List<CompilationDiagnostic> getDiagnostics() {
+    return diagnostics;
+  }
+
+  boolean hasErrors() {
+    for (CompilationDiagnostic diagnostic : diagnostics) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        return true;
+      }
+    }
+    return false;
   }
 }
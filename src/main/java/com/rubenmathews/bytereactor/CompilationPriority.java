@@ -0,0 +1,10 @@
+package com.rubenmathews.bytereactor;
+
+/**
+ * Priority lanes of the {@link CompileScheduler}, waiting interactive compilations are always
+ * admitted before waiting bulk compilations.
+ */
+public enum CompilationPriority {
+  INTERACTIVE,
+  BULK
+}
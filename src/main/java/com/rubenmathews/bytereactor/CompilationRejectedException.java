@@ -0,0 +1,12 @@
+package com.rubenmathews.bytereactor;
+
+public class CompilationRejectedException extends RuntimeException {
+
+  public CompilationRejectedException(String message) {
+    super(message);
+  }
+
+  public CompilationRejectedException(String message, Throwable e) {
+    super(message, e);
+  }
+}
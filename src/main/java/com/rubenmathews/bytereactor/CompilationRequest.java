@@ -1,7 +1,9 @@
 package com.rubenmathews.bytereactor;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 
 public final class CompilationRequest {
 
@@ -23,6 +25,47 @@ public final class CompilationRequest {
     compilationUnit = new CompilationUnit(source, className, path);
   }
 
+  public CompilationRequest(File source, Charset charset, String className, Path path) {
+    compilationUnit = new CompilationUnit(source, charset, className, path);
+  }
+
+  /**
+   * Set the priority lane the compilation waits in when a {@link CompileScheduler} is used.
+   * Requests are {@link CompilationPriority#INTERACTIVE} by default.
+   *
+   * @param priority the priority of the compilation
+   * @return the request
+   */
+  public CompilationRequest withPriority(CompilationPriority priority) {
+    compilationUnit.setPriority(priority);
+    return this;
+  }
+
+  /**
+   * Set the maximum time the compilation may take, overriding the default timeout of the
+   * ByteReactor. The time spent waiting for a {@link CompileScheduler} slot counts against it.
+   * When it elapses the compilation is stopped and a {@link CompilationTimeoutException} is
+   * thrown.
+   *
+   * @param timeout the maximum compile time
+   * @return the request
+   */
+  public CompilationRequest withTimeout(Duration timeout) {
+    compilationUnit.setTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Fail the compilation when the source file is malformed in its charset, instead of replacing
+   * the malformed input. Has no effect on string sources.
+   *
+   * @return the request
+   */
+  public CompilationRequest withStrictDecoding() {
+    compilationUnit.setStrictDecoding(true);
+    return this;
+  }
+
   CompilationUnit getCompilationUnit() {
     return compilationUnit;
   }
@@ -1,9 +1,12 @@
 package com.rubenmathews.bytereactor;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public final class CompilationRequestBatch {
 
@@ -28,6 +31,9 @@ public final class CompilationRequestBatch {
 
   public static class Builder {
     private final List<CompilationUnit> compilationUnitList = new ArrayList<>();
+    private CompilationPriority priority = CompilationPriority.INTERACTIVE;
+    private Duration timeout;
+    private boolean strictDecoding;
 
     private Builder() {
 
@@ -51,8 +57,70 @@ public final class CompilationRequestBatch {
       return this;
     }
 
+    public Builder add(File source, Charset charset, String className, Path path) {
+      compilationUnitList.add(new CompilationUnit(source, charset, className, path));
+      return this;
+    }
+
+    /**
+     * Add every source of the source tree, read in parallel.
+     *
+     * @param sourceTree The source tree
+     * @return the builder
+     */
+    public Builder add(SourceTree sourceTree) {
+      compilationUnitList.addAll(sourceTree.read());
+      return this;
+    }
+
+    /**
+     * Set the priority lane the batch waits in when a {@link CompileScheduler} is used,
+     * e.g. {@link CompilationPriority#BULK} for imports.
+     *
+     * @param priority the priority of the batch
+     * @return the builder
+     */
+    public Builder withPriority(CompilationPriority priority) {
+      this.priority = Objects.requireNonNull(priority);
+      return this;
+    }
+
+    /**
+     * Set the maximum time the compilation of the whole batch may take, overriding the default
+     * timeout of the ByteReactor.
+     *
+     * @param timeout the maximum compile time
+     * @return the builder
+     */
+    public Builder withTimeout(Duration timeout) {
+      this.timeout = CompilationDeadline.requirePositive(timeout);
+      return this;
+    }
+
+    /**
+     * Fail the compilation when a source file of the batch is malformed in its charset, instead
+     * of replacing the malformed input.
+     *
+     * @return the builder
+     */
+    public Builder withStrictDecoding() {
+      this.strictDecoding = true;
+      return this;
+    }
+
     public CompilationRequestBatch build() {
+      compilationUnitList.forEach(this::configure);
       return new CompilationRequestBatch(compilationUnitList);
     }
+
+    private void configure(CompilationUnit compilationUnit) {
+      compilationUnit.setPriority(priority);
+      if (timeout != null) {
+        compilationUnit.setTimeout(timeout);
+      }
+      if (strictDecoding) {
+        compilationUnit.setStrictDecoding(true);
+      }
+    }
   }
 }
@@ -0,0 +1,8 @@
+package com.rubenmathews.bytereactor;
+
+public class CompilationTimeoutException extends CompilationFailedException {
+
+  public CompilationTimeoutException(String message) {
+    super(message);
+  }
+}
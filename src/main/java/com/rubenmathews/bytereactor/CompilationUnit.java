@@ -4,9 +4,11 @@ import com.rubenmathews.bytereactor.util.ByteReactorUtil;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
@@ -19,19 +21,30 @@ public class CompilationUnit extends SimpleJavaFileObject {
   private final String className;
   private final Map<String, CompiledCode> compiledClasses;
   private final File sourceFile;
+  private final Charset charset;
   private Path destinationPrefix;
+  private CompilationPriority priority = CompilationPriority.INTERACTIVE;
+  private Duration timeout;
+  private boolean strictDecoding;
 
   public CompilationUnit(String code, String className, Path path) {
-    this(ByteReactorUtil.getSourceUriFromClassname(className), code, null, className, path);
+    this(ByteReactorUtil.getSourceUriFromClassname(className), code, null, null, className,
+            path);
   }
 
   public CompilationUnit(File sourceFile, String className, Path path) {
-    this(Objects.requireNonNull(sourceFile).toURI(), null, sourceFile, className, path);
+    this(sourceFile, Charset.defaultCharset(), className, path);
+  }
+
+  public CompilationUnit(File sourceFile, Charset charset, String className, Path path) {
+    this(Objects.requireNonNull(sourceFile).toURI(), null, sourceFile,
+            Objects.requireNonNull(charset), className, path);
   }
 
   private CompilationUnit(URI source,
                           String javaCode,
                           File sourceFile,
+                          Charset charset,
                           String className,
                           Path destinationPrefix) {
     super(source, Kind.SOURCE);
@@ -39,6 +52,7 @@ public class CompilationUnit extends SimpleJavaFileObject {
     this.destinationPrefix = destinationPrefix;
     this.javaCode = javaCode;
     this.sourceFile = sourceFile;
+    this.charset = charset;
     this.compiledClasses = Collections.synchronizedMap(new WeakHashMap<>());
   }
 
@@ -54,14 +68,41 @@ public class CompilationUnit extends SimpleJavaFileObject {
     }
   }
 
+  /**
+   * The source code, file sources are decoded with the charset of the unit and served from the
+   * {@link SourceContentCache} while the file is unchanged. Malformed input is replaced unless
+   * the unit decodes strictly.
+   *
+   * @param ignoreEncodingErrors Replace malformed input even if the unit decodes strictly
+   * @return the source code
+   * @throws IOException If the source file cannot be read, or is malformed and decoded strictly
+   */
   @Override
   public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
     if (isFileSource()) {
-      return new String(Files.readAllBytes(sourceFile.toPath()));
+      return SourceContentCache.read(sourceFile.toPath(), charset,
+              strictDecoding && !ignoreEncodingErrors);
     }
     return javaCode;
   }
 
+  /**
+   * The size of the source, in bytes for file sources and in characters for string sources.
+   *
+   * @return the source size
+   */
+  long getSourceSize() {
+    return isFileSource() ? sourceFile.length() : javaCode.length();
+  }
+
+  File getSourceFile() {
+    return sourceFile;
+  }
+
+  Charset getCharset() {
+    return charset;
+  }
+
   public Set<String> getAvailableClassNames() {
     return compiledClasses.keySet();
   }
@@ -112,6 +153,30 @@ public class CompilationUnit extends SimpleJavaFileObject {
     compiledClasses.clear();
   }
 
+  public CompilationPriority getPriority() {
+    return priority;
+  }
+
+  public void setPriority(CompilationPriority priority) {
+    this.priority = Objects.requireNonNull(priority);
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = CompilationDeadline.requirePositive(timeout);
+  }
+
+  public boolean isStrictDecoding() {
+    return strictDecoding;
+  }
+
+  public void setStrictDecoding(boolean strictDecoding) {
+    this.strictDecoding = strictDecoding;
+  }
+
   public boolean hasDestinationPath() {
     return destinationPrefix != null;
   }
@@ -0,0 +1,528 @@
+package com.rubenmathews.bytereactor;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Admission control in front of the compiler. At most a bounded number of compilations run at
+ * the same time, the others wait in the queue of their {@link CompilationPriority} lane.
+ * A free slot always goes to the oldest waiting interactive compilation before any bulk
+ * compilation. When the queue of a lane is full a compilation is rejected or waits for room,
+ * depending on the {@link RejectionPolicy}.
+ *
+ * <p>Within a lane the slots are shared between the tenants of {@link TenantNamespace}s by
+ * weighted fair queuing: every admitted compilation advances the virtual time of its tenant by
+ * its number of sources divided by the weight of the tenant, and a free slot goes to the
+ * waiting tenant with the lowest virtual time. A tenant returning after being idle starts at
+ * the current virtual time, so it cannot save up a share while idle. A tenant at its limit of
+ * concurrent compilations is skipped. Compilations outside a namespace share the slots as one
+ * tenant of weight 1.
+ *
+ * <p>Cache hits never pass through the scheduler. A scheduler can be shared by several
+ * ByteReactors to enforce one limit for the whole application.
+ */
+public final class CompileScheduler {
+
+  private final int maxConcurrentCompilations;
+  private final Map<CompilationPriority, Integer> maxQueueDepths;
+  private final RejectionPolicy rejectionPolicy;
+  private final long maxQueueWaitNanos;
+  private final ObjLongConsumer<CompilationPriority> queueWaitListener;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition queueSpaceAvailable = lock.newCondition();
+  private final Map<CompilationPriority, Lane> lanes = new EnumMap<>(CompilationPriority.class);
+  private final Map<String, Share> tenants = new HashMap<>();
+  private final Share untenanted = new Share(1, Integer.MAX_VALUE);
+  private int running;
+  private double virtualTime;
+
+  private CompileScheduler(Builder builder) {
+    this.maxConcurrentCompilations = builder.maxConcurrentCompilations;
+    this.maxQueueDepths = new EnumMap<>(builder.maxQueueDepths);
+    this.rejectionPolicy = builder.rejectionPolicy;
+    this.maxQueueWaitNanos = builder.maxQueueWait.toNanos();
+    this.queueWaitListener = builder.queueWaitListener;
+    for (CompilationPriority priority : CompilationPriority.values()) {
+      lanes.put(priority, new Lane());
+    }
+  }
+
+  public static CompileScheduler.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Wait for a compile slot in the lane of the given priority.
+   *
+   * @param priority The priority of the compilation
+   * @return the permit which has to be closed once the compilation is done
+   * @throws CompilationRejectedException If the lane is full or the maximum wait has elapsed
+   */
+  Permit acquire(CompilationPriority priority) {
+    return acquire(priority, null, 1);
+  }
+
+  /**
+   * Wait for a compile slot in the lane of the given priority, as the given tenant.
+   *
+   * @param priority The priority of the compilation
+   * @param tenant   The tenant compiling, null outside of a namespace
+   * @param sources  The number of sources compiled, the cost charged to the tenant
+   * @return the permit which has to be closed once the compilation is done
+   * @throws CompilationRejectedException If the lane is full or the maximum wait has elapsed
+   */
+  Permit acquire(CompilationPriority priority, String tenant, int sources) {
+    return acquire(priority, tenant, sources, Long.MAX_VALUE);
+  }
+
+  /**
+   * Wait for a compile slot in the lane of the given priority, as the given tenant, for at most
+   * the given time or the maximum queue wait if that is shorter.
+   *
+   * @param priority    The priority of the compilation
+   * @param tenant      The tenant compiling, null outside of a namespace
+   * @param sources     The number of sources compiled, the cost charged to the tenant
+   * @param maxWaitNanos The maximum time to wait, e.g. the time left until the compilation
+   *                    times out
+   * @return the permit which has to be closed once the compilation is done
+   * @throws CompilationRejectedException If the lane is full or the maximum wait has elapsed
+   */
+  Permit acquire(CompilationPriority priority, String tenant, int sources, long maxWaitNanos) {
+    long queuedAt = System.nanoTime();
+    long deadline = queuedAt + Math.min(maxQueueWaitNanos, maxWaitNanos);
+    Lane lane = lanes.get(priority);
+    Permit permit;
+    long queueWaitNanos;
+    lock.lock();
+    try {
+      Share share = getShare(tenant);
+      if (running < maxConcurrentCompilations && share.hasCapacity()
+              && !hasWaitingCompilations(priority)) {
+        grant(share, sources);
+        queueWaitNanos = 0;
+      } else {
+        awaitQueueSpace(priority, lane, share, deadline);
+        Ticket ticket = new Ticket(lock.newCondition(), share, sources);
+        lane.queue.addLast(ticket);
+        share.queued++;
+        dispatch();
+        awaitTurn(priority, lane, ticket, deadline);
+        queueWaitNanos = System.nanoTime() - queuedAt;
+      }
+      permit = admit(lane, share, queueWaitNanos);
+    } finally {
+      lock.unlock();
+    }
+    // the listener is user code, it runs without the lock so it can't stall the scheduler
+    if (queueWaitListener != null) {
+      try {
+        queueWaitListener.accept(priority, queueWaitNanos);
+      } catch (RuntimeException | Error e) {
+        permit.close();
+        throw e;
+      }
+    }
+    return permit;
+  }
+
+  /**
+   * Register the weight and the concurrent compilation limit of a tenant, replacing earlier
+   * values.
+   *
+   * @param tenant                    The tenant
+   * @param weight                    The relative share of the compile slots
+   * @param maxConcurrentCompilations The maximum number of compile slots held by the tenant
+   */
+  void register(String tenant, int weight, int maxConcurrentCompilations) {
+    lock.lock();
+    try {
+      Share share = getShare(Objects.requireNonNull(tenant));
+      share.weight = weight;
+      share.maxConcurrentCompilations = maxConcurrentCompilations;
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void unregister(String tenant) {
+    lock.lock();
+    try {
+      tenants.remove(tenant);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getMaxConcurrentCompilations() {
+    return maxConcurrentCompilations;
+  }
+
+  /**
+   * The number of compilations currently holding a compile slot.
+   *
+   * @return the number of running compilations
+   */
+  public int getRunning() {
+    lock.lock();
+    try {
+      return running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A snapshot of the statistics of the given lane, including the time compilations waited
+   * in its queue.
+   *
+   * @param priority The lane
+   * @return the statistics of the lane
+   */
+  public LaneStatistics getStatistics(CompilationPriority priority) {
+    lock.lock();
+    try {
+      Lane lane = lanes.get(priority);
+      return new LaneStatistics(priority, lane.queue.size(), lane.admitted, lane.rejected,
+              lane.totalQueueWaitNanos, lane.maxQueueWaitNanos);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A snapshot of the scheduling of the given tenant.
+   *
+   * @param tenant The tenant
+   * @return the usage, null if the tenant never compiled and is not registered
+   */
+  TenantUsage getUsage(String tenant) {
+    lock.lock();
+    try {
+      Share share = tenants.get(tenant);
+      return share == null ? null : new TenantUsage(share.queued, share.running,
+              share.admitted, share.rejected, share.totalQueueWaitNanos,
+              share.maxQueueWaitNanos);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Share getShare(String tenant) {
+    return tenant == null ? untenanted
+            : tenants.computeIfAbsent(tenant, key -> new Share(1, Integer.MAX_VALUE));
+  }
+
+  private boolean hasWaitingCompilations(CompilationPriority priority) {
+    for (CompilationPriority lanePriority : CompilationPriority.values()) {
+      if (lanePriority.ordinal() <= priority.ordinal()
+              && nextTicket(lanes.get(lanePriority)) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * The waiting compilation of the tenant with the lowest virtual start time, the oldest of
+   * the tenant if it has several waiting. Tenants at their limit are skipped.
+   */
+  private Ticket nextTicket(Lane lane) {
+    Ticket next = null;
+    double nextStart = 0;
+    for (Ticket ticket : lane.queue) {
+      if (ticket.share.hasCapacity()) {
+        double start = Math.max(virtualTime, ticket.share.virtualTime);
+        if (next == null || start < nextStart) {
+          next = ticket;
+          nextStart = start;
+        }
+      }
+    }
+    return next;
+  }
+
+  private void dispatch() {
+    while (running < maxConcurrentCompilations) {
+      Ticket next = null;
+      for (CompilationPriority priority : CompilationPriority.values()) {
+        Lane lane = lanes.get(priority);
+        next = nextTicket(lane);
+        if (next != null) {
+          lane.queue.remove(next);
+          break;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      next.share.queued--;
+      grant(next.share, next.sources);
+      next.admitted = true;
+      next.turn.signal();
+      queueSpaceAvailable.signalAll();
+    }
+  }
+
+  private void grant(Share share, int sources) {
+    running++;
+    share.running++;
+    virtualTime = Math.max(virtualTime, share.virtualTime);
+    share.virtualTime = virtualTime + (double) sources / share.weight;
+  }
+
+  private void awaitQueueSpace(CompilationPriority priority, Lane lane, Share share,
+                               long deadline) {
+    int maxQueueDepth = maxQueueDepths.getOrDefault(priority, Integer.MAX_VALUE);
+    while (lane.queue.size() >= maxQueueDepth) {
+      if (rejectionPolicy == RejectionPolicy.REJECT) {
+        throw reject(lane, share, "Queue of " + priority + " compilations is full, "
+                + maxQueueDepth + " compilations are waiting");
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw reject(lane, share, "Timed out waiting for room in the queue of " + priority
+                + " compilations");
+      }
+      awaitNanos(queueSpaceAvailable, remaining, lane, share);
+    }
+  }
+
+  private void awaitTurn(CompilationPriority priority, Lane lane, Ticket ticket, long deadline) {
+    try {
+      while (!ticket.admitted) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw reject(lane, ticket.share, "Timed out after "
+                  + TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos)
+                  + " ms waiting for a compile slot for a " + priority + " compilation");
+        }
+        awaitNanos(ticket.turn, remaining, lane, ticket.share);
+      }
+    } catch (CompilationRejectedException e) {
+      if (ticket.admitted) {
+        // the slot was handed over while giving up, pass it on
+        release(ticket.share);
+      } else {
+        lane.queue.remove(ticket);
+        ticket.share.queued--;
+        queueSpaceAvailable.signalAll();
+      }
+      throw e;
+    }
+  }
+
+  private void awaitNanos(Condition condition, long nanos, Lane lane, Share share) {
+    try {
+      condition.awaitNanos(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      lane.rejected++;
+      share.rejected++;
+      throw new CompilationRejectedException("Interrupted while waiting for a compile slot", e);
+    }
+  }
+
+  private CompilationRejectedException reject(Lane lane, Share share, String message) {
+    lane.rejected++;
+    share.rejected++;
+    return new CompilationRejectedException(message);
+  }
+
+  private Permit admit(Lane lane, Share share, long queueWaitNanos) {
+    lane.admitted++;
+    lane.totalQueueWaitNanos += queueWaitNanos;
+    lane.maxQueueWaitNanos = Math.max(lane.maxQueueWaitNanos, queueWaitNanos);
+    share.admitted++;
+    share.totalQueueWaitNanos += queueWaitNanos;
+    share.maxQueueWaitNanos = Math.max(share.maxQueueWaitNanos, queueWaitNanos);
+    return new Permit(share);
+  }
+
+  private void release(Share share) {
+    lock.lock();
+    try {
+      running--;
+      share.running--;
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A compile slot, closing it hands the slot over to the next waiting compilation.
+   */
+  final class Permit implements AutoCloseable {
+    private final Share share;
+    private boolean released;
+
+    private Permit(Share share) {
+      this.share = share;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release(share);
+      }
+    }
+  }
+
+  /**
+   * The scheduling counters of one tenant.
+   */
+  static final class TenantUsage {
+    final int queued;
+    final int running;
+    final long admitted;
+    final long rejected;
+    final long totalQueueWaitNanos;
+    final long maxQueueWaitNanos;
+
+    private TenantUsage(int queued, int running, long admitted, long rejected,
+                        long totalQueueWaitNanos, long maxQueueWaitNanos) {
+      this.queued = queued;
+      this.running = running;
+      this.admitted = admitted;
+      this.rejected = rejected;
+      this.totalQueueWaitNanos = totalQueueWaitNanos;
+      this.maxQueueWaitNanos = maxQueueWaitNanos;
+    }
+  }
+
+  private static final class Ticket {
+    private final Condition turn;
+    private final Share share;
+    private final int sources;
+    private boolean admitted;
+
+    private Ticket(Condition turn, Share share, int sources) {
+      this.turn = turn;
+      this.share = share;
+      this.sources = sources;
+    }
+  }
+
+  private static final class Share {
+    private int weight;
+    private int maxConcurrentCompilations;
+    private double virtualTime;
+    private int running;
+    private int queued;
+    private long admitted;
+    private long rejected;
+    private long totalQueueWaitNanos;
+    private long maxQueueWaitNanos;
+
+    private Share(int weight, int maxConcurrentCompilations) {
+      this.weight = weight;
+      this.maxConcurrentCompilations = maxConcurrentCompilations;
+    }
+
+    private boolean hasCapacity() {
+      return running < maxConcurrentCompilations;
+    }
+  }
+
+  private static final class Lane {
+    private final Deque<Ticket> queue = new ArrayDeque<>();
+    private long admitted;
+    private long rejected;
+    private long totalQueueWaitNanos;
+    private long maxQueueWaitNanos;
+  }
+
+  public static class Builder {
+    private int maxConcurrentCompilations = Runtime.getRuntime().availableProcessors();
+    private final Map<CompilationPriority, Integer> maxQueueDepths =
+            new EnumMap<>(CompilationPriority.class);
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.WAIT;
+    private Duration maxQueueWait = Duration.ofDays(1);
+    private ObjLongConsumer<CompilationPriority> queueWaitListener;
+
+    private Builder() {
+
+    }
+
+    /**
+     * The number of compilations running at the same time, defaults to the number of available
+     * processors.
+     *
+     * @param maxConcurrentCompilations the maximum number of concurrent compilations
+     * @return the builder
+     */
+    public Builder withMaxConcurrentCompilations(int maxConcurrentCompilations) {
+      requirePositive(maxConcurrentCompilations, "maxConcurrentCompilations");
+      this.maxConcurrentCompilations = maxConcurrentCompilations;
+      return this;
+    }
+
+    /**
+     * The number of compilations which may wait in the queue of a lane, unbounded by default.
+     *
+     * @param priority      The lane
+     * @param maxQueueDepth The maximum number of waiting compilations
+     * @return the builder
+     */
+    public Builder withMaxQueueDepth(CompilationPriority priority, int maxQueueDepth) {
+      if (maxQueueDepth < 0) {
+        throw new IllegalArgumentException("maxQueueDepth cannot be negative but got ["
+                + maxQueueDepth + "]");
+      }
+      this.maxQueueDepths.put(Objects.requireNonNull(priority), maxQueueDepth);
+      return this;
+    }
+
+    public Builder withRejectionPolicy(RejectionPolicy rejectionPolicy) {
+      this.rejectionPolicy = Objects.requireNonNull(rejectionPolicy);
+      return this;
+    }
+
+    /**
+     * The maximum time a compilation waits for room in the queue and for a compile slot
+     * before it is rejected.
+     *
+     * @param maxQueueWait the maximum wait
+     * @return the builder
+     */
+    public Builder withMaxQueueWait(Duration maxQueueWait) {
+      this.maxQueueWait = Objects.requireNonNull(maxQueueWait);
+      return this;
+    }
+
+    /**
+     * Listener receiving the time every admitted compilation waited in the queue, in
+     * nanoseconds, e.g. to record it in a metrics registry. It is called by the compiling
+     * thread once the slot is granted, outside of the lock of the scheduler.
+     *
+     * @param queueWaitListener the listener
+     * @return the builder
+     */
+    public Builder withQueueWaitListener(ObjLongConsumer<CompilationPriority> queueWaitListener) {
+      this.queueWaitListener = Objects.requireNonNull(queueWaitListener);
+      return this;
+    }
+
+    public CompileScheduler build() {
+      return new CompileScheduler(this);
+    }
+
+    private static void requirePositive(int value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " has to be positive but got [" + value + "]");
+      }
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The secret a compile server and its clients authenticate each other with. The server writes a
+ * random secret to a file only its owner can read, clients of the same user read it from there.
+ * Before the first request both sides prove that they know the secret, with an HMAC over random
+ * nonces of both sides, so the secret itself never goes over the connection.
+ *
+ * <p>A client defines the bytecode the server returns, the secret keeps a process of another
+ * user which binds the port while the server is down from running code in the client JVMs, and
+ * keeps other users from compiling on the server.
+ */
+public final class CompileServerSecret {
+
+  private static final int MAGIC = 0x42524353;
+  private static final int LENGTH = 32;
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final Path file;
+  private final byte[] secret;
+
+  private CompileServerSecret(Path file, byte[] secret) {
+    this.file = file;
+    this.secret = secret;
+  }
+
+  /**
+   * The secret file of the server listening on the port,
+   * {@code ~/.byte-reactor/compile-server-<port>.secret}.
+   *
+   * @param port The port of the server
+   * @return the path of the secret file
+   */
+  public static Path defaultFile(int port) {
+    return Paths.get(System.getProperty("user.home"), ".byte-reactor",
+            "compile-server-" + port + ".secret");
+  }
+
+  /**
+   * Create a random secret and write it to the file, readable and writable by the owner only.
+   * An existing file is replaced.
+   *
+   * @param file The secret file
+   * @return the secret
+   * @throws IOException If the file cannot be written
+   */
+  public static CompileServerSecret create(Path file) throws IOException {
+    byte[] secret = new byte[LENGTH];
+    RANDOM.nextBytes(secret);
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = directory.resolve(file.getFileName() + "." + System.nanoTime() + ".tmp");
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Files.createFile(temporary,
+              PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } else {
+      Files.createFile(temporary);
+    }
+    try {
+      Files.write(temporary, secret);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return new CompileServerSecret(file, secret);
+  }
+
+  /**
+   * Read the secret a server wrote.
+   *
+   * @param file The secret file
+   * @return the secret
+   * @throws IOException If the file cannot be read or holds no secret
+   */
+  public static CompileServerSecret read(Path file) throws IOException {
+    byte[] secret = Files.readAllBytes(file);
+    if (secret.length != LENGTH) {
+      throw new IOException("Not a compile server secret: " + file);
+    }
+    return new CompileServerSecret(file, secret);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Delete the secret file, unless another server replaced it with its own secret.
+   *
+   * @throws IOException If the file cannot be deleted
+   */
+  public void delete() throws IOException {
+    try {
+      if (Arrays.equals(Files.readAllBytes(file), secret)) {
+        Files.deleteIfExists(file);
+      }
+    } catch (NoSuchFileException e) {
+      // deleted already
+    }
+  }
+
+  /**
+   * The server side of the handshake.
+   *
+   * @return true if the client knows the secret
+   * @throws IOException If the connection breaks
+   */
+  boolean accept(DataInputStream in, DataOutputStream out) throws IOException {
+    if (in.readInt() != MAGIC) {
+      return false;
+    }
+    byte[] clientNonce = new byte[LENGTH];
+    in.readFully(clientNonce);
+    byte[] serverNonce = nonce();
+    out.write(serverNonce);
+    out.write(mac("server", clientNonce, serverNonce));
+    out.flush();
+    byte[] clientMac = new byte[LENGTH];
+    in.readFully(clientMac);
+    boolean authenticated = MessageDigest.isEqual(clientMac,
+            mac("client", clientNonce, serverNonce));
+    out.writeBoolean(authenticated);
+    out.flush();
+    return authenticated;
+  }
+
+  /**
+   * The client side of the handshake.
+   *
+   * @throws IOException If the connection breaks, or if either side doesn't know the secret
+   */
+  void authenticate(DataInputStream in, DataOutputStream out) throws IOException {
+    byte[] clientNonce = nonce();
+    out.writeInt(MAGIC);
+    out.write(clientNonce);
+    out.flush();
+    byte[] serverNonce = new byte[LENGTH];
+    in.readFully(serverNonce);
+    byte[] serverMac = new byte[LENGTH];
+    in.readFully(serverMac);
+    if (!MessageDigest.isEqual(serverMac, mac("server", clientNonce, serverNonce))) {
+      throw new IOException("The server doesn't know the secret of " + file);
+    }
+    out.write(mac("client", clientNonce, serverNonce));
+    out.flush();
+    if (!in.readBoolean()) {
+      throw new IOException("The server rejected the secret of " + file);
+    }
+  }
+
+  private static byte[] nonce() {
+    byte[] nonce = new byte[LENGTH];
+    RANDOM.nextBytes(nonce);
+    return nonce;
+  }
+
+  private byte[] mac(String role, byte[] clientNonce, byte[] serverNonce) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(new SecretKeySpec(secret, ALGORITHM));
+      mac.update(role.getBytes(StandardCharsets.US_ASCII));
+      mac.update(clientNonce);
+      mac.update(serverNonce);
+      return mac.doFinal();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(ALGORITHM + " is required by every Java platform", e);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serves the compilations of a ByteReactor to other JVMs, which compile through a
+ * {@link RemoteCompilerBackend}. Requests and responses are those of the compiler workers, see
+ * {@link CompilerWorkerPool}, so a client loads the returned bytecode exactly like bytecode
+ * compiled by a worker.
+ *
+ * <p>Every compilation goes through the caches, the precompiled artifact and the scheduler of
+ * the ByteReactor, with a bytecode cache the clients share the compiled bytecode. Identical
+ * requests arriving while the first one compiles wait for it instead of compiling again.
+ * Bytecode transformers are applied by the clients, the ByteReactor of the service cannot have
+ * any.
+ *
+ * <p>A request is compiled within the time the client has left, bounded by the compile timeout
+ * of the ByteReactor. Timeouts and failures of the service, for example a rejection by the
+ * scheduler, are reported apart from javac errors, a client falls back to compiling locally
+ * instead of caching them as a property of the sources.
+ *
+ * <p>Clients have to prove that they know the {@link CompileServerSecret} of the service before
+ * their first request, and the service proves it to them, connections which don't are closed
+ * without compiling anything.
+ */
+public final class CompileService {
+
+  public static final int DEFAULT_PORT = 7419;
+
+  private final ByteReactor byteReactor;
+  private final CompileServerSecret secret;
+  private final List<String> processorClassNames;
+  private final ConcurrentMap<String, CompletableFuture<WorkerProtocol.Response>> compiling =
+          new ConcurrentHashMap<>();
+
+  /**
+   * Serve the compilations of the ByteReactor, the sources are compiled with its options and
+   * processors against its class path.
+   *
+   * @param byteReactor The ByteReactor compiling the requests
+   * @param secret      The secret clients authenticate with
+   * @throws IllegalArgumentException If the ByteReactor has bytecode transformers
+   */
+  public CompileService(ByteReactor byteReactor, CompileServerSecret secret) {
+    this.byteReactor = Objects.requireNonNull(byteReactor);
+    this.secret = Objects.requireNonNull(secret);
+    if (byteReactor.hasBytecodeTransformers()) {
+      throw new IllegalArgumentException("Bytecode transformers are applied by the clients, "
+              + "a ByteReactor serving compilations cannot have any");
+    }
+    List<String> names = new ArrayList<>();
+    byteReactor.getProcessors().forEach(processor -> names.add(processor.getClass().getName()));
+    this.processorClassNames = sorted(names);
+  }
+
+  /**
+   * Serve the requests of one client until it disconnects or asks to stop, nothing is served if
+   * the client doesn't know the secret.
+   *
+   * @param in  The requests of the client
+   * @param out The stream the responses are written to
+   * @throws IOException If the streams cannot be read or written
+   */
+  public void serve(InputStream in, OutputStream out) throws IOException {
+    DataInputStream requests = new DataInputStream(new BufferedInputStream(in));
+    DataOutputStream responses = new DataOutputStream(new BufferedOutputStream(out));
+    if (!secret.accept(requests, responses)) {
+      return;
+    }
+    WorkerProtocol.Request request = WorkerProtocol.readRequest(requests);
+    while (request != null) {
+      WorkerProtocol.writeResponse(responses, compile(request));
+      request = WorkerProtocol.readRequest(requests);
+    }
+  }
+
+  WorkerProtocol.Response compile(WorkerProtocol.Request request) {
+    if (!request.getOptions().equals(byteReactor.getCompilerOptions())
+            || !sorted(request.getProcessorClassNames()).equals(processorClassNames)) {
+      return unavailable("The client compiles with options " + request.getOptions()
+              + " and processors " + request.getProcessorClassNames() + " but the server with "
+              + byteReactor.getCompilerOptions() + " and " + processorClassNames);
+    }
+    Duration timeout = timeout(request);
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
+    request.getSources().forEach(source -> {
+      CompilationUnit compilationUnit =
+              new CompilationUnit(source.getCode(), source.getClassName(), null);
+      if (timeout != null) {
+        compilationUnit.setTimeout(timeout);
+      }
+      compilationUnits.add(compilationUnit);
+    });
+    String fingerprint = byteReactor.fingerprint(compilationUnits);
+    CompletableFuture<WorkerProtocol.Response> response = new CompletableFuture<>();
+    CompletableFuture<WorkerProtocol.Response> running =
+            compiling.putIfAbsent(fingerprint, response);
+    if (running != null) {
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        return unavailable("Compile server failed: " + e.getCause());
+      }
+    }
+    try {
+      response.complete(compile(compilationUnits));
+    } catch (Throwable e) {
+      response.completeExceptionally(e);
+      throw e;
+    } finally {
+      compiling.remove(fingerprint, response);
+    }
+    return response.join();
+  }
+
+  private WorkerProtocol.Response compile(List<CompilationUnit> compilationUnits) {
+    try {
+      byteReactor.precompile(compilationUnits);
+      List<Map<String, byte[]>> compiledClasses = new ArrayList<>();
+      for (CompilationUnit compilationUnit : compilationUnits) {
+        Map<String, byte[]> unitClasses = new LinkedHashMap<>();
+        compilationUnit.getCompiledClasses().forEach((className, compiledCode) ->
+                unitClasses.put(className, compiledCode.getByteCode()));
+        compiledClasses.add(unitClasses);
+      }
+      return WorkerProtocol.Response.success(Collections.emptyList(), compiledClasses);
+    } catch (CompilationTimeoutException e) {
+      return WorkerProtocol.Response.failure(WorkerProtocol.Status.TIMED_OUT, e.getMessage(),
+              Collections.emptyList());
+    } catch (CompilationFailedException e) {
+      List<WorkerProtocol.DiagnosticEntry> diagnostics = new ArrayList<>();
+      for (CompilationDiagnostic diagnostic : e.getDiagnostics()) {
+        diagnostics.add(new WorkerProtocol.DiagnosticEntry(diagnostic.getKind(),
+                indexOf(diagnostic.getClassName(), compilationUnits),
+                diagnostic.getLineNumber(), diagnostic.getColumnNumber(),
+                diagnostic.getMessage(), diagnostic.toString()));
+      }
+      if (!e.hasErrors()) {
+        // interrupted or broken without javac errors, nothing the sources can be blamed for
+        return WorkerProtocol.Response.failure(WorkerProtocol.Status.UNAVAILABLE,
+                "Compile server failed: " + e.getMessage(), diagnostics);
+      }
+      return WorkerProtocol.Response.failure(diagnostics);
+    } catch (RuntimeException e) {
+      return unavailable("Compile server failed: " + e);
+    } finally {
+      compilationUnits.forEach(CompilationUnit::close);
+    }
+  }
+
+  private static int indexOf(String className, List<CompilationUnit> compilationUnits) {
+    for (int i = 0; i < compilationUnits.size(); i++) {
+      if (compilationUnits.get(i).getClassName().equals(className)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The timeout of the units of a request, the time the client has left or the compile timeout
+   * of the ByteReactor, whichever is smaller.
+   *
+   * @param request The request
+   * @return the timeout, null if the compilation is unbounded
+   */
+  private Duration timeout(WorkerProtocol.Request request) {
+    Duration timeout = byteReactor.getCompileTimeout();
+    if (request.getTimeoutNanos() > 0) {
+      Duration remaining = Duration.ofNanos(request.getTimeoutNanos());
+      if (timeout == null || remaining.compareTo(timeout) < 0) {
+        timeout = remaining;
+      }
+    }
+    return timeout;
+  }
+
+  private static WorkerProtocol.Response unavailable(String message) {
+    return WorkerProtocol.Response.failure(WorkerProtocol.Status.UNAVAILABLE, message,
+            Collections.emptyList());
+  }
+
+  private static List<String> sorted(List<String> names) {
+    List<String> sortedNames = new ArrayList<>(names);
+    Collections.sort(sortedNames);
+    return sortedNames;
+  }
+}
@@ -9,12 +9,47 @@ import javax.tools.SimpleJavaFileObject;
 
 public class CompiledCode extends SimpleJavaFileObject {
 
-  private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream outputStream;
+  private final BytecodeStore store;
 
   private byte[] byteCode = null;
+  private BytecodeStore.Slot slot;
 
   public CompiledCode(String className) throws URISyntaxException {
+    this(className, null);
+  }
+
+  /**
+   * Create the compiled code of a class whose bytecode is moved to the store as soon as javac
+   * closes the output stream.
+   *
+   * @param className The binary name of the class
+   * @param store     The store, null to keep the bytecode on the heap
+   * @throws URISyntaxException If the class name is not a valid URI
+   */
+  CompiledCode(String className, BytecodeStore store) throws URISyntaxException {
     super(new URI(className), Kind.CLASS);
+    this.store = store;
+    this.outputStream = store == null ? new ByteArrayOutputStream() : new StoringOutputStream();
+  }
+
+  /**
+   * Create the compiled code of a class from bytecode compiled earlier.
+   *
+   * @param className The binary name of the class
+   * @param byteCode  The bytecode of the class
+   * @param store     The store, null to keep the bytecode on the heap
+   * @return the compiled code
+   * @throws CompilationFailedException If the class name is not a valid URI
+   */
+  static CompiledCode of(String className, byte[] byteCode, BytecodeStore store) {
+    try {
+      CompiledCode compiledCode = new CompiledCode(className, store);
+      compiledCode.setByteCode(byteCode);
+      return compiledCode;
+    } catch (URISyntaxException e) {
+      throw new CompilationFailedException("Unable to create compiled code of " + className, e);
+    }
   }
 
   @Override
@@ -23,17 +58,34 @@ public class CompiledCode extends SimpleJavaFileObject {
   }
 
   /**
-   * Get the compiled bytecode of the class.
+   * Get the compiled bytecode of the class. Bytecode kept in a {@link BytecodeStore} is copied
+   * to a new array on every call.
    *
    * @return a byte array of the compiled class
    */
   public byte[] getByteCode() {
+    if (slot != null) {
+      return store.read(slot);
+    }
     if (byteCode == null) {
       byteCode = outputStream.toByteArray();
     }
     return byteCode;
   }
 
+  int size() {
+    return slot != null ? slot.size() : getByteCode().length;
+  }
+
+  void setByteCode(byte[] byteCode) {
+    if (store == null) {
+      this.byteCode = byteCode;
+      return;
+    }
+    releaseSlot();
+    slot = store.store(byteCode);
+  }
+
   private void closeOutputStream() {
     try {
       // closing byte output stream has no effect
@@ -43,10 +95,32 @@ public class CompiledCode extends SimpleJavaFileObject {
     }
   }
 
+  private synchronized void releaseSlot() {
+    if (slot != null) {
+      store.release(slot);
+      slot = null;
+    }
+  }
+
+  /**
+   * Drop the bytecode, releasing it from the store if it is kept in one.
+   */
   public void close() {
     byteCode = null;
-    closeOutputStream();
+    releaseSlot();
+    if (store == null) {
+      closeOutputStream();
+    }
   }
-}
-
 
+  private final class StoringOutputStream extends ByteArrayOutputStream {
+    @Override
+    public void close() {
+      if (count > 0) {
+        setByteCode(toByteArray());
+        reset();
+        buf = new byte[0];
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.List;
+
+/**
+ * Compiles sources to bytecode for a {@link ByteReactor}. The ByteReactor caches, schedules,
+ * transforms and defines the compiled classes the same way whichever backend compiled them,
+ * the backend only turns the sources into bytecode.
+ *
+ * <p>{@link JavaCompilerBackend} compiles with javac or any other {@code javax.tools} compiler
+ * and is the default, {@link CompilerWorkerPool} compiles in forked JVMs. A backend can be
+ * shared by several ByteReactors and has to be thread safe.
+ */
+public interface CompilerBackend {
+
+  /**
+   * Compile the units together and attach the bytecode of every class to the unit it was
+   * compiled from with {@link CompilerContext#addCompiledClass}. Diagnostics are reported to
+   * {@link CompilerContext#getDiagnosticListener()}.
+   *
+   * @param compilationUnits The units compiled together
+   * @param context          The options, processors, class path and deadline of the compilation
+   * @throws CompilationFailedException  If the units don't compile, carrying
+   *                                     {@link CompilerContext#getDiagnostics()}
+   * @throws CompilationTimeoutException If the deadline of the context passes
+   */
+  void compile(List<CompilationUnit> compilationUnits, CompilerContext context);
+
+  /**
+   * Whether the backend compiles in this JVM. Compilations against classes which only exist as
+   * bytecode in this JVM, like the live generation of a {@link HotReloader}, fall back to javac
+   * for backends which don't.
+   *
+   * @return whether the backend compiles in process
+   */
+  default boolean isInProcess() {
+    return true;
+  }
+}
@@ -0,0 +1,115 @@
+package com.rubenmathews.bytereactor;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Processor;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+/**
+ * Everything a {@link CompilerBackend} needs for one compilation besides the sources.
+ */
+public final class CompilerContext {
+
+  private final List<String> options;
+  private final Set<? extends Processor> processors;
+  private final DiagnosticRecorder diagnosticRecorder;
+  private final List<Path> classPath;
+  private final Map<String, byte[]> classPathClasses;
+  private final BytecodeStore bytecodeStore;
+  private final CompilationDeadline deadline;
+
+  CompilerContext(List<String> options, Set<? extends Processor> processors,
+                  DiagnosticListener<? super JavaFileObject> diagnosticListener,
+                  List<Path> classPath, Map<String, byte[]> classPathClasses,
+                  BytecodeStore bytecodeStore, CompilationDeadline deadline) {
+    this.options = options;
+    this.processors = processors;
+    this.diagnosticRecorder = new DiagnosticRecorder(diagnosticListener);
+    this.classPath = classPath;
+    this.classPathClasses = classPathClasses;
+    this.bytecodeStore = bytecodeStore;
+    this.deadline = deadline;
+  }
+
+  /**
+   * The compiler options, in javac syntax.
+   *
+   * @return the options
+   */
+  public List<String> getOptions() {
+    return options;
+  }
+
+  public Set<? extends Processor> getProcessors() {
+    return processors;
+  }
+
+  /**
+   * The listener the diagnostics of the compilation are reported to. It keeps them for
+   * {@link #getDiagnostics()} and forwards them to the listener of the ByteReactor.
+   *
+   * @return the diagnostic listener
+   */
+  public DiagnosticListener<JavaFileObject> getDiagnosticListener() {
+    return diagnosticRecorder;
+  }
+
+  public List<CompilationDiagnostic> getDiagnostics() {
+    return diagnosticRecorder.getDiagnostics();
+  }
+
+  /**
+   * The class path to compile against, configured with
+   * {@link ByteReactorBuilder#withCompilerClassPath}.
+   *
+   * @return the class path, null for the class path of the JVM
+   */
+  public List<Path> getClassPath() {
+    return classPath;
+  }
+
+  /**
+   * Classes which only exist as bytecode and are available to the compilation in addition to
+   * the class path. Only passed to backends compiling in process.
+   *
+   * @return the bytecode by binary class name, usually empty
+   */
+  public Map<String, byte[]> getClassPathClasses() {
+    return classPathClasses;
+  }
+
+  /**
+   * Attach the bytecode of a compiled class to the unit it was compiled from.
+   *
+   * @param compilationUnit The unit declaring the class
+   * @param className       The binary name of the class
+   * @param bytecode        The class file, owned by the unit afterwards
+   */
+  public void addCompiledClass(CompilationUnit compilationUnit, String className,
+                               byte[] bytecode) {
+    compilationUnit.addCompiledCode(className, CompiledCode.of(className, bytecode,
+            bytecodeStore));
+  }
+
+  /**
+   * Stop the compilation if its deadline has passed, backends call it between steps of long
+   * running compilations.
+   *
+   * @throws CompilationTimeoutException If the deadline has passed
+   * @throws CompilationFailedException  If the compiling thread was interrupted
+   */
+  public void checkpoint() {
+    deadline.checkpoint();
+  }
+
+  BytecodeStore getBytecodeStore() {
+    return bytecodeStore;
+  }
+
+  CompilationDeadline getDeadline() {
+    return deadline;
+  }
+}
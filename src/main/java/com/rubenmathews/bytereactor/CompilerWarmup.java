@@ -0,0 +1,87 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the warm-up compilations on a background daemon thread. The warm-up uses its own file
+ * manager, javac's file managers are not meant to be shared between concurrent tasks.
+ */
+final class CompilerWarmup implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompilerWarmup.class);
+  private static final int STABLE_ITERATIONS = 5;
+  private static final double IMPROVEMENT_THRESHOLD = 0.95;
+
+  private final JavaCompiler javaCompiler;
+  private final List<String> options;
+  private final Warmup warmup;
+  private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+  private CompilerWarmup(JavaCompiler javaCompiler, List<String> options, Warmup warmup) {
+    this.javaCompiler = javaCompiler;
+    this.options = options;
+    this.warmup = warmup;
+  }
+
+  static CompletableFuture<Void> start(JavaCompiler javaCompiler, List<String> options,
+                                       Warmup warmup) {
+    CompilerWarmup compilerWarmup = new CompilerWarmup(javaCompiler, options, warmup);
+    Thread thread = new Thread(compilerWarmup, "byte-reactor-warmup");
+    thread.setDaemon(true);
+    thread.start();
+    return compilerWarmup.result;
+  }
+
+  @Override
+  public void run() {
+    try (StandardJavaFileManager standardJavaFileManager = javaCompiler
+            .getStandardFileManager(null, null, null)) {
+      ByteReactorFileManager fileManager = new ByteReactorFileManager(standardJavaFileManager);
+      long start = System.nanoTime();
+      int iterations = warmUp(fileManager, start + warmup.getMaxDuration().toNanos());
+      LOGGER.info("Compiler warm-up finished after {} iterations in {} ms", iterations,
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      result.complete(null);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Compiler warm-up failed", e);
+      result.completeExceptionally(e);
+    }
+  }
+
+  private int warmUp(ByteReactorFileManager fileManager, long deadline) {
+    GenericDiagnosticListener diagnosticListener =
+            new GenericDiagnosticListener(DiagnosticReportLevel.ERROR);
+    long bestIteration = Long.MAX_VALUE;
+    int stableIterations = 0;
+    int iteration = 0;
+    while (!result.isDone() && iteration < warmup.getMaxIterations()
+            && System.nanoTime() < deadline
+            && (iteration < warmup.getMinIterations() || stableIterations < STABLE_ITERATIONS)) {
+      long start = System.nanoTime();
+      List<CompilationUnit> compilationUnits = warmup.createCompilationUnits();
+      try {
+        Boolean compiled = javaCompiler.getTask(null, fileManager, diagnosticListener, options,
+                null, compilationUnits).call();
+        if (!Boolean.TRUE.equals(compiled)) {
+          throw new CompilationFailedException("Warm-up source failed to compile, "
+                  + "check Diagnostic Logs");
+        }
+      } finally {
+        compilationUnits.forEach(CompilationUnit::close);
+      }
+      long elapsed = System.nanoTime() - start;
+      stableIterations = elapsed < bestIteration * IMPROVEMENT_THRESHOLD ? 0
+              : stableIterations + 1;
+      bestIteration = Math.min(bestIteration, elapsed);
+      iteration++;
+    }
+    return iteration;
+  }
+}
@@ -0,0 +1,116 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Entry point of a forked compiler worker JVM started by {@link CompilerWorkerPool}.
+ * The worker reads compilation requests from its standard input and writes the compiled
+ * bytecode to its standard output until it is asked to exit or the input is closed.
+ * Anything the compiler or the processors print to standard output goes to standard error,
+ * so it cannot corrupt the protocol.
+ */
+public final class CompilerWorker {
+
+  private final JavaCompiler javaCompiler;
+  private final ByteReactorFileManager fileManager;
+
+  private CompilerWorker(JavaCompiler javaCompiler,
+                         StandardJavaFileManager standardJavaFileManager) {
+    this.javaCompiler = javaCompiler;
+    this.fileManager = new ByteReactorFileManager(standardJavaFileManager);
+  }
+
+  /**
+   * Serve compilation requests over the standard streams.
+   *
+   * @param args unused
+   * @throws IOException If the standard streams cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    PrintStream protocolOutput = System.out;
+    System.setOut(System.err);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(protocolOutput));
+    JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager standardJavaFileManager = javaCompiler
+            .getStandardFileManager(null, null, null)) {
+      new CompilerWorker(javaCompiler, standardJavaFileManager).serve(in, out);
+    }
+  }
+
+  private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+    WorkerProtocol.Request request = WorkerProtocol.readRequest(in);
+    while (request != null) {
+      WorkerProtocol.writeResponse(out, compile(request));
+      request = WorkerProtocol.readRequest(in);
+    }
+  }
+
+  private WorkerProtocol.Response compile(WorkerProtocol.Request request) {
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
+    request.getSources().forEach(source -> compilationUnits.add(
+            new CompilationUnit(source.getCode(), source.getClassName(), null)));
+    List<WorkerProtocol.DiagnosticEntry> diagnostics = new ArrayList<>();
+    try {
+      DiagnosticListener<JavaFileObject> diagnosticListener = diagnostic ->
+              diagnostics.add(toEntry(diagnostic, compilationUnits));
+      JavaCompiler.CompilationTask compilationTask = javaCompiler.getTask(null, fileManager,
+              diagnosticListener, request.getOptions(), null, compilationUnits);
+      compilationTask.setProcessors(instantiateProcessors(request.getProcessorClassNames()));
+      if (!Boolean.TRUE.equals(compilationTask.call())) {
+        return WorkerProtocol.Response.failure(diagnostics);
+      }
+      List<Map<String, byte[]>> compiledClasses = new ArrayList<>();
+      for (CompilationUnit compilationUnit : compilationUnits) {
+        Map<String, byte[]> unitClasses = new LinkedHashMap<>();
+        compilationUnit.getCompiledClasses().forEach((className, compiledCode) ->
+                unitClasses.put(className, compiledCode.getByteCode()));
+        compiledClasses.add(unitClasses);
+      }
+      return WorkerProtocol.Response.success(diagnostics, compiledClasses);
+    } catch (RuntimeException e) {
+      // not a javac error, the client must not blame the sources for it
+      return WorkerProtocol.Response.failure(WorkerProtocol.Status.UNAVAILABLE,
+              "Compiler worker failed: " + e, diagnostics);
+    } finally {
+      compilationUnits.forEach(CompilationUnit::close);
+    }
+  }
+
+  private static WorkerProtocol.DiagnosticEntry toEntry(
+          Diagnostic<? extends JavaFileObject> diagnostic, List<CompilationUnit> units) {
+    return new WorkerProtocol.DiagnosticEntry(diagnostic.getKind(),
+            units.indexOf(diagnostic.getSource()), diagnostic.getLineNumber(),
+            diagnostic.getColumnNumber(), diagnostic.getMessage(null), diagnostic.toString());
+  }
+
+  private static List<Processor> instantiateProcessors(List<String> processorClassNames) {
+    List<Processor> processors = new ArrayList<>();
+    for (String processorClassName : processorClassNames) {
+      try {
+        processors.add((Processor) Class.forName(processorClassName)
+                .getDeclaredConstructor().newInstance());
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalArgumentException("Unable to instantiate processor "
+                + processorClassName, e);
+      }
+    }
+    return processors;
+  }
+}
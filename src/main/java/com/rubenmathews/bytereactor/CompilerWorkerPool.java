@@ -0,0 +1,331 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * A pool of forked JVMs running {@link CompilerWorker}, so javac allocates in the heap of the
+ * workers instead of the heap of the application. Workers are started lazily up to the
+ * configured size and recycled after a number of compilations. A worker that dies, for example
+ * because a source exhausted its heap, fails only the compilation it was running.
+ *
+ * <p>The compiled bytecode is sent back over the pipe and loaded locally, so a ByteReactor
+ * using a pool caches and loads classes exactly like one compiling in process. Annotation
+ * processors are instantiated in the worker by class name, they need a public no argument
+ * constructor and have to be on the class path of the worker.
+ *
+ * <p>A worker still compiling when the deadline of its compilation passes is killed.
+ *
+ * <p>The pool is shared state, it is not closed when a ByteReactor using it is closed.
+ */
+public final class CompilerWorkerPool implements CompilerBackend, AutoCloseable {
+
+  private final List<String> command;
+  private final int maxCompilationsPerWorker;
+  private final Semaphore workerSlots;
+  private final BlockingQueue<CompilerWorkerProcess> idleWorkers = new LinkedBlockingQueue<>();
+  private final AtomicInteger startedWorkers = new AtomicInteger();
+  private final ScheduledThreadPoolExecutor watchdog;
+  private volatile boolean closed;
+
+  private CompilerWorkerPool(Builder builder) {
+    this.command = Collections.unmodifiableList(builder.command());
+    this.maxCompilationsPerWorker = builder.maxCompilationsPerWorker;
+    this.workerSlots = new Semaphore(builder.workers, true);
+    this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "byte-reactor-worker-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.watchdog.setRemoveOnCancelPolicy(true);
+    this.watchdog.setKeepAliveTime(1, TimeUnit.SECONDS);
+    this.watchdog.allowCoreThreadTimeOut(true);
+  }
+
+  public static CompilerWorkerPool.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Compile the units in a worker and attach the returned bytecode to them. The worker is
+   * killed when the deadline of the context passes.
+   *
+   * @param compilationUnits The units to compile
+   * @param context          The options, processors and deadline of the compilation, the
+   *                         processors are instantiated in the worker by class name
+   * @throws CompilationFailedException  If the compilation fails or the worker dies
+   * @throws CompilationTimeoutException If the deadline passes before the worker responds
+   */
+  @Override
+  public void compile(List<CompilationUnit> compilationUnits, CompilerContext context) {
+    WorkerProtocol.Request request = createRequest(compilationUnits, context.getOptions(),
+            context.getProcessors());
+    complete(execute(request, context.getDeadline()), compilationUnits, context);
+  }
+
+  /**
+   * Report the diagnostics of a response and attach the returned bytecode to the units.
+   *
+   * @param response         The response to the compilation of the units
+   * @param compilationUnits The units in request order
+   * @param context          The context of the compilation
+   * @throws CompilationFailedException  If the compilation failed, without error diagnostics if
+   *                                     the worker failed independent of the sources
+   * @throws CompilationTimeoutException If the compilation timed out
+   */
+  static void complete(WorkerProtocol.Response response, List<CompilationUnit> compilationUnits,
+                       CompilerContext context) {
+    for (WorkerProtocol.DiagnosticEntry entry : response.getDiagnostics()) {
+      context.getDiagnosticListener().report(toDiagnostic(entry, compilationUnits));
+    }
+    if (response.getStatus() == WorkerProtocol.Status.TIMED_OUT) {
+      throw new CompilationTimeoutException(response.getMessage());
+    }
+    if (response.getStatus() == WorkerProtocol.Status.UNAVAILABLE) {
+      throw new CompilationFailedException(response.getMessage());
+    }
+    if (!response.isSuccess()) {
+      throw new CompilationFailedException("Compilation Failed, check Diagnostic Logs",
+              context.getDiagnostics());
+    }
+    for (int i = 0; i < compilationUnits.size(); i++) {
+      CompilationUnit compilationUnit = compilationUnits.get(i);
+      for (Map.Entry<String, byte[]> entry : response.getCompiledClasses().get(i).entrySet()) {
+        context.addCompiledClass(compilationUnit, entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Workers are separate JVMs, they cannot see classes which only exist in this JVM.
+   *
+   * @return false
+   */
+  @Override
+  public boolean isInProcess() {
+    return false;
+  }
+
+  /**
+   * The number of worker JVMs started since the pool was created, including recycled workers.
+   *
+   * @return the number of started workers
+   */
+  public int getStartedWorkers() {
+    return startedWorkers.get();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    CompilerWorkerProcess worker = idleWorkers.poll();
+    while (worker != null) {
+      worker.shutdown();
+      worker = idleWorkers.poll();
+    }
+  }
+
+  private WorkerProtocol.Response execute(WorkerProtocol.Request request,
+                                          CompilationDeadline deadline) {
+    acquireWorkerSlot();
+    try {
+      CompilerWorkerProcess worker = takeWorker();
+      ScheduledFuture<?> expiry = deadline.isBounded()
+              ? watchdog.schedule(worker::kill, deadline.getRemainingNanos(), TimeUnit.NANOSECONDS)
+              : null;
+      WorkerProtocol.Response response;
+      try {
+        response = worker.compile(request);
+      } catch (IOException e) {
+        worker.kill();
+        deadline.checkpoint();
+        throw new CompilationFailedException("Compiler worker terminated unexpectedly", e);
+      } catch (Throwable e) {
+        // the worker may be half way through the response, it cannot serve another request
+        worker.kill();
+        throw e;
+      } finally {
+        if (expiry != null) {
+          expiry.cancel(false);
+        }
+      }
+      releaseWorker(worker);
+      return response;
+    } finally {
+      workerSlots.release();
+    }
+  }
+
+  private void acquireWorkerSlot() {
+    if (closed) {
+      throw new IllegalStateException("Compiler worker pool is closed");
+    }
+    try {
+      workerSlots.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompilationFailedException("Interrupted while waiting for a compiler worker", e);
+    }
+  }
+
+  private CompilerWorkerProcess takeWorker() {
+    CompilerWorkerProcess worker = idleWorkers.poll();
+    while (worker != null && !worker.isAlive()) {
+      worker = idleWorkers.poll();
+    }
+    if (worker == null) {
+      startedWorkers.incrementAndGet();
+      worker = CompilerWorkerProcess.start(command);
+    }
+    return worker;
+  }
+
+  /*
+   * A retired worker is shut down on the watchdog, so the caller doesn't wait for the worker JVM
+   * to exit. The watchdog doesn't wait either, it kills the worker after the grace period.
+   */
+  private void releaseWorker(CompilerWorkerProcess worker) {
+    if (closed || worker.getCompilations() >= maxCompilationsPerWorker) {
+      watchdog.execute(() -> {
+        worker.requestShutdown();
+        watchdog.schedule(worker::kill, CompilerWorkerProcess.SHUTDOWN_GRACE_MILLIS,
+                TimeUnit.MILLISECONDS);
+      });
+    } else {
+      idleWorkers.offer(worker);
+    }
+  }
+
+  static WorkerProtocol.Request createRequest(List<CompilationUnit> compilationUnits,
+                                              List<String> options,
+                                              Set<? extends Processor> processors) {
+    List<WorkerProtocol.Source> sources = new ArrayList<>();
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      try {
+        sources.add(new WorkerProtocol.Source(compilationUnit.getClassName(),
+                compilationUnit.getCharContent(false).toString()));
+      } catch (IOException e) {
+        throw new CompilationFailedException("Unable to read source of "
+                + compilationUnit.getClassName(), e);
+      }
+    }
+    List<String> processorClassNames = new ArrayList<>();
+    processors.forEach(processor -> processorClassNames.add(processor.getClass().getName()));
+    return new WorkerProtocol.Request(sources, options, processorClassNames);
+  }
+
+  private static Diagnostic<JavaFileObject> toDiagnostic(WorkerProtocol.DiagnosticEntry entry,
+                                                         List<CompilationUnit> units) {
+    int unitIndex = entry.getUnitIndex();
+    JavaFileObject source = unitIndex >= 0 && unitIndex < units.size()
+            ? units.get(unitIndex) : null;
+    return new ForwardedDiagnostic(entry.getKind(), source, entry.getLineNumber(),
+            entry.getColumnNumber(), entry.getMessage(), entry.getFormattedMessage());
+  }
+
+  public static class Builder {
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int maxCompilationsPerWorker = 1000;
+    private String maxHeap;
+    private final List<String> jvmOptions = new ArrayList<>();
+    private String classPath = System.getProperty("java.class.path");
+    private Path javaExecutable = Paths.get(System.getProperty("java.home"), "bin", "java");
+
+    private Builder() {
+
+    }
+
+    /**
+     * The maximum number of worker JVMs running at the same time. Workers are started on
+     * demand, defaults to the number of available processors.
+     *
+     * @param workers the maximum number of workers
+     * @return the builder
+     */
+    public Builder withWorkers(int workers) {
+      requirePositive(workers, "workers");
+      this.workers = workers;
+      return this;
+    }
+
+    /**
+     * The number of compilations after which a worker is replaced by a fresh JVM.
+     *
+     * @param maxCompilationsPerWorker compilations per worker
+     * @return the builder
+     */
+    public Builder withMaxCompilationsPerWorker(int maxCompilationsPerWorker) {
+      requirePositive(maxCompilationsPerWorker, "maxCompilationsPerWorker");
+      this.maxCompilationsPerWorker = maxCompilationsPerWorker;
+      return this;
+    }
+
+    public Builder withMaxHeap(String maxHeap) {
+      this.maxHeap = Objects.requireNonNull(maxHeap);
+      return this;
+    }
+
+    public Builder withJvmOptions(String... jvmOptions) {
+      this.jvmOptions.addAll(Arrays.asList(jvmOptions));
+      return this;
+    }
+
+    /**
+     * The class path of the workers, it is also the class path the sources are compiled
+     * against. Defaults to the class path of this JVM, which has to contain ByteReactor.
+     *
+     * @param classPath the class path of the workers
+     * @return the builder
+     */
+    public Builder withClassPath(String classPath) {
+      this.classPath = Objects.requireNonNull(classPath);
+      return this;
+    }
+
+    public Builder withJavaExecutable(Path javaExecutable) {
+      this.javaExecutable = Objects.requireNonNull(javaExecutable);
+      return this;
+    }
+
+    public CompilerWorkerPool build() {
+      return new CompilerWorkerPool(this);
+    }
+
+    private List<String> command() {
+      List<String> workerCommand = new ArrayList<>();
+      workerCommand.add(javaExecutable.toString());
+      if (maxHeap != null) {
+        workerCommand.add("-Xmx" + maxHeap);
+      }
+      workerCommand.addAll(jvmOptions);
+      workerCommand.add("-cp");
+      workerCommand.add(classPath);
+      workerCommand.add(CompilerWorker.class.getName());
+      return workerCommand;
+    }
+
+    private static void requirePositive(int value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " has to be positive but got [" + value + "]");
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A forked compiler worker JVM and the pipes to its standard streams.
+ */
+final class CompilerWorkerProcess {
+
+  static final long SHUTDOWN_GRACE_MILLIS = 1000;
+
+  private final Process process;
+  private final DataOutputStream out;
+  private final DataInputStream in;
+  private int compilations;
+
+  private CompilerWorkerProcess(Process process) {
+    this.process = process;
+    this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+  }
+
+  static CompilerWorkerProcess start(List<String> command) {
+    try {
+      Process process = new ProcessBuilder(command)
+              .redirectError(ProcessBuilder.Redirect.INHERIT)
+              .start();
+      return new CompilerWorkerProcess(process);
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to start compiler worker " + command, e);
+    }
+  }
+
+  WorkerProtocol.Response compile(WorkerProtocol.Request request) throws IOException {
+    compilations++;
+    WorkerProtocol.writeRequest(out, request);
+    return WorkerProtocol.readResponse(in);
+  }
+
+  int getCompilations() {
+    return compilations;
+  }
+
+  boolean isAlive() {
+    return process.isAlive();
+  }
+
+  /**
+   * Ask the worker to exit, it is killed if it doesn't exit within the grace period.
+   */
+  void shutdown() {
+    requestShutdown();
+    try {
+      if (!process.waitFor(SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+        process.destroyForcibly();
+      }
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Ask the worker to exit without waiting for it, it is killed if the request cannot be sent.
+   */
+  void requestShutdown() {
+    try {
+      WorkerProtocol.writeShutdown(out);
+      out.close();
+    } catch (IOException e) {
+      process.destroyForcibly();
+    }
+  }
+
+  void kill() {
+    process.destroyForcibly();
+  }
+}
@@ -0,0 +1,105 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes debug attributes from compiled classes and compacts their constant pool, to shrink
+ * the bytecode and the metaspace taken by the loaded classes.
+ *
+ * <p>The local variable tables are always removed. The line number table and the source file
+ * name are kept by default, so stack traces still show file names and line numbers. The
+ * stripper counts the bytecode size before and after, which can be read at any time. The JVM
+ * doesn't report metaspace per class, the bytecode sizes are the measure of the savings.
+ */
+public final class DebugInfoStripper implements BytecodeTransformer {
+
+  private final Set<String> removedAttributes;
+  private final boolean compactConstantPool;
+  private final LongAdder classes = new LongAdder();
+  private final LongAdder bytesBefore = new LongAdder();
+  private final LongAdder bytesAfter = new LongAdder();
+
+  private DebugInfoStripper(Builder builder) {
+    this.removedAttributes = Collections.unmodifiableSet(new HashSet<>(builder.removedAttributes));
+    this.compactConstantPool = builder.compactConstantPool;
+  }
+
+  public static DebugInfoStripper.Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public byte[] transform(String className, byte[] bytecode) {
+    byte[] stripped = ClassFileRewriter.rewrite(bytecode, removedAttributes, compactConstantPool);
+    classes.increment();
+    bytesBefore.add(bytecode.length);
+    bytesAfter.add(stripped.length);
+    return stripped;
+  }
+
+  public long getTransformedClasses() {
+    return classes.sum();
+  }
+
+  public long getBytesBefore() {
+    return bytesBefore.sum();
+  }
+
+  public long getBytesAfter() {
+    return bytesAfter.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "DebugInfoStripper{classes=" + getTransformedClasses()
+            + ", bytesBefore=" + getBytesBefore()
+            + ", bytesAfter=" + getBytesAfter() + '}';
+  }
+
+  public static class Builder {
+    private final Set<String> removedAttributes = new HashSet<>();
+    private boolean compactConstantPool = true;
+
+    private Builder() {
+      removedAttributes.add("LocalVariableTable");
+      removedAttributes.add("LocalVariableTypeTable");
+    }
+
+    /**
+     * Also remove the line number tables, stack traces then show no line numbers.
+     *
+     * @return the builder
+     */
+    public Builder stripLineNumbers() {
+      removedAttributes.add("LineNumberTable");
+      return this;
+    }
+
+    /**
+     * Also remove the source file name, stack traces then show "Unknown Source".
+     *
+     * @return the builder
+     */
+    public Builder stripSourceFile() {
+      removedAttributes.add("SourceFile");
+      return this;
+    }
+
+    /**
+     * Keep the constant pool as javac wrote it, only removing the attributes.
+     *
+     * @return the builder
+     */
+    public Builder withoutConstantPoolCompaction() {
+      this.compactConstantPool = false;
+      return this;
+    }
+
+    public DebugInfoStripper build() {
+      return new DebugInfoStripper(this);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+/**
+ * Keeps the diagnostics of a single compilation while forwarding them to the listener of the
+ * ByteReactor, so a failure can carry the diagnostics it was caused by.
+ */
+final class DiagnosticRecorder implements DiagnosticListener<JavaFileObject> {
+
+  private final DiagnosticListener<? super JavaFileObject> delegate;
+  private final List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+
+  DiagnosticRecorder(DiagnosticListener<? super JavaFileObject> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+    synchronized (diagnostics) {
+      diagnostics.add(CompilationDiagnostic.of(diagnostic));
+    }
+    delegate.report(diagnostic);
+  }
+
+  List<CompilationDiagnostic> getDiagnostics() {
+    synchronized (diagnostics) {
+      return new ArrayList<>(diagnostics);
+    }
+  }
+}
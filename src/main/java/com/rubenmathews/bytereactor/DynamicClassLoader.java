@@ -1,43 +1,181 @@
 package com.rubenmathews.bytereactor;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The class loader compiled classes are defined in, one per parent class loader. It is
+ * parallel capable, classes are defined under a lock per class name, so threads defining
+ * different classes don't wait for each other.
+ *
+ * <p>Defining the same bytecode again returns the class defined before, so threads which
+ * compiled the same source at the same time all get the same class. Defining different
+ * bytecode under the name of a defined class fails with a {@link LinkageError}.
+ */
 public class DynamicClassLoader extends ClassLoader {
 
-  private static final Map<ClassLoader, DynamicClassLoader> CLASS_LOADER_STORE;
+  private static final ClassLoaderRegistry CLASS_LOADER_STORE = new ClassLoaderRegistry();
 
   static {
-    CLASS_LOADER_STORE = Collections.synchronizedMap(new HashMap<>());
+    registerAsParallelCapable();
   }
 
+  private final Map<String, CompiledCode> stagedClasses = new ConcurrentHashMap<>();
+  private final Map<String, byte[]> definedDigests = new ConcurrentHashMap<>();
+  private final Map<String, Class<?>> cachedClasses = new ConcurrentHashMap<>();
+
   private DynamicClassLoader(ClassLoader classLoader) {
     super(classLoader);
   }
 
+  /**
+   * Define a class from its bytecode.
+   *
+   * @param byteCode The class file
+   * @return the class, the class defined before if the same bytecode was defined already
+   * @throws LinkageError If a class of the same name was defined from different bytecode
+   */
   public Class<?> loadClass(byte[] byteCode) {
-    return defineClass(null, byteCode, 0, byteCode.length);
+    return define(ClassFiles.getClassName(byteCode), byteCode);
+  }
+
+  /**
+   * Make a compiled class resolvable before it is defined. A class defined earlier which
+   * refers to the staged class, e.g. as its superclass, defines it on demand. The bytecode is
+   * read when the class is defined.
+   *
+   * @param className    The binary name of the class
+   * @param compiledCode The compiled code of the class
+   */
+  void stage(String className, CompiledCode compiledCode) {
+    stagedClasses.put(className, compiledCode);
+  }
+
+  /**
+   * Drop staged classes which were not defined, classes staged again by another thread in the
+   * meantime stay staged.
+   *
+   * @param staged The compiled code by class name, as staged
+   */
+  void unstage(Map<String, CompiledCode> staged) {
+    staged.forEach(stagedClasses::remove);
+  }
+
+  /**
+   * Define a staged class, unless it was defined on demand already.
+   *
+   * @param className The binary name of the class
+   * @return the class
+   * @throws IllegalStateException If the class was neither staged nor defined
+   * @throws LinkageError          If the class was defined from different bytecode before
+   */
+  Class<?> defineStaged(String className) {
+    synchronized (getClassLoadingLock(className)) {
+      CompiledCode compiledCode = stagedClasses.remove(className);
+      if (compiledCode != null) {
+        return define(className, compiledCode.getByteCode());
+      }
+      Class<?> definedClass = findLoadedClass(className);
+      if (definedClass == null) {
+        throw new IllegalStateException("Class " + className + " is not staged");
+      }
+      return definedClass;
+    }
+  }
+
+  /*
+   * Called by loadClass with the lock of the class name held.
+   */
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    CompiledCode compiledCode = stagedClasses.remove(name);
+    if (compiledCode != null) {
+      return define(name, compiledCode.getByteCode());
+    }
+    return super.findClass(name);
+  }
+
+  private Class<?> define(String className, byte[] byteCode) {
+    byte[] digest = digest(byteCode);
+    synchronized (getClassLoadingLock(className)) {
+      Class<?> definedClass = findLoadedClass(className);
+      if (definedClass == null) {
+        definedClass = defineClass(className, byteCode, 0, byteCode.length);
+        definedDigests.put(className, digest);
+        return definedClass;
+      }
+      byte[] definedDigest = definedDigests.get(className);
+      if (definedDigest != null && MessageDigest.isEqual(definedDigest, digest)) {
+        return definedClass;
+      }
+      throw new LinkageError("Class " + className + " is already loaded by "
+              + definedClass.getClassLoader() + (definedDigest != null
+              ? " from different bytecode" : "") + ", it cannot be defined again in " + this);
+    }
+  }
+
+  private static byte[] digest(byte[] byteCode) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(byteCode);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * The classes ByteReactor loaded into this class loader by class name. The cache lives and
+   * is collected with the class loader.
+   *
+   * @return the cached classes
+   */
+  Map<String, Class<?>> getCachedClasses() {
+    return cachedClasses;
   }
 
   /**
    *  Instance returns a dynamic classloader for the given classloader.
    *  If the classloader is available in the cache, it returns from the cache.
-   *  Else a new instance of dynamic class loader if created stored in cache and returned
+   *  Else a new instance of dynamic class loader if created stored in cache and returned.
+   *  The cache doesn't keep the classloaders reachable, see {@link ClassLoaderRegistry}.
    * @param classLoader The parent classloader
    * @return  DynamicClassLoader for the parent classloader
    */
   public static DynamicClassLoader instance(ClassLoader classLoader) {
-    synchronized (CLASS_LOADER_STORE) {
-      return CLASS_LOADER_STORE.computeIfAbsent(classLoader, DynamicClassLoader::new);
-    }
+    return CLASS_LOADER_STORE.get(classLoader);
+  }
+
+  static DynamicClassLoader create(ClassLoader parent) {
+    ByteReactorEvents.loaderCreated(parent);
+    return new DynamicClassLoader(parent);
   }
 
+  /**
+   * The dynamic classloaders in the cache which are still reachable.
+   *
+   * @return the dynamic classloaders
+   */
+  static List<DynamicClassLoader> getClassLoaders() {
+    return CLASS_LOADER_STORE.values();
+  }
+
+  /**
+   * Remove the dynamic classloader of the given parent classloader from the cache.
+   * @param classLoader The parent classloader
+   */
   public static void removeClassLoader(ClassLoader classLoader) {
-    CLASS_LOADER_STORE.remove(classLoader);
+    if (CLASS_LOADER_STORE.remove(classLoader) != null) {
+      ByteReactorEvents.loaderRemoved(classLoader);
+    }
   }
 
+  /**
+   * Remove all dynamic classloaders from the cache.
+   */
   public static void clearAllClassLoaders() {
-    CLASS_LOADER_STORE.clear();
+    CLASS_LOADER_STORE.clear().forEach(removed ->
+            ByteReactorEvents.loaderRemoved(removed.getParent()));
   }
 }
@@ -0,0 +1,30 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.List;
+
+/**
+ * Records the compile, define, cache and class loader activity of ByteReactor.
+ * The implementation emitting JDK Flight Recorder events is shipped in the Java 11 section of
+ * the multi-release jar, see {@link ByteReactorEvents}.
+ *
+ * <p>Timed events are started by a {@code begin} method, which returns null when the event is
+ * disabled, and finished by the matching {@code end} method with the returned token.
+ */
+interface EventRecorder {
+
+  Object beginCompile();
+
+  void endCompile(Object token, List<CompilationUnit> compilationUnits, boolean success);
+
+  Object beginDefine();
+
+  void endDefine(Object token, String className, Class<?> definedClass, int bytecodeSize);
+
+  void cacheHit(ClassLoader classLoader, String className);
+
+  void cacheMiss(ClassLoader classLoader, String className);
+
+  void loaderCreated(ClassLoader parent);
+
+  void loaderRemoved(ClassLoader parent);
+}
@@ -0,0 +1,70 @@
+package com.rubenmathews.bytereactor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the diagnostics of compilations which failed in javac by their
+ * {@link SourceFingerprint}, so the same broken sources fail again without being compiled.
+ * Entries expire after the time to live and the least recently used entry is evicted when the
+ * cache is full.
+ */
+final class FailedCompilationCache {
+
+  private final int maxEntries;
+  private final long timeToLiveNanos;
+  private final Map<String, Entry> entries;
+
+  FailedCompilationCache(int maxEntries, Duration timeToLive) {
+    this.maxEntries = maxEntries;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > FailedCompilationCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * The diagnostics of the failed compilation with the fingerprint.
+   *
+   * @param fingerprint The fingerprint of the compilation
+   * @return the diagnostics, null if the compilation didn't fail or the failure expired
+   */
+  synchronized List<CompilationDiagnostic> get(String fingerprint) {
+    Entry entry = entries.get(fingerprint);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.created >= timeToLiveNanos) {
+      entries.remove(fingerprint);
+      return null;
+    }
+    return entry.diagnostics;
+  }
+
+  synchronized void put(String fingerprint, List<CompilationDiagnostic> diagnostics) {
+    entries.put(fingerprint, new Entry(diagnostics, System.nanoTime()));
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  private static final class Entry {
+    private final List<CompilationDiagnostic> diagnostics;
+    private final long created;
+
+    private Entry(List<CompilationDiagnostic> diagnostics, long created) {
+      this.diagnostics = diagnostics;
+      this.created = created;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * A diagnostic reported by a javac running outside of this JVM, reattached to the local
+ * compilation unit it was reported for.
+ */
+final class ForwardedDiagnostic implements Diagnostic<JavaFileObject> {
+
+  private final Kind kind;
+  private final JavaFileObject source;
+  private final long lineNumber;
+  private final long columnNumber;
+  private final String message;
+  private final String formattedMessage;
+
+  ForwardedDiagnostic(Kind kind, JavaFileObject source, long lineNumber, long columnNumber,
+                      String message, String formattedMessage) {
+    this.kind = kind;
+    this.source = source;
+    this.lineNumber = lineNumber;
+    this.columnNumber = columnNumber;
+    this.message = message;
+    this.formattedMessage = formattedMessage;
+  }
+
+  @Override
+  public Kind getKind() {
+    return kind;
+  }
+
+  @Override
+  public JavaFileObject getSource() {
+    return source;
+  }
+
+  @Override
+  public long getPosition() {
+    return NOPOS;
+  }
+
+  @Override
+  public long getStartPosition() {
+    return NOPOS;
+  }
+
+  @Override
+  public long getEndPosition() {
+    return NOPOS;
+  }
+
+  @Override
+  public long getLineNumber() {
+    return lineNumber;
+  }
+
+  @Override
+  public long getColumnNumber() {
+    return columnNumber;
+  }
+
+  @Override
+  public String getCode() {
+    return null;
+  }
+
+  @Override
+  public String getMessage(Locale locale) {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return formattedMessage;
+  }
+}
@@ -0,0 +1,85 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The class loader of one {@link ClassGeneration}. Classes are defined from their bytecode the
+ * first time they are loaded, a generation which is never used costs no class definitions.
+ */
+final class GenerationClassLoader extends ClassLoader {
+
+  static {
+    registerAsParallelCapable();
+  }
+
+  private final Map<String, byte[]> classes;
+  // classes are loaded under the read lock, redefinitions hold the write lock so no class gets
+  // defined from the old bytecode while the defined classes are redefined
+  private final ReadWriteLock definitionLock = new ReentrantReadWriteLock();
+
+  GenerationClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+    super(parent);
+    this.classes = new ConcurrentHashMap<>(classes);
+  }
+
+  /**
+   * Replace the bytecode of classes of the generation in place. Defined classes are redefined
+   * through the instrumentation in a single redefinition, classes which are not defined yet will
+   * be defined from the new bytecode. The new bytecode has to have the shape of the old one.
+   *
+   * @param changedClasses  The new bytecode by class name
+   * @param instrumentation The instrumentation redefining the defined classes
+   * @throws UnmodifiableClassException If the instrumentation cannot redefine the classes, no
+   *                                    class was changed then
+   * @throws ClassNotFoundException     Never, the classes are defined by this class loader
+   */
+  void redefine(Map<String, byte[]> changedClasses, Instrumentation instrumentation)
+          throws UnmodifiableClassException, ClassNotFoundException {
+    definitionLock.writeLock().lock();
+    try {
+      List<ClassDefinition> definitions = new ArrayList<>();
+      changedClasses.forEach((className, bytecode) -> {
+        Class<?> definedClass = findLoadedClass(className);
+        if (definedClass != null) {
+          definitions.add(new ClassDefinition(definedClass, bytecode));
+        }
+      });
+      instrumentation.redefineClasses(definitions.toArray(new ClassDefinition[0]));
+      classes.putAll(changedClasses);
+    } finally {
+      definitionLock.writeLock().unlock();
+    }
+  }
+
+  /*
+   * The read lock is taken before the class loading lock of the class, a redefinition which
+   * loads classes of the generation while verifying the new bytecode doesn't wait for a thread
+   * holding the class loading lock.
+   */
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    definitionLock.readLock().lock();
+    try {
+      return super.loadClass(name, resolve);
+    } finally {
+      definitionLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    byte[] bytecode = classes.get(name);
+    if (bytecode == null) {
+      throw new ClassNotFoundException(name);
+    }
+    return defineClass(name, bytecode, 0, bytecode.length);
+  }
+}
@@ -0,0 +1,13 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Defines bytecode as a hidden class of the given host lookup.
+ * The implementation is shipped in the Java 15 section of the multi-release jar,
+ * see {@link HiddenClasses}.
+ */
+interface HiddenClassDefiner {
+
+  Class<?> define(MethodHandles.Lookup host, byte[] byteCode);
+}
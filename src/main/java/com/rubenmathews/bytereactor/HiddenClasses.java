@@ -0,0 +1,47 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Entry point to hidden class definition. On Java 15 and later the multi-release jar contains
+ * a {@link HiddenClassDefiner} backed by {@code MethodHandles.Lookup.defineHiddenClass}, on
+ * older runtimes hidden classes are reported as unsupported.
+ */
+final class HiddenClasses {
+
+  private static final String DEFINER_CLASS_NAME =
+          "com.rubenmathews.bytereactor.LookupHiddenClassDefiner";
+  private static final HiddenClassDefiner DEFINER = loadDefiner();
+
+  private HiddenClasses() {
+  }
+
+  static boolean isSupported() {
+    return DEFINER != null;
+  }
+
+  /**
+   * Define the bytecode as a hidden class nested in the package of the host lookup.
+   *
+   * @param host     The lookup the hidden class is defined relative to
+   * @param byteCode The bytecode of the class
+   * @return the hidden class
+   * @throws UnsupportedOperationException If the runtime doesn't support hidden classes
+   */
+  static Class<?> define(MethodHandles.Lookup host, byte[] byteCode) {
+    if (DEFINER == null) {
+      throw new UnsupportedOperationException("Hidden classes require Java 15 or later");
+    }
+    return DEFINER.define(host, byteCode);
+  }
+
+  private static HiddenClassDefiner loadDefiner() {
+    try {
+      Class<?> definerClass = Class.forName(DEFINER_CLASS_NAME, true,
+              HiddenClasses.class.getClassLoader());
+      return (HiddenClassDefiner) definerClass.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,499 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watch mode around a {@link ByteReactor}: compiles a source directory, watches it for changes
+ * and reloads the changed sources.
+ *
+ * <p>Change events are debounced, then only the changed sources and the sources depending on
+ * them, transitively, are recompiled against the bytecode of the live generation. The result
+ * becomes a new {@link ClassGeneration} in a fresh class loader, which is swapped in atomically
+ * and announced to the {@link ReloadListener}s. If the recompilation fails the live generation
+ * stays in place. Dependencies are read from the constant pools of the compiled classes, a
+ * compile-time constant inlined from another source is not a dependency.
+ *
+ * <p>Callers should look classes up through {@link #getGeneration()} whenever they need them
+ * instead of holding on to a {@code Class}, so they pick up the latest generation.
+ *
+ * <p>With an {@link Instrumentation}, e.g. of the {@link ByteReactorAgent}, a reload which only
+ * changes method bodies is applied in place: when the recompiled classes keep their modifiers,
+ * supertypes, fields and method signatures, the classes of the live generation are redefined
+ * with the new bytecode. The new generation shares the class loader of the previous one, classes
+ * and their instances survive the reload and no metaspace is spent on new classes. Reloads which
+ * change the shape of a class, add or remove classes or are refused by the JVM fall back to a
+ * new class loader.
+ */
+public final class HotReloader implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HotReloader.class);
+
+  private final ByteReactor byteReactor;
+  private final Path root;
+  private final Charset charset;
+  private final long debounceNanos;
+  private final ClassLoader parentClassLoader;
+  private final List<ReloadListener> listeners;
+  private final Instrumentation instrumentation;
+  private final AtomicReference<ClassGeneration> generation = new AtomicReference<>();
+  private final Map<Path, SourceState> sources = new HashMap<>();
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+  private final Thread watchThread;
+  private Map<String, byte[]> bytecode = Collections.emptyMap();
+  private volatile boolean closed;
+
+  private HotReloader(Builder builder) {
+    this.byteReactor = builder.byteReactor;
+    this.root = builder.root.toAbsolutePath().normalize();
+    this.charset = builder.charset;
+    this.debounceNanos = builder.debounce.toNanos();
+    this.parentClassLoader = builder.parentClassLoader;
+    this.listeners = new CopyOnWriteArrayList<>(builder.listeners);
+    this.instrumentation = builder.instrumentation;
+    try {
+      this.watchService = FileSystems.getDefault().newWatchService();
+      registerDirectories(root);
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to watch source directory " + root, e);
+    }
+    try {
+      compileAll();
+    } catch (RuntimeException e) {
+      closeWatchService();
+      throw e;
+    }
+    this.watchThread = new Thread(this::watch, "byte-reactor-hot-reload");
+    this.watchThread.setDaemon(true);
+    this.watchThread.start();
+  }
+
+  /**
+   * Start building a hot reloader of the given source directory.
+   *
+   * @param byteReactor     The ByteReactor compiling the sources
+   * @param sourceDirectory The root directory of the sources
+   * @return the builder
+   */
+  public static HotReloader.Builder builder(ByteReactor byteReactor, Path sourceDirectory) {
+    return new Builder(byteReactor, sourceDirectory);
+  }
+
+  public ClassGeneration getGeneration() {
+    return generation.get();
+  }
+
+  public void addListener(ReloadListener listener) {
+    listeners.add(Objects.requireNonNull(listener));
+  }
+
+  public void removeListener(ReloadListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Reload the given source files right away, without waiting for the watch service.
+   *
+   * @param changedSources The created, modified or deleted source files
+   * @return the live generation after the reload
+   * @throws CompilationFailedException If the changed sources don't compile
+   */
+  public ClassGeneration reload(Set<Path> changedSources) {
+    Set<Path> changed = changedSources.stream()
+            .map(path -> path.toAbsolutePath().normalize())
+            .filter(path -> getClassName(path) != null)
+            .collect(Collectors.toSet());
+    try {
+      return reloadSources(changed);
+    } catch (RuntimeException e) {
+      notifyFailure(changed, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    closeWatchService();
+    watchThread.interrupt();
+  }
+
+  private synchronized void compileAll() {
+    List<CompilationUnit> compilationUnits = SourceTree.fromDirectory(root)
+            .withCharset(charset)
+            .build()
+            .read();
+    Map<String, byte[]> compiledClasses = new HashMap<>();
+    if (!compilationUnits.isEmpty()) {
+      byteReactor.compile(compilationUnits, Collections.emptyMap());
+      collect(compilationUnits, compiledClasses);
+    }
+    bytecode = Collections.unmodifiableMap(compiledClasses);
+    generation.set(newGeneration(1));
+  }
+
+  private synchronized ClassGeneration reloadSources(Set<Path> changedSources) {
+    Set<Path> affectedSources = getAffectedSources(changedSources);
+    final Map<String, byte[]> liveBytecode = bytecode;
+    Map<String, byte[]> classPath = new HashMap<>(bytecode);
+    Set<String> replacedClasses = new HashSet<>();
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
+    for (Path source : affectedSources) {
+      SourceState state = sources.get(source);
+      if (state != null) {
+        state.classNames.forEach(classPath::remove);
+        replacedClasses.addAll(state.classNames);
+      }
+      SourceContentCache.invalidate(source);
+      if (Files.isRegularFile(source)) {
+        compilationUnits.add(new CompilationUnit(source.toFile(), charset,
+                getClassName(source), null));
+      }
+    }
+    Map<String, byte[]> compiledClasses = new HashMap<>();
+    if (!compilationUnits.isEmpty()) {
+      byteReactor.compile(compilationUnits, Collections.unmodifiableMap(classPath));
+    }
+    affectedSources.forEach(sources::remove);
+    collect(compilationUnits, compiledClasses);
+    classPath.putAll(compiledClasses);
+    bytecode = Collections.unmodifiableMap(classPath);
+
+    ClassGeneration previous = generation.get();
+    ClassGeneration current = redefineInPlace(previous, liveBytecode, replacedClasses,
+            compiledClasses)
+            ? new ClassGeneration(previous.getNumber() + 1, previous.getClassLoader(),
+                    bytecode.keySet())
+            : newGeneration(previous.getNumber() + 1);
+    generation.set(current);
+    Set<String> recompiledClasses = Collections.unmodifiableSet(compiledClasses.keySet());
+    for (ReloadListener listener : listeners) {
+      try {
+        listener.reloaded(previous, current, recompiledClasses);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Reload listener failed", e);
+      }
+    }
+    return current;
+  }
+
+  /*
+   * The recompiled classes have to replace exactly the classes of the live generation they were
+   * compiled from, each with the same shape, else they go into a new class loader.
+   */
+  private boolean redefineInPlace(ClassGeneration live, Map<String, byte[]> liveBytecode,
+                                  Set<String> replacedClasses,
+                                  Map<String, byte[]> compiledClasses) {
+    if (instrumentation == null || !replacedClasses.equals(compiledClasses.keySet())) {
+      return false;
+    }
+    Map<String, byte[]> changedClasses = new HashMap<>();
+    for (Map.Entry<String, byte[]> compiledClass : compiledClasses.entrySet()) {
+      byte[] liveClass = liveBytecode.get(compiledClass.getKey());
+      if (!Arrays.equals(liveClass, compiledClass.getValue())) {
+        if (!ClassFiles.getShape(liveClass).equals(ClassFiles.getShape(compiledClass.getValue()))) {
+          return false;
+        }
+        changedClasses.put(compiledClass.getKey(), compiledClass.getValue());
+      }
+    }
+    try {
+      ((GenerationClassLoader) live.getClassLoader()).redefine(changedClasses, instrumentation);
+      return true;
+    } catch (UnmodifiableClassException | ClassNotFoundException | RuntimeException
+            | LinkageError e) {
+      LOGGER.debug("Unable to redefine {} in place, reloading into a new class loader",
+              changedClasses.keySet(), e);
+      return false;
+    }
+  }
+
+  /*
+   * The changed sources plus every source referring to a class of an affected source, until
+   * no more sources are added.
+   */
+  private Set<Path> getAffectedSources(Set<Path> changedSources) {
+    Set<Path> affectedSources = new HashSet<>(changedSources);
+    Set<String> invalidatedClasses = new HashSet<>();
+    changedSources.forEach(source -> {
+      SourceState state = sources.get(source);
+      if (state != null) {
+        invalidatedClasses.addAll(state.classNames);
+      }
+    });
+    boolean added = !invalidatedClasses.isEmpty();
+    while (added) {
+      added = false;
+      for (Map.Entry<Path, SourceState> entry : sources.entrySet()) {
+        if (!affectedSources.contains(entry.getKey())
+                && !Collections.disjoint(entry.getValue().references, invalidatedClasses)) {
+          affectedSources.add(entry.getKey());
+          invalidatedClasses.addAll(entry.getValue().classNames);
+          added = true;
+        }
+      }
+    }
+    return affectedSources;
+  }
+
+  private void collect(List<CompilationUnit> compilationUnits,
+                       Map<String, byte[]> compiledClasses) {
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      Set<String> classNames = new HashSet<>();
+      Set<String> references = new HashSet<>();
+      compilationUnit.getCompiledClasses().forEach((className, compiledCode) -> {
+        byte[] classBytecode = compiledCode.getByteCode();
+        compiledClasses.put(className, classBytecode);
+        classNames.add(className);
+        references.addAll(ClassFiles.getReferencedClasses(classBytecode));
+      });
+      compilationUnit.close();
+      references.removeAll(classNames);
+      sources.put(Paths.get(compilationUnit.toUri()).toAbsolutePath().normalize(),
+              new SourceState(classNames, references));
+    }
+  }
+
+  private ClassGeneration newGeneration(int number) {
+    return new ClassGeneration(number, new GenerationClassLoader(parentClassLoader, bytecode),
+            bytecode.keySet());
+  }
+
+  private String getClassName(Path source) {
+    if (!source.startsWith(root)) {
+      return null;
+    }
+    return SourceTree.toClassName(root.relativize(source).toString().replace('\\', '/'));
+  }
+
+  private void watch() {
+    while (!closed) {
+      try {
+        Set<Path> changedSources = new HashSet<>();
+        WatchKey key = watchService.take();
+        boolean overflow = false;
+        while (key != null) {
+          overflow |= collectChanges(key, changedSources);
+          key = watchService.poll(debounceNanos, TimeUnit.NANOSECONDS);
+        }
+        if (overflow) {
+          changedSources.addAll(listSources());
+          synchronized (this) {
+            changedSources.addAll(sources.keySet());
+          }
+        }
+        if (!changedSources.isEmpty()) {
+          reloadInBackground(changedSources);
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+    }
+  }
+
+  private void reloadInBackground(Set<Path> changedSources) {
+    try {
+      reload(changedSources);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Reload of {} failed", changedSources, e);
+    }
+  }
+
+  /*
+   * Returns true if events were lost, in which case every source has to be checked.
+   */
+  private boolean collectChanges(WatchKey key, Set<Path> changedSources) {
+    Path directory = watchedDirectories.get(key);
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+        overflow = true;
+        continue;
+      }
+      Path path = directory.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        try {
+          registerDirectories(path);
+        } catch (IOException e) {
+          LOGGER.warn("Unable to watch source directory {}", path, e);
+        }
+        overflow = true;
+      } else {
+        changedSources.add(path);
+      }
+    }
+    if (!key.reset()) {
+      watchedDirectories.remove(key);
+      overflow = true;
+    }
+    return overflow;
+  }
+
+  private void registerDirectories(Path directory) throws IOException {
+    try (Stream<Path> directories = Files.walk(directory).filter(Files::isDirectory)) {
+      for (Path watchedDirectory : directories.collect(Collectors.toList())) {
+        WatchKey key = watchedDirectory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirectories.put(key, watchedDirectory);
+      }
+    }
+  }
+
+  private Set<Path> listSources() {
+    try (Stream<Path> files = Files.walk(root)) {
+      return files.filter(Files::isRegularFile).collect(Collectors.toSet());
+    } catch (IOException e) {
+      LOGGER.warn("Unable to list source directory {}", root, e);
+      return Collections.emptySet();
+    }
+  }
+
+  private void notifyFailure(Set<Path> changedSources, RuntimeException failure) {
+    for (ReloadListener listener : listeners) {
+      try {
+        listener.reloadFailed(changedSources, failure);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Reload listener failed", e);
+      }
+    }
+  }
+
+  private void closeWatchService() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOGGER.warn("Unable to close watch service of {}", root, e);
+    }
+  }
+
+  private static final class SourceState {
+    private final Set<String> classNames;
+    private final Set<String> references;
+
+    private SourceState(Set<String> classNames, Set<String> references) {
+      this.classNames = classNames;
+      this.references = references;
+    }
+  }
+
+  public static class Builder {
+    private final ByteReactor byteReactor;
+    private final Path root;
+    private Charset charset = StandardCharsets.UTF_8;
+    private Duration debounce = Duration.ofMillis(20);
+    private ClassLoader parentClassLoader = HotReloader.class.getClassLoader();
+    private final List<ReloadListener> listeners = new ArrayList<>();
+    private Instrumentation instrumentation;
+
+    private Builder(ByteReactor byteReactor, Path root) {
+      this.byteReactor = Objects.requireNonNull(byteReactor);
+      this.root = Objects.requireNonNull(root);
+    }
+
+    /**
+     * The charset the sources are encoded in, defaults to UTF-8.
+     *
+     * @param charset the charset of the sources
+     * @return the builder
+     */
+    public Builder withCharset(Charset charset) {
+      this.charset = Objects.requireNonNull(charset);
+      return this;
+    }
+
+    /**
+     * The quiet period after a change event before the reload starts, so saving several files
+     * at once results in one reload. Defaults to 20 milliseconds.
+     *
+     * @param debounce the quiet period
+     * @return the builder
+     */
+    public Builder withDebounce(Duration debounce) {
+      if (Objects.requireNonNull(debounce).isNegative()) {
+        throw new IllegalArgumentException("debounce cannot be negative but got ["
+                + debounce + "]");
+      }
+      this.debounce = debounce;
+      return this;
+    }
+
+    /**
+     * The parent of the class loaders of all generations, defaults to the class loader of
+     * ByteReactor.
+     *
+     * @param parentClassLoader the parent class loader
+     * @return the builder
+     */
+    public Builder withParentClassLoader(ClassLoader parentClassLoader) {
+      this.parentClassLoader = Objects.requireNonNull(parentClassLoader);
+      return this;
+    }
+
+    /**
+     * Redefine classes in place when a reload only changes method bodies, see
+     * {@link ByteReactorAgent#install()} to obtain the instrumentation.
+     *
+     * @param instrumentation the instrumentation of an agent which can redefine classes
+     * @return the builder
+     */
+    public Builder withInstrumentation(Instrumentation instrumentation) {
+      if (!instrumentation.isRedefineClassesSupported()) {
+        throw new IllegalArgumentException("The instrumentation cannot redefine classes, the "
+                + "agent needs Can-Redefine-Classes: true in its manifest");
+      }
+      this.instrumentation = instrumentation;
+      return this;
+    }
+
+    public Builder withListener(ReloadListener listener) {
+      this.listeners.add(Objects.requireNonNull(listener));
+      return this;
+    }
+
+    /**
+     * Compile all sources into the first generation and start watching the directory.
+     *
+     * @return the running hot reloader
+     * @throws FileNotFoundException      If the source directory doesn't exist
+     * @throws CompilationFailedException If the sources don't compile
+     */
+    public HotReloader build() {
+      if (!Files.isDirectory(root)) {
+        throw new FileNotFoundException("Unable to locate source directory " + root);
+      }
+      return new HotReloader(this);
+    }
+  }
+}
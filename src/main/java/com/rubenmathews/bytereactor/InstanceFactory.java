@@ -0,0 +1,124 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates instances of loaded classes through a constructor {@link MethodHandle} resolved once
+ * per class and constructor signature, instead of a reflective
+ * {@code getDeclaredConstructor().newInstance()} on every instantiation.
+ *
+ * <p>Factories are stored in a {@link ClassValue}, so they never outlive the class they create.
+ * {@link ByteReactor} evicts them explicitly together with its class cache.
+ */
+final class InstanceFactory {
+
+  private static final MethodType SUPPLIER_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType FUNCTION_TYPE = MethodType.methodType(Object.class,
+          Object.class);
+
+  private static final ClassValue<Map<MethodType, Object>> FACTORIES = new FactoryValue();
+
+  private InstanceFactory() {
+  }
+
+  /**
+   * Returns a supplier invoking the no argument constructor of the given class.
+   *
+   * @param klass The loaded class to instantiate
+   * @param type  The type the created instances are exposed as
+   * @param <T>   The exposed type
+   * @return a cached supplier creating a new instance on every call
+   * @throws IllegalArgumentException If the class cannot be instantiated as the given type
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Supplier<T> supplier(Class<?> klass, Class<T> type) {
+    requireInstantiableAs(klass, type);
+    MethodType signature = MethodType.methodType(void.class);
+    return (Supplier<T>) FACTORIES.get(klass).computeIfAbsent(signature, key -> {
+      MethodHandle constructor = findConstructor(klass, signature).asType(SUPPLIER_TYPE);
+      return (Supplier<Object>) () -> {
+        try {
+          return constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new InstantiationFailedException("Unable to instantiate " + klass.getName(), e);
+        }
+      };
+    });
+  }
+
+  /**
+   * Returns a function invoking the constructor of the given class which takes a single
+   * argument of exactly the given argument type.
+   *
+   * @param klass        The loaded class to instantiate
+   * @param type         The type the created instances are exposed as
+   * @param argumentType The parameter type of the constructor
+   * @param <A>          The constructor argument type
+   * @param <T>          The exposed type
+   * @return a cached function creating a new instance on every call
+   * @throws IllegalArgumentException If the class cannot be instantiated as the given type
+   */
+  @SuppressWarnings("unchecked")
+  static <A, T> Function<A, T> function(Class<?> klass, Class<T> type, Class<A> argumentType) {
+    requireInstantiableAs(klass, type);
+    MethodType signature = MethodType.methodType(void.class, argumentType);
+    return (Function<A, T>) FACTORIES.get(klass).computeIfAbsent(signature, key -> {
+      MethodHandle constructor = findConstructor(klass, signature).asType(FUNCTION_TYPE);
+      return (Function<Object, Object>) argument -> {
+        try {
+          return constructor.invokeExact(argument);
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new InstantiationFailedException("Unable to instantiate " + klass.getName(), e);
+        }
+      };
+    });
+  }
+
+  static void evict(Class<?> klass) {
+    FACTORIES.remove(klass);
+  }
+
+  private static void requireInstantiableAs(Class<?> klass, Class<?> type) {
+    if (!type.isAssignableFrom(klass)) {
+      throw new IllegalArgumentException("Class [" + klass.getName()
+              + "] is not assignable to [" + type.getName() + "]");
+    }
+    if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+      throw new IllegalArgumentException("Class [" + klass.getName()
+              + "] is abstract and cannot be instantiated");
+    }
+  }
+
+  private static MethodHandle findConstructor(Class<?> klass, MethodType signature) {
+    try {
+      Constructor<?> constructor = klass.getDeclaredConstructor(signature.parameterArray());
+      constructor.setAccessible(true);
+      return MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException("Cannot find constructor " + signature.parameterList()
+              + " in class [" + klass.getName() + "]", e);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Cannot access constructor of class ["
+              + klass.getName() + "]", e);
+    }
+  }
+
+  private static final class FactoryValue extends ClassValue<Map<MethodType, Object>> {
+    @Override
+    protected Map<MethodType, Object> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  }
+}
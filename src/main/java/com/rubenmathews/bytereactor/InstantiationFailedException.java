@@ -0,0 +1,8 @@
+package com.rubenmathews.bytereactor;
+
+public class InstantiationFailedException extends RuntimeException {
+
+  public InstantiationFailedException(String message, Throwable e) {
+    super(message, e);
+  }
+}
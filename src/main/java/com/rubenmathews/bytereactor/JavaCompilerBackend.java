@@ -0,0 +1,192 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles in process with a {@code javax.tools} compiler, javac by default. Other compilers
+ * implementing {@link JavaCompiler}, like the Eclipse compiler, can be plugged in the same way.
+ *
+ * <p>Standard file managers of the compiler are pooled per class path and reused by later
+ * compilations, they cache the class path listings javac spends most of a small compilation
+ * on. A file manager is not thread safe, concurrent compilations each take their own one from
+ * the pool. At most one idle file manager per processor is kept per class path, the ones
+ * returned beyond that are closed. Closing the backend closes the pooled file managers, the
+ * ByteReactor closes the javac backend it creates.
+ */
+public final class JavaCompilerBackend implements CompilerBackend, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JavaCompilerBackend.class);
+  private static final int MAX_IDLE_FILE_MANAGERS = Runtime.getRuntime().availableProcessors();
+
+  private final JavaCompiler javaCompiler;
+  private final List<String> options;
+  private final Map<List<Path>, Queue<StandardJavaFileManager>> fileManagers =
+          new ConcurrentHashMap<>();
+  private final Queue<StandardJavaFileManager> jvmClassPathFileManagers =
+          new ArrayBlockingQueue<>(MAX_IDLE_FILE_MANAGERS);
+  private volatile boolean closed;
+
+  /**
+   * Compile with the given compiler.
+   *
+   * @param javaCompiler The compiler
+   */
+  public JavaCompilerBackend(JavaCompiler javaCompiler) {
+    this(javaCompiler, Collections.emptyList());
+  }
+
+  /**
+   * Compile with the given compiler, passing it options in addition to the ones of the
+   * ByteReactor, e.g. the source level of a compiler which doesn't default to the one of the
+   * JVM.
+   *
+   * @param javaCompiler The compiler
+   * @param options      The additional options
+   */
+  public JavaCompilerBackend(JavaCompiler javaCompiler, List<String> options) {
+    this.javaCompiler = Objects.requireNonNull(javaCompiler);
+    this.options = Collections.unmodifiableList(new ArrayList<>(options));
+  }
+
+  private JavaCompilerBackend() {
+    this.javaCompiler = ToolProvider.getSystemJavaCompiler();
+    this.options = Collections.emptyList();
+  }
+
+  /**
+   * Compile with javac. On a JRE without javac every compilation fails.
+   *
+   * @return the backend
+   */
+  public static JavaCompilerBackend javac() {
+    return new JavaCompilerBackend();
+  }
+
+  @Override
+  public void compile(List<CompilationUnit> compilationUnits, CompilerContext context) {
+    if (javaCompiler == null) {
+      throw new CompilationFailedException("No Java compiler available, run on a JDK or "
+              + "precompile the sources into a PrecompiledArtifact");
+    }
+    Queue<StandardJavaFileManager> pool = getFileManagers(context.getClassPath());
+    StandardJavaFileManager standardFileManager = pool.poll();
+    if (standardFileManager == null) {
+      standardFileManager = createFileManager(context.getClassPath());
+    }
+    try {
+      compile(compilationUnits, context, standardFileManager);
+    } finally {
+      release(pool, standardFileManager);
+    }
+  }
+
+  private void compile(List<CompilationUnit> compilationUnits, CompilerContext context,
+                       StandardJavaFileManager standardFileManager) {
+    JavaFileManager fileManager = new ByteReactorFileManager(standardFileManager,
+            context.getBytecodeStore());
+    if (!context.getClassPathClasses().isEmpty()) {
+      fileManager = new ClassPathFileManager(fileManager, context.getClassPathClasses());
+    }
+    List<String> taskOptions = context.getOptions();
+    if (!options.isEmpty()) {
+      taskOptions = new ArrayList<>(taskOptions);
+      taskOptions.addAll(options);
+    }
+    CompilationDeadline deadline = context.getDeadline();
+    JavaCompiler.CompilationTask compilationTask = javaCompiler.getTask(null,
+            deadline.guard(fileManager), context.getDiagnosticListener(), taskOptions, null,
+            compilationUnits);
+    compilationTask.setProcessors(context.getProcessors());
+    deadline.register(compilationTask);
+    Boolean success;
+    try {
+      success = compilationTask.call();
+    } catch (RuntimeException e) {
+      throw CompilationDeadline.unwrap(e);
+    }
+    if (!Boolean.TRUE.equals(success)) {
+      deadline.checkpoint();
+      throw new CompilationFailedException("Compilation Failed, check Diagnostic Logs",
+              context.getDiagnostics());
+    }
+  }
+
+  /**
+   * Close the pooled file managers. Compilations still running close their file manager when
+   * they finish, later compilations create one and close it again.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    closeAll(jvmClassPathFileManagers);
+    fileManagers.values().forEach(JavaCompilerBackend::closeAll);
+  }
+
+  private Queue<StandardJavaFileManager> getFileManagers(List<Path> classPath) {
+    if (classPath == null) {
+      return jvmClassPathFileManagers;
+    }
+    return fileManagers.computeIfAbsent(classPath,
+        key -> new ArrayBlockingQueue<>(MAX_IDLE_FILE_MANAGERS));
+  }
+
+  /*
+   * The closed flag is checked again after returning the file manager, close() may have drained
+   * the pool in between.
+   */
+  private void release(Queue<StandardJavaFileManager> pool,
+                       StandardJavaFileManager fileManager) {
+    if (closed || !pool.offer(fileManager)) {
+      closeQuietly(fileManager);
+    } else if (closed) {
+      closeAll(pool);
+    }
+  }
+
+  private static void closeAll(Queue<StandardJavaFileManager> pool) {
+    StandardJavaFileManager fileManager;
+    while ((fileManager = pool.poll()) != null) {
+      closeQuietly(fileManager);
+    }
+  }
+
+  private static void closeQuietly(StandardJavaFileManager fileManager) {
+    try {
+      fileManager.close();
+    } catch (IOException e) {
+      LOGGER.debug("Unable to close file manager", e);
+    }
+  }
+
+  private StandardJavaFileManager createFileManager(List<Path> classPath) {
+    StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(
+            new GenericDiagnosticListener(), null, null);
+    if (classPath != null) {
+      List<File> files = new ArrayList<>();
+      classPath.forEach(entry -> files.add(entry.toFile()));
+      try {
+        fileManager.setLocation(StandardLocation.CLASS_PATH, files);
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Invalid compiler class path " + classPath, e);
+      }
+    }
+    return fileManager;
+  }
+}
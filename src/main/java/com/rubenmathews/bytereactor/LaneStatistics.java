@@ -0,0 +1,64 @@
+package com.rubenmathews.bytereactor;
+
+/**
+ * A snapshot of the admission statistics of one priority lane of a {@link CompileScheduler}.
+ */
+public final class LaneStatistics {
+
+  private final CompilationPriority priority;
+  private final int queued;
+  private final long admitted;
+  private final long rejected;
+  private final long totalQueueWaitNanos;
+  private final long maxQueueWaitNanos;
+
+  LaneStatistics(CompilationPriority priority, int queued, long admitted, long rejected,
+                 long totalQueueWaitNanos, long maxQueueWaitNanos) {
+    this.priority = priority;
+    this.queued = queued;
+    this.admitted = admitted;
+    this.rejected = rejected;
+    this.totalQueueWaitNanos = totalQueueWaitNanos;
+    this.maxQueueWaitNanos = maxQueueWaitNanos;
+  }
+
+  public CompilationPriority getPriority() {
+    return priority;
+  }
+
+  public int getQueued() {
+    return queued;
+  }
+
+  public long getAdmitted() {
+    return admitted;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public long getTotalQueueWaitNanos() {
+    return totalQueueWaitNanos;
+  }
+
+  public long getMaxQueueWaitNanos() {
+    return maxQueueWaitNanos;
+  }
+
+  public long getAverageQueueWaitNanos() {
+    return admitted == 0 ? 0 : totalQueueWaitNanos / admitted;
+  }
+
+  @Override
+  public String toString() {
+    return "LaneStatistics{"
+            + "priority=" + priority
+            + ", queued=" + queued
+            + ", admitted=" + admitted
+            + ", rejected=" + rejected
+            + ", totalQueueWaitNanos=" + totalQueueWaitNanos
+            + ", maxQueueWaitNanos=" + maxQueueWaitNanos
+            + '}';
+  }
+}
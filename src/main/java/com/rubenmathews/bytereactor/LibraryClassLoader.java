@@ -0,0 +1,78 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The class loader of a {@link LibraryLayer}. Classes are defined from their bytecode the first
+ * time they are loaded, so library classes no child ever uses take no metaspace.
+ *
+ * <p>The bytecode is also the class path of compilations for the class loaders below the layer,
+ * together with the bytecode of the layers above it.
+ */
+final class LibraryClassLoader extends ClassLoader {
+
+  static {
+    registerAsParallelCapable();
+  }
+
+  private final Map<String, byte[]> classes;
+  private final Map<String, byte[]> classPath;
+  private final String fingerprint;
+
+  LibraryClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+    super(parent);
+    this.classes = classes;
+    LibraryClassLoader parentLayer = nearest(parent);
+    Map<String, byte[]> layeredClasses = new HashMap<>();
+    if (parentLayer != null) {
+      layeredClasses.putAll(parentLayer.classPath);
+    }
+    layeredClasses.putAll(classes);
+    this.classPath = Collections.unmodifiableMap(layeredClasses);
+    this.fingerprint = SourceFingerprint.ofClasses(classPath);
+  }
+
+  /**
+   * The nearest library class loader among the class loader and its ancestors.
+   *
+   * @param classLoader The class loader, null for the bootstrap class loader
+   * @return the library class loader, null if there is none
+   */
+  static LibraryClassLoader nearest(ClassLoader classLoader) {
+    ClassLoader current = classLoader;
+    while (current != null && !(current instanceof LibraryClassLoader)) {
+      current = current.getParent();
+    }
+    return (LibraryClassLoader) current;
+  }
+
+  /**
+   * The bytecode of this layer and the layers above it by binary class name.
+   *
+   * @return the class path of compilations below this layer
+   */
+  Map<String, byte[]> getClassPath() {
+    return classPath;
+  }
+
+  /**
+   * The fingerprint of {@link #getClassPath()}, it keys the cached compilations below the
+   * layer.
+   *
+   * @return the hex encoded digest
+   */
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    byte[] bytecode = classes.get(name);
+    if (bytecode == null) {
+      throw new ClassNotFoundException(name);
+    }
+    return defineClass(name, bytecode, 0, bytecode.length);
+  }
+}
@@ -0,0 +1,121 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Shared library sources compiled once into a common class loader, with the code depending on
+ * them loaded into child class loaders. Pass {@link #getClassLoader()}, or a class loader below
+ * it, as the class loader of {@link ByteReactor#loadClass(CompilationRequest, ClassLoader)} or of
+ * a {@link TenantNamespace}: the classes are defined in a dynamic class loader below the layer,
+ * which only holds the classes of the request and resolves library types from the layer.
+ *
+ * <p>Compilations below a layer are compiled against the bytecode of the layer instead of the
+ * library sources, so library sources are compiled and defined once however many tenants use
+ * them. Layers can be stacked by building a layer with the class loader of another layer as
+ * its parent. Like every compilation against classes which only exist as bytecode, they always
+ * run in process, not in a worker JVM or on a compile server.
+ */
+public final class LibraryLayer {
+
+  private final LibraryClassLoader classLoader;
+  private final Set<String> classNames;
+
+  private LibraryLayer(LibraryClassLoader classLoader) {
+    this.classLoader = classLoader;
+    this.classNames = Collections.unmodifiableSet(classLoader.getClassPath().keySet());
+  }
+
+  /**
+   * Start building a library layer of the given sources.
+   *
+   * @param byteReactor The ByteReactor compiling the library and the code below it
+   * @param sources     The library sources
+   * @return the builder
+   */
+  public static LibraryLayer.Builder builder(ByteReactor byteReactor,
+                                             CompilationRequestBatch sources) {
+    return new Builder(byteReactor, sources);
+  }
+
+  public ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  /**
+   * The binary names of the classes of this layer and the layers above it.
+   *
+   * @return the class names
+   */
+  public Set<String> getClassNames() {
+    return classNames;
+  }
+
+  /**
+   * Load a class of the layer.
+   *
+   * @param className The binary name of the class
+   * @return the class
+   * @throws IllegalArgumentException If the class is not part of the layer
+   */
+  public Class<?> getClass(String className) {
+    if (!classNames.contains(className)) {
+      throw new IllegalArgumentException("Cannot find class of [" + className
+              + "] in the library layer");
+    }
+    try {
+      return classLoader.loadClass(className);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Cannot load class of [" + className
+              + "] in the library layer", e);
+    }
+  }
+
+  public static class Builder {
+    private final ByteReactor byteReactor;
+    private final CompilationRequestBatch sources;
+    private ClassLoader parentClassLoader;
+
+    private Builder(ByteReactor byteReactor, CompilationRequestBatch sources) {
+      this.byteReactor = Objects.requireNonNull(byteReactor);
+      this.sources = Objects.requireNonNull(sources);
+    }
+
+    /**
+     * The parent of the class loader of the layer, defaults to the parent class loader of the
+     * ByteReactor. The class loader of another layer stacks this layer below it.
+     *
+     * @param parentClassLoader the parent class loader
+     * @return the builder
+     */
+    public Builder withParentClassLoader(ClassLoader parentClassLoader) {
+      this.parentClassLoader = Objects.requireNonNull(parentClassLoader);
+      return this;
+    }
+
+    /**
+     * Compile the library sources, their classes are defined when first used.
+     *
+     * @return the library layer
+     * @throws CompilationFailedException If the sources don't compile
+     */
+    public LibraryLayer build() {
+      ClassLoader parent = parentClassLoader != null ? parentClassLoader
+              : byteReactor.getParentClassLoader();
+      List<CompilationUnit> compilationUnits = sources.getCollection();
+      byteReactor.compile(compilationUnits, parent, null);
+      Map<String, byte[]> classes = new HashMap<>();
+      for (CompilationUnit compilationUnit : compilationUnits) {
+        compilationUnit.getCompiledClasses().forEach((className, compiledCode) ->
+                classes.put(className, compiledCode.getByteCode()));
+        compilationUnit.close();
+      }
+      return new LibraryLayer(new LibraryClassLoader(parent,
+              Collections.unmodifiableMap(classes)));
+    }
+  }
+}
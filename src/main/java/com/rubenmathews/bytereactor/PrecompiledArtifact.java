@@ -0,0 +1,191 @@
+package com.rubenmathews.bytereactor;
+
+import com.rubenmathews.bytereactor.util.ByteReactorUtil;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.annotation.processing.Processor;
+
+/**
+ * The bytecode of sources compiled at build time, written by a {@link PrecompiledArtifactWriter}
+ * or the byte-reactor-maven-plugin. A ByteReactor configured with the artifact defines the
+ * precompiled bytecode when the sources of a load match a compilation of the artifact, and
+ * compiles with javac otherwise.
+ *
+ * <p>Compilations are matched by the {@link SourceFingerprint} of their sources, class names,
+ * javac options and annotation processors. The class path is left out, it differs between the
+ * build and the service, so the classes the sources refer to have to be compatible with the
+ * ones they were compiled against.
+ */
+public final class PrecompiledArtifact {
+
+  static final String INDEX = "META-INF/byte-reactor/precompiled.index";
+  static final String HEADER = "# byte-reactor precompiled artifact 1";
+  private static final String CLASS_PATH = "";
+
+  private final Map<String, List<Map<String, byte[]>>> compilations;
+
+  private PrecompiledArtifact(Map<String, List<Map<String, byte[]>>> compilations) {
+    this.compilations = compilations;
+  }
+
+  /**
+   * Read the artifact from a file.
+   *
+   * @param file The artifact
+   * @return the artifact
+   * @throws FileNotFoundException If the file doesn't exist
+   * @throws CompilationFailedException If the file is not a precompiled artifact
+   */
+  public static PrecompiledArtifact open(Path file) {
+    if (!Files.isRegularFile(file)) {
+      throw new FileNotFoundException("Unable to locate precompiled artifact " + file);
+    }
+    try (InputStream in = Files.newInputStream(file)) {
+      return read(in);
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to read precompiled artifact " + file, e);
+    }
+  }
+
+  /**
+   * Read the artifact from a stream, e.g. a class path resource. The stream is not closed.
+   *
+   * @param in The artifact
+   * @return the artifact
+   * @throws CompilationFailedException If the stream is not a precompiled artifact
+   */
+  public static PrecompiledArtifact read(InputStream in) {
+    Map<String, byte[]> entries = new HashMap<>();
+    try {
+      ZipInputStream zip = new ZipInputStream(in);
+      ZipEntry entry = zip.getNextEntry();
+      while (entry != null) {
+        if (!entry.isDirectory()) {
+          entries.put(entry.getName(), readEntry(zip));
+        }
+        entry = zip.getNextEntry();
+      }
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to read precompiled artifact", e);
+    }
+    byte[] index = entries.get(INDEX);
+    if (index == null) {
+      throw new CompilationFailedException("Not a precompiled artifact, " + INDEX + " is missing");
+    }
+    return new PrecompiledArtifact(parseIndex(index, entries));
+  }
+
+  private static byte[] readEntry(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read = in.read(buffer);
+    while (read >= 0) {
+      bytes.write(buffer, 0, read);
+      read = in.read(buffer);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Map<String, List<Map<String, byte[]>>> parseIndex(byte[] index,
+                                                                  Map<String, byte[]> entries) {
+    Map<String, List<Map<String, byte[]>>> compilations = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new ByteArrayInputStream(index), StandardCharsets.UTF_8))) {
+      String header = reader.readLine();
+      if (!HEADER.equals(header)) {
+        throw new CompilationFailedException("Unsupported precompiled artifact " + header);
+      }
+      String line = reader.readLine();
+      while (line != null) {
+        String[] fields = line.split("\t");
+        if (fields.length != 3) {
+          throw new CompilationFailedException("Malformed precompiled artifact index " + line);
+        }
+        int unit = Integer.parseInt(fields[1]);
+        byte[] bytecode = entries.get(entryName(fields[0], unit, fields[2]));
+        if (bytecode == null) {
+          throw new CompilationFailedException("Precompiled artifact misses the bytecode of "
+                  + fields[2]);
+        }
+        List<Map<String, byte[]>> units = compilations.computeIfAbsent(fields[0],
+            key -> new ArrayList<>());
+        while (units.size() <= unit) {
+          units.add(new HashMap<>());
+        }
+        units.get(unit).put(fields[2], bytecode);
+        line = reader.readLine();
+      }
+    } catch (IOException | NumberFormatException e) {
+      throw new CompilationFailedException("Malformed precompiled artifact index", e);
+    }
+    return Collections.unmodifiableMap(compilations);
+  }
+
+  /**
+   * The name of the entry holding the bytecode of a class of a unit of a compilation.
+   *
+   * @param fingerprint The fingerprint of the compilation
+   * @param unit        The index of the unit in the compilation
+   * @param className   The binary class name
+   * @return the entry name
+   */
+  static String entryName(String fingerprint, int unit, String className) {
+    return "classes/" + fingerprint + "/" + unit + "/"
+            + ByteReactorUtil.getDestinationClassFile(className);
+  }
+
+  /**
+   * Fingerprint a compilation the way the artifact matches it, without the class path.
+   *
+   * @param compilationUnits The units compiled together
+   * @param options          The javac options
+   * @param processors       The annotation processors
+   * @return the fingerprint, null if a source cannot be read
+   */
+  static String fingerprint(List<CompilationUnit> compilationUnits, List<String> options,
+                            Collection<? extends Processor> processors) {
+    return SourceFingerprint.of(compilationUnits, options, processors, CLASS_PATH);
+  }
+
+  /**
+   * Attach the precompiled bytecode of the compilation with the fingerprint to the units.
+   *
+   * @param fingerprint      The fingerprint of the compilation
+   * @param compilationUnits The units compiled together
+   * @param store            The store the attached bytecode is kept in, null for the heap
+   * @return whether the artifact holds the compilation
+   */
+  boolean attach(String fingerprint, List<CompilationUnit> compilationUnits,
+                 BytecodeStore store) {
+    List<Map<String, byte[]>> units = fingerprint != null ? compilations.get(fingerprint) : null;
+    if (units == null || units.size() != compilationUnits.size()) {
+      return false;
+    }
+    for (int i = 0; i < compilationUnits.size(); i++) {
+      CompilationUnit compilationUnit = compilationUnits.get(i);
+      // every unit gets its own copy, the units hand out their bytecode
+      units.get(i).forEach((className, bytecode) -> compilationUnit.addCompiledCode(className,
+              CompiledCode.of(className, bytecode.clone(), store)));
+    }
+    return true;
+  }
+
+  public int getCompilationCount() {
+    return compilations.size();
+  }
+}
@@ -0,0 +1,122 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compiles sources at build time into a {@link PrecompiledArtifact}. Every request or batch
+ * added is one compilation, and is served from the artifact when the same request or batch is
+ * loaded at runtime. The sources are compiled with the javac options and annotation processors
+ * of the given ByteReactor, bytecode transformers are not applied, they run when the
+ * precompiled classes are loaded.
+ */
+public final class PrecompiledArtifactWriter implements AutoCloseable {
+
+  private final ByteReactor byteReactor;
+  private final ZipOutputStream out;
+  private final StringBuilder index = new StringBuilder(PrecompiledArtifact.HEADER).append('\n');
+  private final Set<String> fingerprints = new HashSet<>();
+
+  private PrecompiledArtifactWriter(ByteReactor byteReactor, OutputStream out) {
+    this.byteReactor = byteReactor;
+    this.out = new ZipOutputStream(out);
+  }
+
+  /**
+   * Create the artifact file, an existing file is replaced.
+   *
+   * @param byteReactor The ByteReactor compiling the sources
+   * @param file        The artifact
+   * @return the writer
+   * @throws CompilationFailedException If the file cannot be created
+   */
+  public static PrecompiledArtifactWriter create(ByteReactor byteReactor, Path file) {
+    Objects.requireNonNull(byteReactor);
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      return new PrecompiledArtifactWriter(byteReactor, Files.newOutputStream(file));
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to create precompiled artifact " + file, e);
+    }
+  }
+
+  /**
+   * Compile the source of the request and add its bytecode to the artifact.
+   *
+   * @param compilationRequest The request, as it is loaded at runtime
+   * @throws CompilationFailedException If the source doesn't compile
+   */
+  public void add(CompilationRequest compilationRequest) {
+    add(Collections.singletonList(compilationRequest.getCompilationUnit()));
+  }
+
+  /**
+   * Compile the sources of the batch together and add their bytecode to the artifact.
+   *
+   * @param compilationRequestBatch The batch, as it is loaded at runtime
+   * @throws CompilationFailedException If the sources don't compile
+   */
+  public void add(CompilationRequestBatch compilationRequestBatch) {
+    add(compilationRequestBatch.getCollection());
+  }
+
+  private void add(List<CompilationUnit> compilationUnits) {
+    String fingerprint = byteReactor.compileForArtifact(compilationUnits);
+    try {
+      if (!fingerprints.add(fingerprint)) {
+        return;
+      }
+      for (int unit = 0; unit < compilationUnits.size(); unit++) {
+        for (Map.Entry<String, CompiledCode> compiled : compilationUnits.get(unit)
+                .getCompiledClasses().entrySet()) {
+          String className = compiled.getKey();
+          out.putNextEntry(new ZipEntry(PrecompiledArtifact.entryName(fingerprint, unit,
+                  className)));
+          out.write(compiled.getValue().getByteCode());
+          out.closeEntry();
+          index.append(fingerprint).append('\t').append(unit).append('\t').append(className)
+                  .append('\n');
+        }
+      }
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to write precompiled artifact", e);
+    } finally {
+      compilationUnits.forEach(CompilationUnit::close);
+    }
+  }
+
+  public int getCompilationCount() {
+    return fingerprints.size();
+  }
+
+  /**
+   * Write the index and close the artifact.
+   *
+   * @throws CompilationFailedException If the artifact cannot be written
+   */
+  @Override
+  public void close() {
+    try {
+      out.putNextEntry(new ZipEntry(PrecompiledArtifact.INDEX));
+      out.write(index.toString().getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      out.close();
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to write precompiled artifact", e);
+    }
+  }
+}
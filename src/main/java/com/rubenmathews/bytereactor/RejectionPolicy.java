@@ -0,0 +1,15 @@
+package com.rubenmathews.bytereactor;
+
+/**
+ * What the {@link CompileScheduler} does with a compilation when the queue of its lane is full.
+ */
+public enum RejectionPolicy {
+  /**
+   * Throw a {@link CompilationRejectedException} immediately.
+   */
+  REJECT,
+  /**
+   * Block until the queue has room, at most for the maximum queue wait of the scheduler.
+   */
+  WAIT
+}
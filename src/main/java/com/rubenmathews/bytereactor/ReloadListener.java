@@ -0,0 +1,29 @@
+package com.rubenmathews.bytereactor;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Listener notified by a {@link HotReloader} on the watch thread after every reload.
+ */
+public interface ReloadListener {
+
+  /**
+   * Called after a new generation has been swapped in.
+   *
+   * @param previous          The generation which was live before the reload
+   * @param current           The generation which is live now
+   * @param recompiledClasses The classes compiled by the reload, changed and dependent ones
+   */
+  void reloaded(ClassGeneration previous, ClassGeneration current, Set<String> recompiledClasses);
+
+  /**
+   * Called when a reload fails, e.g. because a changed source doesn't compile. The previous
+   * generation stays live.
+   *
+   * @param changedSources The changed source files
+   * @param e              The cause of the failure
+   */
+  default void reloadFailed(Set<Path> changedSources, RuntimeException e) {
+  }
+}
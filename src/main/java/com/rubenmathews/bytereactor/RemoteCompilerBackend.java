@@ -0,0 +1,358 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles on a compile server shared by the JVMs of a host, see {@link CompileService}. The
+ * server returns the bytecode, which is cached and loaded locally like bytecode compiled in
+ * process, so a ByteReactor using this backend is the client of the server.
+ *
+ * <p>When the server cannot be reached, or the connection breaks during a compilation, the
+ * units are compiled by the fallback backend instead, in process with javac by default. The
+ * server is tried again after the retry interval. Sources which don't compile fail on the
+ * server like they would locally and are not compiled again by the fallback. A server which
+ * times out or fails without javac errors, for example because its scheduler rejected the
+ * compilation, answers with a status instead of errors, and the units are compiled by the
+ * fallback as well, so such a failure is never cached as a property of the sources.
+ *
+ * <p>The time left until the deadline of a compilation is sent with the request, the server
+ * stops compiling when it has passed.
+ *
+ * <p>The server compiles against its own class path and with its own annotation processors,
+ * the processors of the client have to be the same classes.
+ *
+ * <p>The bytecode of the server is defined in this JVM, so the server is trusted like the class
+ * path. Before the first request the client and the server prove to each other that they know
+ * the {@link CompileServerSecret} the server wrote to a file only its user can read, by default
+ * {@link CompileServerSecret#defaultFile(int)} of the port. A listener on the port which doesn't
+ * know the secret, e.g. a process of another user started while the server is down, is treated
+ * like an unavailable server and the units are compiled by the fallback. The connection itself
+ * is not encrypted, the server should only listen on the loopback address.
+ */
+public final class RemoteCompilerBackend implements CompilerBackend, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteCompilerBackend.class);
+
+  private final InetSocketAddress address;
+  private final Path secretFile;
+  private final int connectTimeoutMillis;
+  private final long retryIntervalNanos;
+  private final CompilerBackend fallback;
+  private final BlockingQueue<Connection> idleConnections = new LinkedBlockingQueue<>();
+  private final AtomicLong remoteCompilations = new AtomicLong();
+  private final AtomicLong fallbackCompilations = new AtomicLong();
+  private volatile long unavailableUntil;
+  private volatile boolean unavailable;
+  private volatile boolean closed;
+
+  private RemoteCompilerBackend(Builder builder) {
+    this.address = new InetSocketAddress(builder.host, builder.port);
+    this.secretFile = builder.secretFile != null ? builder.secretFile
+            : CompileServerSecret.defaultFile(builder.port);
+    this.connectTimeoutMillis = (int) builder.connectTimeout.toMillis();
+    this.retryIntervalNanos = builder.retryInterval.toNanos();
+    this.fallback = builder.fallback != null ? builder.fallback : JavaCompilerBackend.javac();
+  }
+
+  public static RemoteCompilerBackend.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Compile the units on the server and attach the returned bytecode to them, or compile them
+   * with the fallback backend if the server is not available.
+   *
+   * @param compilationUnits The units to compile
+   * @param context          The options, processors and deadline of the compilation
+   * @throws CompilationFailedException  If the compilation fails
+   * @throws CompilationTimeoutException If the deadline passes before the server responds
+   */
+  @Override
+  public void compile(List<CompilationUnit> compilationUnits, CompilerContext context) {
+    WorkerProtocol.Response response = closed ? null : execute(
+            CompilerWorkerPool.createRequest(compilationUnits, context.getOptions(),
+                    context.getProcessors()), context.getDeadline());
+    if (response != null && !response.isSuccess()
+            && response.getStatus() != WorkerProtocol.Status.COMPILATION_FAILED) {
+      LOGGER.warn("Compiling locally, {}: {}", response.getStatus(), response.getMessage());
+      context.getDeadline().checkpoint();
+      response = null;
+    }
+    if (response == null) {
+      fallbackCompilations.incrementAndGet();
+      fallback.compile(compilationUnits, context);
+      return;
+    }
+    remoteCompilations.incrementAndGet();
+    CompilerWorkerPool.complete(response, compilationUnits, context);
+  }
+
+  /**
+   * The server is a separate JVM, it cannot see classes which only exist in this JVM.
+   *
+   * @return false
+   */
+  @Override
+  public boolean isInProcess() {
+    return false;
+  }
+
+  /**
+   * The number of compilations the server responded to, including ones which failed with
+   * javac errors.
+   *
+   * @return the number of remote compilations
+   */
+  public long getRemoteCompilations() {
+    return remoteCompilations.get();
+  }
+
+  /**
+   * The number of compilations run by the fallback backend because the server was not
+   * available, timed out or failed without javac errors.
+   *
+   * @return the number of fallback compilations
+   */
+  public long getFallbackCompilations() {
+    return fallbackCompilations.get();
+  }
+
+  /**
+   * Disconnect from the server, compilations afterwards run on the fallback backend.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    Connection connection = idleConnections.poll();
+    while (connection != null) {
+      connection.shutdown();
+      connection = idleConnections.poll();
+    }
+  }
+
+  /*
+   * Returns null when the compilation has to fall back, because the server is down or went
+   * away while compiling. An idle connection may have been closed by a restarted server, the
+   * request is then sent again over the next connection.
+   */
+  private WorkerProtocol.Response execute(WorkerProtocol.Request request,
+                                          CompilationDeadline deadline) {
+    Connection connection = idleConnections.poll();
+    boolean idle = connection != null;
+    if (!idle) {
+      connection = connect();
+      if (connection == null) {
+        return null;
+      }
+    }
+    WorkerProtocol.Response response;
+    try {
+      response = connection.compile(request, deadline);
+    } catch (SocketTimeoutException e) {
+      connection.close();
+      deadline.checkpoint();
+      return null;
+    } catch (IOException e) {
+      connection.close();
+      return idle ? execute(request, deadline) : null;
+    }
+    if (closed) {
+      connection.shutdown();
+    } else {
+      idleConnections.offer(connection);
+    }
+    return response;
+  }
+
+  private Connection connect() {
+    if (unavailable && System.nanoTime() - unavailableUntil < 0) {
+      return null;
+    }
+    try {
+      Connection connection = Connection.open(address, connectTimeoutMillis,
+              CompileServerSecret.read(secretFile));
+      unavailable = false;
+      return connection;
+    } catch (AuthenticationException e) {
+      LOGGER.warn("Not compiling on {}: {}", address, e.getMessage());
+      unavailableUntil = System.nanoTime() + retryIntervalNanos;
+      unavailable = true;
+      return null;
+    } catch (IOException e) {
+      unavailableUntil = System.nanoTime() + retryIntervalNanos;
+      unavailable = true;
+      return null;
+    }
+  }
+
+  private static final class Connection {
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+
+    private Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    static Connection open(InetSocketAddress address, int connectTimeoutMillis,
+                           CompileServerSecret secret) throws IOException {
+      Socket socket = new Socket();
+      try {
+        socket.setTcpNoDelay(true);
+        socket.connect(address, connectTimeoutMillis);
+        Connection connection = new Connection(socket);
+        socket.setSoTimeout(connectTimeoutMillis);
+        try {
+          secret.authenticate(connection.in, connection.out);
+        } catch (EOFException | SocketTimeoutException e) {
+          throw new AuthenticationException("The listener doesn't answer the handshake", e);
+        } catch (IOException e) {
+          throw new AuthenticationException(e.getMessage(), e);
+        }
+        return connection;
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+    }
+
+    WorkerProtocol.Response compile(WorkerProtocol.Request request,
+                                    CompilationDeadline deadline) throws IOException {
+      socket.setSoTimeout(deadline.isBounded()
+              ? (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline.getRemainingNanos()))
+              : 0);
+      WorkerProtocol.writeRequest(out, request.withDeadline(deadline));
+      return WorkerProtocol.readResponse(in);
+    }
+
+    void shutdown() {
+      try {
+        WorkerProtocol.writeShutdown(out);
+      } catch (IOException e) {
+        // the server is gone already
+      }
+      close();
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // nothing left to release
+      }
+    }
+  }
+
+  private static final class AuthenticationException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    AuthenticationException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  public static class Builder {
+    private String host = InetAddress.getLoopbackAddress().getHostAddress();
+    private int port = CompileService.DEFAULT_PORT;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration retryInterval = Duration.ofSeconds(10);
+    private CompilerBackend fallback;
+    private Path secretFile;
+
+    private Builder() {
+
+    }
+
+    /**
+     * The host of the server, defaults to the loopback address.
+     *
+     * @param host the host name or address
+     * @return the builder
+     */
+    public Builder withHost(String host) {
+      this.host = Objects.requireNonNull(host);
+      return this;
+    }
+
+    /**
+     * The port of the server, defaults to {@link CompileService#DEFAULT_PORT}.
+     *
+     * @param port the port
+     * @return the builder
+     */
+    public Builder withPort(int port) {
+      if (port < 1 || port > 65535) {
+        throw new IllegalArgumentException("port has to be between 1 and 65535 but got ["
+                + port + "]");
+      }
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * The file the server wrote its secret to, defaults to
+     * {@link CompileServerSecret#defaultFile(int)} of the port. It is read at every connection
+     * attempt, so a restarted server with a new secret is picked up.
+     *
+     * @param secretFile the secret file
+     * @return the builder
+     */
+    public Builder withSecretFile(Path secretFile) {
+      this.secretFile = Objects.requireNonNull(secretFile);
+      return this;
+    }
+
+    public Builder withConnectTimeout(Duration connectTimeout) {
+      this.connectTimeout = CompilationDeadline.requirePositive(connectTimeout);
+      return this;
+    }
+
+    /**
+     * How long compilations go to the fallback backend after the server could not be
+     * reached, before it is tried again. Defaults to 10 seconds.
+     *
+     * @param retryInterval the time between connection attempts
+     * @return the builder
+     */
+    public Builder withRetryInterval(Duration retryInterval) {
+      this.retryInterval = CompilationDeadline.requirePositive(retryInterval);
+      return this;
+    }
+
+    /**
+     * The backend compiling while the server is not available, defaults to javac in process.
+     *
+     * @param fallback the fallback backend
+     * @return the builder
+     */
+    public Builder withFallback(CompilerBackend fallback) {
+      this.fallback = Objects.requireNonNull(fallback);
+      return this;
+    }
+
+    public RemoteCompilerBackend build() {
+      return new RemoteCompilerBackend(this);
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.rubenmathews.bytereactor;
 
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public interface RuntimeCompiler {
 
@@ -14,6 +16,30 @@ public interface RuntimeCompiler {
   Map<String, Class<?>> loadClasses(CompilationRequestBatch collection,
                                     ClassLoader classLoader);
 
+  default <T> Supplier<T> factory(CompilationRequest compilationRequest, Class<T> type) {
+    return InstanceFactory.supplier(loadClass(compilationRequest), type);
+  }
+
+  default <T> Supplier<T> factory(CompilationRequest compilationRequest,
+                                  ClassLoader classLoader,
+                                  Class<T> type) {
+    return InstanceFactory.supplier(loadClass(compilationRequest, classLoader), type);
+  }
+
+  default <A, T> Function<A, T> factory(CompilationRequest compilationRequest,
+                                        Class<T> type,
+                                        Class<A> argumentType) {
+    return InstanceFactory.function(loadClass(compilationRequest), type, argumentType);
+  }
+
+  default <A, T> Function<A, T> factory(CompilationRequest compilationRequest,
+                                        ClassLoader classLoader,
+                                        Class<T> type,
+                                        Class<A> argumentType) {
+    return InstanceFactory.function(loadClass(compilationRequest, classLoader), type,
+            argumentType);
+  }
+
   default void clearCache() {
 
   }
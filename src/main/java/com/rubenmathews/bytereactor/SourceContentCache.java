@@ -0,0 +1,166 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads source files and caches the decoded content, so javac asking for the content of a file
+ * source again doesn't read and decode the file again. A cached entry is valid as long as the
+ * modification time and the size of the file are unchanged.
+ *
+ * <p>Larger files are read through a memory-mapped buffer and decoded straight from it, without
+ * copying the bytes to the heap first. Malformed input is replaced, like javac does, unless the
+ * read is strict. The decoded content is held softly, it is dropped before the JVM runs out of
+ * memory, and the least recently read files are evicted when the cache holds more than
+ * {@value #MAX_CHARS} characters or {@value #MAX_ENTRIES} files.
+ */
+final class SourceContentCache {
+
+  static final long MAX_CHARS = 32L * 1024 * 1024;
+  static final int MAX_ENTRIES = 16 * 1024;
+  private static final long MAP_THRESHOLD = 16 * 1024;
+  private static final Map<Path, Entry> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+  private static long cachedChars;
+
+  private SourceContentCache() {
+  }
+
+  /**
+   * Return the content of the source file, decoded with the given charset.
+   *
+   * @param path    The source file
+   * @param charset The charset of the source file
+   * @param strict  Fail on malformed input instead of replacing it
+   * @return the decoded content
+   * @throws IOException If the file cannot be read, or is malformed in the given charset and
+   *                     the read is strict
+   */
+  static String read(Path path, Charset charset, boolean strict) throws IOException {
+    Path key = path.toAbsolutePath().normalize();
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    FileTime lastModified = attributes.lastModifiedTime();
+    String content = get(key, lastModified, attributes.size(), charset, strict);
+    if (content != null) {
+      return content;
+    }
+    boolean replaced = false;
+    try {
+      content = decode(key, charset, CodingErrorAction.REPORT);
+    } catch (CharacterCodingException e) {
+      if (strict) {
+        throw e;
+      }
+      content = decode(key, charset, CodingErrorAction.REPLACE);
+      replaced = true;
+    }
+    put(key, new Entry(lastModified, attributes.size(), charset, content, replaced));
+    return content;
+  }
+
+  static synchronized void invalidate(Path path) {
+    remove(path.toAbsolutePath().normalize());
+  }
+
+  static synchronized void clear() {
+    CACHE.clear();
+    cachedChars = 0;
+  }
+
+  static synchronized int size() {
+    return CACHE.size();
+  }
+
+  private static synchronized String get(Path key, FileTime lastModified, long size,
+                                         Charset charset, boolean strict) {
+    Entry entry = CACHE.get(key);
+    return entry != null ? entry.get(lastModified, size, charset, strict) : null;
+  }
+
+  private static synchronized void put(Path key, Entry entry) {
+    remove(key);
+    if (entry.length > MAX_CHARS) {
+      return;
+    }
+    CACHE.put(key, entry);
+    cachedChars += entry.length;
+    Iterator<Entry> eldest = CACHE.values().iterator();
+    while (cachedChars > MAX_CHARS || CACHE.size() > MAX_ENTRIES) {
+      cachedChars -= eldest.next().length;
+      eldest.remove();
+    }
+  }
+
+  private static void remove(Path key) {
+    Entry removed = CACHE.remove(key);
+    if (removed != null) {
+      cachedChars -= removed.length;
+    }
+  }
+
+  private static String decode(Path path, Charset charset, CodingErrorAction errorAction)
+          throws IOException {
+    CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(errorAction)
+            .onUnmappableCharacter(errorAction);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Source file " + path + " is too large");
+      }
+      ByteBuffer bytes;
+      if (size >= MAP_THRESHOLD) {
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        bytes = ByteBuffer.allocate((int) size);
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+          // read until the buffer is full or the end of the file is reached
+        }
+        // through Buffer, ByteBuffer.flip() compiled on Java 9 or later doesn't exist on Java 8
+        ((Buffer) bytes).flip();
+      }
+      return decoder.decode(bytes).toString();
+    }
+  }
+
+  private static final class Entry {
+    private final FileTime lastModified;
+    private final long size;
+    private final Charset charset;
+    private final SoftReference<String> content;
+    private final int length;
+    private final boolean replaced;
+
+    private Entry(FileTime lastModified, long size, Charset charset, String content,
+                  boolean replaced) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.charset = charset;
+      this.content = new SoftReference<>(content);
+      this.length = content.length();
+      this.replaced = replaced;
+    }
+
+    private String get(FileTime lastModified, long size, Charset charset, boolean strict) {
+      if (!this.lastModified.equals(lastModified) || this.size != size
+              || !this.charset.equals(charset) || (strict && replaced)) {
+        return null;
+      }
+      return content.get();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.processing.Processor;
+
+/**
+ * A SHA-256 digest of everything a compilation depends on: the sources with their class names,
+ * the javac options, the annotation processors and the class path visible to javac. Two
+ * compilations with the same fingerprint produce the same result, whichever class loader the
+ * classes are defined in.
+ */
+final class SourceFingerprint {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private SourceFingerprint() {
+  }
+
+  /**
+   * Fingerprint the compilation of the units.
+   *
+   * @param compilationUnits The units compiled together
+   * @param options          The javac options
+   * @param processors       The annotation processors
+   * @param classPath        The fingerprint of the class path, see {@link #ofClassPath}
+   * @return the hex encoded digest, null if a source cannot be read
+   */
+  static String of(List<CompilationUnit> compilationUnits, List<String> options,
+                   Collection<? extends Processor> processors, String classPath) {
+    MessageDigest digest = newDigest();
+    update(digest, classPath);
+    for (String option : options) {
+      update(digest, option);
+    }
+    List<String> processorNames = new ArrayList<>();
+    processors.forEach(processor -> processorNames.add(processor.getClass().getName()));
+    Collections.sort(processorNames);
+    for (String processorName : processorNames) {
+      update(digest, processorName);
+    }
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      update(digest, compilationUnit.getClassName());
+      try {
+        update(digest, compilationUnit.getCharContent(false).toString());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Fingerprint the class path by its entries with their sizes and modification times. Changes
+   * inside a class directory which don't touch the directory itself are not noticed.
+   *
+   * @param classPath The class path entries, null for none
+   * @return the hex encoded digest
+   */
+  static String ofClassPath(Iterable<? extends File> classPath) {
+    MessageDigest digest = newDigest();
+    if (classPath != null) {
+      for (File entry : classPath) {
+        update(digest, entry.getAbsolutePath() + '|' + entry.length() + '|'
+                + entry.lastModified());
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Fingerprint classes which only exist as bytecode, e.g. the classes of a
+   * {@link LibraryLayer} other compilations are compiled against.
+   *
+   * @param classes The bytecode by binary class name
+   * @return the hex encoded digest
+   */
+  static String ofClasses(Map<String, byte[]> classes) {
+    MessageDigest digest = newDigest();
+    for (Map.Entry<String, byte[]> entry : new TreeMap<>(classes).entrySet()) {
+      update(digest, entry.getKey());
+      byte[] bytecode = entry.getValue();
+      int length = bytecode.length;
+      digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16),
+          (byte) (length >>> 8), (byte) length});
+      digest.update(bytecode);
+    }
+    return toHex(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    // the length keeps the boundaries of the values, ("ab", "c") and ("a", "bc") differ
+    int length = bytes.length;
+    digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16),
+        (byte) (length >>> 8), (byte) length});
+    digest.update(bytes);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(hex);
+  }
+}
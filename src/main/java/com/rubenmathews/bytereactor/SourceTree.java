@@ -0,0 +1,295 @@
+package com.rubenmathews.bytereactor;
+
+import com.rubenmathews.bytereactor.util.ByteReactorUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The Java sources below a directory or inside a source jar. The class name of every source is
+ * inferred from its path relative to the root, {@code com/example/Rule.java} becomes
+ * {@code com.example.Rule}. {@code package-info.java} and {@code module-info.java} are skipped.
+ *
+ * <p>The tree is listed when it is built. Adding it to a {@link CompilationRequestBatch} reads
+ * all sources in parallel: files of a directory are decoded into the {@link SourceContentCache},
+ * where javac finds them while the files are unchanged, entries of a jar are decoded into
+ * string sources.
+ */
+public final class SourceTree {
+
+  private final Path root;
+  private final boolean jar;
+  private final Charset charset;
+  private final int parallelism;
+  private final boolean strictDecoding;
+  private final List<Source> sources;
+
+  private SourceTree(Builder builder) {
+    this.root = builder.root;
+    this.jar = builder.jar;
+    this.charset = builder.charset;
+    this.parallelism = builder.parallelism;
+    this.strictDecoding = builder.strictDecoding;
+    this.sources = Collections.unmodifiableList(list(builder));
+  }
+
+  /**
+   * Start building the source tree of a source directory, e.g. {@code src/main/java}.
+   *
+   * @param directory The root directory of the sources
+   * @return the builder
+   */
+  public static SourceTree.Builder fromDirectory(Path directory) {
+    return new Builder(directory, false);
+  }
+
+  /**
+   * Start building the source tree of a source jar, sources are expected at the root of the jar.
+   *
+   * @param sourceJar The source jar
+   * @return the builder
+   */
+  public static SourceTree.Builder fromJar(Path sourceJar) {
+    return new Builder(sourceJar, true);
+  }
+
+  public List<String> getClassNames() {
+    return sources.stream().map(source -> source.className).collect(Collectors.toList());
+  }
+
+  public CompilationRequestBatch toBatch() {
+    return CompilationRequestBatch.builder().add(this).build();
+  }
+
+  /**
+   * Read all sources in parallel and create their compilation units.
+   *
+   * @return the compilation units in the order the sources were listed
+   * @throws CompilationFailedException If a source cannot be read
+   */
+  List<CompilationUnit> read() {
+    ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(parallelism, Math.max(1, sources.size())), SourceTree::newReaderThread);
+    try (ZipFile zipFile = jar ? new ZipFile(root.toFile()) : null) {
+      List<CompletableFuture<CompilationUnit>> compilationUnits = new ArrayList<>();
+      for (Source source : sources) {
+        compilationUnits.add(CompletableFuture.supplyAsync(() -> zipFile != null
+                ? readJarEntry(zipFile, source) : readFile(source), executor));
+      }
+      return compilationUnits.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to open source jar " + root, e);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Thread newReaderThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "byte-reactor-source-reader");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private CompilationUnit readFile(Source source) {
+    Path path = root.resolve(source.path);
+    try {
+      SourceContentCache.read(path, charset, strictDecoding);
+    } catch (IOException e) {
+      // javac reads the file again and reports the problem as a diagnostic of the source
+    }
+    CompilationUnit compilationUnit = new CompilationUnit(path.toFile(), charset,
+            source.className, null);
+    compilationUnit.setStrictDecoding(strictDecoding);
+    return compilationUnit;
+  }
+
+  private CompilationUnit readJarEntry(ZipFile zipFile, Source source) {
+    ZipEntry entry = zipFile.getEntry(source.path);
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+              entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+      byte[] buffer = new byte[8192];
+      int read = in.read(buffer);
+      while (read >= 0) {
+        bytes.write(buffer, 0, read);
+        read = in.read(buffer);
+      }
+      CodingErrorAction errorAction = strictDecoding ? CodingErrorAction.REPORT
+              : CodingErrorAction.REPLACE;
+      String code = charset.newDecoder()
+              .onMalformedInput(errorAction)
+              .onUnmappableCharacter(errorAction)
+              .decode(ByteBuffer.wrap(bytes.toByteArray()))
+              .toString();
+      return new CompilationUnit(code, source.className, null);
+    } catch (CharacterCodingException e) {
+      throw new CompilationFailedException("Source " + source.path + " in " + root
+              + " is not valid " + charset, e);
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to read source " + source.path + " in "
+              + root, e);
+    }
+  }
+
+  private static List<Source> list(Builder builder) {
+    List<String> paths;
+    try {
+      paths = builder.jar ? listJar(builder.root) : listDirectory(builder.root);
+    } catch (IOException e) {
+      throw new CompilationFailedException("Unable to list sources of " + builder.root, e);
+    }
+    List<Source> sources = new ArrayList<>();
+    for (String path : paths) {
+      String className = toClassName(path);
+      if (className != null && builder.filter.test(className)) {
+        sources.add(new Source(path, className));
+      }
+    }
+    Collections.sort(sources, (left, right) -> left.path.compareTo(right.path));
+    return sources;
+  }
+
+  /**
+   * Infer the class name of a source from its path relative to the root of the tree.
+   *
+   * @param path The relative path, separated by slashes
+   * @return the class name, null if the path is not a compilable source
+   */
+  static String toClassName(String path) {
+    String fileName = path.substring(path.lastIndexOf('/') + 1);
+    if (!path.endsWith(ByteReactorUtil.SOURCE_EXTENSION)
+            || fileName.equals("package-info.java") || fileName.equals("module-info.java")) {
+      return null;
+    }
+    return path.substring(0, path.length() - ByteReactorUtil.SOURCE_EXTENSION.length())
+            .replace('/', '.');
+  }
+
+  private static List<String> listDirectory(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile)
+              .map(file -> directory.relativize(file).toString().replace('\\', '/'))
+              .collect(Collectors.toList());
+    }
+  }
+
+  private static List<String> listJar(Path sourceJar) throws IOException {
+    try (ZipFile zipFile = new ZipFile(sourceJar.toFile())) {
+      return zipFile.stream()
+              .filter(entry -> !entry.isDirectory())
+              .map(ZipEntry::getName)
+              .collect(Collectors.toList());
+    }
+  }
+
+  private static final class Source {
+    private final String path;
+    private final String className;
+
+    private Source(String path, String className) {
+      this.path = path;
+      this.className = className;
+    }
+  }
+
+  public static class Builder {
+    private final Path root;
+    private final boolean jar;
+    private Charset charset = StandardCharsets.UTF_8;
+    private Predicate<String> filter = className -> true;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean strictDecoding;
+
+    private Builder(Path root, boolean jar) {
+      this.root = Objects.requireNonNull(root);
+      this.jar = jar;
+    }
+
+    /**
+     * The charset the sources are encoded in, defaults to UTF-8.
+     *
+     * @param charset the charset of the sources
+     * @return the builder
+     */
+    public Builder withCharset(Charset charset) {
+      this.charset = Objects.requireNonNull(charset);
+      return this;
+    }
+
+    /**
+     * Fail on sources which are malformed in the charset, instead of replacing the malformed
+     * input.
+     *
+     * @return the builder
+     */
+    public Builder withStrictDecoding() {
+      this.strictDecoding = true;
+      return this;
+    }
+
+    /**
+     * Only include sources whose inferred class name matches the filter.
+     *
+     * @param filter the class name filter
+     * @return the builder
+     */
+    public Builder withFilter(Predicate<String> filter) {
+      this.filter = Objects.requireNonNull(filter);
+      return this;
+    }
+
+    /**
+     * The number of threads reading sources, defaults to the number of available processors.
+     *
+     * @param parallelism the number of reader threads
+     * @return the builder
+     */
+    public Builder withParallelism(int parallelism) {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("parallelism has to be positive but got ["
+                + parallelism + "]");
+      }
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * List the sources of the tree.
+     *
+     * @return the source tree
+     * @throws FileNotFoundException If the directory or the jar doesn't exist
+     */
+    public SourceTree build() {
+      if (jar ? !Files.isRegularFile(root) : !Files.isDirectory(root)) {
+        throw new FileNotFoundException("Unable to locate source "
+                + (jar ? "jar " : "directory ") + root);
+      }
+      return new SourceTree(this);
+    }
+  }
+}
@@ -0,0 +1,279 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * The compile namespace of one tenant of a {@link ByteReactor}. Classes of a namespace are
+ * defined in class loaders owned by the namespace, so tenants never share classes, class
+ * loaders or cache entries, even when they pass the same parent class loader.
+ *
+ * <p>The {@link TenantQuota} of the namespace limits its compile time per window and the number
+ * and bytecode size of the classes it defines. With a {@link CompileScheduler} the compile slots
+ * are shared between namespaces by weighted fair queuing, see the scheduler.
+ *
+ * <p>Like the class loaders of the ByteReactor, the class loaders of a namespace don't keep their
+ * parents reachable. Once a class loader of the namespace is collected with its parent, its
+ * classes and bytecode no longer count against the quota.
+ */
+public final class TenantNamespace implements RuntimeCompiler {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported()
+          && THREADS.isThreadCpuTimeEnabled();
+
+  private final String tenant;
+  private final ByteReactor byteReactor;
+  private final CompileScheduler compileScheduler;
+  private final ClassLoaderRegistry classLoaders = new ClassLoaderRegistry();
+  // usage by class loader of the namespace, entries go away when the class loader is collected
+  private final Map<ClassLoader, Usage> usage = new WeakHashMap<>();
+  private volatile TenantQuota quota;
+  private boolean closed;
+  private long quotaRejections;
+  private long compilations;
+  private long compileTimeNanos;
+  private long windowStart = System.nanoTime();
+  private long windowCompileTimeNanos;
+
+  TenantNamespace(String tenant, TenantQuota quota, ByteReactor byteReactor,
+                  CompileScheduler compileScheduler) {
+    this.tenant = Objects.requireNonNull(tenant);
+    this.byteReactor = byteReactor;
+    this.compileScheduler = compileScheduler;
+    setQuota(quota);
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  public TenantQuota getQuota() {
+    return quota;
+  }
+
+  /**
+   * Replace the quota of the namespace, usage recorded so far counts against the new quota.
+   *
+   * @param quota the new quota
+   * @throws IllegalArgumentException If the quota limits concurrent compilations but the
+   *                                  ByteReactor has no {@link CompileScheduler}
+   */
+  void setQuota(TenantQuota quota) {
+    if (compileScheduler == null
+            && quota.getMaxConcurrentCompilations() != Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Limiting the concurrent compilations of tenant ["
+              + tenant + "] requires a CompileScheduler");
+    }
+    this.quota = quota;
+    if (compileScheduler != null) {
+      compileScheduler.register(tenant, quota.getWeight(), quota.getMaxConcurrentCompilations());
+    }
+  }
+
+  @Override
+  public Class<?> loadClass(CompilationRequest compilationRequest) {
+    return loadClass(compilationRequest, null);
+  }
+
+  @Override
+  public Class<?> loadClass(CompilationRequest compilationRequest, ClassLoader classLoader) {
+    Objects.requireNonNull(compilationRequest);
+    CompilationUnit unit = compilationRequest.getCompilationUnit();
+    return load(Collections.singletonList(unit), classLoader).get(unit.getClassName());
+  }
+
+  @Override
+  public Map<String, Class<?>> loadClasses(CompilationRequestBatch collection) {
+    return loadClasses(collection, null);
+  }
+
+  @Override
+  public Map<String, Class<?>> loadClasses(CompilationRequestBatch collection,
+                                           ClassLoader classLoader) {
+    Objects.requireNonNull(collection, "Null Compilation request collection provided");
+    return load(collection.getCollection(), classLoader);
+  }
+
+  /**
+   * A snapshot of the scheduling and resource usage of the namespace.
+   *
+   * @return the statistics
+   */
+  public synchronized TenantStatistics getStatistics() {
+    rollWindow();
+    Usage total = total();
+    return new TenantStatistics(tenant, quota,
+            compileScheduler == null ? null : compileScheduler.getUsage(tenant),
+            quotaRejections, compilations, compileTimeNanos, windowCompileTimeNanos,
+            total.classes, total.bytecodeBytes, classLoaders.size());
+  }
+
+  /**
+   * Drop the class loaders and the cached classes of the namespace. Classes loaded afterwards
+   * are compiled again into new class loaders, the class and bytecode usage starts over.
+   */
+  @Override
+  public void clearCache() {
+    List<DynamicClassLoader> removed;
+    synchronized (this) {
+      removed = classLoaders.clear();
+      usage.clear();
+    }
+    for (DynamicClassLoader classLoader : removed) {
+      byteReactor.evict(classLoader);
+      ByteReactorEvents.loaderRemoved(classLoader.getParent());
+    }
+  }
+
+  /**
+   * Drop the classes of the namespace and remove it from its ByteReactor.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    clearCache();
+    if (compileScheduler != null) {
+      compileScheduler.unregister(tenant);
+    }
+    byteReactor.removeNamespace(this);
+  }
+
+  /**
+   * Reject the compilation if the namespace used up its compile time of the current window.
+   *
+   * @throws CompilationRejectedException If the compile time quota is used up
+   */
+  synchronized void checkQuota() {
+    if (closed) {
+      throw new IllegalStateException("Namespace of tenant [" + tenant + "] is closed");
+    }
+    if (!quota.hasCompileTimeLimit()) {
+      return;
+    }
+    rollWindow();
+    if (windowCompileTimeNanos >= quota.getMaxCompileTime().toNanos()) {
+      quotaRejections++;
+      throw new CompilationRejectedException("Tenant [" + tenant + "] used up its compile time "
+              + "of " + quota.getMaxCompileTime().toMillis() + " ms per "
+              + quota.getCompileTimeWindow().toMillis() + " ms");
+    }
+  }
+
+  /**
+   * Run the compilation of the units, charge its time to the namespace and reserve the quota
+   * for the compiled classes.
+   *
+   * @param compilationUnits The units compiled
+   * @param classLoader      The class loader of the namespace the classes are defined in
+   * @param inWorker         Whether the units are compiled in a worker JVM
+   * @param compilation      The compilation
+   * @throws CompilationRejectedException If the classes would exceed the class or bytecode
+   *                                      quota, the compiled classes are discarded
+   */
+  void compile(List<CompilationUnit> compilationUnits, ClassLoader classLoader, boolean inWorker,
+               Runnable compilation) {
+    boolean cpuTime = CPU_TIME && !inWorker;
+    long started = cpuTime ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    try {
+      compilation.run();
+    } finally {
+      long used = (cpuTime ? THREADS.getCurrentThreadCpuTime() : System.nanoTime()) - started;
+      synchronized (this) {
+        rollWindow();
+        compilations++;
+        compileTimeNanos += used;
+        windowCompileTimeNanos += used;
+      }
+    }
+    reserve(compilationUnits, classLoader);
+  }
+
+  /**
+   * Reserve the quota for the classes the units were compiled to, until the class loader they
+   * are defined in is dropped or collected.
+   *
+   * @param compilationUnits The compiled units
+   * @param classLoader      The class loader of the namespace the classes are defined in
+   * @throws CompilationRejectedException If the classes would exceed the class or bytecode
+   *                                      quota, the compiled classes are discarded
+   */
+  void reserve(List<CompilationUnit> compilationUnits, ClassLoader classLoader) {
+    long compiledClasses = 0;
+    long compiledBytes = 0;
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      for (CompiledCode compiledCode : compilationUnit.getCompiledClasses().values()) {
+        compiledClasses++;
+        compiledBytes += compiledCode.size();
+      }
+    }
+    synchronized (this) {
+      Usage total = total();
+      long classes = total.classes;
+      long bytecodeBytes = total.bytecodeBytes;
+      if (classes + compiledClasses > quota.getMaxClasses()
+              || bytecodeBytes + compiledBytes > quota.getMaxBytecodeBytes()) {
+        quotaRejections++;
+        compilationUnits.forEach(CompilationUnit::close);
+        throw new CompilationRejectedException("Tenant [" + tenant + "] would exceed its quota "
+                + "of " + quota.getMaxClasses() + " classes and " + quota.getMaxBytecodeBytes()
+                + " bytes of bytecode, it defined " + classes + " classes with " + bytecodeBytes
+                + " bytes and compiled " + compiledClasses + " classes with " + compiledBytes
+                + " bytes");
+      }
+      Usage loaderUsage = usage.computeIfAbsent(classLoader, key -> new Usage());
+      loaderUsage.classes += compiledClasses;
+      loaderUsage.bytecodeBytes += compiledBytes;
+    }
+  }
+
+  private Map<String, Class<?>> load(List<CompilationUnit> compilationUnits,
+                                     ClassLoader classLoader) {
+    return byteReactor.compileAndLoadClasses(getClassLoader(classLoader), compilationUnits, this);
+  }
+
+  private synchronized DynamicClassLoader getClassLoader(ClassLoader classLoader) {
+    if (closed) {
+      throw new IllegalStateException("Namespace of tenant [" + tenant + "] is closed");
+    }
+    ClassLoader parent = classLoader != null ? classLoader : byteReactor.getParentClassLoader();
+    return classLoaders.get(parent);
+  }
+
+  private Usage total() {
+    Usage total = new Usage();
+    for (Usage loaderUsage : usage.values()) {
+      total.classes += loaderUsage.classes;
+      total.bytecodeBytes += loaderUsage.bytecodeBytes;
+    }
+    return total;
+  }
+
+  private void rollWindow() {
+    if (!quota.hasCompileTimeLimit()) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (now - windowStart >= quota.getCompileTimeWindow().toNanos()) {
+      windowStart = now;
+      windowCompileTimeNanos = 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TenantNamespace{tenant=" + tenant + ", quota=" + quota + '}';
+  }
+
+  private static final class Usage {
+    private long classes;
+    private long bytecodeBytes;
+  }
+}
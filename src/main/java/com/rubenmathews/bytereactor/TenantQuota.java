@@ -0,0 +1,175 @@
+package com.rubenmathews.bytereactor;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The share of the compile slots and the resource limits of a {@link TenantNamespace}.
+ * All limits are unbounded unless set.
+ */
+public final class TenantQuota {
+
+  private final int weight;
+  private final int maxConcurrentCompilations;
+  private final Duration maxCompileTime;
+  private final Duration compileTimeWindow;
+  private final long maxClasses;
+  private final long maxBytecodeBytes;
+
+  private TenantQuota(Builder builder) {
+    this.weight = builder.weight;
+    this.maxConcurrentCompilations = builder.maxConcurrentCompilations;
+    this.maxCompileTime = builder.maxCompileTime;
+    this.compileTimeWindow = builder.compileTimeWindow;
+    this.maxClasses = builder.maxClasses;
+    this.maxBytecodeBytes = builder.maxBytecodeBytes;
+  }
+
+  public static TenantQuota.Builder builder() {
+    return new Builder();
+  }
+
+  public static TenantQuota unlimited() {
+    return builder().build();
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  public int getMaxConcurrentCompilations() {
+    return maxConcurrentCompilations;
+  }
+
+  public Duration getMaxCompileTime() {
+    return maxCompileTime;
+  }
+
+  public Duration getCompileTimeWindow() {
+    return compileTimeWindow;
+  }
+
+  public long getMaxClasses() {
+    return maxClasses;
+  }
+
+  public long getMaxBytecodeBytes() {
+    return maxBytecodeBytes;
+  }
+
+  boolean hasCompileTimeLimit() {
+    return maxCompileTime != null;
+  }
+
+  @Override
+  public String toString() {
+    return "TenantQuota{"
+            + "weight=" + weight
+            + ", maxConcurrentCompilations=" + maxConcurrentCompilations
+            + ", maxCompileTime=" + maxCompileTime
+            + ", compileTimeWindow=" + compileTimeWindow
+            + ", maxClasses=" + maxClasses
+            + ", maxBytecodeBytes=" + maxBytecodeBytes
+            + '}';
+  }
+
+  public static class Builder {
+    private int weight = 1;
+    private int maxConcurrentCompilations = Integer.MAX_VALUE;
+    private Duration maxCompileTime;
+    private Duration compileTimeWindow;
+    private long maxClasses = Long.MAX_VALUE;
+    private long maxBytecodeBytes = Long.MAX_VALUE;
+
+    private Builder() {
+
+    }
+
+    /**
+     * The share of the compile slots of the tenant relative to the other tenants, defaults to 1.
+     * A tenant of weight 2 gets twice the slots of a tenant of weight 1 while both are waiting.
+     *
+     * @param weight the weight of the tenant
+     * @return the builder
+     */
+    public Builder withWeight(int weight) {
+      this.weight = requirePositive(weight, "weight");
+      return this;
+    }
+
+    /**
+     * The number of compile slots the tenant may hold at the same time. Requires a
+     * {@link CompileScheduler}.
+     *
+     * @param maxConcurrentCompilations the maximum number of concurrent compilations
+     * @return the builder
+     */
+    public Builder withMaxConcurrentCompilations(int maxConcurrentCompilations) {
+      this.maxConcurrentCompilations = requirePositive(maxConcurrentCompilations,
+              "maxConcurrentCompilations");
+      return this;
+    }
+
+    /**
+     * The compile time the tenant may use per window. Compilations are rejected once the
+     * tenant has used up the time of the current window. In process, the CPU time of the
+     * compiling thread is charged, compilations in worker JVMs are charged their elapsed time.
+     *
+     * @param maxCompileTime the compile time per window
+     * @param window         the length of the window
+     * @return the builder
+     */
+    public Builder withMaxCompileTime(Duration maxCompileTime, Duration window) {
+      this.maxCompileTime = requirePositive(maxCompileTime, "maxCompileTime");
+      this.compileTimeWindow = requirePositive(window, "window");
+      return this;
+    }
+
+    /**
+     * The number of classes the tenant may define. Compilations which would exceed it are
+     * rejected without defining any of their classes.
+     *
+     * @param maxClasses the maximum number of classes
+     * @return the builder
+     */
+    public Builder withMaxClasses(long maxClasses) {
+      this.maxClasses = requirePositive(maxClasses, "maxClasses");
+      return this;
+    }
+
+    /**
+     * The total bytecode size of the classes the tenant may define. Compilations which would
+     * exceed it are rejected without defining any of their classes.
+     *
+     * @param maxBytecodeBytes the maximum bytecode size
+     * @return the builder
+     */
+    public Builder withMaxBytecodeBytes(long maxBytecodeBytes) {
+      this.maxBytecodeBytes = requirePositive(maxBytecodeBytes, "maxBytecodeBytes");
+      return this;
+    }
+
+    public TenantQuota build() {
+      return new TenantQuota(this);
+    }
+
+    private static Duration requirePositive(Duration duration, String name) {
+      if (Objects.requireNonNull(duration).isNegative() || duration.isZero()) {
+        throw new IllegalArgumentException(name + " has to be positive but got ["
+                + duration + "]");
+      }
+      return duration;
+    }
+
+    private static int requirePositive(int value, String name) {
+      return (int) requirePositive((long) value, name);
+    }
+
+    private static long requirePositive(long value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " has to be positive but got [" + value + "]");
+      }
+      return value;
+    }
+  }
+}
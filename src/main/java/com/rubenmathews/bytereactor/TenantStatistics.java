@@ -0,0 +1,141 @@
+package com.rubenmathews.bytereactor;
+
+/**
+ * A snapshot of the scheduling and the resource usage of one {@link TenantNamespace}.
+ */
+public final class TenantStatistics {
+
+  private final String tenant;
+  private final TenantQuota quota;
+  private final int queued;
+  private final int running;
+  private final long admitted;
+  private final long rejected;
+  private final long quotaRejections;
+  private final long totalQueueWaitNanos;
+  private final long maxQueueWaitNanos;
+  private final long compilations;
+  private final long compileTimeNanos;
+  private final long windowCompileTimeNanos;
+  private final long classes;
+  private final long bytecodeBytes;
+  private final int classLoaders;
+
+  TenantStatistics(String tenant, TenantQuota quota, CompileScheduler.TenantUsage usage,
+                   long quotaRejections, long compilations, long compileTimeNanos,
+                   long windowCompileTimeNanos, long classes, long bytecodeBytes,
+                   int classLoaders) {
+    this.tenant = tenant;
+    this.quota = quota;
+    this.queued = usage == null ? 0 : usage.queued;
+    this.running = usage == null ? 0 : usage.running;
+    this.admitted = usage == null ? 0 : usage.admitted;
+    this.rejected = usage == null ? 0 : usage.rejected;
+    this.totalQueueWaitNanos = usage == null ? 0 : usage.totalQueueWaitNanos;
+    this.maxQueueWaitNanos = usage == null ? 0 : usage.maxQueueWaitNanos;
+    this.quotaRejections = quotaRejections;
+    this.compilations = compilations;
+    this.compileTimeNanos = compileTimeNanos;
+    this.windowCompileTimeNanos = windowCompileTimeNanos;
+    this.classes = classes;
+    this.bytecodeBytes = bytecodeBytes;
+    this.classLoaders = classLoaders;
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  public TenantQuota getQuota() {
+    return quota;
+  }
+
+  /**
+   * The compilations of the tenant waiting for a compile slot, always zero without a
+   * {@link CompileScheduler}.
+   *
+   * @return the number of waiting compilations
+   */
+  public int getQueued() {
+    return queued;
+  }
+
+  public int getRunning() {
+    return running;
+  }
+
+  public long getAdmitted() {
+    return admitted;
+  }
+
+  /**
+   * The compilations rejected by the {@link CompileScheduler}, because a queue was full or
+   * the maximum queue wait elapsed.
+   *
+   * @return the number of compilations rejected by the scheduler
+   */
+  public long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * The compilations rejected because they would have exceeded the quota of the tenant.
+   *
+   * @return the number of compilations rejected by the quota
+   */
+  public long getQuotaRejections() {
+    return quotaRejections;
+  }
+
+  public long getTotalQueueWaitNanos() {
+    return totalQueueWaitNanos;
+  }
+
+  public long getMaxQueueWaitNanos() {
+    return maxQueueWaitNanos;
+  }
+
+  public long getCompilations() {
+    return compilations;
+  }
+
+  public long getCompileTimeNanos() {
+    return compileTimeNanos;
+  }
+
+  public long getWindowCompileTimeNanos() {
+    return windowCompileTimeNanos;
+  }
+
+  public long getClasses() {
+    return classes;
+  }
+
+  public long getBytecodeBytes() {
+    return bytecodeBytes;
+  }
+
+  public int getClassLoaders() {
+    return classLoaders;
+  }
+
+  @Override
+  public String toString() {
+    return "TenantStatistics{"
+            + "tenant=" + tenant
+            + ", queued=" + queued
+            + ", running=" + running
+            + ", admitted=" + admitted
+            + ", rejected=" + rejected
+            + ", quotaRejections=" + quotaRejections
+            + ", totalQueueWaitNanos=" + totalQueueWaitNanos
+            + ", maxQueueWaitNanos=" + maxQueueWaitNanos
+            + ", compilations=" + compilations
+            + ", compileTimeNanos=" + compileTimeNanos
+            + ", windowCompileTimeNanos=" + windowCompileTimeNanos
+            + ", classes=" + classes
+            + ", bytecodeBytes=" + bytecodeBytes
+            + ", classLoaders=" + classLoaders
+            + '}';
+  }
+}
@@ -0,0 +1,141 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Configuration of the background compiler warm-up started by {@link ByteReactorBuilder}.
+ *
+ * <p>The warm-up compiles a set of synthetic sources together with the given representative
+ * sources repeatedly, until the compile time stops improving, the maximum number of iterations
+ * is reached or the maximum duration has elapsed. Classes compiled during the warm-up are
+ * discarded, they are neither loaded nor cached.
+ */
+public final class Warmup {
+
+  private final List<Supplier<CompilationUnit>> sources;
+  private final boolean syntheticSources;
+  private final int minIterations;
+  private final int maxIterations;
+  private final Duration maxDuration;
+
+  private Warmup(Builder builder) {
+    this.sources = Collections.unmodifiableList(new ArrayList<>(builder.sources));
+    this.syntheticSources = builder.syntheticSources;
+    this.minIterations = builder.minIterations;
+    this.maxIterations = builder.maxIterations;
+    this.maxDuration = builder.maxDuration;
+  }
+
+  public static Warmup.Builder builder() {
+    return new Builder();
+  }
+
+  List<CompilationUnit> createCompilationUnits() {
+    List<CompilationUnit> compilationUnits = new ArrayList<>();
+    if (syntheticSources) {
+      compilationUnits.addAll(WarmupSources.createCompilationUnits());
+    }
+    sources.forEach(source -> compilationUnits.add(source.get()));
+    return compilationUnits;
+  }
+
+  int getMinIterations() {
+    return minIterations;
+  }
+
+  int getMaxIterations() {
+    return maxIterations;
+  }
+
+  Duration getMaxDuration() {
+    return maxDuration;
+  }
+
+  public static class Builder {
+    private final List<Supplier<CompilationUnit>> sources = new ArrayList<>();
+    private boolean syntheticSources = true;
+    private int minIterations = 10;
+    private int maxIterations = 200;
+    private Duration maxDuration = Duration.ofSeconds(60);
+
+    private Builder() {
+
+    }
+
+    public Builder add(String sourceCode, String className) {
+      sources.add(() -> new CompilationUnit(sourceCode, className, null));
+      return this;
+    }
+
+    /**
+     * Add a representative source file, read again on every warm-up iteration.
+     *
+     * @param source    The source file
+     * @param className The class name of the source
+     * @return the builder
+     */
+    public Builder add(File source, String className) {
+      Objects.requireNonNull(source);
+      sources.add(() -> new CompilationUnit(source, className, null));
+      return this;
+    }
+
+    public Builder withoutSyntheticSources() {
+      this.syntheticSources = false;
+      return this;
+    }
+
+    /**
+     * The number of iterations always compiled, before the compile time is checked.
+     *
+     * @param minIterations minimum number of iterations
+     * @return the builder
+     */
+    public Builder withMinIterations(int minIterations) {
+      requirePositive(minIterations, "minIterations");
+      this.minIterations = minIterations;
+      return this;
+    }
+
+    /**
+     * The maximum number of iterations, even if the compile time still improves.
+     *
+     * @param maxIterations maximum number of iterations
+     * @return the builder
+     */
+    public Builder withMaxIterations(int maxIterations) {
+      requirePositive(maxIterations, "maxIterations");
+      this.maxIterations = maxIterations;
+      return this;
+    }
+
+    public Builder withMaxDuration(Duration maxDuration) {
+      this.maxDuration = Objects.requireNonNull(maxDuration);
+      return this;
+    }
+
+    /**
+     * Build the warm-up configuration.
+     *
+     * @return the warm-up configuration
+     */
+    public Warmup build() {
+      if (!syntheticSources && sources.isEmpty()) {
+        throw new IllegalArgumentException("Nothing to compile during warm-up");
+      }
+      return new Warmup(this);
+    }
+
+    private static void requirePositive(int value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " has to be positive but got [" + value + "]");
+      }
+    }
+  }
+}
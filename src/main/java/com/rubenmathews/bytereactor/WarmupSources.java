@@ -0,0 +1,68 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Synthetic sources exercising the common javac paths: generics and type inference, lambdas,
+ * inner classes, string switches and annotations.
+ */
+final class WarmupSources {
+
+  private static final String PACKAGE = "com.rubenmathews.bytereactor.warmup";
+
+  private static final String GENERIC_SOURCE = "package " + PACKAGE + ";\n"
+          + "import java.util.*;\n"
+          + "import java.util.function.*;\n"
+          + "import java.util.stream.*;\n"
+          + "public class WarmupGenerics<T extends Comparable<T>> implements Supplier<List<T>> {\n"
+          + "  private final Map<String, List<T>> values = new HashMap<>();\n"
+          + "  public void add(String key, T value) {\n"
+          + "    values.computeIfAbsent(key, k -> new ArrayList<>()).add(value);\n"
+          + "  }\n"
+          + "  @Override\n"
+          + "  public List<T> get() {\n"
+          + "    return values.values().stream()\n"
+          + "        .flatMap(Collection::stream)\n"
+          + "        .sorted(Comparator.naturalOrder())\n"
+          + "        .collect(Collectors.toList());\n"
+          + "  }\n"
+          + "  public <R> Optional<R> first(Function<? super T, ? extends R> mapper) {\n"
+          + "    return get().stream().findFirst().map(mapper);\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String NESTED_SOURCE = "package " + PACKAGE + ";\n"
+          + "public class WarmupNested implements Runnable {\n"
+          + "  private int counter;\n"
+          + "  @Override\n"
+          + "  public void run() {\n"
+          + "    Inner inner = new Inner();\n"
+          + "    for (String value : new String[] {\"a\", \"b\", \"c\"}) {\n"
+          + "      counter += inner.weight(value);\n"
+          + "    }\n"
+          + "  }\n"
+          + "  @Deprecated\n"
+          + "  public int getCounter() {\n"
+          + "    return counter;\n"
+          + "  }\n"
+          + "  private class Inner {\n"
+          + "    int weight(String value) {\n"
+          + "      switch (value) {\n"
+          + "        case \"a\": return 1;\n"
+          + "        case \"b\": return counter + 2;\n"
+          + "        default: return value.length();\n"
+          + "      }\n"
+          + "    }\n"
+          + "  }\n"
+          + "}\n";
+
+  private WarmupSources() {
+  }
+
+  static List<CompilationUnit> createCompilationUnits() {
+    return Arrays.asList(
+            new CompilationUnit(GENERIC_SOURCE, PACKAGE + ".WarmupGenerics", null),
+            new CompilationUnit(NESTED_SOURCE, PACKAGE + ".WarmupNested", null));
+  }
+}
@@ -0,0 +1,335 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+
+/**
+ * The binary protocol spoken over the standard streams of a compiler worker process.
+ *
+ * <p>A request holds the class name and source code of every unit, the javac options, the
+ * class names of the annotation processors and the time left to compile. A response holds the
+ * status, the diagnostics and, on success, the bytecode of every class compiled from each unit
+ * in request order. Only a {@link Status#COMPILATION_FAILED} response is a property of the
+ * sources, the other failures carry a message and no error diagnostics. A request with a
+ * negative unit count asks the worker to exit.
+ */
+final class WorkerProtocol {
+
+  private static final int SHUTDOWN = -1;
+
+  private WorkerProtocol() {
+  }
+
+  static void writeRequest(DataOutputStream out, Request request) throws IOException {
+    out.writeInt(request.getSources().size());
+    for (Source source : request.getSources()) {
+      writeString(out, source.getClassName());
+      writeString(out, source.getCode());
+    }
+    writeStrings(out, request.getOptions());
+    writeStrings(out, request.getProcessorClassNames());
+    out.writeLong(request.getTimeoutNanos());
+    out.flush();
+  }
+
+  static void writeShutdown(DataOutputStream out) throws IOException {
+    out.writeInt(SHUTDOWN);
+    out.flush();
+  }
+
+  /**
+   * Read the next request.
+   *
+   * @param in The stream to read from
+   * @return the request or null if the worker was asked to exit
+   * @throws IOException If the stream cannot be read
+   */
+  static Request readRequest(DataInputStream in) throws IOException {
+    int unitCount;
+    try {
+      unitCount = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    if (unitCount == SHUTDOWN) {
+      return null;
+    }
+    List<Source> sources = new ArrayList<>(unitCount);
+    for (int i = 0; i < unitCount; i++) {
+      sources.add(new Source(readString(in), readString(in)));
+    }
+    return new Request(sources, readStrings(in), readStrings(in), in.readLong());
+  }
+
+  static void writeResponse(DataOutputStream out, Response response) throws IOException {
+    out.writeByte(response.getStatus().ordinal());
+    writeString(out, response.getMessage());
+    out.writeInt(response.getDiagnostics().size());
+    for (DiagnosticEntry diagnostic : response.getDiagnostics()) {
+      writeString(out, diagnostic.getKind().name());
+      out.writeInt(diagnostic.getUnitIndex());
+      out.writeLong(diagnostic.getLineNumber());
+      out.writeLong(diagnostic.getColumnNumber());
+      writeString(out, diagnostic.getMessage());
+      writeString(out, diagnostic.getFormattedMessage());
+    }
+    out.writeInt(response.getCompiledClasses().size());
+    for (Map<String, byte[]> compiledClasses : response.getCompiledClasses()) {
+      out.writeInt(compiledClasses.size());
+      for (Map.Entry<String, byte[]> entry : compiledClasses.entrySet()) {
+        writeString(out, entry.getKey());
+        out.writeInt(entry.getValue().length);
+        out.write(entry.getValue());
+      }
+    }
+    out.flush();
+  }
+
+  static Response readResponse(DataInputStream in) throws IOException {
+    Status status = Status.values()[in.readByte()];
+    String message = readString(in);
+    int diagnosticCount = in.readInt();
+    List<DiagnosticEntry> diagnostics = new ArrayList<>(diagnosticCount);
+    for (int i = 0; i < diagnosticCount; i++) {
+      diagnostics.add(new DiagnosticEntry(Diagnostic.Kind.valueOf(readString(in)), in.readInt(),
+              in.readLong(), in.readLong(), readString(in), readString(in)));
+    }
+    int unitCount = in.readInt();
+    List<Map<String, byte[]>> compiledClasses = new ArrayList<>(unitCount);
+    for (int i = 0; i < unitCount; i++) {
+      int classCount = in.readInt();
+      Map<String, byte[]> unitClasses = new LinkedHashMap<>();
+      for (int j = 0; j < classCount; j++) {
+        String className = readString(in);
+        byte[] byteCode = new byte[in.readInt()];
+        in.readFully(byteCode);
+        unitClasses.put(className, byteCode);
+      }
+      compiledClasses.add(unitClasses);
+    }
+    return new Response(status, message, diagnostics, compiledClasses);
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+    out.writeInt(values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static final class Source {
+    private final String className;
+    private final String code;
+
+    Source(String className, String code) {
+      this.className = className;
+      this.code = code;
+    }
+
+    String getClassName() {
+      return className;
+    }
+
+    String getCode() {
+      return code;
+    }
+  }
+
+  /**
+   * The outcome of a compilation.
+   */
+  enum Status {
+    SUCCESS,
+    // javac rejected the sources, the diagnostics hold the errors
+    COMPILATION_FAILED,
+    // the compilation didn't finish in the time left
+    TIMED_OUT,
+    // the worker or server failed, e.g. it was overloaded, independent of the sources
+    UNAVAILABLE
+  }
+
+  static final class Request {
+    private final List<Source> sources;
+    private final List<String> options;
+    private final List<String> processorClassNames;
+    private final long timeoutNanos;
+
+    Request(List<Source> sources, List<String> options, List<String> processorClassNames) {
+      this(sources, options, processorClassNames, 0);
+    }
+
+    Request(List<Source> sources, List<String> options, List<String> processorClassNames,
+            long timeoutNanos) {
+      this.sources = sources;
+      this.options = options;
+      this.processorClassNames = processorClassNames;
+      this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * The same request with the time left to compile it.
+     *
+     * @param deadline The deadline of the compilation
+     * @return the request
+     */
+    Request withDeadline(CompilationDeadline deadline) {
+      return new Request(sources, options, processorClassNames,
+              deadline.isBounded() ? Math.max(1, deadline.getRemainingNanos()) : 0);
+    }
+
+    List<Source> getSources() {
+      return sources;
+    }
+
+    List<String> getOptions() {
+      return options;
+    }
+
+    List<String> getProcessorClassNames() {
+      return processorClassNames;
+    }
+
+    /**
+     * The time left to compile the request.
+     *
+     * @return the time left in nanoseconds, 0 if the compilation is unbounded
+     */
+    long getTimeoutNanos() {
+      return timeoutNanos;
+    }
+  }
+
+  static final class DiagnosticEntry {
+    private final Diagnostic.Kind kind;
+    private final int unitIndex;
+    private final long lineNumber;
+    private final long columnNumber;
+    private final String message;
+    private final String formattedMessage;
+
+    DiagnosticEntry(Diagnostic.Kind kind, int unitIndex, long lineNumber, long columnNumber,
+                    String message, String formattedMessage) {
+      this.kind = kind;
+      this.unitIndex = unitIndex;
+      this.lineNumber = lineNumber;
+      this.columnNumber = columnNumber;
+      this.message = message;
+      this.formattedMessage = formattedMessage;
+    }
+
+    Diagnostic.Kind getKind() {
+      return kind;
+    }
+
+    int getUnitIndex() {
+      return unitIndex;
+    }
+
+    long getLineNumber() {
+      return lineNumber;
+    }
+
+    long getColumnNumber() {
+      return columnNumber;
+    }
+
+    String getMessage() {
+      return message;
+    }
+
+    String getFormattedMessage() {
+      return formattedMessage;
+    }
+  }
+
+  static final class Response {
+    private final Status status;
+    private final String message;
+    private final List<DiagnosticEntry> diagnostics;
+    private final List<Map<String, byte[]>> compiledClasses;
+
+    private Response(Status status, String message, List<DiagnosticEntry> diagnostics,
+                     List<Map<String, byte[]>> compiledClasses) {
+      this.status = status;
+      this.message = message;
+      this.diagnostics = diagnostics;
+      this.compiledClasses = compiledClasses;
+    }
+
+    static Response success(List<DiagnosticEntry> diagnostics,
+                            List<Map<String, byte[]>> compiledClasses) {
+      return new Response(Status.SUCCESS, null, diagnostics, compiledClasses);
+    }
+
+    static Response failure(List<DiagnosticEntry> diagnostics) {
+      return new Response(Status.COMPILATION_FAILED, null, diagnostics, Collections.emptyList());
+    }
+
+    static Response failure(Status status, String message, List<DiagnosticEntry> diagnostics) {
+      return new Response(status, message, diagnostics, Collections.emptyList());
+    }
+
+    boolean isSuccess() {
+      return status == Status.SUCCESS;
+    }
+
+    Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Why the compilation failed independent of the sources.
+     *
+     * @return the message, null unless the compilation timed out or the worker was unavailable
+     */
+    String getMessage() {
+      return message;
+    }
+
+    List<DiagnosticEntry> getDiagnostics() {
+      return diagnostics;
+    }
+
+    List<Map<String, byte[]>> getCompiledClasses() {
+      return compiledClasses;
+    }
+  }
+}
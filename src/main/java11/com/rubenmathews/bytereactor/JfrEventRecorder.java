@@ -0,0 +1,204 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+final class JfrEventRecorder implements EventRecorder {
+
+  private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+  @Override
+  public Object beginCompile() {
+    CompileEvent event = new CompileEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.allocatedBytes = allocatedBytes();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endCompile(Object token, List<CompilationUnit> compilationUnits, boolean success) {
+    CompileEvent event = (CompileEvent) token;
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.classNames = compilationUnits.stream()
+            .map(CompilationUnit::getClassName)
+            .collect(Collectors.joining(","));
+    event.unitCount = compilationUnits.size();
+    event.sourceBytes = compilationUnits.stream().mapToLong(CompilationUnit::getSourceSize).sum();
+    event.success = success;
+    event.allocatedBytes = event.allocatedBytes < 0 ? -1 : allocatedBytes() - event.allocatedBytes;
+    event.commit();
+  }
+
+  @Override
+  public Object beginDefine() {
+    DefineEvent event = new DefineEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void endDefine(Object token, String className, Class<?> definedClass, int bytecodeSize) {
+    DefineEvent event = (DefineEvent) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.className = className;
+      event.definedClass = definedClass;
+      event.bytecodeSize = bytecodeSize;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void cacheHit(ClassLoader classLoader, String className) {
+    CacheHitEvent event = new CacheHitEvent();
+    if (event.shouldCommit()) {
+      event.className = className;
+      event.classLoader = String.valueOf(classLoader);
+      event.commit();
+    }
+  }
+
+  @Override
+  public void cacheMiss(ClassLoader classLoader, String className) {
+    CacheMissEvent event = new CacheMissEvent();
+    if (event.shouldCommit()) {
+      event.className = className;
+      event.classLoader = String.valueOf(classLoader);
+      event.commit();
+    }
+  }
+
+  @Override
+  public void loaderCreated(ClassLoader parent) {
+    LoaderCreatedEvent event = new LoaderCreatedEvent();
+    if (event.shouldCommit()) {
+      event.parentClassLoader = String.valueOf(parent);
+      event.commit();
+    }
+  }
+
+  @Override
+  public void loaderRemoved(ClassLoader parent) {
+    LoaderRemovedEvent event = new LoaderRemovedEvent();
+    if (event.shouldCommit()) {
+      event.parentClassLoader = String.valueOf(parent);
+      event.commit();
+    }
+  }
+
+  private static long allocatedBytes() {
+    return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+  }
+
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    try {
+      java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean
+              && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+              && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+        return (com.sun.management.ThreadMXBean) threads;
+      }
+    } catch (LinkageError e) {
+      // jdk.management is not part of the runtime
+    }
+    return null;
+  }
+
+  @Name("ByteReactorCompile")
+  @Label("ByteReactor Compile")
+  @Category({"ByteReactor"})
+  @Description("A compilation of one or more sources, in process or in a worker JVM")
+  static final class CompileEvent extends Event {
+    @Label("Class Names")
+    String classNames;
+
+    @Label("Unit Count")
+    int unitCount;
+
+    @Label("Source Size")
+    @Description("Bytes of file sources and characters of string sources")
+    @DataAmount
+    long sourceBytes;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the compiling thread, -1 if not measurable")
+    @DataAmount
+    long allocatedBytes;
+  }
+
+  @Name("ByteReactorDefine")
+  @Label("ByteReactor Define")
+  @Category({"ByteReactor"})
+  @Description("Definition of a compiled class")
+  static final class DefineEvent extends Event {
+    @Label("Class Name")
+    String className;
+
+    @Label("Defined Class")
+    Class<?> definedClass;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    int bytecodeSize;
+  }
+
+  @Name("ByteReactorCacheHit")
+  @Label("ByteReactor Cache Hit")
+  @Category({"ByteReactor"})
+  @StackTrace(false)
+  static final class CacheHitEvent extends Event {
+    @Label("Class Name")
+    String className;
+
+    @Label("Class Loader")
+    String classLoader;
+  }
+
+  @Name("ByteReactorCacheMiss")
+  @Label("ByteReactor Cache Miss")
+  @Category({"ByteReactor"})
+  @StackTrace(false)
+  static final class CacheMissEvent extends Event {
+    @Label("Class Name")
+    String className;
+
+    @Label("Class Loader")
+    String classLoader;
+  }
+
+  @Name("ByteReactorLoaderCreated")
+  @Label("ByteReactor Loader Created")
+  @Category({"ByteReactor"})
+  static final class LoaderCreatedEvent extends Event {
+    @Label("Parent Class Loader")
+    String parentClassLoader;
+  }
+
+  @Name("ByteReactorLoaderRemoved")
+  @Label("ByteReactor Loader Removed")
+  @Category({"ByteReactor"})
+  static final class LoaderRemovedEvent extends Event {
+    @Label("Parent Class Loader")
+    String parentClassLoader;
+  }
+}
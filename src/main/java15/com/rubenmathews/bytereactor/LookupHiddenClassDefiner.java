@@ -0,0 +1,16 @@
+package com.rubenmathews.bytereactor;
+
+import java.lang.invoke.MethodHandles;
+
+final class LookupHiddenClassDefiner implements HiddenClassDefiner {
+
+  @Override
+  public Class<?> define(MethodHandles.Lookup host, byte[] byteCode) {
+    try {
+      return host.defineHiddenClass(byteCode, true).lookupClass();
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Host lookup of " + host.lookupClass()
+              + " cannot define hidden classes, a lookup with full privilege access is required", e);
+    }
+  }
+}
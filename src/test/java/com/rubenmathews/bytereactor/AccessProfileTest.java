@@ -0,0 +1,135 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+class AccessProfileTest {
+
+    private static final String MULTIPLE_CLASS_NAME = "com.rubenmathews.bytereactor.MultipleClass";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenProfileWasRecorded_shouldPrecompileTheLoadedSourcesOnTheNextStart() throws Exception {
+        Path profileFile = directory.resolve("access.profile");
+        Path sourceFile = directory.resolve("SimpleJavaClass.java");
+        Files.write(sourceFile, TestSources.readResource("SimpleJavaClass.java"));
+        String multipleClassCode = TestSources.getCodeFromFile("MultipleClass.java");
+        AccessProfile profile = AccessProfile.builder(profileFile)
+                .withSourceLocator(className -> className.equals(MULTIPLE_CLASS_NAME) ? multipleClassCode : null)
+                .build();
+
+        ByteReactor recording = newByteReactor(profile, new CountingProcessor());
+        try {
+            recording.loadClass(new CompilationRequest(sourceFile.toFile(), ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+            recording.loadClass(new CompilationRequest(multipleClassCode, MULTIPLE_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+        } finally {
+            recording.close();
+        }
+        Assertions.assertThat(profileFile).exists();
+
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor replaying = newByteReactor(profile, processor);
+        try {
+            replaying.profileReplay().get(1, TimeUnit.MINUTES);
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(2);
+
+            Class<?> klass = replaying.loadClass(new CompilationRequest(sourceFile.toFile(),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+            replaying.loadClass(new CompilationRequest(multipleClassCode, MULTIPLE_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(2);
+        } finally {
+            replaying.close();
+        }
+    }
+
+    @Test
+    void whenSourceChangedSinceRecording_shouldPrecompileTheCurrentSource() throws Exception {
+        Path profileFile = directory.resolve("access.profile");
+        Path sourceFile = directory.resolve("SimpleJavaClass.java");
+        Files.write(sourceFile, TestSources.readResource("SimpleJavaClass.java"));
+        AccessProfile profile = AccessProfile.builder(profileFile).build();
+
+        ByteReactor recording = newByteReactor(profile, new CountingProcessor());
+        try {
+            recording.loadClass(new CompilationRequest(sourceFile.toFile(), ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+            recording.saveAccessProfile();
+        } finally {
+            recording.close();
+        }
+        Files.write(sourceFile, TestSources.readResource("SimpleJavaClassWithDifferentContent.java"));
+
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor replaying = newByteReactor(profile, processor);
+        try {
+            replaying.profileReplay().get(1, TimeUnit.MINUTES);
+            Class<?> klass = replaying.loadClass(new CompilationRequest(sourceFile.toFile(),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test2");
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+        } finally {
+            replaying.close();
+        }
+    }
+
+    @Test
+    void whenProfileIsDamagedOrSourcesAreGone_shouldSkipTheseEntries() throws Exception {
+        Path profileFile = directory.resolve("access.profile");
+        Path sourceFile = directory.resolve("SimpleJavaClass.java");
+        Files.write(sourceFile, TestSources.readResource("SimpleJavaClass.java"));
+        Files.write(profileFile, Arrays.asList(
+                "# byte-reactor access profile 1",
+                "E\tnot a number\t1",
+                "F\t" + ByteReactorTest.SIMPLE_TEST_CLASS_NAME + "\tUTF-8\t" + sourceFile.toAbsolutePath(),
+                "E\t10\t1",
+                "F\tcom.example.Gone\tUTF-8\t" + directory.resolve("Gone.java").toAbsolutePath(),
+                "S\t" + MULTIPLE_CLASS_NAME,
+                "garbage",
+                "E\t20\t3",
+                "F\t" + ByteReactorTest.SIMPLE_TEST_CLASS_NAME + "\tUTF-8\t" + sourceFile.toAbsolutePath()),
+                StandardCharsets.UTF_8);
+
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor replaying = newByteReactor(AccessProfile.builder(profileFile).build(), processor);
+        try {
+            replaying.profileReplay().get(1, TimeUnit.MINUTES);
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+        } finally {
+            replaying.close();
+        }
+    }
+
+    @Test
+    void whenProfileIsConfiguredWithoutBytecodeCache_shouldThrowException() {
+        AccessProfile profile = AccessProfile.builder(directory.resolve("access.profile"))
+                .withRecordingWindow(Duration.ofSeconds(30))
+                .build();
+
+        Assertions.assertThatThrownBy(() -> ByteReactorBuilder.builder().withAccessProfile(profile).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteReactor newByteReactor(AccessProfile profile, CountingProcessor processor) {
+        return ByteReactorBuilder.builder()
+                .withProcessor(processor)
+                .withBytecodeCache(1024 * 1024)
+                .withAccessProfile(profile)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.rubenmathews.bytereactor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@EnabledForJreRange(min = JRE.JAVA_11)
+class ByteReactorEventsTest {
+
+    private static final String[] EVENT_NAMES = {"ByteReactorCompile", "ByteReactorDefine", "ByteReactorCacheHit",
+            "ByteReactorCacheMiss", "ByteReactorLoaderCreated", "ByteReactorLoaderRemoved"};
+
+    @Test
+    void whenJfrIsAvailable_shouldUseTheFlightRecorder() {
+        Assertions.assertThat(ByteReactorEvents.isSupported()).isTrue();
+    }
+
+    @Test
+    void whenRecording_shouldEmitCompileDefineCacheAndLoaderEvents() throws Exception {
+        String code = new String(Files.readAllBytes(Paths.get("src/test/resources/SimpleJavaClass.java")));
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+        Path dump = Files.createTempFile("byte-reactor", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String eventName : EVENT_NAMES) {
+                recording.enable(eventName).withoutThreshold();
+            }
+            recording.start();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+                byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+                byteReactor.clearClassLoader(parent);
+            } finally {
+                byteReactor.close();
+            }
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                    .filter(event -> !"ByteReactorLoaderCreated".equals(event.getEventType().getName())
+                            && !"ByteReactorLoaderRemoved".equals(event.getEventType().getName())
+                            || String.valueOf(parent).equals(event.getString("parentClassLoader")))
+                    .collect(Collectors.toList());
+            RecordedEvent compile = single(events, "ByteReactorCompile");
+            Assertions.assertThat(compile.getString("classNames")).isEqualTo(ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            Assertions.assertThat(compile.getInt("unitCount")).isEqualTo(1);
+            Assertions.assertThat(compile.getLong("sourceBytes")).isEqualTo(code.length());
+            Assertions.assertThat(compile.getBoolean("success")).isTrue();
+            Assertions.assertThat(compile.getLong("allocatedBytes")).isPositive();
+            Assertions.assertThat(compile.getDuration()).isPositive();
+
+            RecordedEvent define = single(events, "ByteReactorDefine");
+            Assertions.assertThat(define.getString("className")).isEqualTo(ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            Assertions.assertThat(define.getClass("definedClass").getName()).isEqualTo(ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            Assertions.assertThat(define.getInt("bytecodeSize")).isPositive();
+
+            Assertions.assertThat(single(events, "ByteReactorCacheMiss").getString("className"))
+                    .isEqualTo(ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            Assertions.assertThat(single(events, "ByteReactorCacheHit").getString("className"))
+                    .isEqualTo(ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            single(events, "ByteReactorLoaderCreated");
+            single(events, "ByteReactorLoaderRemoved");
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @Test
+    void whenCompilationFails_shouldRecordAnUnsuccessfulCompile() throws Exception {
+        Path dump = Files.createTempFile("byte-reactor", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("ByteReactorCompile").withoutThreshold();
+            recording.start();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withReportLevel(DiagnosticReportLevel.NONE).build();
+            try {
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(
+                                new CompilationRequest("class Broken {", "Broken"), new ByteReactorTest.TestClassLoader()))
+                        .isInstanceOf(CompilationFailedException.class);
+            } finally {
+                byteReactor.close();
+            }
+            recording.stop();
+            recording.dump(dump);
+
+            RecordedEvent compile = single(RecordingFile.readAllEvents(dump), "ByteReactorCompile");
+            Assertions.assertThat(compile.getString("classNames")).isEqualTo("Broken");
+            Assertions.assertThat(compile.getBoolean("success")).isFalse();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String eventName) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> eventName.equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        Assertions.assertThat(matching).hasSize(1);
+        return matching.get(0);
+    }
+}
@@ -13,7 +13,12 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 class ByteReactorTest {
 
@@ -288,6 +293,86 @@ class ByteReactorTest {
     @Nested
     class CodeCollectionTest {
 
+        @Test
+        void whenSomeUnitsOfTheBatchDoNotCompile_shouldLoadTheOthersAndReportTheFailingUnits() throws Exception {
+            CountingProcessor processor = new CountingProcessor();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withProcessor(processor).build();
+            try {
+                String invalidClassName = TEST_PACKAGE_NAME + ".InvalidCode";
+                String dependentClassName = TEST_PACKAGE_NAME + ".DependsOnInvalidCode";
+                CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                        .add(getCodeFromFile("SimpleJavaClass.java"), SIMPLE_TEST_CLASS_NAME)
+                        .add(getCodeFromFile("InvalidCode.java"), invalidClassName)
+                        .add("package com.rubenmathews.bytereactor; public class DependsOnInvalidCode extends InvalidCode {}",
+                                dependentClassName)
+                        .add(getCodeFromFile("MultipleClass.java"), TEST_PACKAGE_NAME + ".MultipleClass")
+                        .build();
+
+                BatchResult result = byteReactor.loadAvailableClasses(batch, new TestClassLoader());
+
+                Assertions.assertThat(result.getClasses()).containsOnlyKeys(SIMPLE_TEST_CLASS_NAME,
+                        TEST_PACKAGE_NAME + ".MultipleClass", TEST_PACKAGE_NAME + ".RunnableCode");
+                TestRunnable runner = (TestRunnable) result.getClasses().get(SIMPLE_TEST_CLASS_NAME)
+                        .getDeclaredConstructor().newInstance();
+                Assertions.assertThat(runner.run()).isEqualTo("Test");
+                Assertions.assertThat(result.hasFailures()).isTrue();
+                Assertions.assertThat(result.getFailures()).containsOnlyKeys(invalidClassName, dependentClassName);
+                Assertions.assertThat(result.getFailures().get(invalidClassName).getDiagnostics())
+                        .allSatisfy(diagnostic -> Assertions.assertThat(diagnostic.getClassName()).isEqualTo(invalidClassName))
+                        .isNotEmpty();
+                Assertions.assertThat(processor.getCompilations()).isLessThanOrEqualTo(3);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenAnErrorIsNotAttributedToAUnit_shouldFailOnlyTheUnitRaisingIt() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withProcessor(new RejectingProcessor()).build();
+            try {
+                String rejectedClassName = TEST_PACKAGE_NAME + ".RejectedCode";
+                // the first half of the batch depends on the second half
+                CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                        .add("package com.rubenmathews.bytereactor; public class DependsOnDependency extends Dependency {}",
+                                TEST_PACKAGE_NAME + ".DependsOnDependency")
+                        .add(getCodeFromFile("SimpleJavaClass.java"), SIMPLE_TEST_CLASS_NAME)
+                        .add("package com.rubenmathews.bytereactor; public class RejectedCode {}", rejectedClassName)
+                        .add("package com.rubenmathews.bytereactor; public class Dependency {}", TEST_PACKAGE_NAME + ".Dependency")
+                        .build();
+
+                BatchResult result = byteReactor.loadAvailableClasses(batch, new TestClassLoader());
+
+                Assertions.assertThat(result.getClasses()).containsOnlyKeys(SIMPLE_TEST_CLASS_NAME,
+                        TEST_PACKAGE_NAME + ".DependsOnDependency", TEST_PACKAGE_NAME + ".Dependency");
+                Assertions.assertThat(result.getFailures()).containsOnlyKeys(rejectedClassName);
+                Assertions.assertThat(result.getFailures().get(rejectedClassName).getDiagnostics())
+                        .extracting(CompilationDiagnostic::getMessage)
+                        .contains("Rejected " + rejectedClassName);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenEveryUnitOfTheBatchCompiles_shouldLoadThemInOneCompilation() throws Exception {
+            CountingProcessor processor = new CountingProcessor();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withProcessor(processor).build();
+            try {
+                CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                        .add(getCodeFromFile("SimpleJavaClass.java"), SIMPLE_TEST_CLASS_NAME)
+                        .add(getCodeFromFile("MultipleClass.java"), TEST_PACKAGE_NAME + ".MultipleClass")
+                        .build();
+
+                BatchResult result = byteReactor.loadAvailableClasses(batch, new TestClassLoader());
+
+                Assertions.assertThat(result.hasFailures()).isFalse();
+                Assertions.assertThat(result.getClasses()).hasSize(3);
+                Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
         @Test
         void whenCodeCollectionIsProvided_shouldCompileAndLoadTheClasses() throws Exception {
             RuntimeCompiler runtimeCompiler = ByteReactorBuilder.builder().build();
@@ -384,7 +469,7 @@ class ByteReactorTest {
 
 
         @Test
-        void whenLoadingSameClassesIntoSameClassloader_shouldThrowException() throws Exception {
+        void whenLoadingSameClassesIntoSameClassloader_shouldReturnTheDefinedClass() throws Exception {
             ClassLoader classLevelClassLoader = new TestClassLoader();
             ByteReactor byteReactor = ByteReactorBuilder.builder().withClassLoader(classLevelClassLoader).build(); ;
             try {
@@ -396,8 +481,7 @@ class ByteReactorTest {
                 Assertions.assertThat(runner.run()).isEqualTo("Test");
                 byteReactor.clearCache();
                 byteReactor.clearClassLoaders();
-                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest))
-                        .isInstanceOf(LinkageError.class);
+                Assertions.assertThat(byteReactor.loadClass(compilationRequest)).isSameAs(klass);
             } finally {
                 byteReactor.close();
             }
@@ -541,9 +625,7 @@ class ByteReactorTest {
                 Class<?> cachedKlass = byteReactor.loadClass(compilationRequest);
                 Assertions.assertThat(cachedKlass).isEqualTo(klass);
                 byteReactor.clearCache();
-                Assertions.assertThatThrownBy(() ->
-                        byteReactor.loadClass(compilationRequest)
-                ).isInstanceOf(LinkageError.class);
+                Assertions.assertThat(byteReactor.loadClass(compilationRequest)).isSameAs(klass);
             } finally {
                 byteReactor.close();
             }
@@ -565,6 +647,261 @@ class ByteReactorTest {
                 byteReactor.close();
             }
         }
+
+        @Test
+        void whenBytecodeIsCached_andOnLoadClassWithDifferentClassLoader_shouldDefineItWithoutCompiling() throws Exception {
+            CountingProcessor processor = new CountingProcessor();
+            ByteReactor byteReactor = ByteReactorBuilder.builder()
+                    .withProcessor(processor)
+                    .withBytecodeCache(1024 * 1024)
+                    .build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME), new TestClassLoader());
+                Class<?> otherKlass = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME), new TestClassLoader());
+
+                Assertions.assertThat(otherKlass).isNotEqualTo(klass);
+                Assertions.assertThat(otherKlass.getClassLoader()).isNotSameAs(klass.getClassLoader());
+                TestRunnable runner = (TestRunnable) otherKlass.getDeclaredConstructor().newInstance();
+                Assertions.assertThat(runner.run()).isEqualTo("Test");
+                Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+
+                byteReactor.loadClass(new CompilationRequest(getCodeFromFile("SimpleJavaClassWithDifferentContent.java"),
+                        SIMPLE_TEST_CLASS_NAME), new TestClassLoader());
+                Assertions.assertThat(processor.getCompilations()).isEqualTo(2);
+            } finally {
+                byteReactor.close();
+            }
+        }
+    }
+
+
+    @Nested
+    class FactoryTest {
+        @Test
+        void whenFactoryIsRequested_shouldCreateNewInstancesOfTheLoadedClass() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                Supplier<TestRunnable> factory = byteReactor.factory(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME), TestRunnable.class);
+                TestRunnable runner = factory.get();
+                Assertions.assertThat(runner.run()).isEqualTo("Test");
+                Assertions.assertThat(factory.get()).isNotSameAs(runner);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenFactoryIsRequestedTwiceForTheSameClass_shouldReturnCachedFactory() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                CompilationRequest compilationRequest = new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME);
+                Supplier<TestRunnable> factory = byteReactor.factory(compilationRequest, TestRunnable.class);
+                Assertions.assertThat(byteReactor.factory(compilationRequest, TestRunnable.class)).isSameAs(factory);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenCacheIsCleared_shouldEvictTheFactory() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                CompilationRequest compilationRequest = new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME);
+                Class<?> klass = byteReactor.loadClass(compilationRequest);
+                Supplier<TestRunnable> factory = byteReactor.factory(compilationRequest, TestRunnable.class);
+                byteReactor.clearCache();
+                Assertions.assertThat(InstanceFactory.supplier(klass, TestRunnable.class)).isNotSameAs(factory);
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenFactoryWithArgumentIsRequested_shouldPassTheArgumentToTheConstructor() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String name = TEST_PACKAGE_NAME + ".ConstructorArgumentJavaClass";
+                String code = getCodeFromFile("ConstructorArgumentJavaClass.java");
+                Function<String, TestRunnable> factory = byteReactor.factory(new CompilationRequest(code, name), TestRunnable.class, String.class);
+                Assertions.assertThat(factory.apply("First").run()).isEqualTo("First");
+                Assertions.assertThat(factory.apply("Second").run()).isEqualTo("Second");
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenLoadedClassIsNotOfTheRequestedType_shouldThrowIllegalArgumentException() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                CompilationRequest compilationRequest = new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME);
+                Assertions.assertThatThrownBy(() -> byteReactor.factory(compilationRequest, Runnable.class))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("is not assignable to [java.lang.Runnable]");
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenConstructorWithTheArgumentTypeIsAbsent_shouldThrowIllegalArgumentException() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                String code = getCodeFromFile("SimpleJavaClass.java");
+                CompilationRequest compilationRequest = new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME);
+                Assertions.assertThatThrownBy(() -> byteReactor.factory(compilationRequest, TestRunnable.class, Integer.class))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("Cannot find constructor");
+            } finally {
+                byteReactor.close();
+            }
+        }
+    }
+
+
+    @Nested
+    class WarmupTest {
+        @Test
+        void whenWarmupIsConfigured_shouldCompleteTheWarmupInBackground() throws Exception {
+            String code = getCodeFromFile("SimpleJavaClass.java");
+            Warmup warmup = Warmup.builder()
+                    .add(code, SIMPLE_TEST_CLASS_NAME)
+                    .withMinIterations(1)
+                    .withMaxIterations(2)
+                    .build();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withWarmup(warmup).build();
+            try {
+                byteReactor.warmup().get(60, TimeUnit.SECONDS);
+                Assertions.assertThat(byteReactor.isWarmedUp()).isTrue();
+                Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME));
+                TestRunnable runner = (TestRunnable) klass.getDeclaredConstructor().newInstance();
+                Assertions.assertThat(runner.run()).isEqualTo("Test");
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenWarmupIsNotConfigured_shouldBeWarmedUpImmediately() {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                Assertions.assertThat(byteReactor.warmup()).isDone();
+                Assertions.assertThat(byteReactor.isWarmedUp()).isTrue();
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenWarmupSourceIsInvalid_shouldCompleteTheWarmupExceptionally() throws Exception {
+            Warmup warmup = Warmup.builder()
+                    .withoutSyntheticSources()
+                    .add(getCodeFromFile("InvalidCode.java"), TEST_PACKAGE_NAME + ".InvalidCode")
+                    .build();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withWarmup(warmup).build();
+            try {
+                Assertions.assertThatThrownBy(() -> byteReactor.warmup().get(60, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(CompilationFailedException.class);
+                Assertions.assertThat(byteReactor.isWarmedUp()).isFalse();
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenWarmupHasNoSources_shouldThrowIllegalArgumentException() {
+            Warmup.Builder builder = Warmup.builder().withoutSyntheticSources();
+            Assertions.assertThatThrownBy(builder::build)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Nothing to compile during warm-up");
+        }
+    }
+
+    @Nested
+    class TimeoutTest {
+        @Test
+        void whenCompilationExceedsTimeout_shouldThrowCompilationTimeoutExceptionWithoutDefiningClasses() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder()
+                    .withProcessor(new SlowProcessor(500))
+                    .withCompileTimeout(Duration.ofMillis(50))
+                    .build();
+            try {
+                ClassLoader classLoader = new TestClassLoader();
+                CompilationRequest compilationRequest = new CompilationRequest(getCodeFromFile("SimpleJavaClass.java"),
+                        SIMPLE_TEST_CLASS_NAME);
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, classLoader))
+                        .isInstanceOf(CompilationTimeoutException.class)
+                        .hasMessageContaining("did not finish within 50 ms");
+                Assertions.assertThatThrownBy(() -> DynamicClassLoader.instance(classLoader).loadClass(SIMPLE_TEST_CLASS_NAME))
+                        .isInstanceOf(ClassNotFoundException.class);
+                Assertions.assertThat(compilationRequest.getCompilationUnit().getCompiledClasses()).isEmpty();
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenRequestHasTimeout_shouldOverrideTheDefaultTimeout() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder()
+                    .withProcessor(new SlowProcessor(200))
+                    .withCompileTimeout(Duration.ofMillis(50))
+                    .build();
+            try {
+                CompilationRequest compilationRequest = new CompilationRequest(getCodeFromFile("SimpleJavaClass.java"),
+                        SIMPLE_TEST_CLASS_NAME).withTimeout(Duration.ofMinutes(1));
+                Class<?> klass = byteReactor.loadClass(compilationRequest, new TestClassLoader());
+                TestRunnable runner = (TestRunnable) klass.getDeclaredConstructor().newInstance();
+                Assertions.assertThat(runner.run()).isEqualTo("Test");
+            } finally {
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenCompilationWaitsForTheSchedulerPastItsTimeout_shouldThrowCompilationTimeoutException() throws Exception {
+            CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(1).build();
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withCompileScheduler(compileScheduler).build();
+            try (CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE)) {
+                CompilationRequest compilationRequest = new CompilationRequest(getCodeFromFile("SimpleJavaClass.java"),
+                        SIMPLE_TEST_CLASS_NAME).withTimeout(Duration.ofMillis(50));
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, new TestClassLoader()))
+                        .isInstanceOf(CompilationTimeoutException.class)
+                        .hasMessageContaining("did not finish within 50 ms");
+            } finally {
+                byteReactor.close();
+            }
+            Assertions.assertThat(compileScheduler.getRunning()).isZero();
+        }
+
+        @Test
+        void whenThreadIsInterruptedWithoutTimeout_shouldStopTheCompilation() throws Exception {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+            try {
+                CompilationRequest compilationRequest = new CompilationRequest(getCodeFromFile("SimpleJavaClass.java"),
+                        SIMPLE_TEST_CLASS_NAME);
+                Thread.currentThread().interrupt();
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, new TestClassLoader()))
+                        .isInstanceOf(CompilationFailedException.class)
+                        .hasMessageContaining("Compilation was interrupted");
+            } finally {
+                Thread.interrupted();
+                byteReactor.close();
+            }
+        }
+
+        @Test
+        void whenTimeoutIsNotPositive_shouldThrowIllegalArgumentException() {
+            CompilationRequest compilationRequest = new CompilationRequest("", SIMPLE_TEST_CLASS_NAME);
+            Assertions.assertThatThrownBy(() -> compilationRequest.withTimeout(Duration.ZERO))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Timeout has to be positive");
+        }
     }
 
 
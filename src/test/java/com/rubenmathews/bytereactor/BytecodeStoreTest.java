@@ -0,0 +1,104 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+class BytecodeStoreTest {
+
+    private static final String TEST_PACKAGE_NAME = "com.rubenmathews.bytereactor";
+
+    @Test
+    void whenBytecodeFitsOffHeap_shouldKeepItInDirectMemory() {
+        BytecodeStore store = BytecodeStore.builder().withChunkSize(64).withMaxOffHeapBytes(1024).build();
+        byte[] bytecode = bytes(40, 1);
+
+        BytecodeStore.Slot slot = store.store(bytecode);
+        BytecodeStore.Slot largeSlot = store.store(bytes(100, 2));
+
+        Assertions.assertThat(store.read(slot)).isEqualTo(bytecode);
+        Assertions.assertThat(store.read(largeSlot)).isEqualTo(bytes(100, 2));
+        Assertions.assertThat(store.getOffHeapBytes()).isEqualTo(140);
+        Assertions.assertThat(store.getSpilledBytes()).isZero();
+
+        store.release(slot);
+        store.release(largeSlot);
+        Assertions.assertThat(store.getOffHeapBytes()).isZero();
+    }
+
+    @Test
+    void whenOffHeapLimitIsReached_shouldSpillToFiles(@TempDir Path spillDirectory) {
+        BytecodeStore store = BytecodeStore.builder()
+                .withChunkSize(64)
+                .withMaxOffHeapBytes(64)
+                .withSpillDirectory(spillDirectory)
+                .build();
+
+        BytecodeStore.Slot offHeap = store.store(bytes(60, 1));
+        BytecodeStore.Slot spilled = store.store(bytes(60, 2));
+
+        Assertions.assertThat(store.getOffHeapBytes()).isEqualTo(60);
+        Assertions.assertThat(store.getSpilledBytes()).isEqualTo(60);
+        Assertions.assertThat(store.read(offHeap)).isEqualTo(bytes(60, 1));
+        Assertions.assertThat(store.read(spilled)).isEqualTo(bytes(60, 2));
+        Assertions.assertThat(spillDirectory).as("spill files are deleted once mapped").isEmptyDirectory();
+
+        store.release(spilled);
+        Assertions.assertThat(store.getSpilledBytes()).isZero();
+    }
+
+    @Test
+    void whenSpillIsCompressed_shouldRestoreTheOriginalBytecode(@TempDir Path spillDirectory) {
+        BytecodeStore store = BytecodeStore.builder()
+                .withMaxOffHeapBytes(0)
+                .withSpillDirectory(spillDirectory)
+                .withCompressedSpill()
+                .build();
+        byte[] bytecode = new byte[4096];
+        Arrays.fill(bytecode, (byte) 7);
+
+        BytecodeStore.Slot slot = store.store(bytecode);
+
+        Assertions.assertThat(store.getSpilledBytes()).isLessThan(bytecode.length);
+        Assertions.assertThat(slot.size()).isEqualTo(bytecode.length);
+        Assertions.assertThat(store.read(slot)).isEqualTo(bytecode);
+    }
+
+    @Test
+    void whenBatchIsLoadedThroughTheStore_shouldReleaseTheBytecodeOnceTheClassesAreDefined(@TempDir Path spillDirectory)
+            throws Exception {
+        BytecodeStore store = BytecodeStore.builder()
+                .withChunkSize(1024)
+                .withMaxOffHeapBytes(1024)
+                .withSpillDirectory(spillDirectory)
+                .withCompressedSpill()
+                .build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withBytecodeStore(store).build();
+        try {
+            CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                    .add(TestSources.getCodeFromFile("SimpleJavaClass.java"), ByteReactorTest.SIMPLE_TEST_CLASS_NAME)
+                    .add(TestSources.getCodeFromFile("InnerClassWithMultipleClass.java"), TEST_PACKAGE_NAME + ".InnerClassWithMultipleClass")
+                    .build();
+
+            Map<String, Class<?>> classes = byteReactor.loadClasses(batch, new ByteReactorTest.TestClassLoader());
+
+            TestRunnable runner = (TestRunnable) classes.get(TEST_PACKAGE_NAME + ".InnerClassWithMultipleClass")
+                    .getDeclaredConstructor().newInstance();
+            Assertions.assertThat(runner.run()).isEqualTo("Response From Inner Class.Result From Another class");
+            Assertions.assertThat(store.getOffHeapBytes()).isZero();
+            Assertions.assertThat(store.getSpilledBytes()).isZero();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private static byte[] bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,110 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+class ClassLoaderRegistryTest {
+
+    private static final long COLLECT_TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void whenParentIsRegisteredTwice_shouldReturnTheSameClassLoader() {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+
+        DynamicClassLoader dynamicClassLoader = registry.get(parent);
+
+        Assertions.assertThat(registry.get(parent)).isSameAs(dynamicClassLoader);
+        Assertions.assertThat(dynamicClassLoader.getParent()).isSameAs(parent);
+        Assertions.assertThat(registry.get(new ByteReactorTest.TestClassLoader())).isNotSameAs(dynamicClassLoader);
+        Assertions.assertThat(registry.remove(parent)).isSameAs(dynamicClassLoader);
+        Assertions.assertThat(registry.get(parent)).isNotSameAs(dynamicClassLoader);
+    }
+
+    @Test
+    void whenParentBecomesUnreachable_shouldPurgeItsEntry() throws Exception {
+        ClassLoaderRegistry registry = new ClassLoaderRegistry();
+        WeakReference<ClassLoader> parent = register(registry);
+
+        awaitCollected(parent);
+
+        Assertions.assertThat(awaitPurged(registry)).isZero();
+    }
+
+    @Test
+    void whenClassOfTheLoaderIsReachable_shouldKeepTheLoaderAndItsParent() throws Exception {
+        String code = new String(Files.readAllBytes(Paths.get("src/test/resources/SimpleJavaClass.java")));
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            ClassLoader parent = new ByteReactorTest.TestClassLoader();
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+            WeakReference<ClassLoader> parentReference = new WeakReference<>(parent);
+            parent = null;
+
+            System.gc();
+
+            Assertions.assertThat(parentReference.get()).isNotNull();
+            Assertions.assertThat(DynamicClassLoader.instance(parentReference.get())).isSameAs(klass.getClassLoader());
+            Assertions.assertThat(byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    parentReference.get())).isSameAs(klass);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenClassesAreLoadedIntoAParentPerRequest_shouldNotKeepTheParents() throws Exception {
+        String code = new String(Files.readAllBytes(Paths.get("src/test/resources/SimpleJavaClass.java")));
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            List<WeakReference<ClassLoader>> parents = new ArrayList<>();
+            for (int request = 0; request < 3; request++) {
+                parents.add(loadInNewParent(byteReactor, code));
+            }
+            for (WeakReference<ClassLoader> parent : parents) {
+                awaitCollected(parent);
+            }
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private static WeakReference<ClassLoader> register(ClassLoaderRegistry registry) {
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+        registry.get(parent);
+        return new WeakReference<>(parent);
+    }
+
+    private static WeakReference<ClassLoader> loadInNewParent(ByteReactor byteReactor, String code) throws Exception {
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+        Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+        Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+        Assertions.assertThat(byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent))
+                .isSameAs(klass);
+        return new WeakReference<>(parent);
+    }
+
+    private static void awaitCollected(WeakReference<?> reference) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + COLLECT_TIMEOUT_MILLIS;
+        while (reference.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(reference.get()).as("collected").isNull();
+    }
+
+    private static int awaitPurged(ClassLoaderRegistry registry) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + COLLECT_TIMEOUT_MILLIS;
+        while (registry.size() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return registry.size();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class ClassStreamTest {
+
+    private static final String TEST_PACKAGE_NAME = "com.rubenmathews.bytereactor";
+
+    @Test
+    void whenBatchIsStreamed_shouldHandOverEveryClassAsItIsDefined() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            ClassLoader parent = new ByteReactorTest.TestClassLoader();
+            byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+            List<String> classNames = new ArrayList<>();
+
+            byteReactor.streamClasses(newBatch(), parent, (className, loadedClass) -> {
+                Assertions.assertThat(loadedClass.getName()).isEqualTo(className);
+                classNames.add(className);
+            });
+
+            Assertions.assertThat(classNames).as("cached classes come first")
+                    .startsWith(ByteReactorTest.SIMPLE_TEST_CLASS_NAME)
+                    .containsExactlyInAnyOrder(ByteReactorTest.SIMPLE_TEST_CLASS_NAME, TEST_PACKAGE_NAME + ".Base",
+                            TEST_PACKAGE_NAME + ".Derived");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenClassIsUsedBeforeTheClassesItRefersToAreHandedOver_shouldResolveThem() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try (ClassStream classStream = byteReactor.openClassStream(newBatch(), new ByteReactorTest.TestClassLoader(), 1)) {
+            List<String> results = new ArrayList<>();
+            while (classStream.hasNext()) {
+                Map.Entry<String, Class<?>> entry = classStream.next();
+                if (entry.getKey().endsWith("Derived")) {
+                    TestRunnable runner = (TestRunnable) entry.getValue().getDeclaredConstructor().newInstance();
+                    results.add(runner.run());
+                }
+            }
+            Assertions.assertThat(results).containsExactly("Base");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenBatchFails_shouldThrowTheFailureFromTheStream() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                    .add(TestSources.getCodeFromFile("InvalidCode.java"), TEST_PACKAGE_NAME + ".InvalidCode")
+                    .build();
+            ClassStream classStream = byteReactor.openClassStream(batch, 4);
+
+            Assertions.assertThatThrownBy(classStream::hasNext).isInstanceOf(CompilationFailedException.class);
+            Assertions.assertThat(classStream.hasNext()).isFalse();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenStreamIsClosedEarly_shouldStopHandingOverClasses() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            ClassStream classStream = byteReactor.openClassStream(newBatch(), new ByteReactorTest.TestClassLoader(), 1);
+            Assertions.assertThat(classStream.hasNext()).isTrue();
+            classStream.close();
+
+            Assertions.assertThat(classStream.hasNext()).isFalse();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    /*
+     * Derived is compiled in the first unit and extends Base of the second unit, so it is defined
+     * before the class it depends on.
+     */
+    private CompilationRequestBatch newBatch() throws Exception {
+        return CompilationRequestBatch.builder()
+                .add("package com.rubenmathews.bytereactor; public class Derived extends Base implements TestRunnable {"
+                        + " public String run() { return name(); } }", TEST_PACKAGE_NAME + ".Derived")
+                .add("package com.rubenmathews.bytereactor; public class Base { protected String name() { return \"Base\"; } }",
+                        TEST_PACKAGE_NAME + ".Base")
+                .add(TestSources.getCodeFromFile("SimpleJavaClass.java"), ByteReactorTest.SIMPLE_TEST_CLASS_NAME)
+                .build();
+    }
+}
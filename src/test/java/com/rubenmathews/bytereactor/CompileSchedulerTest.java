@@ -0,0 +1,209 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CompileSchedulerTest {
+
+    @Test
+    void whenAllSlotsAreTaken_shouldQueueTheCompilationUntilASlotIsReleased() throws Exception {
+        CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(1).build();
+        CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE);
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() ->
+                compileScheduler.acquire(CompilationPriority.INTERACTIVE).close());
+        awaitQueued(compileScheduler, CompilationPriority.INTERACTIVE, 1);
+        Assertions.assertThat(waiting).isNotDone();
+
+        permit.close();
+        waiting.get(10, TimeUnit.SECONDS);
+        LaneStatistics statistics = compileScheduler.getStatistics(CompilationPriority.INTERACTIVE);
+        Assertions.assertThat(statistics.getAdmitted()).isEqualTo(2);
+        Assertions.assertThat(statistics.getMaxQueueWaitNanos()).isPositive();
+        Assertions.assertThat(compileScheduler.getRunning()).isZero();
+    }
+
+    @Test
+    void whenInteractiveAndBulkCompilationsAreWaiting_shouldAdmitInteractiveFirst() throws Exception {
+        CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(1).build();
+        List<CompilationPriority> admissionOrder = new CopyOnWriteArrayList<>();
+        CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE);
+        CompletableFuture<Void> bulk = acquireAsync(compileScheduler, CompilationPriority.BULK, admissionOrder);
+        awaitQueued(compileScheduler, CompilationPriority.BULK, 1);
+        CompletableFuture<Void> interactive = acquireAsync(compileScheduler, CompilationPriority.INTERACTIVE, admissionOrder);
+        awaitQueued(compileScheduler, CompilationPriority.INTERACTIVE, 1);
+
+        permit.close();
+        CompletableFuture.allOf(bulk, interactive).get(10, TimeUnit.SECONDS);
+        Assertions.assertThat(admissionOrder).containsExactly(CompilationPriority.INTERACTIVE, CompilationPriority.BULK);
+    }
+
+    @Test
+    void whenQueueIsFullAndPolicyIsReject_shouldRejectImmediately() {
+        CompileScheduler compileScheduler = CompileScheduler.builder()
+                .withMaxConcurrentCompilations(1)
+                .withMaxQueueDepth(CompilationPriority.BULK, 0)
+                .withRejectionPolicy(RejectionPolicy.REJECT)
+                .build();
+        try (CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE)) {
+            Assertions.assertThatThrownBy(() -> compileScheduler.acquire(CompilationPriority.BULK))
+                    .isInstanceOf(CompilationRejectedException.class)
+                    .hasMessageContaining("Queue of BULK compilations is full");
+        }
+        Assertions.assertThat(compileScheduler.getStatistics(CompilationPriority.BULK).getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void whenMaxQueueWaitElapses_shouldRejectTheCompilation() {
+        CompileScheduler compileScheduler = CompileScheduler.builder()
+                .withMaxConcurrentCompilations(1)
+                .withMaxQueueWait(Duration.ofMillis(50))
+                .build();
+        try (CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE)) {
+            Assertions.assertThatThrownBy(() -> compileScheduler.acquire(CompilationPriority.INTERACTIVE))
+                    .isInstanceOf(CompilationRejectedException.class)
+                    .hasMessageContaining("Timed out");
+        }
+        Assertions.assertThat(compileScheduler.getStatistics(CompilationPriority.INTERACTIVE).getQueued()).isZero();
+        Assertions.assertThat(compileScheduler.getRunning()).isZero();
+    }
+
+    @Test
+    void whenByteReactorUsesScheduler_shouldAdmitCompilationsButNotCacheHits() throws Exception {
+        AtomicLong reportedWaits = new AtomicLong();
+        CompileScheduler compileScheduler = CompileScheduler.builder()
+                .withQueueWaitListener((priority, nanos) -> reportedWaits.incrementAndGet())
+                .build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompileScheduler(compileScheduler).build();
+        try {
+            String code = new String(Files.readAllBytes(Paths.get("src/test/resources/SimpleJavaClass.java")));
+            CompilationRequest compilationRequest = new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME)
+                    .withPriority(CompilationPriority.BULK);
+            ClassLoader classLoader = new ByteReactorTest.TestClassLoader();
+            byteReactor.loadClass(compilationRequest, classLoader);
+            byteReactor.loadClass(compilationRequest, classLoader);
+            Assertions.assertThat(compileScheduler.getStatistics(CompilationPriority.BULK).getAdmitted()).isEqualTo(1);
+            Assertions.assertThat(reportedWaits).hasValue(1);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenListenerIsCalled_shouldNotHoldTheLockOfTheScheduler() throws Exception {
+        CompileScheduler[] compileScheduler = new CompileScheduler[1];
+        AtomicLong statisticsRead = new AtomicLong();
+        compileScheduler[0] = CompileScheduler.builder()
+                .withQueueWaitListener((priority, nanos) -> {
+                    try {
+                        CompletableFuture.runAsync(() -> compileScheduler[0].getStatistics(priority))
+                                .get(10, TimeUnit.SECONDS);
+                        statisticsRead.incrementAndGet();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .build();
+
+        compileScheduler[0].acquire(CompilationPriority.INTERACTIVE).close();
+
+        Assertions.assertThat(statisticsRead).hasValue(1);
+        Assertions.assertThat(compileScheduler[0].getRunning()).isZero();
+    }
+
+    @Test
+    void whenListenerThrows_shouldReleaseTheSlot() {
+        CompileScheduler compileScheduler = CompileScheduler.builder()
+                .withMaxConcurrentCompilations(1)
+                .withQueueWaitListener((priority, nanos) -> {
+                    throw new IllegalStateException("metrics are down");
+                })
+                .build();
+
+        Assertions.assertThatThrownBy(() -> compileScheduler.acquire(CompilationPriority.INTERACTIVE))
+                .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(compileScheduler.getRunning()).isZero();
+    }
+
+    @Test
+    void whenTenantsAreWaiting_shouldShareTheSlotsByWeight() throws Exception {
+        CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(1).build();
+        compileScheduler.register("heavy", 2, Integer.MAX_VALUE);
+        compileScheduler.register("light", 1, Integer.MAX_VALUE);
+        List<String> admissionOrder = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE);
+            List<CompletableFuture<Void>> waiting = new CopyOnWriteArrayList<>();
+            int queued = 0;
+            for (String tenant : new String[]{"heavy", "heavy", "heavy", "heavy", "light", "light", "light", "light"}) {
+                waiting.add(CompletableFuture.runAsync(() -> {
+                    try (CompileScheduler.Permit tenantPermit = compileScheduler.acquire(CompilationPriority.INTERACTIVE, tenant, 1)) {
+                        admissionOrder.add(tenant);
+                    }
+                }, executor));
+                awaitQueued(compileScheduler, CompilationPriority.INTERACTIVE, ++queued);
+            }
+
+            permit.close();
+            CompletableFuture.allOf(waiting.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertThat(admissionOrder).containsExactly("heavy", "light", "heavy", "heavy", "light", "heavy",
+                "light", "light");
+        Assertions.assertThat(compileScheduler.getUsage("heavy").admitted).isEqualTo(4);
+        Assertions.assertThat(compileScheduler.getUsage("light").maxQueueWaitNanos).isPositive();
+    }
+
+    @Test
+    void whenTenantIsAtItsLimit_shouldAdmitOtherTenantsToTheFreeSlots() throws Exception {
+        CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(2).build();
+        compileScheduler.register("limited", 1, 1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CompileScheduler.Permit permit = compileScheduler.acquire(CompilationPriority.INTERACTIVE, "limited", 1);
+            CompletableFuture<Void> limited = CompletableFuture.runAsync(() ->
+                    compileScheduler.acquire(CompilationPriority.INTERACTIVE, "limited", 1).close(), executor);
+            awaitQueued(compileScheduler, CompilationPriority.INTERACTIVE, 1);
+
+            try (CompileScheduler.Permit other = compileScheduler.acquire(CompilationPriority.INTERACTIVE, "other", 1)) {
+                Assertions.assertThat(compileScheduler.getRunning()).isEqualTo(2);
+                Assertions.assertThat(limited).isNotDone();
+            }
+            permit.close();
+            limited.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertThat(compileScheduler.getUsage("limited").admitted).isEqualTo(2);
+        Assertions.assertThat(compileScheduler.getRunning()).isZero();
+    }
+
+    private CompletableFuture<Void> acquireAsync(CompileScheduler compileScheduler, CompilationPriority priority,
+                                                 List<CompilationPriority> admissionOrder) {
+        return CompletableFuture.runAsync(() -> {
+            try (CompileScheduler.Permit permit = compileScheduler.acquire(priority)) {
+                admissionOrder.add(priority);
+            }
+        });
+    }
+
+    private void awaitQueued(CompileScheduler compileScheduler, CompilationPriority priority, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (compileScheduler.getStatistics(priority).getQueued() < queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertThat(compileScheduler.getStatistics(priority).getQueued()).isEqualTo(queued);
+    }
+}
@@ -0,0 +1,98 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.ToolProvider;
+
+class CompilerBackendTest {
+
+    @Test
+    void whenBackendIsConfigured_shouldCompileWithItAndCacheAsUsual() throws Exception {
+        CountingBackend backend = new CountingBackend(new JavaCompilerBackend(ToolProvider.getSystemJavaCompiler()));
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+        try {
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            ClassLoader parent = new ByteReactorTest.TestClassLoader();
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent))
+                    .isSameAs(klass);
+            Assertions.assertThat(backend.compilations.get()).isEqualTo(1);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenBackendAttachesBytecode_shouldDefineIt() throws Exception {
+        byte[] bytecode = compile(TestSources.getCodeFromFile("SimpleJavaClass.java"));
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend((compilationUnits, context) -> context.addCompiledClass(compilationUnits.get(0),
+                        ByteReactorTest.SIMPLE_TEST_CLASS_NAME, bytecode.clone()))
+                .build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest("not compiled", ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenBackendFails_shouldPassItsDiagnostics() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend(new CountingBackend(JavaCompilerBackend.javac()))
+                .build();
+        try {
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("InvalidCode.java"),
+                            ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOfSatisfying(CompilationFailedException.class, e ->
+                            Assertions.assertThat(e.getDiagnostics()).isNotEmpty());
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenJavacBackendIsClosed_shouldCompileLaterSourcesWithFreshFileManagers() throws Exception {
+        JavaCompilerBackend backend = JavaCompilerBackend.javac();
+        String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+        Assertions.assertThat(compile(backend, code)).isNotEmpty();
+        backend.close();
+        Assertions.assertThat(compile(backend, code)).isNotEmpty();
+    }
+
+    private static byte[] compile(String code) {
+        return compile(JavaCompilerBackend.javac(), code);
+    }
+
+    private static byte[] compile(JavaCompilerBackend backend, String code) {
+        CompilationUnit compilationUnit = new CompilationUnit(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME, null);
+        backend.compile(Collections.singletonList(compilationUnit),
+                new CompilerContext(Collections.emptyList(), Collections.emptySet(), new GenericDiagnosticListener(),
+                        null, Collections.emptyMap(), null, CompilationDeadline.NONE));
+        return compilationUnit.getCompiledClasses().get(ByteReactorTest.SIMPLE_TEST_CLASS_NAME).getByteCode();
+    }
+
+    private static final class CountingBackend implements CompilerBackend {
+        private final CompilerBackend delegate;
+        private final AtomicInteger compilations = new AtomicInteger();
+
+        private CountingBackend(CompilerBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void compile(List<CompilationUnit> compilationUnits, CompilerContext context) {
+            compilations.incrementAndGet();
+            delegate.compile(compilationUnits, context);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
+class CompilerWorkerPoolTest {
+
+    private static final String TEST_PACKAGE_NAME = "com.rubenmathews.bytereactor";
+    private static CompilerWorkerPool compilerWorkerPool;
+
+    @BeforeAll
+    static void startPool() {
+        compilerWorkerPool = CompilerWorkerPool.builder()
+                .withWorkers(1)
+                .withMaxHeap("256m")
+                .withMaxCompilationsPerWorker(2)
+                .build();
+    }
+
+    @AfterAll
+    static void closePool() {
+        compilerWorkerPool.close();
+    }
+
+    @Test
+    void whenCompiledInWorker_shouldLoadTheClassLocally() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(compilerWorkerPool).build();
+        try {
+            String code = TestSources.getCodeFromFile("InnerClassWithMultipleClass.java");
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, TEST_PACKAGE_NAME + ".InnerClassWithMultipleClass"));
+            TestRunnable runner = (TestRunnable) klass.getDeclaredConstructor().newInstance();
+            Assertions.assertThat(runner.run()).isEqualTo("Response From Inner Class.Result From Another class");
+            Assertions.assertThat(klass.getClassLoader()).isInstanceOf(DynamicClassLoader.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenBatchIsCompiledInWorker_shouldLoadAllClasses() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(compilerWorkerPool).build();
+        try {
+            CompilationRequestBatch batch = CompilationRequestBatch.builder()
+                    .add(TestSources.getCodeFromFile("MultipleClass.java"), TEST_PACKAGE_NAME + ".MultipleClass")
+                    .add(Paths.get("src/test/resources/SimpleJavaClass.java").toFile(), TEST_PACKAGE_NAME + ".SimpleJavaClass")
+                    .build();
+            Map<String, Class<?>> classes = byteReactor.loadClasses(batch, new ByteReactorTest.TestClassLoader());
+            TestRunnable runner = (TestRunnable) classes.get(TEST_PACKAGE_NAME + ".SimpleJavaClass").getDeclaredConstructor().newInstance();
+            Assertions.assertThat(runner.run()).isEqualTo("Test");
+            Assertions.assertThat(classes).containsKey(TEST_PACKAGE_NAME + ".MultipleClass");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenInvalidCodeIsCompiledInWorker_shouldThrowCompilationFailedException() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(compilerWorkerPool).build();
+        try {
+            CompilationRequest compilationRequest = new CompilationRequest(TestSources.getCodeFromFile("InvalidCode.java"), TEST_PACKAGE_NAME + ".InvalidCode");
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest))
+                    .isExactlyInstanceOf(CompilationFailedException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenWorkerFailsWithoutJavacErrors_shouldNotCacheTheFailure() throws Exception {
+        // an anonymous processor has no no argument constructor, the worker cannot instantiate it
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerWorkerPool(compilerWorkerPool)
+                .withProcessor(new CountingProcessor() { })
+                .withFailedCompilationCache(16, Duration.ofMinutes(1))
+                .build();
+        try {
+            CompilationRequest compilationRequest = new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME);
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, new ByteReactorTest.TestClassLoader()))
+                        .isInstanceOfSatisfying(CompilationFailedException.class, e -> {
+                            Assertions.assertThat(e).hasMessageContaining("Unable to instantiate processor");
+                            Assertions.assertThat(e.hasErrors()).isFalse();
+                        });
+            }
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenWorkerReachesMaxCompilations_shouldStartANewWorker() throws Exception {
+        try (CompilerWorkerPool pool = CompilerWorkerPool.builder().withWorkers(1).withMaxCompilationsPerWorker(1).build()) {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(pool).build();
+            try {
+                String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+                byteReactor.loadClass(new CompilationRequest(code, TEST_PACKAGE_NAME + ".SimpleJavaClass"), new ByteReactorTest.TestClassLoader());
+                byteReactor.loadClass(new CompilationRequest(code, TEST_PACKAGE_NAME + ".SimpleJavaClass"), new ByteReactorTest.TestClassLoader());
+                Assertions.assertThat(pool.getStartedWorkers()).isEqualTo(2);
+            } finally {
+                byteReactor.close();
+            }
+        }
+    }
+
+    @Test
+    void whenWorkerExceedsTimeout_shouldKillTheWorkerAndThrowCompilationTimeoutException() throws Exception {
+        try (CompilerWorkerPool pool = CompilerWorkerPool.builder().withWorkers(1).build()) {
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(pool).build();
+            try {
+                String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+                // the first compilation includes the start of the worker JVM, which takes far longer
+                CompilationRequest compilationRequest = new CompilationRequest(code, TEST_PACKAGE_NAME + ".SimpleJavaClass")
+                        .withTimeout(Duration.ofMillis(1));
+                Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, new ByteReactorTest.TestClassLoader()))
+                        .isInstanceOf(CompilationTimeoutException.class);
+
+                byteReactor.loadClass(new CompilationRequest(code, TEST_PACKAGE_NAME + ".SimpleJavaClass"), new ByteReactorTest.TestClassLoader());
+                Assertions.assertThat(pool.getStartedWorkers()).isEqualTo(2);
+            } finally {
+                byteReactor.close();
+            }
+        }
+    }
+
+    @Test
+    void whenPoolIsClosed_shouldRejectCompilation() throws Exception {
+        CompilerWorkerPool pool = CompilerWorkerPool.builder().withWorkers(1).build();
+        pool.close();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerWorkerPool(pool).build();
+        try {
+            CompilationRequest compilationRequest = new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"), TEST_PACKAGE_NAME + ".SimpleJavaClass");
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("closed");
+        } finally {
+            byteReactor.close();
+        }
+    }
+}
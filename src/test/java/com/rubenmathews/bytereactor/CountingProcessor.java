@@ -0,0 +1,39 @@
+package com.rubenmathews.bytereactor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the compilations it takes part in, javac initialises a processor once per compilation.
+ */
+@SupportedAnnotationTypes("*")
+public class CountingProcessor extends AbstractProcessor {
+
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        // AbstractProcessor refuses to be initialised more than once
+        compilations.incrementAndGet();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        return false;
+    }
+
+    public int getCompilations() {
+        return compilations.get();
+    }
+}
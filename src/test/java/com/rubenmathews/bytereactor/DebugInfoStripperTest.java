@@ -0,0 +1,121 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class DebugInfoStripperTest {
+
+    private static final String CLASS_NAME = "com.rubenmathews.bytereactor.DebugInfoJavaClass";
+    private static final String EXPECTED_RESULT = "A0B1C?D3-1234567890126";
+
+    @Test
+    void whenStripperIsConfigured_shouldRemoveLocalVariableTablesAndKeepLineNumbers() throws Exception {
+        DebugInfoStripper stripper = DebugInfoStripper.builder().build();
+        Map<String, byte[]> bytecode = new HashMap<>();
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withBytecodeTransformer(stripper)
+                .withBytecodeTransformer((className, classBytes) -> {
+                    bytecode.put(className, classBytes);
+                    return classBytes;
+                })
+                .build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(getCode(), CLASS_NAME), new ByteReactorTest.TestClassLoader());
+            TestRunnable runner = (TestRunnable) klass.getDeclaredConstructor().newInstance();
+            Assertions.assertThat(runner.run()).isEqualTo(EXPECTED_RESULT);
+            Assertions.assertThat(klass.getMethod("lineOfFailure").invoke(runner)).isNotEqualTo("-1");
+
+            // javac before Java 11 adds a synthetic class for the private constructor of Inner
+            Assertions.assertThat(bytecode).containsKeys(CLASS_NAME, CLASS_NAME + "$Inner");
+            for (String className : new String[] {CLASS_NAME, CLASS_NAME + "$Inner"}) {
+                String classFile = new String(bytecode.get(className), StandardCharsets.ISO_8859_1);
+                Assertions.assertThat(classFile).doesNotContain("LocalVariableTable").contains("LineNumberTable");
+            }
+            Assertions.assertThat(stripper.getTransformedClasses()).isEqualTo(bytecode.size());
+            Assertions.assertThat(stripper.getBytesAfter()).isLessThan(stripper.getBytesBefore());
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenLineNumbersAreStripped_shouldRemoveTheLineNumberTable() throws Exception {
+        DebugInfoStripper stripper = DebugInfoStripper.builder().stripLineNumbers().stripSourceFile().build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withBytecodeTransformer(stripper).build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(getCode(), CLASS_NAME), new ByteReactorTest.TestClassLoader());
+            TestRunnable runner = (TestRunnable) klass.getDeclaredConstructor().newInstance();
+            Assertions.assertThat(runner.run()).isEqualTo(EXPECTED_RESULT);
+            Assertions.assertThat(klass.getMethod("lineOfFailure").invoke(runner)).isEqualTo("-1");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenConstantPoolIsCompacted_shouldKeepEveryClassOfTheLibraryVerifiable() throws Exception {
+        Path classes = Paths.get("target/classes");
+        Map<String, byte[]> rewritten = new HashMap<>();
+        List<String> classNames = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(classes.resolve("com/rubenmathews/bytereactor"), 1)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".class")).collect(Collectors.toList())) {
+                String className = classes.relativize(file).toString().replace('/', '.').replace(".class", "");
+                byte[] original = Files.readAllBytes(file);
+                byte[] stripped = ClassFileRewriter.rewrite(original,
+                        Collections.singleton("LocalVariableTable"), true);
+                Assertions.assertThat(stripped.length).isLessThanOrEqualTo(original.length);
+                rewritten.put(className, stripped);
+                classNames.add(className);
+            }
+        }
+        ClassLoader classLoader = new ChildFirstClassLoader(rewritten);
+        for (String className : classNames) {
+            // initializing links the class, which verifies the rewritten bytecode
+            Class<?> klass = Class.forName(className, true, classLoader);
+            Assertions.assertThat(klass.getClassLoader()).isSameAs(classLoader);
+            klass.getDeclaredMethods();
+            klass.getDeclaredFields();
+        }
+    }
+
+    private String getCode() throws IOException {
+        return new String(Files.readAllBytes(Paths.get("src/test/resources/DebugInfoJavaClass.java")));
+    }
+
+    private static final class ChildFirstClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        private ChildFirstClassLoader(Map<String, byte[]> classes) {
+            super(DebugInfoStripperTest.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                byte[] bytecode = classes.get(name);
+                if (bytecode == null) {
+                    return super.loadClass(name, resolve);
+                }
+                Class<?> klass = findLoadedClass(name);
+                if (klass == null) {
+                    klass = defineClass(name, bytecode, 0, bytecode.length);
+                }
+                return klass;
+            }
+        }
+    }
+}
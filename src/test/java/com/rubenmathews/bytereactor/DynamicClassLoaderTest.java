@@ -0,0 +1,99 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class DynamicClassLoaderTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void whenSameBytecodeIsDefinedTwice_shouldReturnTheDefinedClass() throws Exception {
+        DynamicClassLoader dynamicClassLoader = DynamicClassLoader.create(new ByteReactorTest.TestClassLoader());
+        byte[] byteCode = readClassFile(TestRunnable.class);
+
+        Class<?> klass = dynamicClassLoader.loadClass(byteCode);
+
+        Assertions.assertThat(klass.getName()).isEqualTo(TestRunnable.class.getName());
+        Assertions.assertThat(klass.getClassLoader()).isSameAs(dynamicClassLoader);
+        Assertions.assertThat(dynamicClassLoader.loadClass(byteCode.clone())).isSameAs(klass);
+    }
+
+    @Test
+    void whenDifferentBytecodeIsDefinedUnderTheSameName_shouldFailClearly() throws Exception {
+        DynamicClassLoader dynamicClassLoader = DynamicClassLoader.create(new ByteReactorTest.TestClassLoader());
+        byte[] byteCode = readClassFile(TestRunnable.class);
+        dynamicClassLoader.loadClass(byteCode);
+        byte[] otherByteCode = byteCode.clone();
+        // the minor version, any value is valid for the class file versions of Java 8
+        otherByteCode[5]++;
+
+        Assertions.assertThatThrownBy(() -> dynamicClassLoader.loadClass(otherByteCode))
+                .isInstanceOf(LinkageError.class)
+                .hasMessageContaining(TestRunnable.class.getName())
+                .hasMessageContaining("different bytecode");
+    }
+
+    @Test
+    void whenThreadsLoadClassesIntoTheSameParent_shouldDefineEachClassOnce() throws Exception {
+        String code = new String(Files.readAllBytes(Paths.get("src/test/resources/SimpleJavaClass.java")));
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Class<?>>> sameClass = new ArrayList<>();
+            List<Future<Class<?>>> ownClasses = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                String className = "com.example.Own" + thread;
+                String ownCode = "package com.example;\npublic class Own" + thread + " {}\n";
+                sameClass.add(executor.submit(() -> {
+                    start.await();
+                    return byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                            parent);
+                }));
+                ownClasses.add(executor.submit(() -> {
+                    start.await();
+                    return byteReactor.loadClass(new CompilationRequest(ownCode, className), parent);
+                }));
+            }
+            start.countDown();
+
+            Class<?> klass = sameClass.get(0).get();
+            for (Future<Class<?>> future : sameClass) {
+                Assertions.assertThat(future.get()).isSameAs(klass);
+            }
+            for (int thread = 0; thread < THREADS; thread++) {
+                Class<?> ownClass = ownClasses.get(thread).get();
+                Assertions.assertThat(ownClass.getName()).isEqualTo("com.example.Own" + thread);
+                Assertions.assertThat(ownClass.getClassLoader()).isSameAs(klass.getClassLoader());
+            }
+        } finally {
+            executor.shutdownNow();
+            byteReactor.close();
+        }
+    }
+
+    private static byte[] readClassFile(Class<?> klass) throws Exception {
+        try (InputStream in = klass.getResourceAsStream(klass.getSimpleName() + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class FailedCompilationCacheTest {
+
+    private static final String INVALID_CLASS_NAME = "com.rubenmathews.bytereactor.InvalidCode";
+
+    @Test
+    void whenBrokenSourceIsResubmitted_shouldFailWithTheOriginalDiagnosticsWithoutCompiling() throws Exception {
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withProcessor(processor)
+                .withFailedCompilationCache(16, Duration.ofMinutes(1))
+                .build();
+        try {
+            String code = TestSources.getCodeFromFile("InvalidCode.java");
+            CompilationFailedException failure = catchFailure(byteReactor, code);
+            Assertions.assertThat(failure.getDiagnostics())
+                    .anySatisfy(diagnostic -> {
+                        Assertions.assertThat(diagnostic.getKind()).isEqualTo(Diagnostic.Kind.ERROR);
+                        Assertions.assertThat(diagnostic.getClassName()).isEqualTo(INVALID_CLASS_NAME);
+                        Assertions.assertThat(diagnostic.getLineNumber()).isEqualTo(7);
+                    });
+
+            CompilationFailedException cachedFailure = catchFailure(byteReactor, code);
+            Assertions.assertThat(cachedFailure).isExactlyInstanceOf(CompilationFailedException.class)
+                    .hasMessageContaining("failed before");
+            Assertions.assertThat(cachedFailure.getDiagnostics())
+                    .extracting(CompilationDiagnostic::toString)
+                    .isEqualTo(failure.getDiagnostics().stream().map(CompilationDiagnostic::toString)
+                            .collect(Collectors.toList()));
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+
+            catchFailure(byteReactor, code + "\n");
+            Assertions.assertThat(processor.getCompilations()).as("a changed source is compiled again").isEqualTo(2);
+
+            byteReactor.clearCache();
+            catchFailure(byteReactor, code);
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(3);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenFailureExpires_shouldForgetIt() throws Exception {
+        FailedCompilationCache cache = new FailedCompilationCache(4, Duration.ofMillis(20));
+        cache.put("broken", Collections.emptyList());
+
+        Assertions.assertThat(cache.get("broken")).isEmpty();
+        Thread.sleep(40);
+        Assertions.assertThat(cache.get("broken")).isNull();
+        Assertions.assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void whenCacheIsFull_shouldForgetTheLeastRecentlyUsedFailure() {
+        FailedCompilationCache cache = new FailedCompilationCache(2, Duration.ofMinutes(1));
+        List<CompilationDiagnostic> diagnostics = Collections.emptyList();
+        cache.put("first", diagnostics);
+        cache.put("second", diagnostics);
+        cache.get("first");
+        cache.put("third", diagnostics);
+
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.get("first")).isNotNull();
+        Assertions.assertThat(cache.get("second")).isNull();
+        Assertions.assertThat(cache.get("third")).isNotNull();
+    }
+
+    @Test
+    void whenSourcesOptionsOrClassPathDiffer_shouldFingerprintThemDifferently() {
+        List<String> options = Collections.singletonList("-g");
+        String fingerprint = SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A {}", "A", null)), options, Collections.emptySet(), "");
+
+        Assertions.assertThat(SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A {}", "A", null)), options, Collections.emptySet(), ""))
+                .isEqualTo(fingerprint)
+                .hasSize(64);
+        Assertions.assertThat(SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A { }", "A", null)), options, Collections.emptySet(), ""))
+                .isNotEqualTo(fingerprint);
+        Assertions.assertThat(SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A {}", "A", null)), Collections.emptyList(), Collections.emptySet(), ""))
+                .isNotEqualTo(fingerprint);
+        Assertions.assertThat(SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A {}", "A", null)), options,
+                Collections.singleton(new CountingProcessor()), ""))
+                .isNotEqualTo(fingerprint);
+        Assertions.assertThat(SourceFingerprint.of(Collections.singletonList(
+                new CompilationUnit("class A {}", "A", null)), options, Collections.emptySet(),
+                SourceFingerprint.ofClassPath(Collections.singletonList(new File("lib.jar")))))
+                .isNotEqualTo(fingerprint);
+    }
+
+    private static CompilationFailedException catchFailure(ByteReactor byteReactor, String code) {
+        CompilationRequest compilationRequest = new CompilationRequest(code, INVALID_CLASS_NAME);
+        Throwable failure = Assertions.catchThrowable(() -> byteReactor.loadClass(compilationRequest));
+        Assertions.assertThat(failure).isInstanceOf(CompilationFailedException.class);
+        return (CompilationFailedException) failure;
+    }
+}
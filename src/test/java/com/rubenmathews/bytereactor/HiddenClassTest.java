@@ -0,0 +1,76 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.lang.invoke.MethodHandles;
+
+@EnabledForJreRange(min = JRE.JAVA_15)
+class HiddenClassTest {
+
+    private static final String SIMPLE_TEST_CLASS_NAME = "com.rubenmathews.bytereactor.SimpleJavaClass";
+
+    @Test
+    void whenHiddenClassModeIsEnabled_shouldDefineTheClassAsHiddenClass() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withHiddenClasses(MethodHandles.lookup()).build();
+        try {
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME));
+            Assertions.assertThat(isHidden(klass)).isTrue();
+            Assertions.assertThat(klass.getClassLoader()).isEqualTo(HiddenClassTest.class.getClassLoader());
+            TestRunnable runner = byteReactor.factory(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME), TestRunnable.class).get();
+            Assertions.assertThat(runner.run()).isEqualTo("Test");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSameClassIsLoadedTwice_shouldDefineTwoIndependentClasses() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withHiddenClasses(MethodHandles.lookup()).build();
+        try {
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            Class<?> klass1 = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME));
+            Class<?> klass2 = byteReactor.loadClass(new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME));
+            Assertions.assertThat(klass1).isNotEqualTo(klass2);
+            Assertions.assertThat(klass1.getName()).startsWith(SIMPLE_TEST_CLASS_NAME + "/");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSourceCompilesToMultipleClasses_shouldThrowIllegalArgumentException() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withHiddenClasses(MethodHandles.lookup()).build();
+        try {
+            String code = TestSources.getCodeFromFile("MultipleClass.java");
+            CompilationRequest compilationRequest = new CompilationRequest(code, "com.rubenmathews.bytereactor.MultipleClass");
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("to compile to a single class");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenClassLoaderIsGivenInHiddenClassMode_shouldThrowUnsupportedOperationException() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withHiddenClasses(MethodHandles.lookup()).build();
+        try {
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            CompilationRequest compilationRequest = new CompilationRequest(code, SIMPLE_TEST_CLASS_NAME);
+            ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(compilationRequest, classLoader))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    // Class.isHidden exists since Java 15, the tests are compiled for Java 8
+    private static boolean isHidden(Class<?> klass) throws ReflectiveOperationException {
+        return (Boolean) Class.class.getMethod("isHidden").invoke(klass);
+    }
+}
@@ -0,0 +1,203 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+class HotReloaderTest {
+
+    private static final String GREETER = "package com.example;\n"
+            + "public class Greeter implements java.util.function.Supplier<String> {\n"
+            + "  public String get() { return \"Hello \" + new Name().value(); }\n"
+            + "}\n";
+    private static final String OTHER = "package com.example;\n"
+            + "public class Other implements java.util.function.Supplier<String> {\n"
+            + "  public String get() { return \"Other\"; }\n"
+            + "}\n";
+
+    @TempDir
+    Path tempDir;
+
+    private ByteReactor byteReactor;
+
+    @BeforeEach
+    void createSources() throws IOException {
+        write("Greeter.java", GREETER);
+        write("Name.java", name("World"));
+        write("Other.java", OTHER);
+        byteReactor = ByteReactorBuilder.builder().build();
+    }
+
+    @AfterEach
+    void closeByteReactor() {
+        byteReactor.close();
+    }
+
+    @Test
+    void whenSourceChanges_shouldRecompileItAndItsDependentsIntoANewGeneration() throws Exception {
+        AtomicReference<Set<String>> recompiledClasses = new AtomicReference<>();
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir)
+                .withListener((previous, current, recompiled) -> recompiledClasses.set(recompiled))
+                .build()) {
+            ClassGeneration first = hotReloader.getGeneration();
+            Assertions.assertThat(first.getNumber()).isEqualTo(1);
+            Assertions.assertThat(get(first, "com.example.Greeter")).isEqualTo("Hello World");
+
+            Path name = write("Name.java", name("Reload"));
+            ClassGeneration second = hotReloader.reload(Collections.singleton(name));
+
+            Assertions.assertThat(second.getNumber()).isEqualTo(2);
+            Assertions.assertThat(hotReloader.getGeneration()).isSameAs(second);
+            Assertions.assertThat(second.getClassLoader()).isNotSameAs(first.getClassLoader());
+            Assertions.assertThat(recompiledClasses.get()).containsExactlyInAnyOrder("com.example.Greeter", "com.example.Name");
+            Assertions.assertThat(get(second, "com.example.Greeter")).isEqualTo("Hello Reload");
+            Assertions.assertThat(get(second, "com.example.Other")).isEqualTo("Other");
+            Assertions.assertThat(get(first, "com.example.Greeter")).isEqualTo("Hello World");
+        }
+    }
+
+    @Test
+    void whenChangedSourceDoesNotCompile_shouldKeepTheLiveGeneration() throws Exception {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ReloadListener listener = new ReloadListener() {
+            @Override
+            public void reloaded(ClassGeneration previous, ClassGeneration current, Set<String> recompiledClasses) {
+            }
+
+            @Override
+            public void reloadFailed(Set<Path> changedSources, RuntimeException e) {
+                failure.set(e);
+            }
+        };
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir).withListener(listener).build()) {
+            Path name = write("Name.java", "package com.example; class Name { invalid }");
+            Assertions.assertThatThrownBy(() -> hotReloader.reload(Collections.singleton(name)))
+                    .isInstanceOf(CompilationFailedException.class);
+            Assertions.assertThat(failure.get()).isInstanceOf(CompilationFailedException.class);
+            Assertions.assertThat(hotReloader.getGeneration().getNumber()).isEqualTo(1);
+            Assertions.assertThat(get(hotReloader.getGeneration(), "com.example.Greeter")).isEqualTo("Hello World");
+        }
+    }
+
+    @Test
+    void whenSourceIsDeleted_shouldRemoveItsClassesFromTheNextGeneration() throws Exception {
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir).build()) {
+            Path other = tempDir.resolve("com/example/Other.java");
+            Files.delete(other);
+            ClassGeneration generation = hotReloader.reload(Collections.singleton(other));
+            Assertions.assertThat(generation.getClassNames()).containsExactlyInAnyOrder("com.example.Greeter", "com.example.Name");
+            Assertions.assertThatThrownBy(() -> generation.getClass("com.example.Other"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void whenSourceIsSavedOnDisk_shouldReloadThroughTheWatchService() throws Exception {
+        CountDownLatch reloaded = new CountDownLatch(1);
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir)
+                .withListener((previous, current, recompiled) -> reloaded.countDown())
+                .build()) {
+            write("Name.java", name("Watch"));
+            Assertions.assertThat(reloaded.await(30, TimeUnit.SECONDS)).isTrue();
+            Assertions.assertThat(get(hotReloader.getGeneration(), "com.example.Greeter")).isEqualTo("Hello Watch");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenReloadOnlyChangesMethodBodies_shouldRedefineTheLiveClassesInPlace() throws Exception {
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir)
+                .withInstrumentation(ByteReactorAgent.install())
+                .build()) {
+            ClassGeneration first = hotReloader.getGeneration();
+            Class<?> greeter = first.getClass("com.example.Greeter");
+            Supplier<String> instance = (Supplier<String>) greeter.getDeclaredConstructor().newInstance();
+            Assertions.assertThat(instance.get()).isEqualTo("Hello World");
+
+            ClassGeneration second = hotReloader.reload(Collections.singleton(write("Name.java", name("Redefined"))));
+
+            Assertions.assertThat(second.getNumber()).isEqualTo(2);
+            Assertions.assertThat(second.getClassLoader()).isSameAs(first.getClassLoader());
+            Assertions.assertThat(second.getClass("com.example.Greeter")).isSameAs(greeter);
+            Assertions.assertThat(instance.get()).isEqualTo("Hello Redefined");
+            Assertions.assertThat(get(second, "com.example.Other")).isEqualTo("Other");
+        }
+    }
+
+    @Test
+    void whenReloadChangesTheShapeOfAClass_shouldReloadIntoANewClassLoader() throws Exception {
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir)
+                .withInstrumentation(ByteReactorAgent.install())
+                .build()) {
+            ClassGeneration first = hotReloader.getGeneration();
+            Assertions.assertThat(get(first, "com.example.Greeter")).isEqualTo("Hello World");
+
+            Path name = write("Name.java", "package com.example;\nclass Name {\n"
+                    + "  private final String value = \"Field\";\n"
+                    + "  String value() { return value; }\n}\n");
+            ClassGeneration second = hotReloader.reload(Collections.singleton(name));
+
+            Assertions.assertThat(second.getClassLoader()).isNotSameAs(first.getClassLoader());
+            Assertions.assertThat(get(second, "com.example.Greeter")).isEqualTo("Hello Field");
+            Assertions.assertThat(get(first, "com.example.Greeter")).isEqualTo("Hello World");
+        }
+    }
+
+    @Test
+    void whenRedefinitionFails_shouldKeepTheLiveGenerationUnchanged() throws Exception {
+        Instrumentation agent = ByteReactorAgent.install();
+        Instrumentation failing = (Instrumentation) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Instrumentation.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("redefineClasses")) {
+                        throw new UnmodifiableClassException("Not redefinable");
+                    }
+                    return method.invoke(agent, args);
+                });
+        try (HotReloader hotReloader = HotReloader.builder(byteReactor, tempDir)
+                .withInstrumentation(failing)
+                .build()) {
+            ClassGeneration first = hotReloader.getGeneration();
+            Class<?> greeter = first.getClass("com.example.Greeter");
+
+            ClassGeneration second = hotReloader.reload(Collections.singleton(write("Name.java", name("Failed"))));
+
+            Assertions.assertThat(second.getClassLoader()).isNotSameAs(first.getClassLoader());
+            Assertions.assertThat(get(second, "com.example.Greeter")).isEqualTo("Hello Failed");
+            Assertions.assertThat(first.getClass("com.example.Greeter")).isSameAs(greeter);
+            Assertions.assertThat(get(first, "com.example.Greeter")).isEqualTo("Hello World");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String get(ClassGeneration generation, String className) throws Exception {
+        Class<?> klass = generation.getClass(className);
+        return ((Supplier<String>) klass.getDeclaredConstructor().newInstance()).get();
+    }
+
+    private String name(String value) {
+        return "package com.example;\nclass Name {\n  String value() { return \"" + value + "\"; }\n}\n";
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path path = tempDir.resolve("com/example").resolve(fileName);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
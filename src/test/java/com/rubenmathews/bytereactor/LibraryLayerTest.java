@@ -0,0 +1,122 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+class LibraryLayerTest {
+
+    private static final String HELPER = "package com.example.lib;\n"
+            + "public final class Helper {\n"
+            + "  public static String greet(String name) { return \"Hello \" + name; }\n"
+            + "}\n";
+
+    @Test
+    void whenTenantsLoadCodeBelowALayer_shouldShareTheLibraryAndCompileItOnce() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        ByteReactor byteReactor = countingByteReactor(compilations);
+        try {
+            LibraryLayer library = LibraryLayer.builder(byteReactor,
+                    CompilationRequestBatch.builder().add(HELPER, "com.example.lib.Helper").build())
+                    .withParentClassLoader(getClass().getClassLoader())
+                    .build();
+            TenantNamespace acme = byteReactor.namespace("acme");
+            TenantNamespace globex = byteReactor.namespace("globex");
+
+            Class<?> acmeRule = acme.loadClass(new CompilationRequest(rule("acme"), "com.example.Rule"),
+                    library.getClassLoader());
+            Class<?> globexRule = globex.loadClass(new CompilationRequest(rule("globex"), "com.example.Rule"),
+                    library.getClassLoader());
+
+            Assertions.assertThat(get(acmeRule)).isEqualTo("Hello acme");
+            Assertions.assertThat(get(globexRule)).isEqualTo("Hello globex");
+            Assertions.assertThat(acmeRule.getClassLoader()).isNotSameAs(globexRule.getClassLoader());
+            Assertions.assertThat(acmeRule.getClassLoader().getParent()).isSameAs(library.getClassLoader());
+            Assertions.assertThat(library.getClass("com.example.lib.Helper").getClassLoader())
+                    .isSameAs(library.getClassLoader());
+            Assertions.assertThat(compilations.get()).isEqualTo(3);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSameCodeIsLoadedBelowALayerAgain_shouldCompileItOnce() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        ByteReactor byteReactor = countingByteReactor(compilations);
+        try {
+            LibraryLayer library = LibraryLayer.builder(byteReactor,
+                    CompilationRequestBatch.builder().add(HELPER, "com.example.lib.Helper").build())
+                    .build();
+            ClassLoader request = new ClassLoader(library.getClassLoader()) {
+            };
+
+            Class<?> first = byteReactor.loadClass(new CompilationRequest(rule("cached"), "com.example.Rule"),
+                    library.getClassLoader());
+            Class<?> second = byteReactor.loadClass(new CompilationRequest(rule("cached"), "com.example.Rule"),
+                    request);
+
+            Assertions.assertThat(second).isNotSameAs(first);
+            Assertions.assertThat(get(second)).isEqualTo("Hello cached");
+            Assertions.assertThat(compilations.get()).isEqualTo(2);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenLayersAreStacked_shouldCompileEachLayerAgainstTheLayersAboveIt() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            LibraryLayer base = LibraryLayer.builder(byteReactor,
+                    CompilationRequestBatch.builder().add(HELPER, "com.example.lib.Helper").build())
+                    .build();
+            LibraryLayer rules = LibraryLayer.builder(byteReactor,
+                    CompilationRequestBatch.builder().add("package com.example.lib;\n"
+                            + "public final class Shout {\n"
+                            + "  public static String shout(String name) { return Helper.greet(name) + \"!\"; }\n"
+                            + "}\n", "com.example.lib.Shout").build())
+                    .withParentClassLoader(base.getClassLoader())
+                    .build();
+
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest("package com.example;\n"
+                    + "public class Loud implements java.util.function.Supplier<String> {\n"
+                    + "  public String get() { return com.example.lib.Shout.shout(\"layers\"); }\n"
+                    + "}\n", "com.example.Loud"), rules.getClassLoader());
+
+            Assertions.assertThat(get(klass)).isEqualTo("Hello layers!");
+            Assertions.assertThat(rules.getClassNames()).containsExactlyInAnyOrder("com.example.lib.Helper",
+                    "com.example.lib.Shout");
+            Assertions.assertThat(rules.getClass("com.example.lib.Helper")).isSameAs(base.getClass("com.example.lib.Helper"));
+            Assertions.assertThatThrownBy(() -> base.getClass("com.example.lib.Shout"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private static ByteReactor countingByteReactor(AtomicInteger compilations) {
+        CompilerBackend javac = JavaCompilerBackend.javac();
+        return ByteReactorBuilder.builder()
+                .withBytecodeCache(1 << 20)
+                .withCompilerBackend((compilationUnits, context) -> {
+                    compilations.incrementAndGet();
+                    javac.compile(compilationUnits, context);
+                })
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String get(Class<?> klass) throws Exception {
+        return ((Supplier<String>) klass.getDeclaredConstructor().newInstance()).get();
+    }
+
+    private static String rule(String name) {
+        return "package com.example;\n"
+                + "public class Rule implements java.util.function.Supplier<String> {\n"
+                + "  public String get() { return com.example.lib.Helper.greet(\"" + name + "\"); }\n"
+                + "}\n";
+    }
+}
@@ -0,0 +1,106 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+class PrecompiledArtifactTest {
+
+    private static final String MULTIPLE_CLASS_NAME = "com.rubenmathews.bytereactor.MultipleClass";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenSourcesWerePrecompiled_shouldLoadThemWithoutCompiling() throws Exception {
+        Path artifactFile = directory.resolve("precompiled.jar");
+        String simpleCode = TestSources.getCodeFromFile("SimpleJavaClass.java");
+        String multipleClassCode = TestSources.getCodeFromFile("MultipleClass.java");
+        writeArtifact(artifactFile, simpleCode, multipleClassCode);
+
+        PrecompiledArtifact artifact = PrecompiledArtifact.open(artifactFile);
+        Assertions.assertThat(artifact.getCompilationCount()).isEqualTo(2);
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withProcessor(processor)
+                .withPrecompiledArtifact(artifact)
+                .build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(simpleCode, ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+            Map<String, Class<?>> classes = byteReactor.loadClasses(CompilationRequestBatch.builder()
+                    .add(multipleClassCode, MULTIPLE_CLASS_NAME)
+                    .build(), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(classes).containsKey(MULTIPLE_CLASS_NAME);
+            Assertions.assertThat(processor.getCompilations()).isZero();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenSourceDoesNotMatchTheArtifact_shouldCompileIt() throws Exception {
+        Path artifactFile = directory.resolve("precompiled.jar");
+        writeArtifact(artifactFile, TestSources.getCodeFromFile("SimpleJavaClass.java"), TestSources.getCodeFromFile("MultipleClass.java"));
+
+        CountingProcessor processor = new CountingProcessor();
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withProcessor(processor)
+                .withPrecompiledArtifact(PrecompiledArtifact.open(artifactFile))
+                .build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClassWithDifferentContent.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test2");
+            Assertions.assertThat(processor.getCompilations()).isEqualTo(1);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenFileIsNotAnArtifact_shouldThrowException() throws Exception {
+        Path file = directory.resolve("other.jar");
+        Files.write(file, "not a zip".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThatThrownBy(() -> PrecompiledArtifact.open(file))
+                .isInstanceOf(CompilationFailedException.class);
+        Assertions.assertThatThrownBy(() -> PrecompiledArtifact.open(directory.resolve("missing.jar")))
+                .isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void whenCompilerClassPathIsGiven_shouldCompileAgainstIt() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerClassPath(Collections.singletonList(directory))
+                .build();
+        try {
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                            ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOf(CompilationFailedException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private static void writeArtifact(Path artifactFile, String simpleCode, String multipleClassCode) {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withProcessor(new CountingProcessor()).build();
+        try (PrecompiledArtifactWriter writer = PrecompiledArtifactWriter.create(byteReactor, artifactFile)) {
+            writer.add(new CompilationRequest(simpleCode, ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+            writer.add(CompilationRequestBatch.builder().add(multipleClassCode, MULTIPLE_CLASS_NAME).build());
+            writer.add(new CompilationRequest(simpleCode, ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+            Assertions.assertThat(writer.getCompilationCount()).isEqualTo(2);
+        } finally {
+            byteReactor.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.rubenmathews.bytereactor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.util.Set;
+
+/**
+ * Fails the compilation of classes whose simple name starts with Rejected, with an error which is
+ * not attributed to any source.
+ */
+@SupportedAnnotationTypes("*")
+public class RejectingProcessor extends AbstractProcessor {
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        // AbstractProcessor refuses to be initialised more than once
+        this.processingEnv = processingEnv;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getSimpleName().toString().startsWith("Rejected")) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Rejected " + element);
+            }
+        }
+        return false;
+    }
+}
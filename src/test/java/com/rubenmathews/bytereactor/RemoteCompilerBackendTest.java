@@ -0,0 +1,251 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RemoteCompilerBackendTest {
+
+    private final AtomicInteger serverCompilations = new AtomicInteger();
+    private final AtomicReference<RuntimeException> serverFailure = new AtomicReference<>();
+    private final AtomicReference<CompilationDeadline> serverDeadline = new AtomicReference<>();
+    private ByteReactor server;
+    private ServerSocket serverSocket;
+    private Path secretFile;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        CompilerBackend javac = JavaCompilerBackend.javac();
+        server = ByteReactorBuilder.builder()
+                .withBytecodeCache(1 << 20)
+                .withCompilerBackend((compilationUnits, context) -> {
+                    serverCompilations.incrementAndGet();
+                    serverDeadline.set(context.getDeadline());
+                    RuntimeException failure = serverFailure.get();
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    javac.compile(compilationUnits, context);
+                })
+                .build();
+        secretFile = directory.resolve("compile-server.secret");
+        CompileService compileService = new CompileService(server, CompileServerSecret.create(secretFile));
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    Thread connection = new Thread(() -> {
+                        try (Socket client = socket) {
+                            compileService.serve(client.getInputStream(), client.getOutputStream());
+                        } catch (IOException e) {
+                            // client went away
+                        }
+                    });
+                    connection.setDaemon(true);
+                    connection.start();
+                }
+            } catch (IOException e) {
+                // server socket closed
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        serverSocket.close();
+        server.close();
+    }
+
+    @Test
+    void whenClientsCompileTheSameSource_shouldCompileItOnceOnTheServer() throws Exception {
+        String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+        for (int client = 0; client < 2; client++) {
+            RemoteCompilerBackend backend = backend(serverSocket.getLocalPort());
+            ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+            try {
+                Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                        new ByteReactorTest.TestClassLoader());
+
+                Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+                Assertions.assertThat(klass.getClassLoader()).isInstanceOf(DynamicClassLoader.class);
+                Assertions.assertThat(backend.getRemoteCompilations()).isEqualTo(1);
+                Assertions.assertThat(backend.getFallbackCompilations()).isZero();
+            } finally {
+                byteReactor.close();
+                backend.close();
+            }
+        }
+        Assertions.assertThat(serverCompilations.get()).isEqualTo(1);
+    }
+
+    @Test
+    void whenServerIsDown_shouldCompileInProcess() throws Exception {
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        RemoteCompilerBackend backend = backend(port);
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(backend.getFallbackCompilations()).isEqualTo(1);
+            Assertions.assertThat(backend.getRemoteCompilations()).isZero();
+        } finally {
+            byteReactor.close();
+            backend.close();
+        }
+    }
+
+    @Test
+    void whenSourceDoesNotCompileOnTheServer_shouldFailWithItsDiagnostics() throws Exception {
+        RemoteCompilerBackend backend = backend(serverSocket.getLocalPort());
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+        try {
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("InvalidCode.java"),
+                            ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOfSatisfying(CompilationFailedException.class, e ->
+                            Assertions.assertThat(e.getDiagnostics()).extracting(CompilationDiagnostic::getClassName)
+                                    .contains(ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+            Assertions.assertThat(backend.getFallbackCompilations()).isZero();
+        } finally {
+            byteReactor.close();
+            backend.close();
+        }
+    }
+
+    @Test
+    void whenServerRejectsTheCompilation_shouldNotCacheTheFailure() throws Exception {
+        assertServerFailureIsNotCached(new CompilationRejectedException("Compile queue is full"));
+    }
+
+    @Test
+    void whenServerTimesOut_shouldNotCacheTheFailure() throws Exception {
+        assertServerFailureIsNotCached(new CompilationTimeoutException("Compilation did not finish within 1 ms"));
+    }
+
+    @Test
+    void whenClientHasATimeout_shouldSendTheTimeLeftToTheServer() throws Exception {
+        RemoteCompilerBackend backend = backend(serverSocket.getLocalPort());
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend(backend)
+                .withCompileTimeout(Duration.ofMinutes(1))
+                .build();
+        try {
+            byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(serverDeadline.get().isBounded()).isTrue();
+            Assertions.assertThat(serverDeadline.get().getRemainingNanos()).isLessThanOrEqualTo(Duration.ofMinutes(1).toNanos());
+        } finally {
+            byteReactor.close();
+            backend.close();
+        }
+    }
+
+    @Test
+    void whenClientDoesNotKnowTheSecret_shouldNotCompileOnTheServer() throws Exception {
+        Path otherSecret = directory.resolve("other.secret");
+        CompileServerSecret.create(otherSecret);
+        RemoteCompilerBackend backend = RemoteCompilerBackend.builder().withPort(serverSocket.getLocalPort())
+                .withSecretFile(otherSecret).build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompilerBackend(backend).build();
+        try {
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(backend.getFallbackCompilations()).isEqualTo(1);
+            Assertions.assertThat(serverCompilations.get()).isZero();
+        } finally {
+            byteReactor.close();
+            backend.close();
+        }
+    }
+
+    @Test
+    void whenSecretIsCreated_shouldOnlyBeReadableByTheOwner() throws Exception {
+        Assumptions.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        Assertions.assertThat(Files.getPosixFilePermissions(secretFile))
+                .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    }
+
+    @Test
+    void whenServerHasBytecodeTransformers_shouldNotServe() throws IOException {
+        ByteReactor transforming = ByteReactorBuilder.builder()
+                .withBytecodeTransformer((className, bytecode) -> bytecode)
+                .build();
+        CompileServerSecret secret = CompileServerSecret.read(secretFile);
+        try {
+            Assertions.assertThatThrownBy(() -> new CompileService(transforming, secret))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            transforming.close();
+        }
+    }
+
+    /*
+     * The fallback fails without errors as well, a failure cached by the client would fail the
+     * second compilation although the server is healthy again.
+     */
+    private void assertServerFailureIsNotCached(RuntimeException failure) throws Exception {
+        AtomicInteger fallbackCompilations = new AtomicInteger();
+        RemoteCompilerBackend backend = RemoteCompilerBackend.builder().withPort(serverSocket.getLocalPort())
+                .withSecretFile(secretFile)
+                .withFallback((compilationUnits, context) -> {
+                    fallbackCompilations.incrementAndGet();
+                    throw new CompilationFailedException("Compiling locally failed");
+                })
+                .build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder()
+                .withCompilerBackend(backend)
+                .withFailedCompilationCache(16, Duration.ofMinutes(1))
+                .build();
+        String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+        try {
+            serverFailure.set(failure);
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(code,
+                            ByteReactorTest.SIMPLE_TEST_CLASS_NAME), new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOf(CompilationFailedException.class)
+                    .hasMessage("Compiling locally failed");
+            Assertions.assertThat(fallbackCompilations.get()).isEqualTo(1);
+
+            serverFailure.set(null);
+            Class<?> klass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME),
+                    new ByteReactorTest.TestClassLoader());
+
+            Assertions.assertThat(((TestRunnable) klass.getDeclaredConstructor().newInstance()).run()).isEqualTo("Test");
+            Assertions.assertThat(serverCompilations.get()).isEqualTo(2);
+            Assertions.assertThat(fallbackCompilations.get()).isEqualTo(1);
+        } finally {
+            byteReactor.close();
+            backend.close();
+        }
+    }
+
+    private RemoteCompilerBackend backend(int port) {
+        return RemoteCompilerBackend.builder().withPort(port).withSecretFile(secretFile).build();
+    }
+}
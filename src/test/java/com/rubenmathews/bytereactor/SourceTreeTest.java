@@ -0,0 +1,162 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+class SourceTreeTest {
+
+    private static final String GREETER = "package com.example;\n"
+            + "public class Greeter implements java.util.function.Supplier<String> {\n"
+            + "  public String get() { return new Name().value(); }\n"
+            + "}\n";
+    private static final String NAME = "package com.example;\n"
+            + "class Name {\n"
+            + "  String value() { return \"Grüße\"; }\n"
+            + "}\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void whenDirectoryIsGiven_shouldInferClassNamesAndCompileAllSources() throws Exception {
+        write(tempDir.resolve("com/example/Greeter.java"), GREETER.getBytes(StandardCharsets.UTF_8));
+        write(tempDir.resolve("com/example/Name.java"), NAME.getBytes(StandardCharsets.UTF_8));
+        write(tempDir.resolve("com/example/package-info.java"), "package com.example;".getBytes(StandardCharsets.UTF_8));
+
+        SourceTree sourceTree = SourceTree.fromDirectory(tempDir).withParallelism(2).build();
+        Assertions.assertThat(sourceTree.getClassNames()).containsExactly("com.example.Greeter", "com.example.Name");
+        Assertions.assertThat(get(sourceTree)).isEqualTo("Grüße");
+    }
+
+    @Test
+    void whenCharsetIsGiven_shouldDecodeSourcesWithTheCharset() throws Exception {
+        write(tempDir.resolve("com/example/Greeter.java"), GREETER.getBytes(StandardCharsets.ISO_8859_1));
+        write(tempDir.resolve("com/example/Name.java"), NAME.getBytes(StandardCharsets.ISO_8859_1));
+
+        SourceTree sourceTree = SourceTree.fromDirectory(tempDir).withCharset(StandardCharsets.ISO_8859_1).build();
+        Assertions.assertThat(get(sourceTree)).isEqualTo("Grüße");
+    }
+
+    @Test
+    void whenSourceJarIsGiven_shouldCompileAllEntries() throws Exception {
+        Path sourceJar = tempDir.resolve("sources.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(sourceJar))) {
+            addEntry(out, "com/example/Greeter.java", GREETER);
+            addEntry(out, "com/example/Name.java", NAME);
+            addEntry(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n");
+        }
+
+        SourceTree sourceTree = SourceTree.fromJar(sourceJar).build();
+        Assertions.assertThat(sourceTree.getClassNames()).containsExactly("com.example.Greeter", "com.example.Name");
+        Assertions.assertThat(get(sourceTree)).isEqualTo("Grüße");
+    }
+
+    @Test
+    void whenFilterIsGiven_shouldOnlyIncludeMatchingClasses() throws Exception {
+        write(tempDir.resolve("com/example/Greeter.java"), GREETER.getBytes(StandardCharsets.UTF_8));
+        write(tempDir.resolve("com/example/Name.java"), NAME.getBytes(StandardCharsets.UTF_8));
+
+        SourceTree sourceTree = SourceTree.fromDirectory(tempDir)
+                .withFilter(className -> className.endsWith("Name"))
+                .build();
+        Assertions.assertThat(sourceTree.getClassNames()).containsExactly("com.example.Name");
+    }
+
+    @Test
+    void whenDirectoryDoesNotExist_shouldThrowFileNotFoundException() {
+        SourceTree.Builder builder = SourceTree.fromDirectory(tempDir.resolve("missing"));
+        Assertions.assertThatThrownBy(builder::build)
+                .isExactlyInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void whenFileIsUnchanged_shouldServeTheCachedContent() throws Exception {
+        Path source = tempDir.resolve("Name.java");
+        write(source, NAME.getBytes(StandardCharsets.UTF_8));
+        String content = SourceContentCache.read(source, StandardCharsets.UTF_8, false);
+        Assertions.assertThat(SourceContentCache.read(source, StandardCharsets.UTF_8, false)).isSameAs(content);
+
+        write(source, GREETER.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        Assertions.assertThat(SourceContentCache.read(source, StandardCharsets.UTF_8, false)).isEqualTo(GREETER);
+    }
+
+    @Test
+    void whenFileIsMalformedInCharset_shouldReplaceUnlessDecodingIsStrict() throws Exception {
+        Path source = tempDir.resolve("Name.java");
+        write(source, NAME.getBytes(StandardCharsets.ISO_8859_1));
+        Assertions.assertThat(SourceContentCache.read(source, StandardCharsets.UTF_8, false)).contains("Gr\ufffd");
+        Assertions.assertThatThrownBy(() -> SourceContentCache.read(source, StandardCharsets.UTF_8, true))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void whenSourceFileIsMalformedInCharset_shouldOnlyFailStrictCompilations() throws Exception {
+        Path source = tempDir.resolve("Name.java");
+        write(source, NAME.replace("class Name", "public class Name").getBytes(StandardCharsets.ISO_8859_1));
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            Assertions.assertThat(byteReactor.loadClass(new CompilationRequest(source.toFile(), StandardCharsets.UTF_8,
+                    "com.example.Name", null), new ByteReactorTest.TestClassLoader())).isNotNull();
+            Assertions.assertThatThrownBy(() -> byteReactor.loadClass(new CompilationRequest(source.toFile(),
+                            StandardCharsets.UTF_8, "com.example.Name", null).withStrictDecoding(),
+                            new ByteReactorTest.TestClassLoader()))
+                    .isInstanceOf(CompilationFailedException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenMoreFilesAreReadThanTheCacheHolds_shouldEvictTheLeastRecentlyRead() throws Exception {
+        SourceContentCache.clear();
+        Path first = tempDir.resolve("First.java");
+        write(first, NAME.getBytes(StandardCharsets.UTF_8));
+        String content = SourceContentCache.read(first, StandardCharsets.UTF_8, false);
+        for (int i = 0; i < SourceContentCache.MAX_ENTRIES; i++) {
+            Path source = tempDir.resolve("Source" + i + ".java");
+            write(source, NAME.getBytes(StandardCharsets.UTF_8));
+            SourceContentCache.read(source, StandardCharsets.UTF_8, false);
+        }
+
+        Assertions.assertThat(SourceContentCache.size()).isEqualTo(SourceContentCache.MAX_ENTRIES);
+        Assertions.assertThat(SourceContentCache.read(first, StandardCharsets.UTF_8, false)).isNotSameAs(content);
+        SourceContentCache.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String get(SourceTree sourceTree) throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            Map<String, Class<?>> classes = byteReactor.loadClasses(sourceTree.toBatch(), new ByteReactorTest.TestClassLoader());
+            Assertions.assertThat(classes).containsKeys("com.example.Greeter", "com.example.Name");
+            return ((Supplier<String>) classes.get("com.example.Greeter").getDeclaredConstructor().newInstance()).get();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private void write(Path path, byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content);
+    }
+
+    private void addEntry(ZipOutputStream out, String name, String content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        OutputStream entry = out;
+        entry.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,165 @@
+package com.rubenmathews.bytereactor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+
+class TenantNamespaceTest {
+
+    private static final String MULTIPLE_CLASS_NAME = "com.rubenmathews.bytereactor.MultipleClass";
+
+    @Test
+    void whenTenantsLoadTheSameClass_shouldDefineItInSeparateClassLoadersAndCaches() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            ClassLoader parent = new ByteReactorTest.TestClassLoader();
+            TenantNamespace acme = byteReactor.namespace("acme");
+            TenantNamespace globex = byteReactor.namespace("globex");
+
+            Class<?> acmeClass = acme.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+            Class<?> globexClass = globex.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+            Class<?> sharedClass = byteReactor.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+
+            Assertions.assertThat(acmeClass).isNotSameAs(globexClass).isNotSameAs(sharedClass);
+            Assertions.assertThat(acmeClass.getClassLoader()).isNotSameAs(globexClass.getClassLoader());
+            Assertions.assertThat(acmeClass.getClassLoader().getParent()).isSameAs(parent);
+            Assertions.assertThat(acme.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent))
+                    .isSameAs(acmeClass);
+            Assertions.assertThat(byteReactor.namespace("acme")).isSameAs(acme);
+
+            acme.clearCache();
+            Assertions.assertThat(acme.getStatistics().getClassLoaders()).isZero();
+            Assertions.assertThat(acme.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent))
+                    .isNotSameAs(acmeClass);
+            Assertions.assertThat(globex.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent))
+                    .isSameAs(globexClass);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenCompilationExceedsTheClassQuota_shouldRejectItWithoutDefiningClasses() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            TenantNamespace namespace = byteReactor.namespace("acme", TenantQuota.builder().withMaxClasses(2).build());
+            namespace.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+
+            CompilationRequest multipleClasses = new CompilationRequest(TestSources.getCodeFromFile("MultipleClass.java"),
+                    MULTIPLE_CLASS_NAME);
+            Assertions.assertThatThrownBy(() -> namespace.loadClass(multipleClasses))
+                    .isInstanceOf(CompilationRejectedException.class)
+                    .hasMessageContaining("Tenant [acme] would exceed its quota of 2 classes");
+
+            TenantStatistics statistics = namespace.getStatistics();
+            Assertions.assertThat(statistics.getClasses()).isEqualTo(1);
+            Assertions.assertThat(statistics.getBytecodeBytes()).isPositive();
+            Assertions.assertThat(statistics.getCompilations()).isEqualTo(2);
+            Assertions.assertThat(statistics.getQuotaRejections()).isEqualTo(1);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenCompileTimeOfTheWindowIsUsedUp_shouldRejectFurtherCompilations() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            TenantNamespace namespace = byteReactor.namespace("acme", TenantQuota.builder()
+                    .withMaxCompileTime(Duration.ofNanos(1), Duration.ofHours(1))
+                    .build());
+            String code = TestSources.getCodeFromFile("SimpleJavaClass.java");
+            namespace.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+
+            CompilationRequest secondRequest = new CompilationRequest(TestSources.getCodeFromFile("MultipleClass.java"),
+                    MULTIPLE_CLASS_NAME);
+            Assertions.assertThatThrownBy(() -> namespace.loadClass(secondRequest))
+                    .isInstanceOf(CompilationRejectedException.class)
+                    .hasMessageContaining("used up its compile time");
+            Assertions.assertThat(namespace.loadClass(new CompilationRequest(code, ByteReactorTest.SIMPLE_TEST_CLASS_NAME)))
+                    .as("cache hits are not compilations")
+                    .isNotNull();
+            Assertions.assertThat(namespace.getStatistics().getWindowCompileTimeNanos()).isPositive();
+
+            Assertions.assertThat(byteReactor.loadClass(secondRequest)).as("other tenants are unaffected").isNotNull();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenNamespaceLimitsConcurrentCompilations_shouldRequireAScheduler() {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            TenantQuota quota = TenantQuota.builder().withMaxConcurrentCompilations(1).build();
+            Assertions.assertThatThrownBy(() -> byteReactor.namespace("acme", quota))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("requires a CompileScheduler");
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenNamespaceUsesTheScheduler_shouldReportItsSchedulingStatistics() throws Exception {
+        CompileScheduler compileScheduler = CompileScheduler.builder().withMaxConcurrentCompilations(1).build();
+        ByteReactor byteReactor = ByteReactorBuilder.builder().withCompileScheduler(compileScheduler).build();
+        try {
+            TenantNamespace namespace = byteReactor.namespace("acme", TenantQuota.builder()
+                    .withWeight(3)
+                    .withMaxConcurrentCompilations(1)
+                    .build());
+            namespace.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                    ByteReactorTest.SIMPLE_TEST_CLASS_NAME));
+
+            TenantStatistics statistics = namespace.getStatistics();
+            Assertions.assertThat(statistics.getAdmitted()).isEqualTo(1);
+            Assertions.assertThat(statistics.getRunning()).isZero();
+            Assertions.assertThat(statistics.getQuota().getWeight()).isEqualTo(3);
+
+            namespace.close();
+            Assertions.assertThat(byteReactor.getNamespaces()).isEmpty();
+            Assertions.assertThatThrownBy(() -> namespace.loadClass(new CompilationRequest(
+                            TestSources.getCodeFromFile("SimpleJavaClass.java"), ByteReactorTest.SIMPLE_TEST_CLASS_NAME)))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    @Test
+    void whenParentOfANamespaceClassLoaderIsCollected_shouldReleaseItsQuota() throws Exception {
+        ByteReactor byteReactor = ByteReactorBuilder.builder().build();
+        try {
+            TenantNamespace namespace = byteReactor.namespace("acme", TenantQuota.builder().withMaxClasses(1).build());
+            WeakReference<ClassLoader> parent = loadInNewParent(namespace);
+            Assertions.assertThat(namespace.getStatistics().getClasses()).isEqualTo(1);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((parent.get() != null || namespace.getStatistics().getClasses() > 0)
+                    && System.currentTimeMillis() < deadline) {
+                System.gc();
+                Thread.sleep(10);
+            }
+
+            Assertions.assertThat(parent.get()).as("collected").isNull();
+            Assertions.assertThat(namespace.getStatistics().getClasses()).isZero();
+            Assertions.assertThat(namespace.getStatistics().getClassLoaders()).isZero();
+            Assertions.assertThat(loadInNewParent(namespace)).isNotNull();
+        } finally {
+            byteReactor.close();
+        }
+    }
+
+    private WeakReference<ClassLoader> loadInNewParent(TenantNamespace namespace) throws Exception {
+        ClassLoader parent = new ByteReactorTest.TestClassLoader();
+        Class<?> klass = namespace.loadClass(new CompilationRequest(TestSources.getCodeFromFile("SimpleJavaClass.java"),
+                ByteReactorTest.SIMPLE_TEST_CLASS_NAME), parent);
+        Assertions.assertThat(klass.getClassLoader().getParent()).isSameAs(parent);
+        return new WeakReference<>(parent);
+    }
+}
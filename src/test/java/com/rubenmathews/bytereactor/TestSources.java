@@ -0,0 +1,22 @@
+package com.rubenmathews.bytereactor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Reads the test sources in src/test/resources.
+ */
+final class TestSources {
+
+    private TestSources() {
+    }
+
+    static byte[] readResource(String fileName) throws IOException {
+        return Files.readAllBytes(Paths.get("src/test/resources", fileName));
+    }
+
+    static String getCodeFromFile(String fileName) throws IOException {
+        return new String(readResource(fileName));
+    }
+}
@@ -0,0 +1,16 @@
+package com.rubenmathews.bytereactor;
+
+public class ConstructorArgumentJavaClass implements TestRunnable {
+
+    private final String value;
+
+    public ConstructorArgumentJavaClass(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String run() {
+        return value;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.rubenmathews.bytereactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class DebugInfoJavaClass implements TestRunnable {
+
+    private static final long BIG = 1234567890123L;
+    private static final double RATIO = 0.75d;
+
+    @Deprecated
+    private final List<String> values = new ArrayList<>();
+
+    @Override
+    public String run() {
+        StringBuilder result = new StringBuilder();
+        for (int index = 0; index < 4; index++) {
+            values.add(dense(index) + sparse(index * 1000));
+        }
+        Function<String, String> upper = value -> value.toUpperCase();
+        for (String value : values) {
+            result.append(upper.apply(value));
+        }
+        try {
+            Object text = "x";
+            result.append(((Integer) text).intValue());
+        } catch (ClassCastException e) {
+            result.append(new Inner<String>("-").get());
+        }
+        result.append(BIG + (long) (RATIO * 4));
+        return result.toString();
+    }
+
+    public String lineOfFailure() {
+        return String.valueOf(new Throwable().getStackTrace()[0].getLineNumber());
+    }
+
+    private String dense(int value) {
+        switch (value) {
+            case 0:
+                return "a";
+            case 1:
+                return "b";
+            case 2:
+                return "c";
+            default:
+                return "d";
+        }
+    }
+
+    private String sparse(int value) {
+        switch (value) {
+            case 0:
+                return "0";
+            case 1000:
+                return "1";
+            case 3000:
+                return "3";
+            default:
+                return "?";
+        }
+    }
+
+    private static final class Inner<T> {
+        private final T value;
+
+        private Inner(T value) {
+            this.value = value;
+        }
+
+        private T get() {
+            return value;
+        }
+    }
+}